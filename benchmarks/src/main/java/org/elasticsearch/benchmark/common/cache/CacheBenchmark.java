@@ -0,0 +1,173 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.benchmark.common.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.WindowTinyLfuCache;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compares the throughput and hit rate of the {@link Cache} eviction policies. Each operation looks up a key from a pre-generated
+ * trace and loads it on a miss. The hit rate is reported through the {@code hits} and {@code misses} secondary results.
+ * <ul>
+ * <li>{@code zipfian}: keys are drawn from a Zipfian distribution over a key space ten times larger than the cache.</li>
+ * <li>{@code scan}: the Zipfian trace is interleaved with long scans over keys that are never used again.</li>
+ * </ul>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class CacheBenchmark {
+    private static final int TRACE_SIZE = 1 << 20;
+    private static final int TRACE_MASK = TRACE_SIZE - 1;
+
+    @Param({ "LRU", "WINDOW_TINY_LFU" })
+    private String evictionPolicy;
+
+    @Param({ "zipfian", "scan" })
+    private String workload;
+
+    @Param({ "10000" })
+    private int maximumSize;
+
+    // Cache and WindowTinyLfuCache do not share a type, the benchmark only needs their get and put methods
+    private Function<Integer, Integer> get;
+    private BiConsumer<Integer, Integer> put;
+    private int[] trace;
+
+    @Setup
+    public void setup() {
+        CacheBuilder<Integer, Integer> builder = CacheBuilder.<Integer, Integer>builder().setMaximumWeight(maximumSize);
+        switch (evictionPolicy) {
+            case "LRU" -> {
+                Cache<Integer, Integer> cache = builder.build();
+                get = cache::get;
+                put = cache::put;
+            }
+            case "WINDOW_TINY_LFU" -> {
+                WindowTinyLfuCache<Integer, Integer> cache = builder.buildWindowTinyLfu();
+                get = cache::get;
+                put = cache::put;
+            }
+            default -> throw new IllegalArgumentException("unsupported eviction policy [" + evictionPolicy + "]");
+        }
+        Random random = new Random(42);
+        trace = switch (workload) {
+            case "zipfian" -> zipfian(random, 10 * maximumSize, 0.99, TRACE_SIZE);
+            case "scan" -> scan(random, 10 * maximumSize, TRACE_SIZE);
+            default -> throw new IllegalArgumentException("unsupported workload [" + workload + "]");
+        };
+        // warm the cache so that the first iteration does not only measure misses
+        for (int i = 0; i < TRACE_SIZE; i++) {
+            put.accept(trace[i], trace[i]);
+        }
+    }
+
+    /**
+     * Counts the hits and misses of each thread, reported by JMH as secondary results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long hits;
+        public long misses;
+        int index;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+            index = ThreadLocalRandom.current().nextInt(TRACE_SIZE);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Integer get_01(Counters counters) {
+        return getOrLoad(counters);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer get_08(Counters counters) {
+        return getOrLoad(counters);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Integer get_32(Counters counters) {
+        return getOrLoad(counters);
+    }
+
+    private Integer getOrLoad(Counters counters) {
+        final Integer key = trace[counters.index++ & TRACE_MASK];
+        Integer value = get.apply(key);
+        if (value == null) {
+            counters.misses++;
+            value = key;
+            put.accept(key, value);
+        } else {
+            counters.hits++;
+        }
+        return value;
+    }
+
+    private static int[] zipfian(Random random, int numberOfKeys, double exponent, int size) {
+        final double[] cumulative = new double[numberOfKeys];
+        double sum = 0;
+        for (int i = 0; i < numberOfKeys; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        final int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            keys[i] = index >= 0 ? index : Math.min(-index - 1, numberOfKeys - 1);
+        }
+        return keys;
+    }
+
+    private static int[] scan(Random random, int numberOfKeys, int size) {
+        final int[] keys = zipfian(random, numberOfKeys, 0.99, size);
+        // replace a third of the trace with sequential scans over keys that are outside of the Zipfian key space
+        int scanKey = numberOfKeys;
+        for (int start = 0; start < size; start += 3 * numberOfKeys) {
+            for (int i = start; i < Math.min(start + numberOfKeys, size); i++) {
+                keys[i] = scanKey++;
+            }
+        }
+        return keys;
+    }
+}
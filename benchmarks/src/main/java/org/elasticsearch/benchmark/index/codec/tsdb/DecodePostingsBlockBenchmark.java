@@ -0,0 +1,89 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.benchmark.index.codec.tsdb;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.elasticsearch.index.codec.ForUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a block of bit-packed postings with {@link ForUtil}. The benchmark forks with the incubating vector module so that the
+ * unpacking kernels use the Panama Vector API, {@link Scalar} runs the same benchmark without it for comparison.
+ */
+@Fork(value = 1, jvmArgsPrepend = { "--add-modules=jdk.incubator.vector" })
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(value = Mode.AverageTime)
+@OutputTimeUnit(value = TimeUnit.NANOSECONDS)
+@State(value = Scope.Benchmark)
+public class DecodePostingsBlockBenchmark {
+    private static final int SEED = 17;
+    private static final int BLOCK_SIZE = ForUtil.BLOCK_SIZE;
+
+    @Param({ "1", "2", "3", "4", "5", "6", "7", "8", "10", "12", "16", "20", "24" })
+    private int bitsPerValue;
+
+    private final long[] values = new long[BLOCK_SIZE];
+    private byte[] encoded;
+    private ByteArrayDataInput input;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        final Random random = new Random(SEED);
+        final long[] block = new long[BLOCK_SIZE];
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            block[i] = random.nextLong() & ((1L << bitsPerValue) - 1);
+        }
+        final ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+        ForUtil.encode(block, bitsPerValue, out);
+        encoded = out.toArrayCopy();
+        input = new ByteArrayDataInput(encoded);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        input.reset(encoded);
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh) throws IOException {
+        ForUtil.decode(bitsPerValue, input, values);
+        bh.consume(values);
+    }
+
+    @Benchmark
+    public void decodeTo32(Blackhole bh) throws IOException {
+        ForUtil.decodeTo32(bitsPerValue, input, values);
+        bh.consume(values);
+    }
+
+    /**
+     * Runs the benchmark without the incubating vector module, which makes the unpacking kernels fall back to scalar loops.
+     */
+    @Fork(value = 1)
+    public static class Scalar extends DecodePostingsBlockBenchmark {}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.benchmark.index.codec.tsdb;
+
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.elasticsearch.benchmark.index.codec.tsdb.internal.OrdinalsSupplier;
+import org.elasticsearch.index.codec.tsdb.ES87TSDBDocValuesFormat;
+import org.elasticsearch.index.codec.tsdb.TSDBDocValuesEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a block of ordinals of sorted or sorted set doc values. Depending on the shape of the block the encoder picks the single run,
+ * two runs, cycle, run-length, dictionary or bit-packed encoding.
+ */
+@Fork(value = 1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(value = Mode.AverageTime)
+@OutputTimeUnit(value = TimeUnit.NANOSECONDS)
+@State(value = Scope.Benchmark)
+public class EncodeOrdinalsBenchmark {
+    private static final int SEED = 17;
+    private static final int BLOCK_SIZE = ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SIZE;
+
+    @Param({ "RUNS", "DICTIONARY", "RANDOM" })
+    private String shape;
+
+    @Param({ "4", "16" })
+    private int cardinality;
+
+    @Param({ "12", "20" })
+    private int bitsPerOrd;
+
+    private final TSDBDocValuesEncoder encoder = new TSDBDocValuesEncoder(BLOCK_SIZE);
+    private final long[] input = new long[BLOCK_SIZE];
+    private final byte[] buffer = new byte[Long.BYTES * BLOCK_SIZE * 2];
+    private final ByteArrayDataOutput output = new ByteArrayDataOutput(buffer);
+    private long[] ordinals;
+
+    @Setup(Level.Iteration)
+    public void setupIteration() throws IOException {
+        ordinals = new OrdinalsSupplier(SEED, bitsPerOrd, BLOCK_SIZE, OrdinalsSupplier.Shape.valueOf(shape), cardinality).get();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        System.arraycopy(ordinals, 0, input, 0, BLOCK_SIZE);
+        output.reset(buffer);
+    }
+
+    @Benchmark
+    public void benchmark(Blackhole bh) throws IOException {
+        encoder.encodeOrdinals(input, output, bitsPerOrd);
+        bh.consume(output.getPosition());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.benchmark.index.codec.tsdb.internal;
+
+import java.util.Random;
+
+/**
+ * Supplies blocks of ordinals that look like the keyword dimensions and labels of time series indices, sorted by {@code _tsid}.
+ */
+public class OrdinalsSupplier extends AbstractLongArraySupplier {
+
+    /**
+     * The shape of the ordinals in a block.
+     */
+    public enum Shape {
+        /** a few long runs of increasing ordinals, like a dimension of a time series sorted index */
+        RUNS,
+        /** a few distinct ordinals in no particular order, like a label with a low cardinality */
+        DICTIONARY,
+        /** random ordinals, like a label with a high cardinality */
+        RANDOM
+    }
+
+    private final Random random;
+    private final Shape shape;
+    private final int cardinality;
+
+    public OrdinalsSupplier(int seed, int bitsPerValue, int size, Shape shape, int cardinality) {
+        super(bitsPerValue, size);
+        this.random = new Random(seed);
+        this.shape = shape;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    public long[] get() {
+        final long[] data = new long[size];
+        final long maxOrd = 1L << bitsPerValue;
+        switch (shape) {
+            case RUNS -> {
+                long ord = random.nextLong(maxOrd / 2);
+                for (int i = 0; i < size; i++) {
+                    if (i > 0 && random.nextInt(size) < cardinality) {
+                        ord = Math.min(maxOrd - 1, ord + 1 + random.nextInt(16));
+                    }
+                    data[i] = ord;
+                }
+            }
+            case DICTIONARY -> {
+                final long[] dictionary = new long[cardinality];
+                for (int i = 0; i < cardinality; i++) {
+                    dictionary[i] = random.nextLong(maxOrd);
+                }
+                for (int i = 0; i < size; i++) {
+                    data[i] = dictionary[random.nextInt(cardinality)];
+                }
+            }
+            case RANDOM -> {
+                for (int i = 0; i < size; i++) {
+                    data[i] = random.nextLong(maxOrd);
+                }
+            }
+        }
+        return data;
+    }
+}
@@ -78,44 +78,47 @@ public class BeatsMapperBenchmark {
     }
 
     private SourceToParse generateRandomDocument() {
-        return new SourceToParse(
-            UUIDs.randomBase64UUID(),
-            new BytesArray(
-                "{    \"@timestamp\": "
-                    + System.currentTimeMillis()
-                    + ",    \"log.file.path\": \""
-                    + randomFrom("logs-1.log", "logs-2.log", "logs-3.log")
-                    + "\",    \"log.level\": \""
-                    + "INFO"
-                    + "\",    \"log.logger\": \""
-                    + "some.package.for.logging.requests"
-                    + "\",    \"client.ip\": \""
-                    + randomIp()
-                    + "\",    \"http.request.method\": \""
-                    + randomFrom("GET", "POST")
-                    + "\",    \"http.request.id\": \""
-                    + random.nextInt()
-                    + "\",    \"http.request.bytes\": "
-                    + random.nextInt(1024)
-                    + ",    \"url.path\": \""
-                    + randomString(1024)
-                    + "\",    \"http.response.status_code\": "
-                    + randomFrom(200, 204, 300, 404, 500)
-                    + ",    \"http.response.bytes\": "
-                    + random.nextInt(1024)
-                    + ",    \"http.response.mime_type\": \""
-                    + randomFrom("application/json", "application/xml")
-                    + "\"}"
-            ),
-            XContentType.JSON
+        return new SourceToParse(UUIDs.randomBase64UUID(), generateRandomSource(random), XContentType.JSON);
+    }
+
+    /**
+     * Generates the source of a random log document, {@link BeatsStoredFieldsBenchmark} stores the same documents.
+     */
+    static BytesArray generateRandomSource(Random random) {
+        return new BytesArray(
+            "{    \"@timestamp\": "
+                + System.currentTimeMillis()
+                + ",    \"log.file.path\": \""
+                + randomFrom(random, "logs-1.log", "logs-2.log", "logs-3.log")
+                + "\",    \"log.level\": \""
+                + "INFO"
+                + "\",    \"log.logger\": \""
+                + "some.package.for.logging.requests"
+                + "\",    \"client.ip\": \""
+                + randomIp(random)
+                + "\",    \"http.request.method\": \""
+                + randomFrom(random, "GET", "POST")
+                + "\",    \"http.request.id\": \""
+                + random.nextInt()
+                + "\",    \"http.request.bytes\": "
+                + random.nextInt(1024)
+                + ",    \"url.path\": \""
+                + randomString(random, 1024)
+                + "\",    \"http.response.status_code\": "
+                + randomFrom(random, 200, 204, 300, 404, 500)
+                + ",    \"http.response.bytes\": "
+                + random.nextInt(1024)
+                + ",    \"http.response.mime_type\": \""
+                + randomFrom(random, "application/json", "application/xml")
+                + "\"}"
         );
     }
 
-    private String randomIp() {
+    private static String randomIp(Random random) {
         return "" + random.nextInt(255) + '.' + random.nextInt(255) + '.' + random.nextInt(255) + '.' + random.nextInt(255);
     }
 
-    private String randomString(int maxLength) {
+    private static String randomString(Random random, int maxLength) {
         var length = random.nextInt(maxLength);
         var builder = new StringBuilder(length);
         for (int i = 0; i < length; i++) {
@@ -126,12 +129,12 @@ public class BeatsMapperBenchmark {
 
     @SafeVarargs
     @SuppressWarnings("varargs")
-    private <T> T randomFrom(T... items) {
+    private static <T> T randomFrom(Random random, T... items) {
         return items[random.nextInt(items.length)];
     }
 
     @Benchmark
     public List<LuceneDocument> benchmarkParseKeywordFields() {
-        return mapperService.documentMapper().parse(randomFrom(sources)).docs();
+        return mapperService.documentMapper().parse(randomFrom(random, sources)).docs();
     }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.benchmark.index.mapper;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.index.codec.Elasticsearch900Lucene101Codec;
+import org.elasticsearch.index.codec.zstd.Zstd814StoredFieldsFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the documents of {@link BeatsMapperBenchmark} with {@link Zstd814StoredFieldsFormat}, with and without training a dictionary
+ * per segment, and measures how long it takes to index the documents and to fetch a random document. The compression ratio of every
+ * configuration is printed when setting up the benchmark.
+ */
+@Fork(value = 1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BeatsStoredFieldsBenchmark {
+
+    @Param({ "1600172297" })
+    private long seed;
+
+    @Param({ "BEST_SPEED", "BEST_COMPRESSION" })
+    private Zstd814StoredFieldsFormat.Mode mode;
+
+    @Param({ "false", "true" })
+    private boolean trainDictionary;
+
+    @Param({ "10000" })
+    private int numDocs;
+
+    private Random random;
+    private BytesArray[] sources;
+    private Directory directory;
+    private DirectoryReader reader;
+    private StoredFields storedFields;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.random = new Random(seed);
+        this.sources = new BytesArray[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            sources[i] = BeatsMapperBenchmark.generateRandomSource(random);
+        }
+        this.directory = new ByteBuffersDirectory();
+        indexDocuments(directory);
+        this.reader = DirectoryReader.open(directory);
+        this.storedFields = reader.storedFields();
+
+        long uncompressedBytes = 0;
+        for (BytesArray source : sources) {
+            uncompressedBytes += source.length();
+        }
+        long compressedBytes = 0;
+        for (String file : directory.listAll()) {
+            if (file.endsWith(".fdt")) {
+                compressedBytes += directory.fileLength(file);
+            }
+        }
+        boolean dictionary = false;
+        for (LeafReaderContext leaf : reader.leaves()) {
+            dictionary |= Zstd814StoredFieldsFormat.dictionaryStats((SegmentReader) leaf.reader()) != null;
+        }
+        System.out.printf(
+            "%n%s, train dictionary [%s], dictionary used [%s]: %d bytes of _source stored in %d bytes, ratio %.2f%n",
+            mode,
+            trainDictionary,
+            dictionary,
+            uncompressedBytes,
+            compressedBytes,
+            (double) uncompressedBytes / compressedBytes
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        IOUtils.close(reader, directory);
+    }
+
+    private void indexDocuments(Directory dir) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig().setCodec(new Elasticsearch900Lucene101Codec(mode, trainDictionary));
+        try (IndexWriter writer = new IndexWriter(dir, config)) {
+            for (BytesArray source : sources) {
+                Document doc = new Document();
+                doc.add(new StoredField("_source", source.toBytesRef()));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void indexAndMerge() throws IOException {
+        try (Directory dir = new ByteBuffersDirectory()) {
+            indexDocuments(dir);
+        }
+    }
+
+    @Benchmark
+    public BytesRef fetchRandomDocument() throws IOException {
+        return storedFields.document(random.nextInt(numDocs)).getBinaryValue("_source");
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.search.aggregations.DocValuesBlock;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.bucket.terms.LongKeyedBucketOrds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares collecting a segment doc by doc through {@link LeafBucketCollector#collect(int, long)} with collecting it in blocks
+ * through {@link LeafBucketCollector#collect(int[], int, long)}. The collector counts docs per value the same way the
+ * {@code terms} aggregation on a numeric field does.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class LeafBucketCollectorBlockBenchmark {
+    private static final int NUM_DOCS = 1_000_000;
+
+    /**
+     * The number of distinct values in the field.
+     */
+    @Param({ "10", "10000" })
+    private int cardinality;
+
+    /**
+     * Fraction of the docs that match the query.
+     */
+    @Param({ "0.1", "1.0" })
+    private double density;
+
+    private final BigArrays bigArrays = new BigArrays(new PageCacheRecycler(Settings.EMPTY), null, "REQUEST");
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private int[] matches;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < NUM_DOCS; i++) {
+                Document doc = new Document();
+                doc.add(new NumericDocValuesField("value", random.nextInt(cardinality)));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        int[] docs = new int[NUM_DOCS];
+        int count = 0;
+        for (int i = 0; i < NUM_DOCS; i++) {
+            if (random.nextDouble() < density) {
+                docs[count++] = i;
+            }
+        }
+        matches = new int[count];
+        System.arraycopy(docs, 0, matches, 0, count);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public void perDoc(Blackhole bh) throws IOException {
+        try (CountingCollector collector = new CountingCollector(reader.leaves().get(0).reader())) {
+            for (int doc : matches) {
+                collector.collect(doc, 0);
+            }
+            bh.consume(collector.ords.size());
+        }
+    }
+
+    @Benchmark
+    public void block(Blackhole bh) throws IOException {
+        try (CountingCollector collector = new CountingCollector(reader.leaves().get(0).reader())) {
+            int[] block = new int[LeafBucketCollector.MAX_BLOCK_SIZE];
+            for (int start = 0; start < matches.length; start += block.length) {
+                int count = Math.min(block.length, matches.length - start);
+                System.arraycopy(matches, start, block, 0, count);
+                collector.collect(block, count, 0);
+            }
+            bh.consume(collector.ords.size());
+        }
+    }
+
+    private class CountingCollector extends LeafBucketCollector implements AutoCloseable {
+        private final NumericDocValues values;
+        private final LongKeyedBucketOrds ords = new LongKeyedBucketOrds.FromSingle(bigArrays);
+        private final DocValuesBlock docValuesBlock = new DocValuesBlock();
+        private LongArray counts = bigArrays.newLongArray(1, true);
+
+        CountingCollector(LeafReader leaf) throws IOException {
+            values = leaf.getNumericDocValues("value");
+        }
+
+        @Override
+        public void collect(int doc, long owningBucketOrd) throws IOException {
+            if (values.advanceExact(doc)) {
+                count(owningBucketOrd, values.longValue());
+            }
+        }
+
+        @Override
+        public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+            docValuesBlock.read(values, docs, count);
+            for (int i = 0; i < docValuesBlock.size(); i++) {
+                count(owningBucketOrd, docValuesBlock.value(i));
+            }
+        }
+
+        private void count(long owningBucketOrd, long value) {
+            long ord = ords.add(owningBucketOrd, value);
+            if (ord < 0) {
+                ord = -1 - ord;
+            } else {
+                counts = bigArrays.grow(counts, ord + 1);
+            }
+            counts.increment(ord, 1);
+        }
+
+        @Override
+        public void close() {
+            ords.close();
+            counts.close();
+        }
+    }
+}
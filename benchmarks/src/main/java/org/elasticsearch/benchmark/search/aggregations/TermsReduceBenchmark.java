@@ -69,6 +69,12 @@ public class TermsReduceBenchmark {
 
     private final TermsAggregationBuilder builder = new TermsAggregationBuilder("terms");
 
+    /**
+     * The number of threads that reduce the shard results concurrently on the coordinating node.
+     */
+    @Param({ "1", "4" })
+    private int reduceConcurrency;
+
     private final SearchPhaseController controller = new SearchPhaseController((task, req) -> new AggregationReduceContext.Builder() {
         @Override
         public AggregationReduceContext forPartialReduction() {
@@ -83,7 +89,7 @@ public class TermsReduceBenchmark {
             );
             return new AggregationReduceContext.ForFinal(null, null, task, builder, bucketConsumer, PipelineAggregator.PipelineTree.EMPTY);
         }
-    });
+    }, () -> reduceConcurrency);
 
     @State(Scope.Benchmark)
     public static class TermsList extends AbstractList<InternalAggregations> {
@@ -184,7 +190,7 @@ public class TermsReduceBenchmark {
         SearchRequest request = new SearchRequest();
         request.source(new SearchSourceBuilder().size(0).aggregation(AggregationBuilders.terms("test")));
         request.setBatchedReduceSize(bufferSize);
-        ExecutorService executor = Executors.newFixedThreadPool(1);
+        ExecutorService executor = Executors.newFixedThreadPool(reduceConcurrency);
         AtomicBoolean isCanceled = new AtomicBoolean();
         QueryPhaseResultConsumer consumer = new QueryPhaseResultConsumer(
             request,
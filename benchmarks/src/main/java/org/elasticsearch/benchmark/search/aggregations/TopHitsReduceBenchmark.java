@@ -0,0 +1,142 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.QueryPhaseResultConsumer;
+import org.elasticsearch.action.search.SearchPhaseController;
+import org.elasticsearch.action.search.SearchProgressListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares merging the top hits of many shards as the shard results arrive with merging them in batches of
+ * {@code batched_reduce_size} shard results.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Fork(value = 1)
+public class TopHitsReduceBenchmark {
+
+    private final SearchPhaseController controller = new SearchPhaseController((task, req) -> {
+        throw new UnsupportedOperationException("no aggregations to reduce");
+    });
+
+    @Param({ "1600172297" })
+    long seed;
+
+    @Param({ "128", "1024" })
+    int numShards;
+
+    @Param({ "10", "1000" })
+    int size;
+
+    @Param({ "512" })
+    int bufferSize;
+
+    @Param({ "true", "false" })
+    boolean streamTopDocs;
+
+    private ExecutorService executor;
+    private List<QuerySearchResult> shards;
+
+    @Setup
+    public void setupExecutor() {
+        executor = Executors.newFixedThreadPool(1);
+    }
+
+    @TearDown
+    public void tearDownExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Shard results hand over their top docs when they are merged, so they are built again before every invocation.
+     */
+    @Setup(Level.Invocation)
+    public void setupShardResults() {
+        Random rand = new Random(seed);
+        shards = new ArrayList<>(numShards);
+        for (int i = 0; i < numShards; i++) {
+            ScoreDoc[] scoreDocs = new ScoreDoc[size];
+            float score = 100f;
+            for (int j = 0; j < size; j++) {
+                score -= rand.nextFloat();
+                scoreDocs[j] = new ScoreDoc(rand.nextInt(1_000_000), score);
+            }
+            QuerySearchResult result = new QuerySearchResult();
+            result.setShardIndex(i);
+            result.from(0);
+            result.size(size);
+            result.topDocs(
+                new TopDocsAndMaxScore(new TopDocs(new TotalHits(size * 10L, TotalHits.Relation.EQUAL_TO), scoreDocs), scoreDocs[0].score),
+                null
+            );
+            result.setSearchShardTarget(new SearchShardTarget("node", new ShardId(new Index("index", "index"), i), null));
+            shards.add(result);
+        }
+    }
+
+    @Benchmark
+    public SearchPhaseController.ReducedQueryPhase reduceTopHits() throws Exception {
+        SearchRequest request = new SearchRequest();
+        request.source(new SearchSourceBuilder().size(size));
+        request.setBatchedReduceSize(bufferSize);
+        QueryPhaseResultConsumer consumer = new QueryPhaseResultConsumer(
+            request,
+            executor,
+            new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+            controller,
+            () -> false,
+            SearchProgressListener.NOOP,
+            shards.size(),
+            exc -> {},
+            streamTopDocs
+        );
+        CountDownLatch latch = new CountDownLatch(shards.size());
+        for (QuerySearchResult shard : shards) {
+            consumer.consumeResult(shard, latch::countDown);
+        }
+        latch.await();
+        return consumer.reduce();
+    }
+}
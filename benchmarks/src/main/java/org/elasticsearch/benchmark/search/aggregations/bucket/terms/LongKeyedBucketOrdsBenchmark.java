@@ -54,6 +54,10 @@ public class LongKeyedBucketOrdsBenchmark {
      * Number of distinct values to add to values within buckets.
      */
     private static final long DISTINCT_VALUES_IN_BUCKETS = 10;
+    /**
+     * The number of distinct values to add in the high cardinality cases.
+     */
+    private static final long HIGH_CARDINALITY_DISTINCT_VALUES = 500_000;
 
     private final PageCacheRecycler recycler = new PageCacheRecycler(Settings.EMPTY);
     private final BigArrays bigArrays = new BigArrays(recycler, null, "REQUEST");
@@ -67,6 +71,7 @@ public class LongKeyedBucketOrdsBenchmark {
     @Setup
     public void forceLoadClasses(Blackhole bh) {
         bh.consume(LongKeyedBucketOrds.FromSingle.class);
+        bh.consume(LongKeyedBucketOrds.FromSingleSwiss.class);
         bh.consume(LongKeyedBucketOrds.FromMany.class);
         bh.consume(LongKeyedBucketOrds.FromManySmall.class);
     }
@@ -88,6 +93,55 @@ public class LongKeyedBucketOrdsBenchmark {
         }
     }
 
+    /**
+     * The same as {@link #singleBucketIntoSingleImmutableMonmorphicInvocation} but backed by
+     * the swiss table.
+     */
+    @Benchmark
+    public void singleBucketIntoSingleSwissImmutableMonmorphicInvocation(Blackhole bh) {
+        try (LongKeyedBucketOrds.FromSingleSwiss ords = new LongKeyedBucketOrds.FromSingleSwiss(bigArrays)) {
+            for (long i = 0; i < LIMIT; i++) {
+                ords.add(0, i % DISTINCT_VALUES);
+            }
+            if (ords.size() != DISTINCT_VALUES) {
+                throw new IllegalArgumentException("Expected [" + DISTINCT_VALUES + "] but found [" + ords.size() + "]");
+            }
+            bh.consume(ords);
+        }
+    }
+
+    /**
+     * Emulates a high cardinality {@code terms} aggregation where nearly
+     * every value is new so the hash grows all the time.
+     */
+    @Benchmark
+    public void singleBucketHighCardinality(Blackhole bh) {
+        try (LongKeyedBucketOrds.FromSingle ords = new LongKeyedBucketOrds.FromSingle(bigArrays)) {
+            highCardinality(bh, ords);
+        }
+    }
+
+    /**
+     * The same as {@link #singleBucketHighCardinality} but backed by the swiss table.
+     */
+    @Benchmark
+    public void singleBucketHighCardinalitySwiss(Blackhole bh) {
+        try (LongKeyedBucketOrds.FromSingleSwiss ords = new LongKeyedBucketOrds.FromSingleSwiss(bigArrays)) {
+            highCardinality(bh, ords);
+        }
+    }
+
+    private void highCardinality(Blackhole bh, LongKeyedBucketOrds ords) {
+        for (long i = 0; i < LIMIT; i++) {
+            // scatter the values a little so they don't hash in order
+            ords.add(0, (i % HIGH_CARDINALITY_DISTINCT_VALUES) * 0x9E3779B97F4A7C15L);
+        }
+        if (ords.size() != HIGH_CARDINALITY_DISTINCT_VALUES) {
+            throw new IllegalArgumentException("Expected [" + HIGH_CARDINALITY_DISTINCT_VALUES + "] but found [" + ords.size() + "]");
+        }
+        bh.consume(ords);
+    }
+
     /**
      * Emulates the way that most aggregations use {@link LongKeyedBucketOrds}.
      */
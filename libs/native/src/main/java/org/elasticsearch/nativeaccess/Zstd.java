@@ -54,6 +54,160 @@ public final class Zstd {
         return (int) ret;
     }
 
+    /**
+     * Digest the dictionary in {@code dict} for compression at compression level {@code level}. The returned dictionary may be shared
+     * across threads and the content of {@code dict} is copied, so the buffer may be released as soon as this method returns.
+     */
+    public CompressionDictionary newCompressionDictionary(CloseableByteBuffer dict, int level) {
+        Objects.requireNonNull(dict, "Null dictionary buffer");
+        return new CompressionDictionary(zstdLib.createCDict(dict, level));
+    }
+
+    /**
+     * Digest the dictionary in {@code dict} for decompression. The returned dictionary may be shared across threads and the content of
+     * {@code dict} is copied, so the buffer may be released as soon as this method returns.
+     */
+    public DecompressionDictionary newDecompressionDictionary(CloseableByteBuffer dict) {
+        Objects.requireNonNull(dict, "Null dictionary buffer");
+        return new DecompressionDictionary(zstdLib.createDDict(dict));
+    }
+
+    /**
+     * Create a compression context, which can compress any number of inputs with a {@link CompressionDictionary} but must only be used
+     * by one thread at a time.
+     */
+    public CompressionContext newCompressionContext() {
+        return new CompressionContext(zstdLib.createCCtx());
+    }
+
+    /**
+     * Create a decompression context, which can decompress any number of inputs with a {@link DecompressionDictionary} but must only be
+     * used by one thread at a time.
+     */
+    public DecompressionContext newDecompressionContext() {
+        return new DecompressionContext(zstdLib.createDCtx());
+    }
+
+    /**
+     * A dictionary that was digested for compression at a given compression level.
+     */
+    public final class CompressionDictionary implements AutoCloseable {
+        private final ZstdLibrary.CDict cdict;
+
+        private CompressionDictionary(ZstdLibrary.CDict cdict) {
+            this.cdict = cdict;
+        }
+
+        @Override
+        public void close() {
+            zstdLib.freeCDict(cdict);
+        }
+    }
+
+    /**
+     * A dictionary that was digested for decompression.
+     */
+    public final class DecompressionDictionary implements AutoCloseable {
+        private final ZstdLibrary.DDict ddict;
+
+        private DecompressionDictionary(ZstdLibrary.DDict ddict) {
+            this.ddict = ddict;
+        }
+
+        @Override
+        public void close() {
+            zstdLib.freeDDict(ddict);
+        }
+    }
+
+    /**
+     * A reusable compression context.
+     */
+    public final class CompressionContext implements AutoCloseable {
+        private final ZstdLibrary.CCtx cctx;
+
+        private CompressionContext(ZstdLibrary.CCtx cctx) {
+            this.cctx = cctx;
+        }
+
+        /**
+         * Compress the content of {@code src} into {@code dst} using {@code dict}, and return the number of compressed bytes.
+         * {@link ByteBuffer#position()} and {@link ByteBuffer#limit()} of both {@link ByteBuffer}s are left unmodified.
+         */
+        public int compress(CloseableByteBuffer dst, CloseableByteBuffer src, CompressionDictionary dict) {
+            Objects.requireNonNull(dst, "Null destination buffer");
+            Objects.requireNonNull(src, "Null source buffer");
+            Objects.requireNonNull(dict, "Null dictionary");
+            return checkSize(zstdLib.compressUsingCDict(cctx, dst, src, dict.cdict));
+        }
+
+        @Override
+        public void close() {
+            zstdLib.freeCCtx(cctx);
+        }
+    }
+
+    /**
+     * A reusable decompression context.
+     */
+    public final class DecompressionContext implements AutoCloseable {
+        private final ZstdLibrary.DCtx dctx;
+
+        private DecompressionContext(ZstdLibrary.DCtx dctx) {
+            this.dctx = dctx;
+        }
+
+        /**
+         * Decompress the content of {@code src} into {@code dst} using the dictionary {@code dict} that it was compressed with, and
+         * return the number of decompressed bytes. {@link ByteBuffer#position()} and {@link ByteBuffer#limit()} of both
+         * {@link ByteBuffer}s are left unmodified.
+         */
+        public int decompress(CloseableByteBuffer dst, CloseableByteBuffer src, DecompressionDictionary dict) {
+            Objects.requireNonNull(dst, "Null destination buffer");
+            Objects.requireNonNull(src, "Null source buffer");
+            Objects.requireNonNull(dict, "Null dictionary");
+            return checkSize(zstdLib.decompressUsingDDict(dctx, dst, src, dict.ddict));
+        }
+
+        @Override
+        public void close() {
+            zstdLib.freeDCtx(dctx);
+        }
+    }
+
+    /**
+     * Train a dictionary from the samples that are stored back to back in {@code samples}, and whose lengths are given by
+     * {@code sampleSizes}. The dictionary is written into {@code dict}, which is sized to the maximum length of the dictionary, and the
+     * actual length of the dictionary is returned. Training fails with an {@link IllegalArgumentException} if the samples are too few or
+     * too small to train a dictionary, and with an {@link UnsupportedOperationException} if the zstd library was built without its
+     * dictionary builder.
+     */
+    public int trainDictionary(CloseableByteBuffer dict, CloseableByteBuffer samples, int[] sampleSizes) {
+        Objects.requireNonNull(dict, "Null dictionary buffer");
+        Objects.requireNonNull(samples, "Null samples buffer");
+        Objects.requireNonNull(sampleSizes, "Null sample sizes");
+        long totalSize = 0;
+        for (int sampleSize : sampleSizes) {
+            totalSize += sampleSize;
+        }
+        if (totalSize > samples.buffer().remaining()) {
+            throw new IllegalArgumentException(
+                "Sample sizes add up to " + totalSize + " bytes but the samples buffer only has " + samples.buffer().remaining() + " bytes"
+            );
+        }
+        long ret = zstdLib.trainFromBuffer(dict, samples, sampleSizes);
+        return checkSize(ret);
+    }
+
+    private int checkSize(long ret) {
+        if (zstdLib.isError(ret)) {
+            throw new IllegalArgumentException(zstdLib.getErrorName(ret));
+        } else if (ret < 0 || ret > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Integer overflow? ret=" + ret);
+        }
+        return (int) ret;
+    }
+
     /**
      * Return the maximum number of compressed bytes given an input length.
      */
@@ -13,6 +13,7 @@ import org.elasticsearch.nativeaccess.CloseableByteBuffer;
 import org.elasticsearch.nativeaccess.lib.LoaderHelper;
 import org.elasticsearch.nativeaccess.lib.ZstdLibrary;
 
+import java.lang.foreign.Arena;
 import java.lang.foreign.FunctionDescriptor;
 import java.lang.foreign.MemorySegment;
 import java.lang.invoke.MethodHandle;
@@ -40,6 +41,55 @@ class JdkZstdLibrary implements ZstdLibrary {
         "ZSTD_decompress",
         FunctionDescriptor.of(JAVA_LONG, ADDRESS, JAVA_INT, ADDRESS, JAVA_INT)
     );
+    private static final MethodHandle createCCtx$mh = downcallHandle("ZSTD_createCCtx", FunctionDescriptor.of(ADDRESS));
+    private static final MethodHandle freeCCtx$mh = downcallHandle("ZSTD_freeCCtx", FunctionDescriptor.of(JAVA_LONG, ADDRESS));
+    private static final MethodHandle createDCtx$mh = downcallHandle("ZSTD_createDCtx", FunctionDescriptor.of(ADDRESS));
+    private static final MethodHandle freeDCtx$mh = downcallHandle("ZSTD_freeDCtx", FunctionDescriptor.of(JAVA_LONG, ADDRESS));
+    private static final MethodHandle createCDict$mh = downcallHandle(
+        "ZSTD_createCDict",
+        FunctionDescriptor.of(ADDRESS, ADDRESS, JAVA_LONG, JAVA_INT)
+    );
+    private static final MethodHandle freeCDict$mh = downcallHandle("ZSTD_freeCDict", FunctionDescriptor.of(JAVA_LONG, ADDRESS));
+    private static final MethodHandle createDDict$mh = downcallHandle(
+        "ZSTD_createDDict",
+        FunctionDescriptor.of(ADDRESS, ADDRESS, JAVA_LONG)
+    );
+    private static final MethodHandle freeDDict$mh = downcallHandle("ZSTD_freeDDict", FunctionDescriptor.of(JAVA_LONG, ADDRESS));
+    private static final MethodHandle compressUsingCDict$mh = downcallHandle(
+        "ZSTD_compress_usingCDict",
+        FunctionDescriptor.of(JAVA_LONG, ADDRESS, ADDRESS, JAVA_LONG, ADDRESS, JAVA_LONG, ADDRESS)
+    );
+    private static final MethodHandle decompressUsingDDict$mh = downcallHandle(
+        "ZSTD_decompress_usingDDict",
+        FunctionDescriptor.of(JAVA_LONG, ADDRESS, ADDRESS, JAVA_LONG, ADDRESS, JAVA_LONG, ADDRESS)
+    );
+
+    /**
+     * ZDICT_trainFromBuffer is part of the dictionary builder, which zstd may be built without, so it is only looked up
+     * the first time a dictionary is trained rather than preventing the whole library from loading.
+     */
+    private static final class TrainFromBuffer {
+        private static final MethodHandle trainFromBuffer$mh = lookup();
+
+        private static MethodHandle lookup() {
+            try {
+                return downcallHandle(
+                    "ZDICT_trainFromBuffer",
+                    FunctionDescriptor.of(JAVA_LONG, ADDRESS, JAVA_LONG, ADDRESS, ADDRESS, JAVA_INT)
+                );
+            } catch (LinkageError e) {
+                return null;
+            }
+        }
+    }
+
+    private record JdkCCtx(MemorySegment segment) implements CCtx {}
+
+    private record JdkDCtx(MemorySegment segment) implements DCtx {}
+
+    private record JdkCDict(MemorySegment segment) implements CDict {}
+
+    private record JdkDDict(MemorySegment segment) implements DDict {}
 
     @Override
     public long compressBound(int srcLen) {
@@ -102,4 +152,179 @@ class JdkZstdLibrary implements ZstdLibrary {
             throw new AssertionError(t);
         }
     }
+
+    @Override
+    public CCtx createCCtx() {
+        final MemorySegment cctx;
+        try {
+            cctx = (MemorySegment) createCCtx$mh.invokeExact();
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+        if (cctx.equals(MemorySegment.NULL)) {
+            throw new OutOfMemoryError("failed to allocate a zstd compression context");
+        }
+        return new JdkCCtx(cctx);
+    }
+
+    @Override
+    public void freeCCtx(CCtx cctx) {
+        assert cctx instanceof JdkCCtx;
+        try {
+            long ignored = (long) freeCCtx$mh.invokeExact(((JdkCCtx) cctx).segment);
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+
+    @Override
+    public DCtx createDCtx() {
+        final MemorySegment dctx;
+        try {
+            dctx = (MemorySegment) createDCtx$mh.invokeExact();
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+        if (dctx.equals(MemorySegment.NULL)) {
+            throw new OutOfMemoryError("failed to allocate a zstd decompression context");
+        }
+        return new JdkDCtx(dctx);
+    }
+
+    @Override
+    public void freeDCtx(DCtx dctx) {
+        assert dctx instanceof JdkDCtx;
+        try {
+            long ignored = (long) freeDCtx$mh.invokeExact(((JdkDCtx) dctx).segment);
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+
+    @Override
+    public CDict createCDict(CloseableByteBuffer dict, int compressionLevel) {
+        assert dict instanceof JdkCloseableByteBuffer;
+        var dictSize = dict.buffer().remaining();
+        var segmentDict = ((JdkCloseableByteBuffer) dict).segment.asSlice(dict.buffer().position(), dictSize);
+        final MemorySegment cdict;
+        try {
+            // zstd copies the dictionary, so the buffer may be released as soon as this returns
+            cdict = (MemorySegment) createCDict$mh.invokeExact(segmentDict, (long) dictSize, compressionLevel);
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+        if (cdict.equals(MemorySegment.NULL)) {
+            throw new OutOfMemoryError("failed to allocate a zstd compression dictionary");
+        }
+        return new JdkCDict(cdict);
+    }
+
+    @Override
+    public void freeCDict(CDict cdict) {
+        assert cdict instanceof JdkCDict;
+        try {
+            long ignored = (long) freeCDict$mh.invokeExact(((JdkCDict) cdict).segment);
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+
+    @Override
+    public DDict createDDict(CloseableByteBuffer dict) {
+        assert dict instanceof JdkCloseableByteBuffer;
+        var dictSize = dict.buffer().remaining();
+        var segmentDict = ((JdkCloseableByteBuffer) dict).segment.asSlice(dict.buffer().position(), dictSize);
+        final MemorySegment ddict;
+        try {
+            // zstd copies the dictionary, so the buffer may be released as soon as this returns
+            ddict = (MemorySegment) createDDict$mh.invokeExact(segmentDict, (long) dictSize);
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+        if (ddict.equals(MemorySegment.NULL)) {
+            throw new OutOfMemoryError("failed to allocate a zstd decompression dictionary");
+        }
+        return new JdkDDict(ddict);
+    }
+
+    @Override
+    public void freeDDict(DDict ddict) {
+        assert ddict instanceof JdkDDict;
+        try {
+            long ignored = (long) freeDDict$mh.invokeExact(((JdkDDict) ddict).segment);
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+
+    @Override
+    public long compressUsingCDict(CCtx cctx, CloseableByteBuffer dst, CloseableByteBuffer src, CDict cdict) {
+        assert cctx instanceof JdkCCtx;
+        assert cdict instanceof JdkCDict;
+        assert dst instanceof JdkCloseableByteBuffer;
+        assert src instanceof JdkCloseableByteBuffer;
+        var dstSize = dst.buffer().remaining();
+        var srcSize = src.buffer().remaining();
+        var segmentDst = ((JdkCloseableByteBuffer) dst).segment.asSlice(dst.buffer().position(), dstSize);
+        var segmentSrc = ((JdkCloseableByteBuffer) src).segment.asSlice(src.buffer().position(), srcSize);
+        try {
+            return (long) compressUsingCDict$mh.invokeExact(
+                ((JdkCCtx) cctx).segment,
+                segmentDst,
+                (long) dstSize,
+                segmentSrc,
+                (long) srcSize,
+                ((JdkCDict) cdict).segment
+            );
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+
+    @Override
+    public long decompressUsingDDict(DCtx dctx, CloseableByteBuffer dst, CloseableByteBuffer src, DDict ddict) {
+        assert dctx instanceof JdkDCtx;
+        assert ddict instanceof JdkDDict;
+        assert dst instanceof JdkCloseableByteBuffer;
+        assert src instanceof JdkCloseableByteBuffer;
+        var dstSize = dst.buffer().remaining();
+        var srcSize = src.buffer().remaining();
+        var segmentDst = ((JdkCloseableByteBuffer) dst).segment.asSlice(dst.buffer().position(), dstSize);
+        var segmentSrc = ((JdkCloseableByteBuffer) src).segment.asSlice(src.buffer().position(), srcSize);
+        try {
+            return (long) decompressUsingDDict$mh.invokeExact(
+                ((JdkDCtx) dctx).segment,
+                segmentDst,
+                (long) dstSize,
+                segmentSrc,
+                (long) srcSize,
+                ((JdkDDict) ddict).segment
+            );
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
+
+    @Override
+    public long trainFromBuffer(CloseableByteBuffer dict, CloseableByteBuffer samples, int[] sampleSizes) {
+        assert dict instanceof JdkCloseableByteBuffer;
+        assert samples instanceof JdkCloseableByteBuffer;
+        var dictSize = dict.buffer().remaining();
+        var segmentDict = ((JdkCloseableByteBuffer) dict).segment.asSlice(dict.buffer().position(), dictSize);
+        var segmentSamples = ((JdkCloseableByteBuffer) samples).segment.asSlice(samples.buffer().position(), samples.buffer().remaining());
+        final MethodHandle trainFromBuffer$mh = TrainFromBuffer.trainFromBuffer$mh;
+        if (trainFromBuffer$mh == null) {
+            throw new UnsupportedOperationException("the zstd library doesn't provide ZDICT_trainFromBuffer");
+        }
+        try (Arena arena = Arena.ofConfined()) {
+            // the sample sizes are an array of size_t
+            MemorySegment segmentSizes = ArenaUtil.allocate(arena, JAVA_LONG, sampleSizes.length);
+            for (int i = 0; i < sampleSizes.length; i++) {
+                segmentSizes.setAtIndex(JAVA_LONG, i, sampleSizes[i]);
+            }
+            return (long) trainFromBuffer$mh.invokeExact(segmentDict, (long) dictSize, segmentSamples, segmentSizes, sampleSizes.length);
+        } catch (Throwable t) {
+            throw new AssertionError(t);
+        }
+    }
 }
@@ -22,4 +22,42 @@ public non-sealed interface ZstdLibrary extends NativeLibrary {
     String getErrorName(long code);
 
     long decompress(CloseableByteBuffer dst, CloseableByteBuffer src);
+
+    /** Marker interface for ZSTD_CCtx, a compression context that may be reused by one thread at a time. */
+    interface CCtx {}
+
+    /** Marker interface for ZSTD_DCtx, a decompression context that may be reused by one thread at a time. */
+    interface DCtx {}
+
+    /** Marker interface for ZSTD_CDict, a dictionary digested for compression that may be shared across threads. */
+    interface CDict {}
+
+    /** Marker interface for ZSTD_DDict, a dictionary digested for decompression that may be shared across threads. */
+    interface DDict {}
+
+    CCtx createCCtx();
+
+    void freeCCtx(CCtx cctx);
+
+    DCtx createDCtx();
+
+    void freeDCtx(DCtx dctx);
+
+    CDict createCDict(CloseableByteBuffer dict, int compressionLevel);
+
+    void freeCDict(CDict cdict);
+
+    DDict createDDict(CloseableByteBuffer dict);
+
+    void freeDDict(DDict ddict);
+
+    long compressUsingCDict(CCtx cctx, CloseableByteBuffer dst, CloseableByteBuffer src, CDict cdict);
+
+    long decompressUsingDDict(DCtx dctx, CloseableByteBuffer dst, CloseableByteBuffer src, DDict ddict);
+
+    /**
+     * Trains a dictionary, this throws an {@link UnsupportedOperationException} if the zstd library was built without
+     * dictionary builder.
+     */
+    long trainFromBuffer(CloseableByteBuffer dict, CloseableByteBuffer samples, int[] sampleSizes);
 }
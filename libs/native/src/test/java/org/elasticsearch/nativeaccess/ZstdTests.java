@@ -13,6 +13,7 @@ import org.elasticsearch.test.ESTestCase;
 import org.hamcrest.Matchers;
 import org.junit.BeforeClass;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -103,6 +104,80 @@ public class ZstdTests extends ESTestCase {
         doTestRoundtrip(b);
     }
 
+    public void testDictionaryRoundtrip() {
+        final int numSamples = randomIntBetween(200, 500);
+        final byte[][] samples = new byte[numSamples][];
+        int totalSize = 0;
+        for (int i = 0; i < numSamples; ++i) {
+            samples[i] = randomJsonDocument();
+            totalSize += samples[i].length;
+        }
+        try (
+            var samplesBuffer = nativeAccess.newBuffer(totalSize);
+            var dict = nativeAccess.newBuffer(randomIntBetween(1024, 8192))
+        ) {
+            final int[] sampleSizes = new int[numSamples];
+            for (int i = 0; i < numSamples; ++i) {
+                samplesBuffer.buffer().put(samples[i]);
+                sampleSizes[i] = samples[i].length;
+            }
+            samplesBuffer.buffer().flip();
+            final int dictLength = zstd.trainDictionary(dict, samplesBuffer, sampleSizes);
+            assertThat(dictLength, Matchers.greaterThan(0));
+            assertThat(dictLength, Matchers.lessThanOrEqualTo(dict.buffer().capacity()));
+            dict.buffer().limit(dictLength);
+
+            try (
+                var cdict = zstd.newCompressionDictionary(dict, randomIntBetween(-3, 9));
+                var ddict = zstd.newDecompressionDictionary(dict);
+                var cctx = zstd.newCompressionContext();
+                var dctx = zstd.newDecompressionContext()
+            ) {
+                // the contexts and dictionaries are reused across inputs
+                for (int iter = 0; iter < 5; ++iter) {
+                    final byte[] data = randomJsonDocument();
+                    try (
+                        var original = nativeAccess.newBuffer(data.length);
+                        var compressed = nativeAccess.newBuffer(zstd.compressBound(data.length));
+                        var restored = nativeAccess.newBuffer(data.length)
+                    ) {
+                        original.buffer().put(0, data);
+                        final int compressedLength = cctx.compress(compressed, original, cdict);
+                        compressed.buffer().limit(compressedLength);
+                        final int decompressedLength = dctx.decompress(restored, compressed, ddict);
+                        assertThat(decompressedLength, equalTo(data.length));
+                        assertThat(restored.buffer(), equalTo(original.buffer()));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testTrainDictionaryValidation() {
+        try (var samples = nativeAccess.newBuffer(100); var dict = nativeAccess.newBuffer(1024)) {
+            var npe = expectThrows(NullPointerException.class, () -> zstd.trainDictionary(null, samples, new int[] { 100 }));
+            assertThat(npe.getMessage(), equalTo("Null dictionary buffer"));
+            var e = expectThrows(IllegalArgumentException.class, () -> zstd.trainDictionary(dict, samples, new int[] { 60, 60 }));
+            assertThat(e.getMessage(), equalTo("Sample sizes add up to 120 bytes but the samples buffer only has 100 bytes"));
+            // a single tiny sample is not enough to train a dictionary
+            expectThrows(IllegalArgumentException.class, () -> zstd.trainDictionary(dict, samples, new int[] { 100 }));
+        }
+    }
+
+    private static byte[] randomJsonDocument() {
+        return ("{\"@timestamp\":"
+            + randomNonNegativeLong()
+            + ",\"log.level\":\""
+            + randomFrom("INFO", "WARN", "ERROR")
+            + "\",\"http.request.method\":\""
+            + randomFrom("GET", "POST", "PUT")
+            + "\",\"url.path\":\"/"
+            + randomAlphaOfLengthBetween(1, 20)
+            + "\",\"http.response.status_code\":"
+            + randomFrom(200, 204, 404, 500)
+            + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
     private void doTestRoundtrip(byte[] data) {
         try (
             var original = nativeAccess.newBuffer(data.length);
@@ -93,6 +93,51 @@ public class ESVectorUtil {
         return IMPL.ipFloatByte(q, d);
     }
 
+    /**
+     * Shifts and masks longs as part of unpacking a block of bit-packed postings:
+     * {@code b[bi + i] = (a[i] >>> shift) & mask} for every {@code i} in {@code [0, count)}.
+     * @param a the packed longs
+     * @param count the number of longs to unpack
+     * @param b the array to write the unpacked longs to
+     * @param bi the index of the first long to write in {@code b}
+     * @param shift the number of bits to shift the longs right by
+     * @param mask the mask to apply to the shifted longs
+     */
+    public static void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask) {
+        assert count <= a.length && bi + count <= b.length;
+        IMPL.shiftLongs(a, count, b, bi, shift, mask);
+    }
+
+    /**
+     * Expands a block of 128 values that are packed 8 bits per value in the first 16 longs of {@code arr} into 128 longs, the byte at
+     * index {@code j} (most significant first) of the long at index {@code i} ends up at index {@code 16 * j + i}.
+     * @param arr the block, must hold at least 128 longs
+     */
+    public static void expand8(long[] arr) {
+        assert arr.length >= 128;
+        IMPL.expand8(arr);
+    }
+
+    /**
+     * Expands a block of 128 values that are packed 16 bits per value in the first 32 longs of {@code arr} into 128 longs, the short at
+     * index {@code j} (most significant first) of the long at index {@code i} ends up at index {@code 32 * j + i}.
+     * @param arr the block, must hold at least 128 longs
+     */
+    public static void expand16(long[] arr) {
+        assert arr.length >= 128;
+        IMPL.expand16(arr);
+    }
+
+    /**
+     * Expands a block of 128 values that are packed 32 bits per value in the first 64 longs of {@code arr} into 128 longs, the high int
+     * of the long at index {@code i} ends up at index {@code i} and its low int at index {@code 64 + i}.
+     * @param arr the block, must hold at least 128 longs
+     */
+    public static void expand32(long[] arr) {
+        assert arr.length >= 128;
+        IMPL.expand32(arr);
+    }
+
     /**
      * AND bit count computed over signed bytes.
      * Copied from Lucene's XOR implementation
@@ -44,6 +44,26 @@ final class DefaultESVectorUtilSupport implements ESVectorUtilSupport {
         return ipFloatByteImpl(q, d);
     }
 
+    @Override
+    public void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask) {
+        shiftLongsImpl(a, count, b, bi, shift, mask);
+    }
+
+    @Override
+    public void expand8(long[] arr) {
+        expand8Impl(arr);
+    }
+
+    @Override
+    public void expand16(long[] arr) {
+        expand16Impl(arr);
+    }
+
+    @Override
+    public void expand32(long[] arr) {
+        expand32Impl(arr);
+    }
+
     public static int ipByteBitImpl(byte[] q, byte[] d) {
         assert q.length == d.length * Byte.SIZE;
         int acc0 = 0;
@@ -114,4 +134,46 @@ final class DefaultESVectorUtilSupport implements ESVectorUtilSupport {
         }
         return ret;
     }
+
+    /**
+     * The pattern that this method applies is recognized by the C2 compiler, which generates SIMD instructions for it in order to shift
+     * multiple longs at once.
+     */
+    public static void shiftLongsImpl(long[] a, int count, long[] b, int bi, int shift, long mask) {
+        for (int i = 0; i < count; ++i) {
+            b[bi + i] = (a[i] >>> shift) & mask;
+        }
+    }
+
+    public static void expand8Impl(long[] arr) {
+        for (int i = 0; i < 16; ++i) {
+            long l = arr[i];
+            arr[i] = (l >>> 56) & 0xFFL;
+            arr[16 + i] = (l >>> 48) & 0xFFL;
+            arr[32 + i] = (l >>> 40) & 0xFFL;
+            arr[48 + i] = (l >>> 32) & 0xFFL;
+            arr[64 + i] = (l >>> 24) & 0xFFL;
+            arr[80 + i] = (l >>> 16) & 0xFFL;
+            arr[96 + i] = (l >>> 8) & 0xFFL;
+            arr[112 + i] = l & 0xFFL;
+        }
+    }
+
+    public static void expand16Impl(long[] arr) {
+        for (int i = 0; i < 32; ++i) {
+            long l = arr[i];
+            arr[i] = (l >>> 48) & 0xFFFFL;
+            arr[32 + i] = (l >>> 32) & 0xFFFFL;
+            arr[64 + i] = (l >>> 16) & 0xFFFFL;
+            arr[96 + i] = l & 0xFFFFL;
+        }
+    }
+
+    public static void expand32Impl(long[] arr) {
+        for (int i = 0; i < 64; ++i) {
+            long l = arr[i];
+            arr[i] = l >>> 32;
+            arr[64 + i] = l & 0xFFFFFFFFL;
+        }
+    }
 }
@@ -20,4 +20,27 @@ public interface ESVectorUtilSupport {
     float ipFloatBit(float[] q, byte[] d);
 
     float ipFloatByte(float[] q, byte[] d);
+
+    /**
+     * Sets {@code b[bi + i] = (a[i] >>> shift) & mask} for every {@code i} in {@code [0, count)}.
+     */
+    void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask);
+
+    /**
+     * Expands the 128 bytes packed in the first 16 longs of {@code arr} into 128 longs, the byte at index {@code j} (most significant
+     * first) of the long at index {@code i} ends up at index {@code 16 * j + i}.
+     */
+    void expand8(long[] arr);
+
+    /**
+     * Expands the 128 shorts packed in the first 32 longs of {@code arr} into 128 longs, the short at index {@code j} (most significant
+     * first) of the long at index {@code i} ends up at index {@code 32 * j + i}.
+     */
+    void expand16(long[] arr);
+
+    /**
+     * Expands the 128 ints packed in the first 64 longs of {@code arr} into 128 longs, the high int of the long at index {@code i} ends
+     * up at index {@code i} and its low int at index {@code 64 + i}.
+     */
+    void expand32(long[] arr);
 }
@@ -35,6 +35,14 @@ public final class PanamaESVectorUtilSupport implements ESVectorUtilSupport {
         HAS_FAST_INTEGER_VECTORS = isAMD64withoutAVX2 == false;
     }
 
+    private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * Whether to unpack postings blocks with vectors, which only pays off if at least four longs fit in a vector. The block layouts
+     * that are expanded hold 16, 32 and 64 longs, which are multiples of the number of lanes of all the supported vector sizes.
+     */
+    static final boolean USE_VECTORIZED_UNPACKING = HAS_FAST_INTEGER_VECTORS && LONG_SPECIES.length() >= 4;
+
     @Override
     public long ipByteBinByte(byte[] q, byte[] d) {
         // 128 / 8 == 16
@@ -63,6 +71,69 @@ public final class PanamaESVectorUtilSupport implements ESVectorUtilSupport {
         return DefaultESVectorUtilSupport.ipFloatByteImpl(q, d);
     }
 
+    @Override
+    public void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask) {
+        if (USE_VECTORIZED_UNPACKING == false) {
+            DefaultESVectorUtilSupport.shiftLongsImpl(a, count, b, bi, shift, mask);
+            return;
+        }
+        int i = 0;
+        for (final int bound = LONG_SPECIES.loopBound(count); i < bound; i += LONG_SPECIES.length()) {
+            LongVector.fromArray(LONG_SPECIES, a, i).lanewise(VectorOperators.LSHR, shift).and(mask).intoArray(b, bi + i);
+        }
+        for (; i < count; ++i) {
+            b[bi + i] = (a[i] >>> shift) & mask;
+        }
+    }
+
+    @Override
+    public void expand8(long[] arr) {
+        if (USE_VECTORIZED_UNPACKING == false) {
+            DefaultESVectorUtilSupport.expand8Impl(arr);
+            return;
+        }
+        // every iteration only overwrites the longs that it read, so the longs of the next iterations are still packed
+        for (int i = 0; i < 16; i += LONG_SPECIES.length()) {
+            final LongVector v = LongVector.fromArray(LONG_SPECIES, arr, i);
+            v.lanewise(VectorOperators.LSHR, 56).and(0xFFL).intoArray(arr, i);
+            v.lanewise(VectorOperators.LSHR, 48).and(0xFFL).intoArray(arr, 16 + i);
+            v.lanewise(VectorOperators.LSHR, 40).and(0xFFL).intoArray(arr, 32 + i);
+            v.lanewise(VectorOperators.LSHR, 32).and(0xFFL).intoArray(arr, 48 + i);
+            v.lanewise(VectorOperators.LSHR, 24).and(0xFFL).intoArray(arr, 64 + i);
+            v.lanewise(VectorOperators.LSHR, 16).and(0xFFL).intoArray(arr, 80 + i);
+            v.lanewise(VectorOperators.LSHR, 8).and(0xFFL).intoArray(arr, 96 + i);
+            v.and(0xFFL).intoArray(arr, 112 + i);
+        }
+    }
+
+    @Override
+    public void expand16(long[] arr) {
+        if (USE_VECTORIZED_UNPACKING == false) {
+            DefaultESVectorUtilSupport.expand16Impl(arr);
+            return;
+        }
+        for (int i = 0; i < 32; i += LONG_SPECIES.length()) {
+            final LongVector v = LongVector.fromArray(LONG_SPECIES, arr, i);
+            v.lanewise(VectorOperators.LSHR, 48).and(0xFFFFL).intoArray(arr, i);
+            v.lanewise(VectorOperators.LSHR, 32).and(0xFFFFL).intoArray(arr, 32 + i);
+            v.lanewise(VectorOperators.LSHR, 16).and(0xFFFFL).intoArray(arr, 64 + i);
+            v.and(0xFFFFL).intoArray(arr, 96 + i);
+        }
+    }
+
+    @Override
+    public void expand32(long[] arr) {
+        if (USE_VECTORIZED_UNPACKING == false) {
+            DefaultESVectorUtilSupport.expand32Impl(arr);
+            return;
+        }
+        for (int i = 0; i < 64; i += LONG_SPECIES.length()) {
+            final LongVector v = LongVector.fromArray(LONG_SPECIES, arr, i);
+            v.lanewise(VectorOperators.LSHR, 32).intoArray(arr, i);
+            v.and(0xFFFFFFFFL).intoArray(arr, 64 + i);
+        }
+    }
+
     private static final VectorSpecies<Byte> BYTE_SPECIES_128 = ByteVector.SPECIES_128;
     private static final VectorSpecies<Byte> BYTE_SPECIES_256 = ByteVector.SPECIES_256;
 
@@ -13,6 +13,7 @@ import org.elasticsearch.simdvec.internal.vectorization.BaseVectorizationTests;
 import org.elasticsearch.simdvec.internal.vectorization.ESVectorizationProvider;
 
 import java.util.Arrays;
+import java.util.function.Consumer;
 
 import static org.elasticsearch.simdvec.internal.vectorization.ESVectorUtilSupport.B_QUERY;
 
@@ -74,6 +75,82 @@ public class ESVectorUtilTests extends BaseVectorizationTests {
         testBasicIpByteBinImpl(defOrPanamaProvider.getVectorUtilSupport()::ipByteBinByte);
     }
 
+    public void testShiftLongs() {
+        int iterations = atLeast(10);
+        for (int i = 0; i < iterations; i++) {
+            int count = randomIntBetween(1, 64);
+            long[] a = new long[count];
+            for (int j = 0; j < count; j++) {
+                a[j] = randomLong();
+            }
+            int bi = randomIntBetween(0, 64);
+            int shift = randomIntBetween(0, 63);
+            long mask = randomLong();
+            long[] expected = new long[128];
+            for (int j = 0; j < count; j++) {
+                expected[bi + j] = (a[j] >>> shift) & mask;
+            }
+            long[] defaultResult = new long[128];
+            defaultedProvider.getVectorUtilSupport().shiftLongs(a, count, defaultResult, bi, shift, mask);
+            assertArrayEquals(expected, defaultResult);
+            long[] panamaResult = new long[128];
+            defOrPanamaProvider.getVectorUtilSupport().shiftLongs(a, count, panamaResult, bi, shift, mask);
+            assertArrayEquals(expected, panamaResult);
+        }
+    }
+
+    public void testExpand8() {
+        long[] arr = randomBlock();
+        long[] expected = new long[128];
+        for (int i = 0; i < 16; i++) {
+            for (int j = 0; j < 8; j++) {
+                expected[16 * j + i] = (arr[i] >>> (56 - 8 * j)) & 0xFFL;
+            }
+        }
+        assertExpand(expected, arr, ESVectorUtil::expand8);
+        assertExpand(expected, arr, defaultedProvider.getVectorUtilSupport()::expand8);
+        assertExpand(expected, arr, defOrPanamaProvider.getVectorUtilSupport()::expand8);
+    }
+
+    public void testExpand16() {
+        long[] arr = randomBlock();
+        long[] expected = new long[128];
+        for (int i = 0; i < 32; i++) {
+            for (int j = 0; j < 4; j++) {
+                expected[32 * j + i] = (arr[i] >>> (48 - 16 * j)) & 0xFFFFL;
+            }
+        }
+        assertExpand(expected, arr, ESVectorUtil::expand16);
+        assertExpand(expected, arr, defaultedProvider.getVectorUtilSupport()::expand16);
+        assertExpand(expected, arr, defOrPanamaProvider.getVectorUtilSupport()::expand16);
+    }
+
+    public void testExpand32() {
+        long[] arr = randomBlock();
+        long[] expected = new long[128];
+        for (int i = 0; i < 64; i++) {
+            expected[i] = arr[i] >>> 32;
+            expected[64 + i] = arr[i] & 0xFFFFFFFFL;
+        }
+        assertExpand(expected, arr, ESVectorUtil::expand32);
+        assertExpand(expected, arr, defaultedProvider.getVectorUtilSupport()::expand32);
+        assertExpand(expected, arr, defOrPanamaProvider.getVectorUtilSupport()::expand32);
+    }
+
+    private static long[] randomBlock() {
+        long[] arr = new long[128];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = randomLong();
+        }
+        return arr;
+    }
+
+    private static void assertExpand(long[] expected, long[] block, Consumer<long[]> expand) {
+        long[] arr = block.clone();
+        expand.accept(arr);
+        assertArrayEquals(expected, arr);
+    }
+
     interface IpByteBin {
         long apply(byte[] q, byte[] d);
     }
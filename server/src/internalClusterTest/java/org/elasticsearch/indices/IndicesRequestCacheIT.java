@@ -10,6 +10,7 @@
 package org.elasticsearch.indices;
 
 import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.support.broadcast.BroadcastResponse;
 import org.elasticsearch.client.internal.Client;
@@ -21,6 +22,9 @@ import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation.Buck
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.Sum;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.hamcrest.ElasticsearchAssertions;
 
@@ -34,6 +38,9 @@ import java.util.List;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.dateHistogram;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.dateRange;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.filter;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.max;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailuresAndResponse;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertResponse;
@@ -42,6 +49,18 @@ import static org.hamcrest.Matchers.greaterThan;
 
 public class IndicesRequestCacheIT extends ESIntegTestCase {
 
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal, Settings otherSettings) {
+        // the hits and misses asserted below must not depend on the eviction policy of the request cache
+        return Settings.builder()
+            .put(super.nodeSettings(nodeOrdinal, otherSettings))
+            .put(
+                IndicesRequestCache.INDICES_CACHE_QUERY_EVICTION_POLICY.getKey(),
+                randomFrom(IndicesRequestCache.EvictionPolicy.values()).name()
+            )
+            .build();
+    }
+
     // One of the primary purposes of the query cache is to cache aggs results
     public void testCacheAggs() throws Exception {
         Client client = client();
@@ -607,6 +626,72 @@ public class IndicesRequestCacheIT extends ESIntegTestCase {
         }
     }
 
+    public void testPerSegmentResultsMatchShardResults() throws Exception {
+        Client client = client();
+        for (String index : List.of("per_segment", "per_shard")) {
+            assertAcked(
+                indicesAdmin().prepareCreate(index)
+                    .setMapping("k", "type=keyword", "v", "type=long")
+                    .setSettings(
+                        indexSettings(1, 0).put(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING.getKey(), true)
+                            .put(IndicesRequestCache.INDEX_CACHE_REQUEST_PER_SEGMENT_SETTING.getKey(), index.equals("per_segment"))
+                    )
+            );
+        }
+        // index the same documents in both indices, refreshing in between so that the shards have several segments
+        final int numBatches = randomIntBetween(2, 5);
+        for (int i = 0; i < numBatches; i++) {
+            final int numDocs = randomIntBetween(1, 20);
+            for (int j = 0; j < numDocs; j++) {
+                final String k = randomFrom("a", "b", "c", "d");
+                final long v = randomLongBetween(0, 100);
+                for (String index : List.of("per_segment", "per_shard")) {
+                    client.prepareIndex(index).setSource("k", k, "v", v).get();
+                }
+            }
+            refresh("per_segment", "per_shard");
+        }
+        ensureSearchable("per_segment", "per_shard");
+
+        // the second round is served from the request cache
+        for (int round = 0; round < 2; round++) {
+            assertNoFailuresAndResponse(perSegmentSearch(client, "per_segment"), perSegment -> {
+                assertNoFailuresAndResponse(perSegmentSearch(client, "per_shard"), perShard -> {
+                    assertEquals(perShard.getHits().getTotalHits(), perSegment.getHits().getTotalHits());
+                    assertEquals(perShard.getHits().getHits().length, perSegment.getHits().getHits().length);
+                    Terms termsPerShard = perShard.getAggregations().get("terms");
+                    Terms termsPerSegment = perSegment.getAggregations().get("terms");
+                    assertEquals(termsPerShard.getBuckets().size(), termsPerSegment.getBuckets().size());
+                    for (int i = 0; i < termsPerShard.getBuckets().size(); i++) {
+                        Terms.Bucket expected = termsPerShard.getBuckets().get(i);
+                        Terms.Bucket actual = termsPerSegment.getBuckets().get(i);
+                        assertEquals(expected.getKey(), actual.getKey());
+                        assertEquals(expected.getDocCount(), actual.getDocCount());
+                        Sum expectedSum = expected.getAggregations().get("sum");
+                        Sum actualSum = actual.getAggregations().get("sum");
+                        assertEquals(expectedSum.value(), actualSum.value(), 0d);
+                    }
+                    Max maxPerShard = perShard.getAggregations().get("max");
+                    Max maxPerSegment = perSegment.getAggregations().get("max");
+                    assertEquals(maxPerShard.value(), maxPerSegment.value(), 0d);
+                });
+            });
+        }
+        assertThat(
+            indicesAdmin().prepareStats("per_segment").setRequestCache(true).get().getTotal().getRequestCache().getHitCount(),
+            greaterThan(0L)
+        );
+    }
+
+    private static SearchRequestBuilder perSegmentSearch(Client client, String index) {
+        return client.prepareSearch(index)
+            .setSize(0)
+            .setRequestCache(true)
+            .setQuery(QueryBuilders.rangeQuery("v").gte(10))
+            .addAggregation(terms("terms").field("k").subAggregation(sum("sum").field("v")))
+            .addAggregation(max("max").field("v"));
+    }
+
     private static void assertCacheState(Client client, String index, long expectedHits, long expectedMisses) {
         RequestCacheStats requestCacheStats = client.admin()
             .indices()
@@ -187,6 +187,14 @@ public class TransportVersions {
     public static final TransportVersion INCLUDE_INDEX_MODE_IN_GET_DATA_STREAM = def(9_023_0_00);
     public static final TransportVersion MAX_OPERATION_SIZE_REJECTIONS_ADDED = def(9_024_0_00);
     public static final TransportVersion RETRY_ILM_ASYNC_ACTION_REQUIRE_ERROR = def(9_025_0_00);
+    public static final TransportVersion TRANSLOG_GROUP_SYNC_STATS = def(9_026_0_00);
+    public static final TransportVersion INDEXING_BUFFER_STATS = def(9_027_0_00);
+    public static final TransportVersion STORED_FIELDS_DICTIONARY_STATS = def(9_028_0_00);
+    public static final TransportVersion SHARED_SEGMENT_QUERY_CACHE_STATS = def(9_029_0_00);
+    public static final TransportVersion PROFILE_QUERY_SLICE_COUNT = def(9_030_0_00);
+    public static final TransportVersion CAN_MATCH_FIELD_RANGES = def(9_031_0_00);
+    public static final TransportVersion REQUEST_CACHE_TOP_HITS_STATS = def(9_032_0_00);
+    public static final TransportVersion GLOBAL_ORDINALS_EAGER_BUILD_TIME = def(9_033_0_00);
 
     /*
      * STOP! READ THIS FIRST! No, really,
@@ -149,7 +149,7 @@ final class CanMatchPreFilterSearchPhase {
             }
             boolean canMatch = true;
             CoordinatorRewriteContext coordinatorRewriteContext = coordinatorRewriteContextProvider.getCoordinatorRewriteContext(
-                request.shardId().getIndex()
+                request.shardId()
             );
             if (coordinatorRewriteContext != null) {
                 try {
@@ -269,6 +269,13 @@ final class CanMatchPreFilterSearchPhase {
                                     if (response.getResponse() != null) {
                                         CanMatchShardResponse shardResponse = response.getResponse();
                                         shardResponse.setShardIndex(shardLevelRequests.get(i).getShardRequestIndex());
+                                        // the cache is keyed on the shards of the local cluster
+                                        if (shardResponse.fieldRanges() != null && sendingTarget.clusterAlias == null) {
+                                            coordinatorRewriteContextProvider.onShardFieldRanges(
+                                                shardLevelRequests.get(i).shardId(),
+                                                shardResponse.fieldRanges()
+                                            );
+                                        }
                                         onOperation(shardResponse.getShardIndex(), shardResponse);
                                     } else {
                                         Exception failure = response.getException();
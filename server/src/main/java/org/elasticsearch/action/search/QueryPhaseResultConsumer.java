@@ -12,12 +12,15 @@ package org.elasticsearch.action.search;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.io.stream.DelayableWriteable;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.SearchShardTarget;
@@ -26,13 +29,16 @@ import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.rank.context.QueryPhaseRankCoordinatorContext;
+import org.elasticsearch.tasks.TaskCancelledException;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -43,7 +49,8 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
 
 /**
  * A {@link ArraySearchPhaseResults} implementation that incrementally reduces aggregation results
- * as shard results are consumed.
+ * as shard results are consumed. Top docs are folded into a {@link StreamingTopDocsMerger} as soon as
+ * they arrive, unless hits are collapsed in which case they are merged in batches like aggregations.
  * This implementation adds the memory that it used to save and reduce the results of shard aggregations
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
@@ -52,6 +59,11 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
 
+    /**
+     * The minimum number of shard results that each thread reduces when the final reduce runs concurrently.
+     */
+    static final int MIN_RESULTS_PER_CONCURRENT_REDUCE = 8;
+
     private final Executor executor;
     private final CircuitBreaker circuitBreaker;
     private final SearchProgressListener progressListener;
@@ -66,6 +78,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private final Consumer<Exception> onPartialMergeFailure;
 
     private final int batchReduceSize;
+    private final int aggsReduceConcurrency;
+    private final Supplier<Boolean> isCanceled;
     private List<QuerySearchResult> buffer = new ArrayList<>();
     private List<SearchShard> emptyResults = new ArrayList<>();
     // the memory that is accounted in the circuit breaker for this consumer
@@ -79,6 +93,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private final AtomicReference<Exception> failure = new AtomicReference<>();
 
     private final TopDocsStats topDocsStats;
+    // merges the top docs as shard results arrive, null if the top docs are merged in batches with the aggregations
+    private final StreamingTopDocsMerger topDocsMerger;
     private volatile MergeResult mergeResult;
     private volatile boolean hasPartialReduce;
     private volatile int numReducePhases;
@@ -96,6 +112,25 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         SearchProgressListener progressListener,
         int expectedResultSize,
         Consumer<Exception> onPartialMergeFailure
+    ) {
+        this(request, executor, circuitBreaker, controller, isCanceled, progressListener, expectedResultSize, onPartialMergeFailure, true);
+    }
+
+    /**
+     * Same as {@link #QueryPhaseResultConsumer(SearchRequest, Executor, CircuitBreaker, SearchPhaseController, Supplier,
+     * SearchProgressListener, int, Consumer)} but allows to merge top docs in batches rather than as they arrive with
+     * {@code streamTopDocs} set to {@code false}.
+     */
+    public QueryPhaseResultConsumer(
+        SearchRequest request,
+        Executor executor,
+        CircuitBreaker circuitBreaker,
+        SearchPhaseController controller,
+        Supplier<Boolean> isCanceled,
+        SearchProgressListener progressListener,
+        int expectedResultSize,
+        Consumer<Exception> onPartialMergeFailure,
+        boolean streamTopDocs
     ) {
         super(expectedResultSize);
         this.executor = executor;
@@ -104,6 +139,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         this.topNSize = getTopDocsSize(request);
         this.performFinalReduce = request.isFinalReduce();
         this.onPartialMergeFailure = onPartialMergeFailure;
+        this.isCanceled = isCanceled;
 
         SearchSourceBuilder source = request.source();
         int size = source == null || source.size() == -1 ? SearchService.DEFAULT_SIZE : source.size();
@@ -114,8 +150,15 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         this.hasTopDocs = (source == null || size != 0) && queryPhaseRankCoordinatorContext == null;
         this.hasAggs = source != null && source.aggregations() != null;
         this.aggReduceContextBuilder = hasAggs ? controller.getReduceContext(isCanceled, source.aggregations()) : null;
-        batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize) : expectedResultSize;
+        this.aggsReduceConcurrency = hasAggs ? controller.getAggsReduceConcurrency() : 1;
         topDocsStats = new TopDocsStats(request.resolveTrackTotalHitsUpTo());
+        // collapsed hits are merged per group, which requires all the hits of the batch
+        this.topDocsMerger = streamTopDocs && hasTopDocs && (source == null || source.collapse() == null)
+            ? new StreamingTopDocsMerger(topNSize, topDocsStats)
+            : null;
+        // partial reduces still run when the top docs are streamed so that the progress listener is notified of the partial results,
+        // they are cheap since they have no top docs to merge
+        batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize) : expectedResultSize;
     }
 
     @Override
@@ -173,8 +216,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         var mergeResult = this.mergeResult;
         this.mergeResult = null;
         final int resultSize = buffer.size() + (mergeResult == null ? 0 : 1);
-        final List<TopDocs> topDocsList = hasTopDocs ? new ArrayList<>(resultSize) : null;
-        final List<DelayableWriteable<InternalAggregations>> aggsList = hasAggs ? new ArrayList<>(resultSize) : null;
+        final List<TopDocs> topDocsList = hasTopDocs && topDocsMerger == null ? new ArrayList<>(resultSize) : null;
+        List<DelayableWriteable<InternalAggregations>> aggsList = hasAggs ? new ArrayList<>(resultSize) : null;
         if (mergeResult != null) {
             if (topDocsList != null) {
                 topDocsList.add(mergeResult.reducedTopDocs);
@@ -184,7 +227,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             }
         }
         for (QuerySearchResult result : buffer) {
-            topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+            if (topDocsMerger == null) {
+                topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+            }
             if (topDocsList != null) {
                 TopDocsAndMaxScore topDocs = result.consumeTopDocs();
                 setShardIndex(topDocs.topDocs, result.getShardIndex());
@@ -198,13 +243,14 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         long breakerSize = circuitBreakerBytes;
         try {
             if (aggsList != null) {
-                // Add an estimate of the final reduce size
+                // Add an estimate of the final reduce size, it also covers the partial results of the concurrent reduce
                 breakerSize = addEstimateAndMaybeBreak(estimateRamBytesUsedForReduce(breakerSize));
+                aggsList = concurrentPartialReduce(aggsList);
             }
             reducePhase = SearchPhaseController.reducedQueryPhase(
                 results.asList(),
                 aggsList,
-                topDocsList == null ? Collections.emptyList() : topDocsList,
+                topDocsList == null ? streamedTopDocs() : topDocsList,
                 topDocsStats,
                 numReducePhases,
                 false,
@@ -236,6 +282,75 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
 
     }
 
+    /**
+     * Splits {@code aggsList} into up to {@link #aggsReduceConcurrency} groups of consecutive shard results and partially
+     * reduces the groups concurrently on the {@link #executor}, returning the partial results in order so the final
+     * reduce only has to merge them. The calling thread reduces groups as well and only waits for the groups that other
+     * threads have already picked up, so a busy executor slows the reduce down but never blocks it. Groups that haven't
+     * started when the task is cancelled are skipped. The memory of the partial results is covered by the estimate of
+     * the final reduce that the caller adds to the circuit breaker.
+     */
+    private List<DelayableWriteable<InternalAggregations>> concurrentPartialReduce(List<DelayableWriteable<InternalAggregations>> aggsList)
+        throws Exception {
+        final int groups = Math.min(aggsReduceConcurrency, aggsList.size() / MIN_RESULTS_PER_CONCURRENT_REDUCE);
+        if (groups < 2) {
+            return aggsList;
+        }
+        final InternalAggregations[] partials = new InternalAggregations[groups];
+        final AtomicInteger nextGroup = new AtomicInteger();
+        final CountDownLatch reduced = new CountDownLatch(groups);
+        final AtomicReference<Exception> reduceFailure = new AtomicReference<>();
+        final Runnable reduceGroups = () -> {
+            int group;
+            while ((group = nextGroup.getAndIncrement()) < groups) {
+                try {
+                    if (reduceFailure.get() == null && isCanceled.get() == false) {
+                        final int from = (int) ((long) aggsList.size() * group / groups);
+                        final int to = (int) ((long) aggsList.size() * (group + 1) / groups);
+                        partials[group] = InternalAggregations.topLevelReduceDelayable(
+                            aggsList.subList(from, to),
+                            aggReduceContextBuilder.forPartialReduction()
+                        );
+                    }
+                } catch (Exception e) {
+                    reduceFailure.accumulateAndGet(e, ExceptionsHelper::useOrSuppress);
+                } finally {
+                    reduced.countDown();
+                }
+            }
+        };
+        for (int i = 1; i < groups; i++) {
+            try {
+                executor.execute(reduceGroups);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread picks up the groups that no other thread reduces
+                break;
+            }
+        }
+        reduceGroups.run();
+        reduced.await();
+        final Exception e = reduceFailure.get();
+        if (e != null) {
+            throw e;
+        }
+        if (isCanceled.get()) {
+            throw new TaskCancelledException("Cancelled");
+        }
+        ++numReducePhases;
+        final List<DelayableWriteable<InternalAggregations>> reducedList = new ArrayList<>(groups);
+        for (InternalAggregations partial : partials) {
+            if (partial != null) {
+                reducedList.add(DelayableWriteable.referencing(partial));
+            }
+        }
+        return reducedList;
+    }
+
+    private List<TopDocs> streamedTopDocs() {
+        final TopDocs topDocs = topDocsMerger == null ? null : topDocsMerger.topDocs();
+        return topDocs == null ? Collections.emptyList() : List.of(topDocs);
+    }
+
     private static final Comparator<QuerySearchResult> RESULT_COMPARATOR = Comparator.comparingInt(QuerySearchResult::getShardIndex);
 
     private MergeResult partialReduce(
@@ -261,7 +376,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             aggsList = null;
         }
         List<TopDocs> topDocsList;
-        if (hasTopDocs) {
+        if (hasTopDocs && topDocsMerger == null) {
             topDocsList = new ArrayList<>(resultSetSize);
             if (lastMerge != null) {
                 topDocsList.add(lastMerge.reducedTopDocs);
@@ -271,7 +386,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         }
         try {
             for (QuerySearchResult result : toConsume) {
-                topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+                if (topDocsMerger == null) {
+                    topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+                }
                 SearchShardTarget target = result.getSearchShardTarget();
                 processedShards.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
                 if (aggsList != null) {
@@ -295,7 +412,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             processedShards.addAll(lastMerge.processedShards);
         }
         if (progressListener != SearchProgressListener.NOOP) {
-            progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
+            TotalHits totalHits = topDocsMerger == null ? topDocsStats.getTotalHits() : topDocsMerger.getTotalHits();
+            progressListener.notifyPartialReduce(processedShards, totalHits, newAggs, numReducePhases);
         }
         // we leave the results un-serialized because serializing is slow but we compute the serialized
         // size as an estimate of the memory used by the newly reduced aggregations.
@@ -360,6 +478,19 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             }
             next.run();
         } else {
+            if (topDocsMerger != null) {
+                try {
+                    topDocsMerger.consume(result);
+                } catch (Exception exc) {
+                    synchronized (this) {
+                        releaseBuffer();
+                        onMergeFailure(exc);
+                    }
+                    result.consumeAll();
+                    next.run();
+                    return;
+                }
+            }
             final long aggsSize = ramBytesUsedQueryResult(result);
             boolean executeNextImmediately = true;
             boolean hasFailure = false;
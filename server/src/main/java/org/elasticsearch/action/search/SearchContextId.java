@@ -27,10 +27,12 @@ import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.transport.RemoteClusterAware;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
 
@@ -124,6 +126,75 @@ public final class SearchContextId {
         }
     }
 
+    /**
+     * Splits the id of a point in time into one id per shard, each of which only holds the search context of a single shard, so that
+     * the shards of the point in time can be searched independently from each other. Shards that failed to open a search context are
+     * left out. The ids are sorted by shard id and encoded with the same version as the given id.
+     */
+    static List<BytesReference> splitByShard(NamedWriteableRegistry namedWriteableRegistry, BytesReference id) {
+        final TransportVersion version = readVersion(id);
+        final SearchContextId searchContextId = decode(namedWriteableRegistry, id);
+        final List<BytesReference> ids = new ArrayList<>(searchContextId.shards().size());
+        for (ShardId shardId : new TreeSet<>(searchContextId.shards().keySet())) {
+            final SearchContextIdForNode shard = searchContextId.shards().get(shardId);
+            if (shard.getSearchContextId() == null) {
+                continue;
+            }
+            ids.add(encodeShards(version, Map.of(shardId, shard), searchContextId.aliasFilter()));
+        }
+        return ids;
+    }
+
+    /**
+     * Merges ids of the same point in time, such as ids returned by {@link #splitByShard}, back into a single id that holds the search
+     * contexts of all of their shards. The merged id is encoded with the version of the first id.
+     */
+    static BytesReference merge(NamedWriteableRegistry namedWriteableRegistry, List<BytesReference> ids) {
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("no point in time ids to merge");
+        }
+        final Map<ShardId, SearchContextIdForNode> shards = new TreeMap<>();
+        Map<String, AliasFilter> aliasFilter = null;
+        for (BytesReference id : ids) {
+            final SearchContextId searchContextId = decode(namedWriteableRegistry, id);
+            shards.putAll(searchContextId.shards());
+            if (aliasFilter == null) {
+                aliasFilter = searchContextId.aliasFilter();
+            }
+        }
+        return encodeShards(readVersion(ids.get(0)), shards, aliasFilter);
+    }
+
+    private static TransportVersion readVersion(BytesReference id) {
+        try (var in = id.streamInput()) {
+            return TransportVersion.readVersion(in);
+        } catch (IOException e) {
+            assert false : e;
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static BytesReference encodeShards(
+        TransportVersion version,
+        Map<ShardId, SearchContextIdForNode> shards,
+        Map<String, AliasFilter> aliasFilter
+    ) {
+        try (var out = new BytesStreamOutput()) {
+            out.setTransportVersion(version);
+            TransportVersion.writeVersion(version, out);
+            out.writeVInt(shards.size());
+            for (Map.Entry<ShardId, SearchContextIdForNode> shard : shards.entrySet()) {
+                shard.getKey().writeTo(out);
+                shard.getValue().writeTo(out);
+            }
+            out.writeMap(aliasFilter, StreamOutput::writeWriteable);
+            return out.bytes();
+        } catch (IOException e) {
+            assert false : e;
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     private static void readShardsMapEntry(StreamInput in, Map<ShardId, SearchContextIdForNode> shards) throws IOException {
         shards.put(new ShardId(in), new SearchContextIdForNode(in));
     }
@@ -0,0 +1,557 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.client.internal.Client;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.Streams;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.rest.ChunkedRestResponseBodyPart;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.xcontent.ToXContent;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Streams all the hits that match a query as newline delimited JSON, one hit per line, for the export API.
+ * <p>
+ * A scroll re-runs the query and fetch phases of all of its shards for every page and reduces their results on the coordinator. The
+ * export instead opens a point in time and pages through each of its shards independently with {@code search_after} on
+ * {@code _shard_doc}, using a point in time id that only holds the search context of that shard. The pages of a shard never wait for
+ * the other shards, they are not reduced with the pages of the other shards and their hits are written out as soon as the client is
+ * ready to receive them. Hits are therefore not sorted across shards.
+ * <p>
+ * Up to {@code maxConcurrentShards} shards are paged through at the same time. A shard fetches its next page once its previous page
+ * has been taken for sending, and the HTTP layer only asks for the next page once it wrote the previous one to the channel, so the
+ * export holds at most two pages per concurrent shard in memory no matter how slowly the client reads the response. The search
+ * context of a shard is closed as soon as its last page was fetched, and the search contexts of the shards that did not start yet
+ * are kept alive by searching a point in time id that only holds these shards every half keep alive.
+ */
+public final class SearchExportResponseStream implements Releasable {
+
+    private static final Logger logger = LogManager.getLogger(SearchExportResponseStream.class);
+
+    static final String CONTENT_TYPE = "application/x-ndjson; charset=UTF-8";
+
+    private final Client client;
+    private final Client closeClient;
+    private final NamedWriteableRegistry namedWriteableRegistry;
+    private final RestChannel channel;
+    private final SearchSourceBuilder source;
+    private final TimeValue keepAlive;
+    private final int maxConcurrentShards;
+
+    private final Deque<ShardCursor> pendingShards = new ArrayDeque<>();
+    private final Deque<PagePart> readyPages = new ArrayDeque<>();
+    @Nullable // if no page is being written by the REST layer
+    private PagePart sendingPage;
+    // the shards whose search context was not closed yet, whether they started or not
+    private final List<ShardCursor> openShards = new ArrayList<>();
+    private int runningShards;
+    @Nullable // until the point in time is open
+    private BytesReference pointInTimeId;
+    @Nullable // if the REST layer is not waiting for the next part of the response
+    private ActionListener<ChunkedRestResponseBodyPart> nextPartListener;
+    @Nullable
+    private Exception failure;
+    @Nullable
+    private Scheduler.Cancellable keepAliveTask;
+    private boolean responseStarted;
+    private boolean lastPartSent;
+    private boolean closed;
+
+    /**
+     * @param client              the client that runs the searches, usually cancelled when the HTTP channel is closed
+     * @param closeClient         the client that closes the point in time, which must not be cancelled
+     * @param source              the search source of the export, whose size is the size of the pages
+     * @param maxConcurrentShards the number of shards that are paged through at the same time
+     */
+    public SearchExportResponseStream(
+        Client client,
+        Client closeClient,
+        NamedWriteableRegistry namedWriteableRegistry,
+        RestChannel channel,
+        SearchSourceBuilder source,
+        TimeValue keepAlive,
+        int maxConcurrentShards
+    ) {
+        this.client = client;
+        this.closeClient = closeClient;
+        this.namedWriteableRegistry = namedWriteableRegistry;
+        this.channel = channel;
+        this.source = source;
+        this.keepAlive = keepAlive;
+        this.maxConcurrentShards = maxConcurrentShards;
+    }
+
+    /**
+     * Opens the point in time and starts streaming the hits of its shards.
+     */
+    public void start(OpenPointInTimeRequest openRequest) {
+        client.execute(TransportOpenPointInTimeAction.TYPE, openRequest, ActionListener.wrap(this::onPointInTimeOpened, this::onFailure));
+    }
+
+    private void onPointInTimeOpened(OpenPointInTimeResponse response) {
+        final List<BytesReference> shardIds = SearchContextId.splitByShard(namedWriteableRegistry, response.getPointInTimeId());
+        final List<ShardCursor> toStart;
+        final boolean alreadyClosed;
+        synchronized (this) {
+            pointInTimeId = response.getPointInTimeId();
+            alreadyClosed = closed;
+            if (closed) {
+                toStart = List.of();
+            } else {
+                for (BytesReference shardId : shardIds) {
+                    final ShardCursor cursor = new ShardCursor(shardId);
+                    pendingShards.add(cursor);
+                    openShards.add(cursor);
+                }
+                toStart = takeShardsToStart();
+                if (pendingShards.isEmpty() == false) {
+                    keepAliveTask = client.threadPool()
+                        .scheduleWithFixedDelay(
+                            this::keepPendingShardsAlive,
+                            TimeValue.timeValueMillis(Math.max(1, keepAlive.millis() / 2)),
+                            client.threadPool().generic()
+                        );
+                }
+            }
+        }
+        if (alreadyClosed) {
+            closePointInTime(List.of(response.getPointInTimeId()));
+            return;
+        }
+        toStart.forEach(ShardCursor::fetchNextPage);
+        maybeSendNextPart();
+    }
+
+    private List<ShardCursor> takeShardsToStart() {
+        assert Thread.holdsLock(this);
+        final List<ShardCursor> toStart = new ArrayList<>();
+        while (failure == null && runningShards < maxConcurrentShards && pendingShards.isEmpty() == false) {
+            toStart.add(pendingShards.poll());
+            runningShards++;
+        }
+        if (pendingShards.isEmpty() && keepAliveTask != null) {
+            keepAliveTask.cancel();
+            keepAliveTask = null;
+        }
+        return toStart;
+    }
+
+    private void keepPendingShardsAlive() {
+        final BytesReference id;
+        synchronized (this) {
+            if (closed || failure != null || pendingShards.isEmpty()) {
+                return;
+            }
+            id = mergeIds(pendingShards);
+        }
+        // searching the pending shards extends the keep alive of their search contexts, the drained shards are closed already
+        final SearchRequest request = new SearchRequest().source(
+            new SearchSourceBuilder().size(0).trackTotalHits(false).pointInTimeBuilder(new PointInTimeBuilder(id).setKeepAlive(keepAlive))
+        );
+        client.execute(TransportSearchAction.TYPE, request, ActionListener.wrap(r -> {}, this::onFailure));
+    }
+
+    private synchronized boolean isFinished() {
+        return failure == null && pendingShards.isEmpty() && runningShards == 0 && readyPages.isEmpty();
+    }
+
+    /**
+     * Takes the pages that were not sent yet and the page that the REST layer is writing, which stops writing it once it is released.
+     */
+    private List<PagePart> takePagesToRelease() {
+        assert Thread.holdsLock(this);
+        final List<PagePart> toRelease = new ArrayList<>(readyPages);
+        readyPages.clear();
+        if (sendingPage != null) {
+            toRelease.add(sendingPage);
+            sendingPage = null;
+        }
+        return toRelease;
+    }
+
+    private void onFailure(Exception e) {
+        final List<PagePart> toRelease;
+        synchronized (this) {
+            if (failure != null) {
+                failure.addSuppressed(e);
+                return;
+            }
+            failure = e;
+            toRelease = takePagesToRelease();
+            if (keepAliveTask != null) {
+                keepAliveTask.cancel();
+                keepAliveTask = null;
+            }
+        }
+        logger.debug("search export failed", e);
+        Releasables.close(toRelease);
+        maybeSendNextPart();
+    }
+
+    /**
+     * Sends the next part of the response if there is one and the REST layer is ready for it.
+     */
+    private void maybeSendNextPart() {
+        final ActionListener<ChunkedRestResponseBodyPart> listener;
+        final ChunkedRestResponseBodyPart part;
+        final boolean startResponse;
+        final List<ShardCursor> toFetch = new ArrayList<>();
+        synchronized (this) {
+            if (closed || lastPartSent || (responseStarted && nextPartListener == null)) {
+                return;
+            }
+            if (readyPages.isEmpty() == false) {
+                final PagePart page = readyPages.poll();
+                // fetch the next page of the shard while this one is being sent
+                if (page.cursor.exhausted) {
+                    runningShards--;
+                    toFetch.addAll(takeShardsToStart());
+                } else {
+                    toFetch.add(page.cursor);
+                }
+                sendingPage = page;
+                part = page;
+            } else if (failure != null) {
+                lastPartSent = true;
+                part = responseStarted ? new FailurePart(failure) : null;
+            } else if (pointInTimeId != null && pendingShards.isEmpty() && runningShards == 0) {
+                lastPartSent = true;
+                part = new LastPart();
+            } else {
+                return;
+            }
+            startResponse = responseStarted == false;
+            responseStarted = true;
+            listener = nextPartListener;
+            nextPartListener = null;
+        }
+        toFetch.forEach(ShardCursor::fetchNextPage);
+        if (startResponse) {
+            if (part == null) {
+                // nothing was sent yet, fail the whole request
+                channel.sendResponse(new RestResponse(channel, failure));
+                // the REST layer never got hold of this stream, so it will not close it
+                close();
+            } else {
+                channel.sendResponse(RestResponse.chunked(RestStatus.OK, part, this));
+            }
+        } else {
+            assert listener != null;
+            listener.onResponse(part);
+        }
+    }
+
+    private void onPage(ShardCursor cursor, SearchResponse response) {
+        final SearchHit[] hits = response.getHits().getHits();
+        final List<ShardCursor> toStart;
+        final List<BytesReference> toClose = new ArrayList<>();
+        synchronized (this) {
+            if (closed || failure != null) {
+                response.decRef();
+                return;
+            }
+            if (response.pointInTimeId() != null) {
+                cursor.pointInTimeId = response.pointInTimeId();
+            }
+            if (hits.length == 0) {
+                response.decRef();
+                runningShards--;
+                toStart = takeShardsToStart();
+            } else {
+                cursor.searchAfter = hits[hits.length - 1].getSortValues();
+                // a short page is the last page of the shard, there is no need to ask for an empty page
+                cursor.exhausted = hits.length < source.size();
+                readyPages.add(new PagePart(cursor, response));
+                toStart = List.of();
+            }
+            if (hits.length == 0 || cursor.exhausted) {
+                // the hits of the last page are fetched already, the search context of the shard is no longer needed
+                openShards.remove(cursor);
+                toClose.add(cursor.pointInTimeId);
+            }
+        }
+        closePointInTime(toClose);
+        toStart.forEach(ShardCursor::fetchNextPage);
+        maybeSendNextPart();
+    }
+
+    @Override
+    public void close() {
+        final List<PagePart> toRelease;
+        final List<BytesReference> toClose = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toRelease = takePagesToRelease();
+            if (keepAliveTask != null) {
+                keepAliveTask.cancel();
+                keepAliveTask = null;
+            }
+            if (openShards.isEmpty() == false) {
+                toClose.add(mergeIds(openShards));
+                openShards.clear();
+            }
+        }
+        Releasables.close(toRelease);
+        closePointInTime(toClose);
+    }
+
+    /**
+     * A point in time id that holds the search contexts of the given shards only.
+     */
+    private BytesReference mergeIds(Collection<ShardCursor> cursors) {
+        return SearchContextId.merge(namedWriteableRegistry, cursors.stream().map(cursor -> cursor.pointInTimeId).toList());
+    }
+
+    private void closePointInTime(List<BytesReference> ids) {
+        for (BytesReference id : ids) {
+            closeClient.execute(
+                TransportClosePointInTimeAction.TYPE,
+                new ClosePointInTimeRequest(id),
+                ActionListener.wrap(r -> {}, e -> logger.debug("failed to close the point in time of a search export", e))
+            );
+        }
+    }
+
+    /**
+     * The position of the export in a single shard of the point in time.
+     */
+    private final class ShardCursor {
+        private BytesReference pointInTimeId;
+        @Nullable // before the first page
+        private Object[] searchAfter;
+        private boolean exhausted;
+
+        ShardCursor(BytesReference pointInTimeId) {
+            this.pointInTimeId = pointInTimeId;
+        }
+
+        void fetchNextPage() {
+            final SearchSourceBuilder pageSource = source.shallowCopy()
+                .pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId).setKeepAlive(keepAlive))
+                .sort(SortBuilders.pitTiebreaker())
+                .trackTotalHits(false);
+            if (searchAfter != null) {
+                pageSource.searchAfter(searchAfter);
+            }
+            final SearchRequest request = new SearchRequest().source(pageSource).allowPartialSearchResults(false);
+            client.execute(TransportSearchAction.TYPE, request, ActionListener.wrap(response -> {
+                response.mustIncRef();
+                onPage(this, response);
+            }, SearchExportResponseStream.this::onFailure));
+        }
+    }
+
+    /**
+     * A page of hits of a shard, written out one line per hit.
+     */
+    private final class PagePart implements ChunkedRestResponseBodyPart, Releasable {
+        private final ShardCursor cursor;
+        private final SearchResponse response;
+        private final Releasable release;
+        private final SearchHit[] hits;
+        private int nextHit;
+
+        PagePart(ShardCursor cursor, SearchResponse response) {
+            this.cursor = cursor;
+            this.response = response;
+            this.release = Releasables.releaseOnce(response::decRef);
+            this.hits = response.getHits().getHits();
+        }
+
+        @Override
+        public boolean isPartComplete() {
+            return nextHit == hits.length;
+        }
+
+        @Override
+        public boolean isLastPart() {
+            return isFinished();
+        }
+
+        @Override
+        public void getNextPart(ActionListener<ChunkedRestResponseBodyPart> listener) {
+            synchronized (SearchExportResponseStream.this) {
+                assert nextPartListener == null;
+                nextPartListener = listener;
+            }
+            maybeSendNextPart();
+        }
+
+        @Override
+        public ReleasableBytesReference encodeChunk(int sizeHint, Recycler<BytesRef> recycler) throws IOException {
+            if (response.tryIncRef() == false) {
+                // the export failed or was closed while this page was being sent, the hits that were not written yet are dropped
+                nextHit = hits.length;
+                return new ReleasableBytesReference(BytesArray.EMPTY, () -> {});
+            }
+            final RecyclerBytesStreamOutput chunk = new RecyclerBytesStreamOutput(recycler);
+            boolean success = false;
+            try {
+                final OutputStream out = Streams.noCloseStream(chunk);
+                while (nextHit < hits.length && chunk.size() < sizeHint) {
+                    try (XContentBuilder builder = XContentFactory.jsonBuilder(out)) {
+                        hits[nextHit].toXContent(builder, channel.request());
+                    }
+                    chunk.writeByte((byte) '\n');
+                    nextHit++;
+                }
+                success = true;
+                return new ReleasableBytesReference(chunk.bytes(), chunk);
+            } finally {
+                response.decRef();
+                if (success == false) {
+                    chunk.close();
+                }
+                if (success == false || isPartComplete()) {
+                    // the hits are serialized, there is no need to keep the page in memory until the bytes are sent
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public String getResponseContentTypeString() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public void close() {
+            release.close();
+            synchronized (SearchExportResponseStream.this) {
+                if (sendingPage == this) {
+                    sendingPage = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * The last part of the response of an export that failed after the first hits were sent: the status code of the response cannot
+     * change anymore so the failure is written as the last line of the response instead.
+     */
+    private final class FailurePart implements ChunkedRestResponseBodyPart {
+        private final Exception failure;
+        private boolean done;
+
+        FailurePart(Exception failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public boolean isPartComplete() {
+            return done;
+        }
+
+        @Override
+        public boolean isLastPart() {
+            return true;
+        }
+
+        @Override
+        public void getNextPart(ActionListener<ChunkedRestResponseBodyPart> listener) {
+            assert false : "no continuations";
+            listener.onFailure(new IllegalStateException("no continuations available"));
+        }
+
+        @Override
+        public ReleasableBytesReference encodeChunk(int sizeHint, Recycler<BytesRef> recycler) throws IOException {
+            final RecyclerBytesStreamOutput chunk = new RecyclerBytesStreamOutput(recycler);
+            try {
+                try (XContentBuilder builder = XContentFactory.jsonBuilder(Streams.noCloseStream(chunk))) {
+                    builder.startObject();
+                    final boolean detailed = channel.detailedErrorsEnabled();
+                    ElasticsearchException.generateFailureXContent(builder, ToXContent.EMPTY_PARAMS, failure, detailed);
+                    builder.field("status", ExceptionsHelper.status(failure).getStatus());
+                    builder.endObject();
+                }
+                chunk.writeByte((byte) '\n');
+                done = true;
+                return new ReleasableBytesReference(chunk.bytes(), chunk);
+            } catch (Exception e) {
+                chunk.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public String getResponseContentTypeString() {
+            return CONTENT_TYPE;
+        }
+    }
+
+    /**
+     * The empty last part of the response, for when the last page of hits was sent before it was known that it was the last one.
+     */
+    private static final class LastPart implements ChunkedRestResponseBodyPart {
+        private boolean done;
+
+        @Override
+        public boolean isPartComplete() {
+            return done;
+        }
+
+        @Override
+        public boolean isLastPart() {
+            return true;
+        }
+
+        @Override
+        public void getNextPart(ActionListener<ChunkedRestResponseBodyPart> listener) {
+            assert false : "no continuations";
+            listener.onFailure(new IllegalStateException("no continuations available"));
+        }
+
+        @Override
+        public ReleasableBytesReference encodeChunk(int sizeHint, Recycler<BytesRef> recycler) {
+            done = true;
+            return new ReleasableBytesReference(BytesArray.EMPTY, () -> {});
+        }
+
+        @Override
+        public String getResponseContentTypeString() {
+            return CONTENT_TYPE;
+        }
+    }
+}
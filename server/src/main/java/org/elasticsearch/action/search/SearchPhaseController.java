@@ -60,6 +60,7 @@ import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.search.SearchService.DEFAULT_SIZE;
@@ -70,11 +71,23 @@ public final class SearchPhaseController {
         Supplier<Boolean>,
         AggregatorFactories.Builder,
         AggregationReduceContext.Builder> requestToAggReduceContextBuilder;
+    private final IntSupplier aggsReduceConcurrency;
 
     public SearchPhaseController(
         BiFunction<Supplier<Boolean>, AggregatorFactories.Builder, AggregationReduceContext.Builder> requestToAggReduceContextBuilder
+    ) {
+        this(requestToAggReduceContextBuilder, () -> 1);
+    }
+
+    /**
+     * @param aggsReduceConcurrency the number of threads that may reduce the aggregations of a single request
+     */
+    public SearchPhaseController(
+        BiFunction<Supplier<Boolean>, AggregatorFactories.Builder, AggregationReduceContext.Builder> requestToAggReduceContextBuilder,
+        IntSupplier aggsReduceConcurrency
     ) {
         this.requestToAggReduceContextBuilder = requestToAggReduceContextBuilder;
+        this.aggsReduceConcurrency = aggsReduceConcurrency;
     }
 
     /**
@@ -160,7 +173,7 @@ public final class SearchPhaseController {
         return mergedTopDocs;
     }
 
-    private static Sort checkSameSortTypes(Collection<TopDocs> results, SortField[] firstSortFields) {
+    static Sort checkSameSortTypes(Collection<TopDocs> results, SortField[] firstSortFields) {
         Sort sort = new Sort(firstSortFields);
         if (results.size() < 2) return sort;
 
@@ -656,6 +669,13 @@ public final class SearchPhaseController {
         return requestToAggReduceContextBuilder.apply(isCanceled, aggs);
     }
 
+    /**
+     * The number of threads that may reduce the aggregations of a single request.
+     */
+    int getAggsReduceConcurrency() {
+        return aggsReduceConcurrency.getAsInt();
+    }
+
     /**
      * Returns a new {@link QueryPhaseResultConsumer} instance that reduces search responses incrementally.
      */
@@ -0,0 +1,189 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Pruning;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.grouping.TopFieldGroups;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.query.QuerySearchResult;
+
+import java.util.List;
+
+import static org.elasticsearch.action.search.SearchPhaseController.checkSameSortTypes;
+import static org.elasticsearch.action.search.SearchPhaseController.setShardIndex;
+
+/**
+ * Merges the top docs of the shard results of a search into a single bounded priority queue as the results arrive, rather than
+ * merging them in batches like {@link QueryPhaseResultConsumer} does for aggregations. The hits of a shard are sorted, so folding a
+ * shard result stops at its first hit that does not compete with the current top hits, and no intermediate {@link TopDocs} are built
+ * between the first and the last shard result.
+ * <p>
+ * The merged hits are the same as the ones of {@link SearchPhaseController#mergeTopDocs}, including the tie break on the shard index
+ * and the doc id. Field collapsing is not supported since the hits of a group must be merged together. The top docs of a shard result
+ * are consumed by the merger so it also accumulates the {@link TopDocsStats} of the results.
+ */
+final class StreamingTopDocsMerger {
+
+    private final int topN;
+    private final TopDocsStats topDocsStats;
+    private boolean consumedResults;
+    private long totalHits;
+    private TotalHits.Relation totalHitsRelation = TotalHits.Relation.EQUAL_TO;
+    // the sort fields of the first result, replaced by the ones of the first result that has hits like in mergeTopDocs
+    private SortField[] sortFields;
+    private TopFieldDocs firstNonEmptyFieldDocs;
+    private boolean sortedByField;
+    private HitQueue queue;
+
+    StreamingTopDocsMerger(int topN, TopDocsStats topDocsStats) {
+        assert topN > 0 : "no hits to merge";
+        this.topN = topN;
+        this.topDocsStats = topDocsStats;
+    }
+
+    /**
+     * Consumes the top docs of the given shard result and folds its competitive hits into the merged hits.
+     */
+    synchronized void consume(QuerySearchResult result) {
+        topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+        final TopDocs topDocs = result.consumeTopDocs().topDocs;
+        assert topDocs instanceof TopFieldGroups == false : "collapsed hits cannot be merged incrementally";
+        setShardIndex(topDocs, result.getShardIndex());
+        consumedResults = true;
+        totalHits += topDocs.totalHits.value();
+        if (topDocs.totalHits.relation() == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO) {
+            totalHitsRelation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+        }
+        if (topDocs instanceof TopFieldDocs fieldDocs) {
+            if (sortFields == null) {
+                sortedByField = true;
+                sortFields = fieldDocs.fields;
+            }
+            if (fieldDocs.scoreDocs.length > 0) {
+                if (firstNonEmptyFieldDocs == null) {
+                    firstNonEmptyFieldDocs = fieldDocs;
+                    sortFields = fieldDocs.fields;
+                } else {
+                    checkSameSortTypes(List.of(firstNonEmptyFieldDocs, fieldDocs), firstNonEmptyFieldDocs.fields);
+                }
+            }
+        }
+        if (topDocs.scoreDocs.length == 0) {
+            return;
+        }
+        if (queue == null) {
+            queue = sortedByField ? new FieldDocQueue(topN, sortFields) : new ScoreDocQueue(topN);
+        }
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            if (queue.insertWithOverflow(scoreDoc) == scoreDoc) {
+                // the hits of the shard are sorted, none of the next ones are competitive either
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the total hits of the results that were consumed so far.
+     */
+    synchronized TotalHits getTotalHits() {
+        return topDocsStats.getTotalHits();
+    }
+
+    /**
+     * Returns the merged top docs, sorted, or {@code null} if no shard result was consumed. This empties the merger so it must only be
+     * called once all shard results were consumed.
+     */
+    @Nullable
+    synchronized TopDocs topDocs() {
+        if (consumedResults == false) {
+            return null;
+        }
+        final ScoreDoc[] scoreDocs = new ScoreDoc[queue == null ? 0 : queue.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            scoreDocs[i] = queue.pop();
+        }
+        final TotalHits hits = new TotalHits(totalHits, totalHitsRelation);
+        return sortedByField ? new TopFieldDocs(hits, scoreDocs, sortFields) : new TopDocs(hits, scoreDocs);
+    }
+
+    /**
+     * A bounded queue whose top is the least competitive hit.
+     */
+    private abstract static class HitQueue extends PriorityQueue<ScoreDoc> {
+        HitQueue(int maxSize) {
+            super(maxSize);
+        }
+
+        /**
+         * Compares the sort values of the given hits, a negative value means that {@code a} sorts before {@code b}.
+         */
+        abstract int compareValues(ScoreDoc a, ScoreDoc b);
+
+        @Override
+        protected final boolean lessThan(ScoreDoc a, ScoreDoc b) {
+            int cmp = compareValues(a, b);
+            if (cmp == 0) {
+                // same tie break as TopDocs#merge
+                cmp = a.shardIndex != b.shardIndex ? Integer.compare(a.shardIndex, b.shardIndex) : Integer.compare(a.doc, b.doc);
+            }
+            return cmp > 0;
+        }
+    }
+
+    private static final class ScoreDocQueue extends HitQueue {
+        ScoreDocQueue(int maxSize) {
+            super(maxSize);
+        }
+
+        @Override
+        int compareValues(ScoreDoc a, ScoreDoc b) {
+            return Float.compare(b.score, a.score);
+        }
+    }
+
+    private static final class FieldDocQueue extends HitQueue {
+        private final FieldComparator<?>[] comparators;
+        private final int[] reverseMul;
+
+        FieldDocQueue(int maxSize, SortField[] sortFields) {
+            super(maxSize);
+            this.comparators = new FieldComparator<?>[sortFields.length];
+            this.reverseMul = new int[sortFields.length];
+            for (int i = 0; i < sortFields.length; i++) {
+                comparators[i] = sortFields[i].getComparator(1, Pruning.NONE);
+                reverseMul[i] = sortFields[i].getReverse() ? -1 : 1;
+            }
+        }
+
+        @Override
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        int compareValues(ScoreDoc a, ScoreDoc b) {
+            final FieldDoc first = (FieldDoc) a;
+            final FieldDoc second = (FieldDoc) b;
+            for (int i = 0; i < comparators.length; i++) {
+                final FieldComparator comparator = comparators[i];
+                final int cmp = reverseMul[i] * comparator.compareValues(first.fields[i], second.fields[i]);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -98,4 +98,28 @@ public class CacheBuilder<K, V> {
         }
         return cache;
     }
+
+    /**
+     * Builds a {@link WindowTinyLfuCache} rather than a {@link Cache}. It evicts the entry that is least likely to be used again based on
+     * its recency and estimated frequency of use instead of the least recently used entry.
+     */
+    public WindowTinyLfuCache<K, V> buildWindowTinyLfu() {
+        WindowTinyLfuCache<K, V> cache = new WindowTinyLfuCache<>();
+        if (maximumWeight != -1) {
+            cache.setMaximumWeight(maximumWeight);
+        }
+        if (expireAfterAccessNanos != -1) {
+            cache.setExpireAfterAccessNanos(expireAfterAccessNanos);
+        }
+        if (expireAfterWriteNanos != -1) {
+            cache.setExpireAfterWriteNanos(expireAfterWriteNanos);
+        }
+        if (weigher != null) {
+            cache.setWeigher(weigher);
+        }
+        if (removalListener != null) {
+            cache.setRemovalListener(removalListener);
+        }
+        return cache;
+    }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.common.cache;
+
+/**
+ * A probabilistic multiset for estimating the popularity of an element within a time window. The maximum frequency of an element is
+ * limited to 15 (4-bits) and an aging process periodically halves the popularity of all elements.
+ * <p>
+ * This is a count-min sketch that packs sixteen 4-bit counters into each {@code long}. An element is mapped to four counters that all
+ * live in the same group of four counters within a {@code long}, which keeps the estimate cheap to compute. The sketch is not thread
+ * safe; the owning cache only accesses it while holding its eviction lock.
+ */
+final class FrequencySketch {
+
+    // the upper bound of the table, 8mb worth of counters
+    static final int MAXIMUM_TABLE_SIZE = 1 << 20;
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    // a mixture of seeds from FNV-1a, CityHash, and Murmur3
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+    private long[] table = new long[0];
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    /**
+     * Grows the sketch so that it can accurately estimate the popularity of {@code maximumSize} elements. The sketch is cleared if
+     * it had to grow.
+     */
+    void ensureCapacity(long maximumSize) {
+        assert maximumSize >= 0 : "maximumSize must be non-negative but was [" + maximumSize + "]";
+        final int maximum = (int) Math.min(Math.max(maximumSize, 8), MAXIMUM_TABLE_SIZE);
+        if (table.length >= maximum) {
+            return;
+        }
+        table = new long[Integer.highestOneBit(maximum - 1) << 1];
+        tableMask = table.length - 1;
+        sampleSize = 10 * maximum;
+        size = 0;
+    }
+
+    /**
+     * Returns the estimated number of occurrences of an element, up to the maximum (15).
+     */
+    int frequency(int hashCode) {
+        if (table.length == 0) {
+            return 0;
+        }
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the popularity of the element if it does not exceed the maximum (15). All elements are periodically aged when the
+     * number of increments reaches the sample size.
+     */
+    void increment(int hashCode) {
+        if (table.length == 0) {
+            return;
+        }
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int i, int j) {
+        final int offset = j << 2;
+        final long mask = 0xfL << offset;
+        if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halves every counter and adjusts the sample size accordingly.
+     */
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += (h >>> 32);
+        return ((int) h) & tableMask;
+    }
+
+    // pkg-private for testing
+    int tableLength() {
+        return table.length;
+    }
+
+    /**
+     * Applies a supplemental hash function to defend against poor quality hash codes.
+     */
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,797 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.common.cache;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A concurrent cache with a frequency-aware eviction policy.
+ * <p>
+ * This cache offers the same contract as {@link Cache} but does not serialize reads on a global lock. Entries are stored in a
+ * {@link ConcurrentHashMap} and the eviction policy is updated asynchronously by replaying buffered events:
+ * <ul>
+ * <li>Reads are recorded in striped, lossy ring buffers. A read never blocks; if its stripe is full the event is dropped and the
+ * thread attempts to drain the buffers instead.</li>
+ * <li>Writes are recorded in an unbounded queue and every writer attempts to drain the buffers after enqueuing its event. Writes are
+ * never dropped, and whichever thread holds the eviction lock applies the events of all other writers in a single batch.</li>
+ * </ul>
+ * <p>
+ * The eviction policy is W-TinyLFU. New entries are admitted into a small LRU window (1% of the maximum weight). Entries that overflow
+ * the window become candidates for the main space, which is a segmented LRU made of a probation and a protected (80%) region. When
+ * the cache exceeds its maximum weight the candidate competes with the least recently used entry in probation, and the one whose
+ * access frequency is estimated to be lower by a {@link FrequencySketch} is evicted. This retains popular entries under scan-heavy
+ * workloads that would flush an LRU cache.
+ * <p>
+ * Removal notifications are queued while the buffers are drained and issued by the draining thread once it released the eviction lock,
+ * so a slow removal listener does not stall the eviction policy. Time-based evictions only occur after a mutation to the cache or an
+ * explicit call to {@link #refresh()}.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class WindowTinyLfuCache<K, V> {
+
+    // the percentage of the maximum weight given to the admission window
+    static final double WINDOW_PERCENTAGE = 0.01;
+
+    // the percentage of the main space given to the protected region
+    static final double PROTECTED_PERCENTAGE = 0.80;
+
+    // the initial number of entries the frequency sketch is sized for, it grows with the number of entries in the cache
+    static final int INITIAL_SKETCH_CAPACITY = 1 << 10;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final ConcurrentHashMap<K, CompletableFuture<Node<K, V>>> map = new ConcurrentHashMap<>();
+
+    private final ReadBuffer<K, V> readBuffer = new ReadBuffer<>();
+
+    private final ConcurrentLinkedQueue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+
+    // removals applied to the eviction policy whose listener has not been notified yet
+    private final ConcurrentLinkedQueue<RemovalNotification<K, V>> pendingNotifications = new ConcurrentLinkedQueue<>();
+
+    // lock protecting the eviction policy, all fields below are only accessed while holding it
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedDeque = new AccessOrderDeque<>();
+
+    private long expireAfterAccessNanos = -1;
+    private long expireAfterWriteNanos = -1;
+    private long maximumWeight = -1;
+    private long windowMaximum = Long.MAX_VALUE;
+    private long protectedMaximum = Long.MAX_VALUE;
+    private ToLongBiFunction<K, V> weigher = (k, v) -> 1;
+    private RemovalListener<K, V> removalListener = notification -> {};
+
+    private volatile int count = 0;
+    private volatile long weight = 0;
+    private long windowWeight = 0;
+    private long protectedWeight = 0;
+
+    // use CacheBuilder to construct
+    WindowTinyLfuCache() {}
+
+    void setExpireAfterAccessNanos(long expireAfterAccessNanos) {
+        if (expireAfterAccessNanos <= 0) {
+            throw new IllegalArgumentException("expireAfterAccessNanos <= 0");
+        }
+        this.expireAfterAccessNanos = expireAfterAccessNanos;
+    }
+
+    // pkg-private for testing
+    long getExpireAfterAccessNanos() {
+        return expireAfterAccessNanos;
+    }
+
+    void setExpireAfterWriteNanos(long expireAfterWriteNanos) {
+        if (expireAfterWriteNanos <= 0) {
+            throw new IllegalArgumentException("expireAfterWriteNanos <= 0");
+        }
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+    }
+
+    // pkg-private for testing
+    long getExpireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    void setMaximumWeight(long maximumWeight) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight < 0");
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = (long) (maximumWeight * WINDOW_PERCENTAGE);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_PERCENTAGE);
+        evictionLock.lock();
+        try {
+            sketch.ensureCapacity(Math.min(maximumWeight, INITIAL_SKETCH_CAPACITY));
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    void setWeigher(ToLongBiFunction<K, V> weigher) {
+        Objects.requireNonNull(weigher);
+        this.weigher = weigher;
+    }
+
+    void setRemovalListener(RemovalListener<K, V> removalListener) {
+        Objects.requireNonNull(removalListener);
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * The relative time used to track time-based evictions.
+     *
+     * @return the current relative time
+     */
+    protected long now() {
+        // System.nanoTime takes non-negligible time, so we only use it if we need it
+        return expireAfterAccessNanos != -1 || expireAfterWriteNanos != -1 ? System.nanoTime() : 0;
+    }
+
+    // the region of the eviction policy that an entry belongs to
+    enum Region {
+        WINDOW,
+        PROBATION,
+        PROTECTED
+    }
+
+    static final class Node<K, V> {
+        final K key;
+        final V value;
+        final long writeTime;
+        volatile long accessTime;
+        // the future this node is mapped to, set once before the node is published
+        CompletableFuture<Node<K, V>> future;
+
+        // guarded by the eviction lock
+        long weight;
+        Region region;
+        boolean retired;
+        Node<K, V> previous;
+        Node<K, V> next;
+
+        Node(K key, V value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = this.accessTime = writeTime;
+        }
+    }
+
+    /**
+     * See {@link Cache#get}.
+     */
+    public V get(K key) {
+        Node<K, V> node = getNode(key, now(), false);
+        return node == null ? null : node.value;
+    }
+
+    private Node<K, V> getNode(K key, long now, boolean eagerEvict) {
+        CompletableFuture<Node<K, V>> future = map.get(key);
+        if (future == null) {
+            misses.increment();
+            return null;
+        }
+        Node<K, V> node;
+        try {
+            node = future.get();
+        } catch (ExecutionException e) {
+            misses.increment();
+            return null;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        if (isExpired(node, now)) {
+            misses.increment();
+            if (eagerEvict && map.remove(key, future)) {
+                evictions.increment();
+                afterWrite(() -> onRemove(node, RemovalNotification.RemovalReason.EVICTED));
+            }
+            return null;
+        }
+        hits.increment();
+        node.accessTime = now;
+        afterRead(node);
+        return node;
+    }
+
+    /**
+     * See {@link Cache#computeIfAbsent}.
+     */
+    public V computeIfAbsent(K key, CacheLoader<K, V> loader) throws ExecutionException {
+        final long now = now();
+        // we have to eagerly evict expired entries or our putIfAbsent call below will fail
+        Node<K, V> node = getNode(key, now, true);
+        if (node != null) {
+            return node.value;
+        }
+        // as for Cache, the loader is invoked at most once per key and never while holding a lock: the thread that wins the race to
+        // map its future loads the value while concurrent callers wait on that future
+        final CompletableFuture<Node<K, V>> future = new CompletableFuture<>();
+        final CompletableFuture<Node<K, V>> existing = map.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                Node<K, V> loaded = existing.get();
+                afterRead(loaded);
+                return loaded.value;
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        V loaded;
+        try {
+            loaded = loader.load(key);
+        } catch (Exception e) {
+            map.remove(key, future);
+            future.completeExceptionally(e);
+            throw new ExecutionException(e);
+        }
+        if (loaded == null) {
+            NullPointerException npe = new NullPointerException("loader returned a null value");
+            map.remove(key, future);
+            future.completeExceptionally(npe);
+            throw new ExecutionException(npe);
+        }
+        final Node<K, V> created = new Node<>(key, loaded, now);
+        created.future = future;
+        future.complete(created);
+        afterWrite(() -> onAdd(created));
+        return loaded;
+    }
+
+    /**
+     * See {@link Cache#put}.
+     */
+    public void put(K key, V value) {
+        final Node<K, V> node = new Node<>(key, value, now());
+        node.future = CompletableFuture.completedFuture(node);
+        final CompletableFuture<Node<K, V>> previous = map.put(key, node.future);
+        if (previous != null) {
+            final Node<K, V> replaced = getQuietly(previous);
+            if (replaced != null) {
+                writeBuffer.add(() -> onRemove(replaced, RemovalNotification.RemovalReason.REPLACED));
+            }
+        }
+        afterWrite(() -> onAdd(node));
+    }
+
+    /**
+     * See {@link Cache#invalidate(Object)}.
+     */
+    public void invalidate(K key) {
+        final CompletableFuture<Node<K, V>> future = map.remove(key);
+        if (future != null) {
+            evictions.increment();
+            final Node<K, V> node = getQuietly(future);
+            if (node != null) {
+                afterWrite(() -> onRemove(node, RemovalNotification.RemovalReason.INVALIDATED));
+            }
+        }
+    }
+
+    /**
+     * See {@link Cache#invalidate(Object, Object)}.
+     */
+    public void invalidate(K key, V value) {
+        final CompletableFuture<Node<K, V>> future = map.get(key);
+        if (future == null || future.isDone() == false) {
+            return;
+        }
+        final Node<K, V> node = getQuietly(future);
+        if (node != null && Objects.equals(value, node.value)) {
+            invalidateNode(node);
+        }
+    }
+
+    private void invalidateNode(Node<K, V> node) {
+        if (map.remove(node.key, node.future)) {
+            evictions.increment();
+            afterWrite(() -> onRemove(node, RemovalNotification.RemovalReason.INVALIDATED));
+        }
+    }
+
+    /**
+     * See {@link Cache#invalidateAll}.
+     */
+    public void invalidateAll() {
+        final AccessOrderDeque<K, V> invalidated = new AccessOrderDeque<>();
+        evictionLock.lock();
+        try {
+            drainBuffers();
+            moveAll(protectedDeque, invalidated);
+            moveAll(window, invalidated);
+            moveAll(probation, invalidated);
+            count = 0;
+            weight = 0;
+            windowWeight = 0;
+            protectedWeight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+        notifyRemovals();
+        for (Node<K, V> node = invalidated.first; node != null; node = node.next) {
+            removalListener.onRemoval(new RemovalNotification<>(node.key, node.value, RemovalNotification.RemovalReason.INVALIDATED));
+        }
+    }
+
+    private void moveAll(AccessOrderDeque<K, V> from, AccessOrderDeque<K, V> to) {
+        Node<K, V> node;
+        while ((node = from.first) != null) {
+            from.remove(node);
+            node.region = null;
+            node.retired = true;
+            // an entry that was concurrently removed or replaced is notified by the thread that removed it
+            if (map.remove(node.key, node.future)) {
+                to.addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Force any outstanding size-based and time-based evictions to occur
+     */
+    public void refresh() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+        notifyRemovals();
+    }
+
+    /**
+     * The number of entries in the cache.
+     */
+    public int count() {
+        cleanUp();
+        return count;
+    }
+
+    /**
+     * The weight of the entries in the cache.
+     */
+    public long weight() {
+        cleanUp();
+        return weight;
+    }
+
+    private void cleanUp() {
+        if (writeBuffer.isEmpty() == false) {
+            refresh();
+        }
+    }
+
+    /**
+     * The keys in the cache. Unlike {@link Cache#keys()}, iteration is not in LRU order, it is weakly consistent and is safe to use
+     * concurrently with mutations to the cache.
+     *
+     * @return an {@link Iterable} over the keys in the cache
+     */
+    public Iterable<K> keys() {
+        return () -> new NodeIterator<>(node -> node.key);
+    }
+
+    /**
+     * The values in the cache. Unlike {@link Cache#values()}, iteration is not in LRU order, it is weakly consistent and is safe to
+     * use concurrently with mutations to the cache.
+     *
+     * @return an {@link Iterable} over the values in the cache
+     */
+    public Iterable<V> values() {
+        return () -> new NodeIterator<>(node -> node.value);
+    }
+
+    /**
+     * Performs an action for each cache entry in the cache. The consumer should not try to modify the cache.
+     */
+    public void forEach(BiConsumer<K, V> consumer) {
+        for (CompletableFuture<Node<K, V>> future : map.values()) {
+            if (future.isDone() && future.isCompletedExceptionally() == false) {
+                final Node<K, V> node = getQuietly(future);
+                consumer.accept(node.key, node.value);
+            }
+        }
+    }
+
+    /**
+     * The cache statistics tracking hits, misses and evictions, see {@link Cache#stats}.
+     */
+    public Cache.CacheStats stats() {
+        return new Cache.CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private class NodeIterator<T> implements Iterator<T> {
+        private final Iterator<CompletableFuture<Node<K, V>>> iterator = map.values().iterator();
+        private final Function<Node<K, V>, T> transform;
+        private Node<K, V> current;
+        private Node<K, V> next;
+
+        NodeIterator(Function<Node<K, V>, T> transform) {
+            this.transform = transform;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && iterator.hasNext()) {
+                final CompletableFuture<Node<K, V>> future = iterator.next();
+                if (future.isDone() && future.isCompletedExceptionally() == false) {
+                    next = getQuietly(future);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (hasNext() == false) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = null;
+            return transform.apply(current);
+        }
+
+        @Override
+        public void remove() {
+            if (current != null) {
+                invalidateNode(current);
+                current = null;
+            }
+        }
+    }
+
+    private Node<K, V> getQuietly(CompletableFuture<Node<K, V>> future) {
+        try {
+            return future.handle((ok, ex) -> ok).get();
+        } catch (ExecutionException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return (expireAfterAccessNanos != -1 && now - node.accessTime > expireAfterAccessNanos)
+            || (expireAfterWriteNanos != -1 && now - node.writeTime > expireAfterWriteNanos);
+    }
+
+    private void afterRead(Node<K, V> node) {
+        if (readBuffer.offer(node) == false) {
+            scheduleDrain();
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        scheduleDrain();
+    }
+
+    /**
+     * Attempts to drain the buffers. If another thread holds the eviction lock it is responsible for draining the events that were
+     * enqueued before it released the lock, so this never blocks.
+     */
+    private void scheduleDrain() {
+        do {
+            if (evictionLock.tryLock() == false) {
+                return;
+            }
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+            notifyRemovals();
+        } while (writeBuffer.isEmpty() == false);
+    }
+
+    /**
+     * Notifies the removal listener of the removals queued while draining the buffers. Must not be called while holding the eviction
+     * lock so that the listener never runs under it.
+     */
+    private void notifyRemovals() {
+        assert evictionLock.isHeldByCurrentThread() == false;
+        RemovalNotification<K, V> notification;
+        while ((notification = pendingNotifications.poll()) != null) {
+            removalListener.onRemoval(notification);
+        }
+    }
+
+    private void maintenance() {
+        assert evictionLock.isHeldByCurrentThread();
+        drainBuffers();
+        evict(now());
+    }
+
+    private void drainBuffers() {
+        assert evictionLock.isHeldByCurrentThread();
+        readBuffer.drainTo(this::onAccess);
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+        if (node.region == null) {
+            // not linked yet or already removed
+            return;
+        }
+        sketch.increment(node.key.hashCode());
+        switch (node.region) {
+            case WINDOW -> window.moveToBack(node);
+            case PROBATION -> {
+                probation.remove(node);
+                protectedDeque.addLast(node);
+                node.region = Region.PROTECTED;
+                protectedWeight += node.weight;
+                demoteFromProtected();
+            }
+            case PROTECTED -> protectedDeque.moveToBack(node);
+        }
+    }
+
+    private void onAdd(Node<K, V> node) {
+        assert evictionLock.isHeldByCurrentThread();
+        if (node.retired || node.region != null || map.get(node.key) != node.future) {
+            // removed or replaced before its insertion was applied, possibly by a removal that is applied later
+            return;
+        }
+        node.weight = weigher.applyAsLong(node.key, node.value);
+        window.addLast(node);
+        node.region = Region.WINDOW;
+        windowWeight += node.weight;
+        weight += node.weight;
+        count++;
+        if (maximumWeight != -1) {
+            sketch.ensureCapacity(count);
+            sketch.increment(node.key.hashCode());
+        }
+    }
+
+    private void onRemove(Node<K, V> node, RemovalNotification.RemovalReason removalReason) {
+        assert evictionLock.isHeldByCurrentThread();
+        unlink(node);
+        node.retired = true;
+        pendingNotifications.add(new RemovalNotification<>(node.key, node.value, removalReason));
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.region == null) {
+            return;
+        }
+        switch (node.region) {
+            case WINDOW -> {
+                window.remove(node);
+                windowWeight -= node.weight;
+            }
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> {
+                protectedDeque.remove(node);
+                protectedWeight -= node.weight;
+            }
+        }
+        node.region = null;
+        weight -= node.weight;
+        count--;
+    }
+
+    private void demoteFromProtected() {
+        while (protectedWeight > protectedMaximum && protectedDeque.first != null) {
+            final Node<K, V> demoted = protectedDeque.first;
+            protectedDeque.remove(demoted);
+            protectedWeight -= demoted.weight;
+            probation.addLast(demoted);
+            demoted.region = Region.PROBATION;
+        }
+    }
+
+    private void evict(long now) {
+        assert evictionLock.isHeldByCurrentThread();
+        if (expireAfterAccessNanos != -1 || expireAfterWriteNanos != -1) {
+            expire(window, now);
+            expire(probation, now);
+            expire(protectedDeque, now);
+        }
+        if (maximumWeight == -1) {
+            return;
+        }
+
+        // entries that overflow the window become candidates for the main space, they sit at the most recently used end of probation
+        Node<K, V> candidate = null;
+        while (windowWeight > windowMaximum && window.first != null) {
+            final Node<K, V> node = window.first;
+            window.remove(node);
+            windowWeight -= node.weight;
+            probation.addLast(node);
+            node.region = Region.PROBATION;
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+
+        while (weight > maximumWeight) {
+            Node<K, V> victim = probation.first;
+            if (victim == null) {
+                victim = protectedDeque.first != null ? protectedDeque.first : window.first;
+            }
+            if (candidate == null || candidate.region != Region.PROBATION || candidate == victim) {
+                if (candidate == victim) {
+                    candidate = candidate.next;
+                }
+                evictNode(victim);
+            } else if (admit(candidate, victim)) {
+                evictNode(victim);
+            } else {
+                final Node<K, V> rejected = candidate;
+                candidate = candidate.next;
+                evictNode(rejected);
+            }
+        }
+    }
+
+    /**
+     * Determines if the candidate should be admitted into the main space at the expense of the victim.
+     */
+    private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+        return sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode());
+    }
+
+    private void expire(AccessOrderDeque<K, V> deque, long now) {
+        while (deque.first != null && isExpired(deque.first, now)) {
+            evictNode(deque.first);
+        }
+    }
+
+    private void evictNode(Node<K, V> node) {
+        if (map.remove(node.key, node.future)) {
+            evictions.increment();
+            onRemove(node, RemovalNotification.RemovalReason.EVICTED);
+        } else {
+            // the entry was concurrently removed or replaced, the thread that removed it will issue the removal notification
+            unlink(node);
+            node.retired = true;
+        }
+    }
+
+    /**
+     * An intrusive doubly-linked list of nodes from least to most recently used. Only accessed while holding the eviction lock.
+     */
+    static final class AccessOrderDeque<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+
+        void addLast(Node<K, V> node) {
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                assert first == node;
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                assert last == node;
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (last != node) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Striped, lossy ring buffers recording reads. Threads are spread across stripes by their id, each stripe is a bounded ring that
+     * drops reads when it is full or contended rather than blocking the reader.
+     */
+    static final class ReadBuffer<K, V> {
+        static final int BUFFER_SIZE = 16;
+        private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+        private final AtomicReferenceArray<Node<K, V>>[] buffers;
+        private final AtomicLong[] writeCounters;
+        // only modified while holding the eviction lock
+        private final AtomicLong[] readCounters;
+        private final int stripeMask;
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        ReadBuffer() {
+            final int stripes = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), 64) * 4 - 1);
+            stripeMask = stripes - 1;
+            buffers = new AtomicReferenceArray[stripes];
+            writeCounters = new AtomicLong[stripes];
+            readCounters = new AtomicLong[stripes];
+            for (int i = 0; i < stripes; i++) {
+                buffers[i] = new AtomicReferenceArray<>(BUFFER_SIZE);
+                writeCounters[i] = new AtomicLong();
+                readCounters[i] = new AtomicLong();
+            }
+        }
+
+        /**
+         * Records a read.
+         *
+         * @return false if the stripe of the current thread is full and should be drained
+         */
+        boolean offer(Node<K, V> node) {
+            final int stripe = (int) (Thread.currentThread().getId() * 0x9E3779B9L >>> 16) & stripeMask;
+            final AtomicLong writeCounter = writeCounters[stripe];
+            final long tail = writeCounter.get();
+            if (tail - readCounters[stripe].get() >= BUFFER_SIZE) {
+                return false;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffers[stripe].lazySet((int) (tail & BUFFER_MASK), node);
+            }
+            // a contended read is dropped, the buffers are lossy
+            return true;
+        }
+
+        void drainTo(Consumer<Node<K, V>> consumer) {
+            for (int stripe = 0; stripe < buffers.length; stripe++) {
+                final AtomicReferenceArray<Node<K, V>> buffer = buffers[stripe];
+                final long tail = writeCounters[stripe].get();
+                long head = readCounters[stripe].get();
+                for (; head < tail; head++) {
+                    final int index = (int) (head & BUFFER_MASK);
+                    final Node<K, V> node = buffer.get(index);
+                    if (node == null) {
+                        // the write to this slot is not yet visible
+                        break;
+                    }
+                    buffer.lazySet(index, null);
+                    consumer.accept(node);
+                }
+                readCounters[stripe].set(head);
+            }
+        }
+    }
+}
@@ -88,6 +88,8 @@ import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.MergePolicyConfig;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
+import org.elasticsearch.indices.CanMatchFieldRangeCache;
 import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.IndicesRequestCache;
@@ -246,6 +248,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         IndicesQueryCache.INDICES_CACHE_QUERY_SIZE_SETTING,
         IndicesQueryCache.INDICES_CACHE_QUERY_COUNT_SETTING,
         IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING,
+        IndicesQueryCache.INDICES_CACHE_QUERY_SHARED_SEGMENTS_SIZE_SETTING,
         IndicesService.INDICES_ID_FIELD_DATA_ENABLED_SETTING,
         IndicesService.WRITE_DANGLING_INDICES_INFO_SETTING,
         MappingUpdatedAction.INDICES_MAPPING_DYNAMIC_TIMEOUT_SETTING,
@@ -454,6 +457,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         IndicesFieldDataCache.INDICES_FIELDDATA_CACHE_EXPIRE,
         IndicesRequestCache.INDICES_CACHE_QUERY_SIZE,
         IndicesRequestCache.INDICES_CACHE_QUERY_EXPIRE,
+        IndicesRequestCache.INDICES_CACHE_QUERY_EVICTION_POLICY,
         HunspellService.HUNSPELL_LAZY_LOAD,
         HunspellService.HUNSPELL_IGNORE_CASE,
         HunspellService.HUNSPELL_DICTIONARY_OPTIONS,
@@ -483,7 +487,9 @@ public final class ClusterSettings extends AbstractScopedSettings {
         SearchService.LOW_LEVEL_CANCELLATION_SETTING,
         SearchService.MAX_OPEN_SCROLL_CONTEXT,
         SearchService.ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER,
+        SearchService.AGGS_REDUCE_CONCURRENCY,
         SearchService.MAX_ASYNC_SEARCH_RESPONSE_SIZE_SETTING,
+        CanMatchFieldRangeCache.CACHE_SIZE_SETTING,
         Node.WRITE_PORTS_FILE_SETTING,
         Node.NODE_EXTERNAL_ID_SETTING,
         Node.NODE_NAME_SETTING,
@@ -522,8 +528,12 @@ public final class ClusterSettings extends AbstractScopedSettings {
         IndexingMemoryController.INDEX_BUFFER_SIZE_SETTING,
         IndexingMemoryController.MIN_INDEX_BUFFER_SIZE_SETTING,
         IndexingMemoryController.MAX_INDEX_BUFFER_SIZE_SETTING,
+        IndexingMemoryController.INDEX_BUFFER_MODE_SETTING,
+        IndexingMemoryController.MAX_CONCURRENT_INDEX_BUFFER_WRITES_SETTING,
         IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING,
         IndexingMemoryController.SHARD_MEMORY_INTERVAL_TIME_SETTING,
+        TranslogSyncCoordinator.GROUP_SYNC_WINDOW_SETTING,
+        TranslogSyncCoordinator.GROUP_SYNC_MAX_BATCH_SIZE_SETTING,
         ResourceWatcherService.ENABLED,
         ResourceWatcherService.RELOAD_INTERVAL_HIGH,
         ResourceWatcherService.RELOAD_INTERVAL_MEDIUM,
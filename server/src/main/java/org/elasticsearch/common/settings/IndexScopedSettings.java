@@ -121,6 +121,9 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
                 IndexSettings.INDEX_TRANSLOG_DURABILITY_SETTING,
                 IndexSettings.INDEX_WARMER_ENABLED_SETTING,
                 IndexSettings.INDEX_REFRESH_INTERVAL_SETTING,
+                IndexSettings.INDEX_REFRESH_MODE_SETTING,
+                IndexSettings.INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING,
+                IndexSettings.INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING,
                 IndexSettings.INDEX_FAST_REFRESH_SETTING,
                 IndexSettings.MAX_RESULT_WINDOW_SETTING,
                 IndexSettings.MAX_INNER_RESULT_WINDOW_SETTING,
@@ -147,6 +150,7 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
                 IndexSettings.INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING,
                 IndexSettings.INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING,
                 IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING,
+                IndicesRequestCache.INDEX_CACHE_REQUEST_PER_SEGMENT_SETTING,
                 UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING,
                 EnableAllocationDecider.INDEX_ROUTING_REBALANCE_ENABLE_SETTING,
                 EnableAllocationDecider.INDEX_ROUTING_ALLOCATION_ENABLE_SETTING,
@@ -178,6 +182,8 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
                 IndexModule.INDEX_QUERY_CACHE_ENABLED_SETTING,
                 FsDirectoryFactory.INDEX_LOCK_FACTOR_SETTING,
                 EngineConfig.INDEX_CODEC_SETTING,
+                EngineConfig.INDEX_STORED_FIELDS_DICTIONARY_SETTING,
+                EngineConfig.INDEX_VERSION_MAP_STORAGE_SETTING,
                 IndexMetadata.SETTING_WAIT_FOR_ACTIVE_SHARDS,
                 IndexSettings.DEFAULT_PIPELINE,
                 IndexSettings.FINAL_PIPELINE,
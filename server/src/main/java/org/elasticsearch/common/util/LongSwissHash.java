@@ -0,0 +1,247 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+
+/**
+ * Specialized hash table implementation that maps {@code long} keys to dense ids, like {@link LongHash}, using a
+ * "Swiss table" layout.
+ * <p>
+ * Slots are organized in groups of {@link #GROUP_SIZE}. Every slot has a control byte which is {@code 0} when
+ * the slot is empty and otherwise holds 7 bits of the hash of its key with the high bit set. The control bytes of
+ * a group are packed in a single {@code long} so a probe compares the key against all slots of a group at once
+ * with a handful of bitwise operations and only reads the keys whose control byte matches. That keeps probes
+ * short even at a maximum load factor of 7/8, which needs a lot less memory than the linear probing of
+ * {@link LongHash}.
+ * <p>
+ * Growing the table doesn't rehash all keys at once. Instead the old table is kept around and every call to
+ * {@link #add} migrates {@link #MIGRATE_GROUPS_PER_ADD} of its groups into the new table, releasing it as soon as
+ * all groups are migrated. The keys are stored by id in a separate array which grows by small increments rather
+ * than doubling.
+ */
+public final class LongSwissHash implements Releasable {
+    static final int GROUP_SIZE = 8;
+    static final int MIGRATE_GROUPS_PER_ADD = 2;
+
+    private static final long LSB = 0x0101010101010101L;
+    private static final long MSB = 0x8080808080808080L;
+
+    private final BigArrays bigArrays;
+    private LongArray keys;
+    private long size;
+    private Table current;
+    /**
+     * The table we're migrating away from or {@code null} if we aren't growing.
+     */
+    private Table migrating;
+    private long migratedGroups;
+
+    public LongSwissHash(long capacity, BigArrays bigArrays) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0");
+        }
+        this.bigArrays = bigArrays;
+        final long groups = Math.max(1, (capacity + GROUP_SIZE - 2) / (GROUP_SIZE - 1));
+        current = new Table(groups == 1 ? 1 : Long.highestOneBit(groups - 1) << 1); // next power of two
+        try {
+            keys = bigArrays.newLongArray(current.maxSize, false);
+        } finally {
+            if (keys == null) {
+                current.close();
+            }
+        }
+    }
+
+    /**
+     * Return the number of allocated slots to store this hash table.
+     */
+    public long capacity() {
+        return current.slots();
+    }
+
+    /**
+     * Return the number of keys in this hash table.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Return the key with the given id.
+     */
+    public long get(long id) {
+        return keys.get(id);
+    }
+
+    /**
+     * Get the id associated with <code>key</code> or -1 if the key is not contained in the hash.
+     */
+    public long find(long key) {
+        final long hash = AbstractPagedHashMap.hash(key);
+        final long id = current.find(key, hash);
+        if (id >= 0 || migrating == null) {
+            return id;
+        }
+        return migrating.find(key, hash);
+    }
+
+    /**
+     * Try to add <code>key</code>. Return its newly allocated id if it wasn't in the hash table yet, or <code>-1-id</code>
+     * if it was already present in the hash table.
+     */
+    public long add(long key) {
+        if (migrating != null) {
+            migrate(MIGRATE_GROUPS_PER_ADD);
+        }
+        final long hash = AbstractPagedHashMap.hash(key);
+        long id = current.find(key, hash);
+        if (id >= 0) {
+            return -1 - id;
+        }
+        if (migrating != null) {
+            // keys that haven't been migrated yet are only in the old table
+            id = migrating.find(key, hash);
+            if (id >= 0) {
+                return -1 - id;
+            }
+        }
+        if (current.size >= current.maxSize) {
+            grow();
+        }
+        id = size;
+        keys = bigArrays.grow(keys, id + 1);
+        keys.set(id, key);
+        size++;
+        current.insert(hash, id);
+        return id;
+    }
+
+    private void grow() {
+        if (migrating != null) {
+            // the previous migration always finishes long before the table fills up again, but be safe
+            migrate(Long.MAX_VALUE);
+        }
+        final Table next = new Table((current.groupMask + 1) << 1);
+        migrating = current;
+        migratedGroups = 0;
+        current = next;
+    }
+
+    /**
+     * Move the keys of the next {@code groups} groups of the old table into the current table.
+     */
+    private void migrate(long groups) {
+        final long end = Math.min(migrating.groupMask + 1, migratedGroups + Math.min(groups, migrating.groupMask + 1));
+        for (long group = migratedGroups; group < end; group++) {
+            long full = migrating.control.get(group) & MSB;
+            while (full != 0) {
+                final long id = migrating.ids.get(group * GROUP_SIZE + (Long.numberOfTrailingZeros(full) >>> 3));
+                current.insert(AbstractPagedHashMap.hash(keys.get(id)), id);
+                full &= full - 1;
+            }
+        }
+        migratedGroups = end;
+        if (end == migrating.groupMask + 1) {
+            migrating.close();
+            migrating = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(keys, current, migrating);
+    }
+
+    private static long controlByte(long hash) {
+        return 0x80L | (hash & 0x7F);
+    }
+
+    private static long firstGroup(long hash, long groupMask) {
+        // the low 7 bits go to the control byte
+        return (hash >>> 7) & groupMask;
+    }
+
+    private final class Table implements Releasable {
+        private final long groupMask;
+        private final long maxSize;
+        /**
+         * The control bytes of each group packed in one long, the first slot in the lowest byte.
+         */
+        private LongArray control;
+        private LongArray ids;
+        private long size;
+
+        Table(long groups) {
+            assert groups == Long.highestOneBit(groups) : groups;
+            groupMask = groups - 1;
+            maxSize = groups * (GROUP_SIZE - 1);
+            control = bigArrays.newLongArray(groups, true);
+            try {
+                ids = bigArrays.newLongArray(slots(), false);
+            } finally {
+                if (ids == null) {
+                    control.close();
+                }
+            }
+        }
+
+        long slots() {
+            return (groupMask + 1) * GROUP_SIZE;
+        }
+
+        long find(long key, long hash) {
+            final long pattern = LSB * controlByte(hash);
+            long group = firstGroup(hash, groupMask);
+            for (long step = 1;; step++) {
+                final long ctrl = control.get(group);
+                final long x = ctrl ^ pattern;
+                // the bytes of x that are zero are candidates, the check may report false positives but never misses a slot
+                long candidates = (x - LSB) & ~x & MSB;
+                while (candidates != 0) {
+                    final long id = ids.get(group * GROUP_SIZE + (Long.numberOfTrailingZeros(candidates) >>> 3));
+                    if (keys.get(id) == key) {
+                        return id;
+                    }
+                    candidates &= candidates - 1;
+                }
+                if ((~ctrl & MSB) != 0) {
+                    // there are no deletes so the key would have been inserted into this group's empty slot
+                    return -1;
+                }
+                // triangular probing visits every group because the number of groups is a power of two
+                group = (group + step) & groupMask;
+            }
+        }
+
+        void insert(long hash, long id) {
+            assert size < maxSize;
+            long group = firstGroup(hash, groupMask);
+            for (long step = 1;; step++) {
+                final long ctrl = control.get(group);
+                final long empty = ~ctrl & MSB;
+                if (empty != 0) {
+                    final int slot = Long.numberOfTrailingZeros(empty) >>> 3;
+                    control.set(group, ctrl | (controlByte(hash) << (slot << 3)));
+                    ids.set(group * GROUP_SIZE + slot, id);
+                    size++;
+                    return;
+                }
+                group = (group + step) & groupMask;
+            }
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(control, ids);
+        }
+    }
+}
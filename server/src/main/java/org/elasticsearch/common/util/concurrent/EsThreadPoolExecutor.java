@@ -18,6 +18,7 @@ import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static org.elasticsearch.core.Strings.format;
@@ -36,6 +37,9 @@ public class EsThreadPoolExecutor extends ThreadPoolExecutor {
      */
     private final String name;
 
+    // tasks between beforeExecute and afterExecute, tracked separately since getActiveCount() takes the main lock of the executor
+    private final AtomicInteger runningTasks = new AtomicInteger();
+
     EsThreadPoolExecutor(
         String name,
         int corePoolSize,
@@ -96,13 +100,28 @@ public class EsThreadPoolExecutor extends ThreadPoolExecutor {
         assert false : "executor throws an exception (not a rejected execution exception) before the task has been submitted " + e;
     }
 
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        runningTasks.incrementAndGet();
+    }
+
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
+        runningTasks.decrementAndGet();
         super.afterExecute(r, t);
         EsExecutors.rethrowErrors(unwrap(r));
         assert assertDefaultContext(r);
     }
 
+    /**
+     * Returns the number of tasks that are currently being executed. Unlike {@link #getActiveCount()} this does not lock the executor,
+     * so it is cheap enough to be called for every request.
+     */
+    public int getRunningTaskCount() {
+        return runningTasks.get();
+    }
+
     private boolean assertDefaultContext(Runnable r) {
         assert contextHolder.isDefaultContext()
             : "the thread context is not the default context and the thread ["
@@ -91,6 +91,7 @@ public final class TaskExecutionTimeTrackingEsThreadPoolExecutor extends EsThrea
 
     @Override
     protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
         if (trackOngoingTasks) {
             ongoingTasks.put(r, System.nanoTime());
         }
@@ -23,8 +23,14 @@ public class IndexFeatures implements FeatureSpecification {
 
     public static final NodeFeature LOGSDB_NO_HOST_NAME_FIELD = new NodeFeature("index.logsdb_no_host_name_field");
 
+    public static final NodeFeature STORED_FIELDS_DICTIONARY = new NodeFeature("index.stored_fields_dictionary");
+
+    public static final NodeFeature REQUEST_CACHE_TOP_HITS_STATS = new NodeFeature("index.request_cache_top_hits_stats");
+
+    public static final NodeFeature INDEX_BUFFER_STATS = new NodeFeature("index.index_buffer_stats");
+
     @Override
     public Set<NodeFeature> getTestFeatures() {
-        return Set.of(LOGSDB_NO_HOST_NAME_FIELD);
+        return Set.of(LOGSDB_NO_HOST_NAME_FIELD, STORED_FIELDS_DICTIONARY, REQUEST_CACHE_TOP_HITS_STATS, INDEX_BUFFER_STATS);
     }
 }
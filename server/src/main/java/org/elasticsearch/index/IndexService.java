@@ -80,6 +80,7 @@ import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -129,6 +130,8 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
     private final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier;
     private final CheckedFunction<DirectoryReader, DirectoryReader, IOException> readerWrapper;
     private final Engine.IndexCommitListener indexCommitListener;
+    @Nullable
+    private final TranslogSyncCoordinator translogSyncCoordinator;
     private final IndexCache indexCache;
     private final MapperService mapperService;
     private final XContentParserConfiguration parserConfiguration;
@@ -199,7 +202,8 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
         Engine.IndexCommitListener indexCommitListener,
         MapperMetrics mapperMetrics,
-        QueryRewriteInterceptor queryRewriteInterceptor
+        QueryRewriteInterceptor queryRewriteInterceptor,
+        @Nullable TranslogSyncCoordinator translogSyncCoordinator
     ) {
         super(indexSettings);
         assert indexCreationContext != IndexCreationContext.RELOAD_ANALYZERS
@@ -274,6 +278,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         this.searchOperationListeners = Collections.unmodifiableList(searchOperationListeners);
         this.indexingOperationListeners = Collections.unmodifiableList(indexingOperationListeners);
         this.indexCommitListener = indexCommitListener;
+        this.translogSyncCoordinator = translogSyncCoordinator;
         this.mapperMetrics = mapperMetrics;
         this.queryRewriteInterceptor = queryRewriteInterceptor;
         try (var ignored = threadPool.getThreadContext().clearTraceContext()) {
@@ -566,7 +571,8 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
                 snapshotCommitSupplier,
                 System::nanoTime,
                 indexCommitListener,
-                mapperMetrics
+                mapperMetrics,
+                translogSyncCoordinator
             );
             eventListener.indexShardStateChanged(indexShard, null, indexShard.state(), "shard created");
             eventListener.afterIndexShardCreated(indexShard);
@@ -984,7 +990,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
                     logger.warn(() -> "[" + shard.shardId().id() + "] failed to notify shard about setting change", e);
                 }
             }
-            if (refreshTask.getInterval().equals(indexSettings.getRefreshInterval()) == false) {
+            if (refreshTask.getInterval().equals(refreshTaskInterval()) == false) {
                 // once we change the refresh interval we schedule yet another refresh
                 // to ensure we are in a clean and predictable state.
                 // it doesn't matter if we move from or to <code>-1</code> in both cases we want
@@ -1080,6 +1086,18 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         }
     }
 
+    /**
+     * Returns how often the refresh task runs. In adaptive refresh mode every shard decides on each tick whether it refreshes, so the
+     * task runs as often as a shard may refresh.
+     */
+    private TimeValue refreshTaskInterval() {
+        final TimeValue refreshInterval = indexSettings.getRefreshInterval();
+        if (refreshInterval.millis() > 0 && indexSettings.getRefreshMode() == IndexSettings.RefreshMode.ADAPTIVE) {
+            return indexSettings.getAdaptiveRefreshMinInterval();
+        }
+        return refreshInterval;
+    }
+
     private void maybeRefreshEngine(boolean force) {
         if (indexSettings.getRefreshInterval().millis() > 0 || force) {
             for (IndexShard shard : this.shards.values()) {
@@ -1213,7 +1231,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             super(
                 indexService,
                 indexService.threadPool.executor(ThreadPool.Names.REFRESH),
-                indexService.getIndexSettings().getRefreshInterval()
+                indexService.refreshTaskInterval()
             );
         }
 
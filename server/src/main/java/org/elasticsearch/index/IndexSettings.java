@@ -349,6 +349,76 @@ public final class IndexSettings {
         SETTING_INDEX_VERSION_CREATED
     );
 
+    /**
+     * How the shards of an index schedule their periodic refreshes.
+     */
+    public enum RefreshMode {
+        /**
+         * Shards refresh every {@link #INDEX_REFRESH_INTERVAL_SETTING}, unless they are search idle.
+         */
+        FIXED,
+        /**
+         * Shards refresh somewhere between {@link #INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING} and
+         * {@link #INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING} depending on how often they are searched, whether refresh listeners are
+         * waiting, how full the indexing buffer is and how many merges are running.
+         */
+        ADAPTIVE
+    }
+
+    public static final Setting<RefreshMode> INDEX_REFRESH_MODE_SETTING = Setting.enumSetting(
+        RefreshMode.class,
+        "index.refresh.mode",
+        RefreshMode.FIXED,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
+    public static final Setting<TimeValue> INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING = Setting.timeSetting(
+        "index.refresh.adaptive.min_interval",
+        TimeValue.timeValueSeconds(1),
+        TimeValue.timeValueMillis(100),
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
+    public static final Setting<TimeValue> INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING = Setting.timeSetting(
+        "index.refresh.adaptive.max_interval",
+        TimeValue.timeValueSeconds(30),
+        new AdaptiveRefreshMaxIntervalValidator(),
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
+    static class AdaptiveRefreshMaxIntervalValidator implements Setting.Validator<TimeValue> {
+
+        @Override
+        public void validate(TimeValue value) {}
+
+        @Override
+        public void validate(final TimeValue value, final Map<Setting<?>, Object> settings) {
+            final TimeValue minInterval = (TimeValue) settings.get(INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING);
+            if (value.compareTo(minInterval) < 0) {
+                throw new IllegalArgumentException(
+                    "index setting ["
+                        + INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING.getKey()
+                        + "="
+                        + value
+                        + "] must be greater than or equal to ["
+                        + INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING.getKey()
+                        + "="
+                        + minInterval
+                        + "]"
+                );
+            }
+        }
+
+        @Override
+        public Iterator<Setting<?>> settings() {
+            final List<Setting<?>> settings = List.of(INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING);
+            return settings.iterator();
+        }
+    }
+
     public static final Setting<ByteSizeValue> INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING = Setting.byteSizeSetting(
         "index.translog.flush_threshold_size",
         /*
@@ -908,6 +978,9 @@ public final class IndexSettings {
     private volatile int maxNgramDiff;
     private volatile int maxShingleDiff;
     private volatile TimeValue searchIdleAfter;
+    private volatile RefreshMode refreshMode;
+    private volatile TimeValue adaptiveRefreshMinInterval;
+    private volatile TimeValue adaptiveRefreshMaxInterval;
     private volatile int maxAnalyzedOffset;
     private volatile boolean weightMatchesEnabled;
     private volatile int maxTermsCount;
@@ -1088,6 +1161,9 @@ public final class IndexSettings {
         this.mergePolicyConfig = new MergePolicyConfig(logger, this);
         this.indexSortConfig = new IndexSortConfig(this);
         searchIdleAfter = scopedSettings.get(INDEX_SEARCH_IDLE_AFTER);
+        refreshMode = scopedSettings.get(INDEX_REFRESH_MODE_SETTING);
+        adaptiveRefreshMinInterval = scopedSettings.get(INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING);
+        adaptiveRefreshMaxInterval = scopedSettings.get(INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING);
         defaultPipeline = scopedSettings.get(DEFAULT_PIPELINE);
         mappingNestedFieldsLimit = scopedSettings.get(INDEX_MAPPING_NESTED_FIELDS_LIMIT_SETTING);
         mappingNestedDocsLimit = scopedSettings.get(INDEX_MAPPING_NESTED_DOCS_LIMIT_SETTING);
@@ -1196,6 +1272,12 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MAX_SLICES_PER_SCROLL, this::setMaxSlicesPerScroll);
         scopedSettings.addSettingsUpdateConsumer(DEFAULT_FIELD_SETTING, this::setDefaultFields);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_IDLE_AFTER, this::setSearchIdleAfter);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_REFRESH_MODE_SETTING, mode -> this.refreshMode = mode);
+        scopedSettings.addSettingsUpdateConsumer(
+            INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING,
+            INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING,
+            this::setAdaptiveRefreshIntervals
+        );
         scopedSettings.addSettingsUpdateConsumer(MAX_REGEX_LENGTH_SETTING, this::setMaxRegexLength);
         scopedSettings.addSettingsUpdateConsumer(DEFAULT_PIPELINE, this::setDefaultPipeline);
         scopedSettings.addSettingsUpdateConsumer(FINAL_PIPELINE, this::setRequiredPipeline);
@@ -1219,6 +1301,11 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(IgnoredSourceFieldMapper.SKIP_IGNORED_SOURCE_READ_SETTING, this::setSkipIgnoredSourceRead);
     }
 
+    private void setAdaptiveRefreshIntervals(TimeValue minInterval, TimeValue maxInterval) {
+        this.adaptiveRefreshMinInterval = minInterval;
+        this.adaptiveRefreshMaxInterval = maxInterval;
+    }
+
     private void setSearchIdleAfter(TimeValue searchIdleAfter) {
         this.searchIdleAfter = searchIdleAfter;
     }
@@ -1684,6 +1771,27 @@ public final class IndexSettings {
         return INDEX_REFRESH_INTERVAL_SETTING.exists(settings);
     }
 
+    /**
+     * Returns how the shards of this index schedule their periodic refreshes.
+     */
+    public RefreshMode getRefreshMode() {
+        return refreshMode;
+    }
+
+    /**
+     * Returns the shortest interval between two scheduled refreshes of a shard in {@link RefreshMode#ADAPTIVE} mode.
+     */
+    public TimeValue getAdaptiveRefreshMinInterval() {
+        return adaptiveRefreshMinInterval;
+    }
+
+    /**
+     * Returns the longest interval between two scheduled refreshes of a shard in {@link RefreshMode#ADAPTIVE} mode.
+     */
+    public TimeValue getAdaptiveRefreshMaxInterval() {
+        return adaptiveRefreshMaxInterval;
+    }
+
     /**
      * Returns the time that an index shard becomes search idle unless it's accessed in between
      */
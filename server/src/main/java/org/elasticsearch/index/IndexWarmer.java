@@ -115,35 +115,39 @@ public final class IndexWarmer {
             }
             final CountDownLatch latch = new CountDownLatch(warmUpGlobalOrdinals.size());
             for (final MappedFieldType fieldType : warmUpGlobalOrdinals.values()) {
-                executor.execute(() -> {
-                    try {
-                        final long start = System.nanoTime();
-                        IndexFieldData.Global<?> ifd = indexFieldDataService.getForField(
-                            fieldType,
-                            FieldDataContext.noRuntimeFields("index warming")
-                        );
-                        IndexFieldData<?> global = ifd.loadGlobal(reader);
-                        if (reader.leaves().isEmpty() == false) {
-                            global.load(reader.leaves().get(0));
-                        }
-
-                        if (indexShard.warmerService().logger().isTraceEnabled()) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            final long start = System.nanoTime();
+                            IndexFieldData.Global<?> ifd = indexFieldDataService.getForField(
+                                fieldType,
+                                FieldDataContext.noRuntimeFields("index warming")
+                            );
+                            IndexFieldData<?> global = ifd.loadGlobal(reader);
+                            if (reader.leaves().isEmpty() == false) {
+                                global.load(reader.leaves().get(0));
+                            }
+                            final long took = System.nanoTime() - start;
+                            indexShard.fieldData().onEagerGlobalOrdinalsLoaded(TimeUnit.NANOSECONDS.toMillis(took));
+
+                            if (indexShard.warmerService().logger().isTraceEnabled()) {
+                                indexShard.warmerService()
+                                    .logger()
+                                    .trace("warmed global ordinals for [{}], took [{}]", fieldType.name(), TimeValue.timeValueNanos(took));
+                            }
+                        } catch (Exception e) {
                             indexShard.warmerService()
                                 .logger()
-                                .trace(
-                                    "warmed global ordinals for [{}], took [{}]",
-                                    fieldType.name(),
-                                    TimeValue.timeValueNanos(System.nanoTime() - start)
-                                );
+                                .warn(() -> "failed to warm-up global ordinals for [" + fieldType.name() + "]", e);
+                        } finally {
+                            latch.countDown();
                         }
-                    } catch (Exception e) {
-                        indexShard.warmerService()
-                            .logger()
-                            .warn(() -> "failed to warm-up global ordinals for [" + fieldType.name() + "]", e);
-                    } finally {
-                        latch.countDown();
-                    }
-                });
+                    });
+                } catch (Exception e) {
+                    // the task was rejected, typically because the node is shutting down, don't let the refresh wait for it
+                    indexShard.warmerService().logger().warn(() -> "failed to warm-up global ordinals for [" + fieldType.name() + "]", e);
+                    latch.countDown();
+                }
             }
             return () -> latch.await();
         }
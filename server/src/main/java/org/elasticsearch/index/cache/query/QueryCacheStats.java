@@ -10,6 +10,7 @@
 package org.elasticsearch.index.cache.query;
 
 import org.apache.lucene.search.DocIdSet;
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -28,6 +29,9 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
     private long missCount;
     private long cacheCount;
     private long cacheSize;
+    private long sharedSegmentRamBytesUsed;
+    private long sharedSegmentHitCount;
+    private long sharedSegmentMissCount;
 
     public QueryCacheStats() {}
 
@@ -37,6 +41,11 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         missCount = in.readLong();
         cacheCount = in.readLong();
         cacheSize = in.readLong();
+        if (in.getTransportVersion().onOrAfter(TransportVersions.SHARED_SEGMENT_QUERY_CACHE_STATS)) {
+            sharedSegmentRamBytesUsed = in.readVLong();
+            sharedSegmentHitCount = in.readVLong();
+            sharedSegmentMissCount = in.readVLong();
+        }
     }
 
     public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize) {
@@ -56,12 +65,24 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         missCount += stats.missCount;
         cacheCount += stats.cacheCount;
         cacheSize += stats.cacheSize;
+        sharedSegmentRamBytesUsed += stats.sharedSegmentRamBytesUsed;
+        sharedSegmentHitCount += stats.sharedSegmentHitCount;
+        sharedSegmentMissCount += stats.sharedSegmentMissCount;
     }
 
     public void addRamBytesUsed(long additionalRamBytesUsed) {
         ramBytesUsed += additionalRamBytesUsed;
     }
 
+    /**
+     * Adds the usage of the cache that is shared by all the copies of a segment, see {@code indices.queries.cache.shared_segments.size}.
+     */
+    public void addSharedSegmentStats(long ramBytesUsed, long hitCount, long missCount) {
+        sharedSegmentRamBytesUsed += ramBytesUsed;
+        sharedSegmentHitCount += hitCount;
+        sharedSegmentMissCount += missCount;
+    }
+
     public long getMemorySizeInBytes() {
         return ramBytesUsed;
     }
@@ -112,6 +133,27 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         return cacheCount - cacheSize;
     }
 
+    /**
+     * The memory used by the {@link DocIdSet}s that were added to the cache that is shared by all the copies of a segment.
+     */
+    public long getSharedSegmentMemorySizeInBytes() {
+        return sharedSegmentRamBytesUsed;
+    }
+
+    /**
+     * The number of successful lookups in the cache that is shared by all the copies of a segment.
+     */
+    public long getSharedSegmentHitCount() {
+        return sharedSegmentHitCount;
+    }
+
+    /**
+     * The number of failed lookups in the cache that is shared by all the copies of a segment.
+     */
+    public long getSharedSegmentMissCount() {
+        return sharedSegmentMissCount;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeLong(ramBytesUsed);
@@ -119,6 +161,11 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         out.writeLong(missCount);
         out.writeLong(cacheCount);
         out.writeLong(cacheSize);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.SHARED_SEGMENT_QUERY_CACHE_STATS)) {
+            out.writeVLong(sharedSegmentRamBytesUsed);
+            out.writeVLong(sharedSegmentHitCount);
+            out.writeVLong(sharedSegmentMissCount);
+        }
     }
 
     @Override
@@ -130,12 +177,24 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
             && hitCount == that.hitCount
             && missCount == that.missCount
             && cacheCount == that.cacheCount
-            && cacheSize == that.cacheSize;
+            && cacheSize == that.cacheSize
+            && sharedSegmentRamBytesUsed == that.sharedSegmentRamBytesUsed
+            && sharedSegmentHitCount == that.sharedSegmentHitCount
+            && sharedSegmentMissCount == that.sharedSegmentMissCount;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize);
+        return Objects.hash(
+            ramBytesUsed,
+            hitCount,
+            missCount,
+            cacheCount,
+            cacheSize,
+            sharedSegmentRamBytesUsed,
+            sharedSegmentHitCount,
+            sharedSegmentMissCount
+        );
     }
 
     @Override
@@ -148,6 +207,13 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         builder.field(Fields.CACHE_SIZE, getCacheSize());
         builder.field(Fields.CACHE_COUNT, getCacheCount());
         builder.field(Fields.EVICTIONS, getEvictions());
+        if (sharedSegmentHitCount + sharedSegmentMissCount > 0 || sharedSegmentRamBytesUsed > 0) {
+            builder.startObject(Fields.SHARED_SEGMENTS);
+            builder.humanReadableField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, ByteSizeValue.ofBytes(sharedSegmentRamBytesUsed));
+            builder.field(Fields.HIT_COUNT, sharedSegmentHitCount);
+            builder.field(Fields.MISS_COUNT, sharedSegmentMissCount);
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -162,6 +228,7 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         static final String CACHE_SIZE = "cache_size";
         static final String CACHE_COUNT = "cache_count";
         static final String EVICTIONS = "evictions";
+        static final String SHARED_SEGMENTS = "shared_segments";
     }
 
 }
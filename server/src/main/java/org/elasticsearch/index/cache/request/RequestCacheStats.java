@@ -9,6 +9,7 @@
 
 package org.elasticsearch.index.cache.request;
 
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -25,6 +26,8 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
     private long evictions;
     private long hitCount;
     private long missCount;
+    private long topHitsHitCount;
+    private long topHitsMissCount;
 
     public RequestCacheStats() {}
 
@@ -33,13 +36,23 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getTransportVersion().onOrAfter(TransportVersions.REQUEST_CACHE_TOP_HITS_STATS)) {
+            topHitsHitCount = in.readVLong();
+            topHitsMissCount = in.readVLong();
+        }
     }
 
     public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, 0, 0);
+    }
+
+    public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount, long topHitsHitCount, long topHitsMissCount) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.topHitsHitCount = topHitsHitCount;
+        this.topHitsMissCount = topHitsMissCount;
     }
 
     public void add(RequestCacheStats stats) {
@@ -50,6 +63,8 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.topHitsHitCount += stats.topHitsHitCount;
+        this.topHitsMissCount += stats.topHitsMissCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -72,12 +87,30 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         return this.missCount;
     }
 
+    /**
+     * The number of cache hits of requests that return top hits, which are also counted in {@link #getHitCount()}.
+     */
+    public long getTopHitsHitCount() {
+        return this.topHitsHitCount;
+    }
+
+    /**
+     * The number of cache misses of requests that return top hits, which are also counted in {@link #getMissCount()}.
+     */
+    public long getTopHitsMissCount() {
+        return this.topHitsMissCount;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.REQUEST_CACHE_TOP_HITS_STATS)) {
+            out.writeVLong(topHitsHitCount);
+            out.writeVLong(topHitsMissCount);
+        }
     }
 
     @Override
@@ -85,12 +118,17 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         RequestCacheStats that = (RequestCacheStats) o;
-        return memorySize == that.memorySize && evictions == that.evictions && hitCount == that.hitCount && missCount == that.missCount;
+        return memorySize == that.memorySize
+            && evictions == that.evictions
+            && hitCount == that.hitCount
+            && missCount == that.missCount
+            && topHitsHitCount == that.topHitsHitCount
+            && topHitsMissCount == that.topHitsMissCount;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, hitCount, missCount);
+        return Objects.hash(memorySize, evictions, hitCount, missCount, topHitsHitCount, topHitsMissCount);
     }
 
     @Override
@@ -100,6 +138,12 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        if (topHitsHitCount + topHitsMissCount > 0) {
+            builder.startObject(Fields.TOP_HITS);
+            builder.field(Fields.HIT_COUNT, topHitsHitCount);
+            builder.field(Fields.MISS_COUNT, topHitsMissCount);
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -111,5 +155,6 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         static final String EVICTIONS = "evictions";
         static final String HIT_COUNT = "hit_count";
         static final String MISS_COUNT = "miss_count";
+        static final String TOP_HITS = "top_hits";
     }
 }
@@ -22,9 +22,18 @@ public final class ShardRequestCache {
     final CounterMetric totalMetric = new CounterMetric();
     final CounterMetric hitCount = new CounterMetric();
     final CounterMetric missCount = new CounterMetric();
+    final CounterMetric topHitsHitCount = new CounterMetric();
+    final CounterMetric topHitsMissCount = new CounterMetric();
 
     public RequestCacheStats stats() {
-        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        return new RequestCacheStats(
+            totalMetric.count(),
+            evictionsMetric.count(),
+            hitCount.count(),
+            missCount.count(),
+            topHitsHitCount.count(),
+            topHitsMissCount.count()
+        );
     }
 
     public void onHit() {
@@ -35,6 +44,22 @@ public final class ShardRequestCache {
         missCount.inc();
     }
 
+    /**
+     * Records a cache hit of a request that returns top hits, as opposed to a request that only counts hits or computes aggregations.
+     */
+    public void onTopHitsHit() {
+        hitCount.inc();
+        topHitsHitCount.inc();
+    }
+
+    /**
+     * Records a cache miss of a request that returns top hits, as opposed to a request that only counts hits or computes aggregations.
+     */
+    public void onTopHitsMiss() {
+        missCount.inc();
+        topHitsMissCount.inc();
+    }
+
     public void onCached(Accountable key, BytesReference value) {
         totalMetric.inc(key.ramBytesUsed() + value.ramBytesUsed());
     }
@@ -64,8 +64,16 @@ public class Elasticsearch900Lucene101Codec extends CodecService.DeduplicateFiel
      * worse space-efficiency or vice-versa.
      */
     public Elasticsearch900Lucene101Codec(Zstd814StoredFieldsFormat.Mode mode) {
+        this(mode, false);
+    }
+
+    /**
+     * Constructor. Takes a {@link Zstd814StoredFieldsFormat.Mode} and whether to train a dictionary for the stored fields of every
+     * segment that this codec writes, see {@link Zstd814StoredFieldsFormat.Mode#getFormat(boolean)}.
+     */
+    public Elasticsearch900Lucene101Codec(Zstd814StoredFieldsFormat.Mode mode, boolean trainStoredFieldsDictionary) {
         super("Elasticsearch900Lucene101", new Lucene101Codec());
-        this.storedFieldsFormat = mode.getFormat();
+        this.storedFieldsFormat = mode.getFormat(trainStoredFieldsDictionary);
         this.defaultPostingsFormat = new Lucene101PostingsFormat();
         this.defaultDVFormat = new Lucene90DocValuesFormat();
         this.defaultKnnVectorsFormat = new Lucene99HnswVectorsFormat();
@@ -11,6 +11,7 @@ package org.elasticsearch.index.codec;
 
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
+import org.elasticsearch.simdvec.ESVectorUtil;
 
 import java.io.IOException;
 
@@ -19,6 +20,7 @@ import java.io.IOException;
 // If bitsPerValue <= 8 then we pack 8 ints per long
 // else if bitsPerValue <= 16 we pack 4 ints per long
 // else we pack 2 ints per long
+// Unpacking is delegated to ESVectorUtil, which uses the Panama Vector API when it is available and scalar loops otherwise.
 public final class ForUtil {
 
     public static final int BLOCK_SIZE = 128;
@@ -52,17 +54,7 @@ public final class ForUtil {
     }
 
     private static void expand8(long[] arr) {
-        for (int i = 0; i < 16; ++i) {
-            long l = arr[i];
-            arr[i] = (l >>> 56) & 0xFFL;
-            arr[16 + i] = (l >>> 48) & 0xFFL;
-            arr[32 + i] = (l >>> 40) & 0xFFL;
-            arr[48 + i] = (l >>> 32) & 0xFFL;
-            arr[64 + i] = (l >>> 24) & 0xFFL;
-            arr[80 + i] = (l >>> 16) & 0xFFL;
-            arr[96 + i] = (l >>> 8) & 0xFFL;
-            arr[112 + i] = l & 0xFFL;
-        }
+        ESVectorUtil.expand8(arr);
     }
 
     private static void expand8To32(long[] arr) {
@@ -83,13 +75,7 @@ public final class ForUtil {
     }
 
     private static void expand16(long[] arr) {
-        for (int i = 0; i < 32; ++i) {
-            long l = arr[i];
-            arr[i] = (l >>> 48) & 0xFFFFL;
-            arr[32 + i] = (l >>> 32) & 0xFFFFL;
-            arr[64 + i] = (l >>> 16) & 0xFFFFL;
-            arr[96 + i] = l & 0xFFFFL;
-        }
+        ESVectorUtil.expand16(arr);
     }
 
     private static void expand16To32(long[] arr) {
@@ -107,11 +93,7 @@ public final class ForUtil {
     }
 
     private static void expand32(long[] arr) {
-        for (int i = 0; i < 64; ++i) {
-            long l = arr[i];
-            arr[i] = l >>> 32;
-            arr[64 + i] = l & 0xFFFFFFFFL;
-        }
+        ESVectorUtil.expand32(arr);
     }
 
     private static void collapse32(long[] arr) {
@@ -230,14 +212,8 @@ public final class ForUtil {
         }
     }
 
-    /**
-     * The pattern that this shiftLongs method applies is recognized by the C2 compiler, which
-     * generates SIMD instructions for it in order to shift multiple longs at once.
-     */
     private static void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask) {
-        for (int i = 0; i < count; ++i) {
-            b[bi + i] = (a[i] >>> shift) & mask;
-        }
+        ESVectorUtil.shiftLongs(a, count, b, bi, shift, mask);
     }
 
     private static final long[] MASKS8 = new long[8];
@@ -31,7 +31,16 @@ public final class PerFieldMapperCodec extends Elasticsearch900Lucene101Codec {
     private final PerFieldFormatSupplier formatSupplier;
 
     public PerFieldMapperCodec(Zstd814StoredFieldsFormat.Mode compressionMode, MapperService mapperService, BigArrays bigArrays) {
-        super(compressionMode);
+        this(compressionMode, false, mapperService, bigArrays);
+    }
+
+    public PerFieldMapperCodec(
+        Zstd814StoredFieldsFormat.Mode compressionMode,
+        boolean trainStoredFieldsDictionary,
+        MapperService mapperService,
+        BigArrays bigArrays
+    ) {
+        super(compressionMode, trainStoredFieldsDictionary);
         this.formatSupplier = new PerFieldFormatSupplier(mapperService, bigArrays);
         // If the below assertion fails, it is a sign that Lucene released a new codec. You must create a copy of the current Elasticsearch
         // codec that delegates to this new Lucene codec, and make PerFieldMapperCodec extend this new Elasticsearch codec.
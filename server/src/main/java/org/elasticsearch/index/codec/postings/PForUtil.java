@@ -24,6 +24,7 @@ import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.util.LongHeap;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.index.codec.ForUtil;
+import org.elasticsearch.simdvec.ESVectorUtil;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -229,25 +230,13 @@ final class PForUtil {
     private static void prefixSum32(long[] longs, long base) {
         longs[0] += base << 32;
         innerPrefixSum32(longs);
-        expand32(longs);
+        ESVectorUtil.expand32(longs);
         final long l = longs[HALF_BLOCK_SIZE - 1];
         for (int i = HALF_BLOCK_SIZE; i < ForUtil.BLOCK_SIZE; ++i) {
             longs[i] += l;
         }
     }
 
-    /**
-     * Expand the values packed two-per-long in {@code longs} into 128 individual long values stored
-     * back into {@code longs}.
-     */
-    private static void expand32(long[] longs) {
-        for (int i = 0; i < 64; ++i) {
-            final long l = longs[i];
-            longs[i] = l >>> 32;
-            longs[64 + i] = l & 0xFFFFFFFFL;
-        }
-    }
-
     /**
      * Unrolled "inner" prefix sum logic where the values are packed two-per-long in {@code longs}.
      * After this method, the final values will be correct for all high-order bits (values [0..63])
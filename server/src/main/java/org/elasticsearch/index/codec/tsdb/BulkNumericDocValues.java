@@ -0,0 +1,30 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.codec.tsdb;
+
+import org.apache.lucene.index.NumericDocValues;
+
+import java.io.IOException;
+
+/**
+ * Numeric doc values of a field that every document of the segment has a value for, which can copy the values of a range of
+ * consecutive documents in bulk. Values are stored in blocks of {@link ES87TSDBDocValuesFormat#NUMERIC_BLOCK_SIZE}, so reading a
+ * range decodes every block once and copies it into the destination instead of going through {@link #advanceExact} and
+ * {@link #longValue} for every document.
+ */
+public abstract class BulkNumericDocValues extends NumericDocValues {
+
+    /**
+     * Copies the values of the {@code count} documents starting at {@code firstDoc} into {@code values}, starting at
+     * {@code offset}, and positions this iterator on the last of these documents. Like the iterator itself this only moves
+     * forward: {@code firstDoc} must not be lower than the {@link #docID() current document}.
+     */
+    public abstract void longValues(int firstDoc, int count, long[] values, int offset) throws IOException;
+}
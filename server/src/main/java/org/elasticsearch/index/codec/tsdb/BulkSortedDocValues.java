@@ -0,0 +1,29 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.codec.tsdb;
+
+import org.apache.lucene.index.SortedDocValues;
+
+import java.io.IOException;
+
+/**
+ * Sorted doc values of a field that every document of the segment has a value for, which can copy the ordinals of a range of
+ * consecutive documents in bulk. Ordinals are stored in blocks of {@link ES87TSDBDocValuesFormat#NUMERIC_BLOCK_SIZE} which are
+ * often a handful of runs of the same ordinal, so a range of documents usually decodes to a few {@link java.util.Arrays#fill}s.
+ */
+public abstract class BulkSortedDocValues extends SortedDocValues {
+
+    /**
+     * Copies the ordinals of the {@code count} documents starting at {@code firstDoc} into {@code ords}, starting at
+     * {@code offset}, and positions this iterator on the last of these documents. Like the iterator itself this only moves
+     * forward: {@code firstDoc} must not be lower than the {@link #docID() current document}.
+     */
+    public abstract void ordValues(int firstDoc, int count, long[] ords, int offset) throws IOException;
+}
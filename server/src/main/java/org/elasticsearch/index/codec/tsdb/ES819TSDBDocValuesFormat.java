@@ -0,0 +1,71 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.codec.tsdb;
+
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+
+import java.io.IOException;
+
+/**
+ * The {@link ES87TSDBDocValuesFormat} with ordinal blocks that may also be run-length or dictionary encoded, see
+ * {@link TSDBDocValuesEncoder#encodeOrdinals}. Nodes that only know {@link ES87TSDBDocValuesFormat} can't decode these blocks, so this
+ * is a format of its own that is only used by indices created on or after
+ * {@link org.elasticsearch.index.IndexVersions#TSDB_DOC_VALUES_ORDINAL_RUNS}. Everything else is laid out, and versioned, like
+ * {@link ES87TSDBDocValuesFormat}.
+ */
+public class ES819TSDBDocValuesFormat extends org.apache.lucene.codecs.DocValuesFormat {
+
+    static final String CODEC_NAME = "ES819TSDB";
+    static final String DATA_CODEC = "ES819TSDBDocValuesData";
+    static final String META_CODEC = "ES819TSDBDocValuesMetadata";
+
+    private final int skipIndexIntervalSize;
+
+    /** Default constructor. */
+    public ES819TSDBDocValuesFormat() {
+        this(ES87TSDBDocValuesFormat.DEFAULT_SKIP_INDEX_INTERVAL_SIZE);
+    }
+
+    /** Doc values fields format with specified skipIndexIntervalSize. */
+    public ES819TSDBDocValuesFormat(int skipIndexIntervalSize) {
+        super(CODEC_NAME);
+        if (skipIndexIntervalSize < 2) {
+            throw new IllegalArgumentException("skipIndexIntervalSize must be > 1, got [" + skipIndexIntervalSize + "]");
+        }
+        this.skipIndexIntervalSize = skipIndexIntervalSize;
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        return new ES87TSDBDocValuesConsumer(
+            state,
+            skipIndexIntervalSize,
+            true,
+            DATA_CODEC,
+            ES87TSDBDocValuesFormat.DATA_EXTENSION,
+            META_CODEC,
+            ES87TSDBDocValuesFormat.META_EXTENSION
+        );
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        return new ES87TSDBDocValuesProducer(
+            state,
+            DATA_CODEC,
+            ES87TSDBDocValuesFormat.DATA_EXTENSION,
+            META_CODEC,
+            ES87TSDBDocValuesFormat.META_EXTENSION
+        );
+    }
+}
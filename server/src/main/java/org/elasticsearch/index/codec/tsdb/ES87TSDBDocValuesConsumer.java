@@ -57,10 +57,12 @@ final class ES87TSDBDocValuesConsumer extends DocValuesConsumer {
     final int maxDoc;
     private byte[] termsDictBuffer;
     private final int skipIndexIntervalSize;
+    private final boolean ordinalRunsAndDictionaries;
 
     ES87TSDBDocValuesConsumer(
         SegmentWriteState state,
         int skipIndexIntervalSize,
+        boolean ordinalRunsAndDictionaries,
         String dataCodec,
         String dataExtension,
         String metaCodec,
@@ -89,6 +91,7 @@ final class ES87TSDBDocValuesConsumer extends DocValuesConsumer {
             );
             maxDoc = state.segmentInfo.maxDoc();
             this.skipIndexIntervalSize = skipIndexIntervalSize;
+            this.ordinalRunsAndDictionaries = ordinalRunsAndDictionaries;
             success = true;
         } finally {
             if (success == false) {
@@ -172,7 +175,7 @@ final class ES87TSDBDocValuesConsumer extends DocValuesConsumer {
                         if (bufferSize == ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SIZE) {
                             indexWriter.add(data.getFilePointer() - valuesDataOffset);
                             if (maxOrd >= 0) {
-                                encoder.encodeOrdinals(buffer, data, bitsPerOrd);
+                                encoder.encodeOrdinals(buffer, data, bitsPerOrd, ordinalRunsAndDictionaries);
                             } else {
                                 encoder.encode(buffer, data);
                             }
@@ -185,7 +188,7 @@ final class ES87TSDBDocValuesConsumer extends DocValuesConsumer {
                     // Fill unused slots in the block with zeroes rather than junk
                     Arrays.fill(buffer, bufferSize, ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SIZE, 0L);
                     if (maxOrd >= 0) {
-                        encoder.encodeOrdinals(buffer, data, bitsPerOrd);
+                        encoder.encodeOrdinals(buffer, data, bitsPerOrd, ordinalRunsAndDictionaries);
                     } else {
                         encoder.encode(buffer, data);
                     }
@@ -287,7 +287,7 @@ public class ES87TSDBDocValuesProducer extends DocValuesProducer {
 
     private SortedDocValues getSorted(SortedEntry entry) throws IOException {
         final NumericDocValues ords = getNumeric(entry.ordsEntry, entry.termsDictEntry.termsDictSize);
-        return new BaseSortedDocValues(entry) {
+        final SortedDocValues sorted = new BaseSortedDocValues(entry) {
 
             @Override
             public int ordValue() throws IOException {
@@ -319,6 +319,78 @@ public class ES87TSDBDocValuesProducer extends DocValuesProducer {
                 return ords.cost();
             }
         };
+        if (ords instanceof BulkNumericDocValues bulkOrds) {
+            return new DenseSortedDocValues(sorted, bulkOrds);
+        }
+        return sorted;
+    }
+
+    /**
+     * Sorted doc values of a field that every document has a value for, which read their ordinals in bulk.
+     */
+    private static class DenseSortedDocValues extends BulkSortedDocValues {
+        private final SortedDocValues in;
+        private final BulkNumericDocValues bulkOrds;
+
+        DenseSortedDocValues(SortedDocValues in, BulkNumericDocValues bulkOrds) {
+            this.in = in;
+            this.bulkOrds = bulkOrds;
+        }
+
+        @Override
+        public void ordValues(int firstDoc, int count, long[] ords, int offset) throws IOException {
+            bulkOrds.longValues(firstDoc, count, ords, offset);
+        }
+
+        @Override
+        public int ordValue() throws IOException {
+            return in.ordValue();
+        }
+
+        @Override
+        public BytesRef lookupOrd(int ord) throws IOException {
+            return in.lookupOrd(ord);
+        }
+
+        @Override
+        public int getValueCount() {
+            return in.getValueCount();
+        }
+
+        @Override
+        public int lookupTerm(BytesRef key) throws IOException {
+            return in.lookupTerm(key);
+        }
+
+        @Override
+        public TermsEnum termsEnum() throws IOException {
+            return in.termsEnum();
+        }
+
+        @Override
+        public boolean advanceExact(int target) throws IOException {
+            return in.advanceExact(target);
+        }
+
+        @Override
+        public int docID() {
+            return in.docID();
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return in.nextDoc();
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            return in.advance(target);
+        }
+
+        @Override
+        public long cost() {
+            return in.cost();
+        }
     }
 
     private abstract class BaseSortedDocValues extends SortedDocValues {
@@ -1085,7 +1157,7 @@ public class ES87TSDBDocValuesProducer extends DocValuesProducer {
         final int bitsPerOrd = maxOrd >= 0 ? PackedInts.bitsRequired(maxOrd - 1) : -1;
         if (entry.docsWithFieldOffset == -1) {
             // dense
-            return new NumericDocValues() {
+            return new BulkNumericDocValues() {
 
                 private final int maxDoc = ES87TSDBDocValuesProducer.this.maxDoc;
                 private int doc = -1;
@@ -1125,8 +1197,30 @@ public class ES87TSDBDocValuesProducer extends DocValuesProducer {
                 @Override
                 public long longValue() throws IOException {
                     final int index = doc;
-                    final int blockIndex = index >>> ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SHIFT;
-                    final int blockInIndex = index & ES87TSDBDocValuesFormat.NUMERIC_BLOCK_MASK;
+                    loadBlock(index >>> ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SHIFT);
+                    return currentBlock[index & ES87TSDBDocValuesFormat.NUMERIC_BLOCK_MASK];
+                }
+
+                @Override
+                public void longValues(int firstDoc, int count, long[] values, int offset) throws IOException {
+                    assert firstDoc >= doc : firstDoc + " < " + doc;
+                    assert firstDoc + count <= maxDoc : firstDoc + " + " + count + " > " + maxDoc;
+                    final int endDoc = firstDoc + count;
+                    int index = firstDoc;
+                    while (index < endDoc) {
+                        loadBlock(index >>> ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SHIFT);
+                        final int blockInIndex = index & ES87TSDBDocValuesFormat.NUMERIC_BLOCK_MASK;
+                        final int length = Math.min(endDoc - index, ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SIZE - blockInIndex);
+                        System.arraycopy(currentBlock, blockInIndex, values, offset, length);
+                        offset += length;
+                        index += length;
+                    }
+                    if (count > 0) {
+                        doc = endDoc - 1;
+                    }
+                }
+
+                private void loadBlock(int blockIndex) throws IOException {
                     if (blockIndex != currentBlockIndex) {
                         assert blockIndex > currentBlockIndex : blockIndex + " < " + currentBlockIndex;
                         // no need to seek if the loading block is the next block
@@ -1140,7 +1234,6 @@ public class ES87TSDBDocValuesProducer extends DocValuesProducer {
                             decoder.decode(valuesData, currentBlock);
                         }
                     }
-                    return currentBlock[blockInIndex];
                 }
             };
         } else {
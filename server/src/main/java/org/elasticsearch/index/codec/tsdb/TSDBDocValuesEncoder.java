@@ -11,6 +11,7 @@ package org.elasticsearch.index.codec.tsdb;
 
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.BitUtil;
 import org.apache.lucene.util.MathUtil;
 import org.apache.lucene.util.packed.PackedInts;
 
@@ -57,10 +58,15 @@ import java.util.Arrays;
 public class TSDBDocValuesEncoder {
     private final DocValuesForUtil forUtil;
     private final int numericBlockSize;
+    // scratch space for the distinct ordinals of a dictionary encoded block
+    private final long[] dictionary;
+    private final long[] dictionaryIndexes;
 
     public TSDBDocValuesEncoder(int numericBlockSize) {
         this.forUtil = new DocValuesForUtil(numericBlockSize);
         this.numericBlockSize = numericBlockSize;
+        this.dictionary = new long[numericBlockSize];
+        this.dictionaryIndexes = new long[numericBlockSize];
     }
 
     /**
@@ -191,9 +197,22 @@ public class TSDBDocValuesEncoder {
      *   <li>1: two runs</li>
      *   <li>2: bit-packed</li>
      *   <li>3: cycle</li>
+     *   <li>4: run-length encoded, for blocks made of a few runs of the same ordinal</li>
+     *   <li>5: dictionary encoded, for blocks that repeat a few distinct ordinals in no particular order</li>
      * </ul>
+     * Blocks that are neither a single run, two runs nor a cycle use whichever of the bit-packed, run-length and dictionary encodings
+     * takes the fewest bytes, preferring bit-packing on ties since it is the fastest to decode.
      */
-    void encodeOrdinals(long[] in, DataOutput out, int bitsPerOrd) throws IOException {
+    public void encodeOrdinals(long[] in, DataOutput out, int bitsPerOrd) throws IOException {
+        encodeOrdinals(in, out, bitsPerOrd, true);
+    }
+
+    /**
+     * Like {@link #encodeOrdinals(long[], DataOutput, int)}, but blocks are only run-length or dictionary encoded if
+     * {@code runsAndDictionaries} is set. Formats that were written before these encodings existed must not use them, otherwise older
+     * nodes fail to read them.
+     */
+    public void encodeOrdinals(long[] in, DataOutput out, int bitsPerOrd, boolean runsAndDictionaries) throws IOException {
         assert in.length == numericBlockSize;
         int numRuns = 1;
         long firstValue = in[0];
@@ -253,14 +272,99 @@ public class TSDBDocValuesEncoder {
             for (int i = 0; i < cycleLength; i++) {
                 out.writeVLong(in[i]);
             }
-        } else {
+        } else if (runsAndDictionaries == false) {
             // set 2 trailing bits to indicate the block is bit-packed
             out.writeVLong(0b11);
             forUtil.encode(in, bitsPerOrd, out);
+        } else {
+            final long bitPackedBytes = 1 + (long) DocValuesForUtil.roundBits(bitsPerOrd) * in.length / Byte.SIZE;
+            final long runLengthBytes = runLengthEncodedBytes(in, numRuns);
+            final int numDistinct = fillDictionary(in);
+            final int bitsPerIndex = PackedInts.bitsRequired(numDistinct - 1);
+            final long dictionaryBytes = bitsPerIndex < bitsPerOrd ? dictionaryEncodedBytes(numDistinct, bitsPerIndex) : Long.MAX_VALUE;
+            if (runLengthBytes < bitPackedBytes && runLengthBytes <= dictionaryBytes) {
+                // set 4 trailing bits to indicate the block is run-length encoded
+                out.writeVLong(((long) numRuns << 5) | 0b01111);
+                out.writeVLong(in[0]);
+                int runStart = 0;
+                for (int i = 1; i < in.length; ++i) {
+                    if (in[i] != in[i - 1]) {
+                        out.writeVInt(i - runStart);
+                        out.writeZLong(in[i] - in[i - 1]);
+                        runStart = i;
+                    }
+                }
+            } else if (dictionaryBytes < bitPackedBytes) {
+                // set 5 trailing bits to indicate the block is dictionary encoded
+                out.writeVLong(((long) numDistinct << 6) | 0b011111);
+                out.writeVLong(dictionary[0]);
+                for (int i = 1; i < numDistinct; ++i) {
+                    out.writeVLong(dictionary[i] - dictionary[i - 1]);
+                }
+                for (int i = 0; i < in.length; ++i) {
+                    dictionaryIndexes[i] = Arrays.binarySearch(dictionary, 0, numDistinct, in[i]);
+                }
+                forUtil.encode(dictionaryIndexes, bitsPerIndex, out);
+            } else {
+                // set 2 trailing bits to indicate the block is bit-packed
+                out.writeVLong(0b11);
+                forUtil.encode(in, bitsPerOrd, out);
+            }
         }
     }
 
-    void decodeOrdinals(DataInput in, long[] out, int bitsPerOrd) throws IOException {
+    /**
+     * Returns the number of bytes that run-length encoding the given block takes: the header, the first ordinal, and then the length
+     * of every run but the last one followed by the difference between the ordinal of the next run and the ordinal of this run.
+     */
+    private static long runLengthEncodedBytes(long[] in, int numRuns) {
+        long bytes = vLongBytes(((long) numRuns << 5) | 0b01111) + vLongBytes(in[0]);
+        int runStart = 0;
+        for (int i = 1; i < in.length; ++i) {
+            if (in[i] != in[i - 1]) {
+                bytes += vLongBytes(i - runStart) + vLongBytes(BitUtil.zigZagEncode(in[i] - in[i - 1]));
+                runStart = i;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the number of bytes that dictionary encoding a block takes given the dictionary built by {@link #fillDictionary}: the
+     * header, the delta-encoded sorted dictionary and then the bit-packed index of every ordinal in the dictionary.
+     */
+    private long dictionaryEncodedBytes(int numDistinct, int bitsPerIndex) {
+        long bytes = vLongBytes(((long) numDistinct << 6) | 0b011111) + vLongBytes(dictionary[0]);
+        for (int i = 1; i < numDistinct; ++i) {
+            bytes += vLongBytes(dictionary[i] - dictionary[i - 1]);
+        }
+        return bytes + (long) bitsPerIndex * numericBlockSize / Byte.SIZE;
+    }
+
+    /**
+     * Fills {@link #dictionary} with the sorted distinct ordinals of the given block and returns how many there are.
+     */
+    private int fillDictionary(long[] in) {
+        System.arraycopy(in, 0, dictionary, 0, in.length);
+        Arrays.sort(dictionary, 0, in.length);
+        int numDistinct = 1;
+        for (int i = 1; i < in.length; ++i) {
+            if (dictionary[i] != dictionary[numDistinct - 1]) {
+                dictionary[numDistinct++] = dictionary[i];
+            }
+        }
+        return numDistinct;
+    }
+
+    /**
+     * Returns the number of bytes that {@link DataOutput#writeVLong} takes for the given value, read as an unsigned long so that it
+     * also covers zig-zag encoded values.
+     */
+    private static int vLongBytes(long value) {
+        return Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(value) + 6) / 7);
+    }
+
+    public void decodeOrdinals(DataInput in, long[] out, int bitsPerOrd) throws IOException {
         assert out.length == numericBlockSize : out.length;
 
         long v1 = in.readVLong();
@@ -290,6 +394,31 @@ public class TSDBDocValuesEncoder {
                 System.arraycopy(out, 0, out, length, copyLength);
                 length += copyLength;
             }
+        } else if (encoding == 4) {
+            // run-length encoding
+            int numRuns = (int) v1;
+            long value = in.readVLong();
+            int runStart = 0;
+            for (int run = 1; run < numRuns; run++) {
+                int runEnd = runStart + in.readVInt();
+                Arrays.fill(out, runStart, runEnd, value);
+                value += in.readZLong();
+                runStart = runEnd;
+            }
+            Arrays.fill(out, runStart, out.length, value);
+        } else if (encoding == 5) {
+            // dictionary encoding
+            int numDistinct = (int) v1;
+            dictionary[0] = in.readVLong();
+            for (int i = 1; i < numDistinct; i++) {
+                dictionary[i] = dictionary[i - 1] + in.readVLong();
+            }
+            forUtil.decode(PackedInts.bitsRequired(numDistinct - 1), in, out);
+            for (int i = 0; i < out.length; i++) {
+                out[i] = dictionary[(int) out[i]];
+            }
+        } else {
+            throw new IllegalStateException("unknown ordinals encoding [" + encoding + "]");
         }
     }
 
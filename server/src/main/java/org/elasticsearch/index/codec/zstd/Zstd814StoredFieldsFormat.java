@@ -9,13 +9,17 @@
 
 package org.elasticsearch.index.codec.zstd;
 
+import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.StoredFieldsWriter;
 import org.apache.lucene.codecs.compressing.CompressionMode;
 import org.apache.lucene.codecs.compressing.Compressor;
 import org.apache.lucene.codecs.compressing.Decompressor;
 import org.apache.lucene.codecs.lucene90.compressing.Lucene90CompressingStoredFieldsFormat;
 import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.store.ByteBuffersDataInput;
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
@@ -23,11 +27,17 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.nativeaccess.CloseableByteBuffer;
 import org.elasticsearch.nativeaccess.NativeAccess;
 import org.elasticsearch.nativeaccess.Zstd;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * {@link org.apache.lucene.codecs.StoredFieldsFormat} that compresses blocks of data using ZStandard.
@@ -36,6 +46,13 @@ import java.io.IOException;
  * dictionaries!). This is mostly due to the fact that LZ4/DEFLATE have short sliding windows that they can use to find duplicate strings
  * (64kB and 32kB respectively). In contrast, ZSTD doesn't have such a limitation and can better take advantage of large compression
  * buffers.
+ * <p>
+ * Small documents are the exception: blocks then hold few documents and the strings that they share, like field names, are only found
+ * once or twice per block. {@link Mode#getFormat(boolean)} returns a variant of this format for such indices that trains a dictionary on
+ * the first block of every segment that it writes, at flush and merge time, and then compresses all the blocks of the segment, including
+ * the first one, with this dictionary. The dictionary is stored in the attributes of the segment. Segments that are merged are always
+ * compressed again rather than copied block by block since the blocks of each segment refer to the dictionary of that segment. If
+ * training fails, typically because the first block is too small, the segment is compressed without a dictionary.
  */
 public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFieldsFormat {
 
@@ -46,6 +63,19 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
 
     /** Attribute key for compression mode. */
     public static final String MODE_KEY = Zstd814StoredFieldsFormat.class.getSimpleName() + ".mode";
+    /** Attribute key for the base64 encoded dictionary that the blocks of the segment are compressed with. */
+    public static final String DICTIONARY_KEY = Zstd814StoredFieldsFormat.class.getSimpleName() + ".dictionary";
+    /** Attribute key for the number of bytes of the blocks of the segment before compression, only set along with a dictionary. */
+    public static final String UNCOMPRESSED_BYTES_KEY = Zstd814StoredFieldsFormat.class.getSimpleName() + ".uncompressed_bytes";
+    /** Attribute key for the number of bytes of the blocks of the segment after compression, only set along with a dictionary. */
+    public static final String COMPRESSED_BYTES_KEY = Zstd814StoredFieldsFormat.class.getSimpleName() + ".compressed_bytes";
+
+    // Bounds of the size of trained dictionaries, zstd cannot train dictionaries that are smaller than 256 bytes and larger dictionaries
+    // make segment infos large while bringing diminishing returns on blocks of at most 256kB.
+    static final int MIN_DICTIONARY_SIZE = 256;
+    static final int MAX_DICTIONARY_SIZE = 16 * 1_024;
+    // The first block is split into samples of this size to train the dictionary on.
+    static final int DICTIONARY_SAMPLE_SIZE = 512;
 
     public enum Mode {
         BEST_SPEED(0, BEST_SPEED_BLOCK_SIZE, 128),
@@ -53,24 +83,39 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
 
         final int level, blockSizeInBytes, blockDocCount;
         final Zstd814StoredFieldsFormat format;
+        final Zstd814StoredFieldsFormat dictionaryFormat;
 
         Mode(int level, int blockSizeInBytes, int blockDocCount) {
             this.level = level;
             this.blockSizeInBytes = blockSizeInBytes;
             this.blockDocCount = blockDocCount;
-            this.format = new Zstd814StoredFieldsFormat(this);
+            this.format = new Zstd814StoredFieldsFormat(this, false);
+            this.dictionaryFormat = new Zstd814StoredFieldsFormat(this, true);
         }
 
         public Zstd814StoredFieldsFormat getFormat() {
             return format;
         }
+
+        /**
+         * Returns the format for this mode, which trains a dictionary for every segment that it writes if {@code trainDictionary} is
+         * {@code true}. Both formats can read all segments.
+         */
+        public Zstd814StoredFieldsFormat getFormat(boolean trainDictionary) {
+            return trainDictionary ? dictionaryFormat : format;
+        }
     }
 
+    private static final String FORMAT_NAME = "ZstdStoredFields814";
+    private static final int BLOCK_SHIFT = 10;
+
     private final Mode mode;
+    private final boolean trainDictionary;
 
-    private Zstd814StoredFieldsFormat(Mode mode) {
-        super("ZstdStoredFields814", new ZstdCompressionMode(mode.level), mode.blockSizeInBytes, mode.blockDocCount, 10);
+    private Zstd814StoredFieldsFormat(Mode mode, boolean trainDictionary) {
+        super(FORMAT_NAME, new ZstdCompressionMode(mode.level), mode.blockSizeInBytes, mode.blockDocCount, BLOCK_SHIFT);
         this.mode = mode;
+        this.trainDictionary = trainDictionary;
     }
 
     @Override
@@ -82,13 +127,75 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
                 "found existing value for " + MODE_KEY + " for segment: " + si.name + "old=" + previous + ", new=" + mode.name()
             );
         }
+        if (trainDictionary) {
+            // The compression mode of the segment remembers the dictionary that it trains. It is also never identical to the compression
+            // mode of another segment, which prevents the writer from copying compressed blocks of other segments as-is when merging.
+            final CompressionMode segmentMode = new ZstdDictionaryCompressionMode(mode.level, si, null);
+            return segmentFormat(segmentMode).fieldsWriter(directory, si, context);
+        }
         return super.fieldsWriter(directory, si, context);
     }
 
+    @Override
+    public StoredFieldsReader fieldsReader(Directory directory, SegmentInfo si, FieldInfos fn, IOContext context) throws IOException {
+        final String dictionary = si.getAttribute(DICTIONARY_KEY);
+        if (dictionary == null) {
+            return super.fieldsReader(directory, si, fn, context);
+        }
+        final byte[] dictionaryBytes = Base64.getDecoder().decode(dictionary);
+        final ZstdDictionaryCompressionMode segmentMode = new ZstdDictionaryCompressionMode(mode.level, si, dictionaryBytes);
+        boolean success = false;
+        try {
+            final StoredFieldsReader reader = segmentFormat(segmentMode).fieldsReader(directory, si, fn, context);
+            success = true;
+            return new DictionaryStoredFieldsReader(reader, segmentMode);
+        } finally {
+            if (success == false) {
+                segmentMode.close();
+            }
+        }
+    }
+
+    private Lucene90CompressingStoredFieldsFormat segmentFormat(CompressionMode segmentMode) {
+        return new Lucene90CompressingStoredFieldsFormat(FORMAT_NAME, segmentMode, mode.blockSizeInBytes, mode.blockDocCount, BLOCK_SHIFT);
+    }
+
     public Mode getMode() {
         return mode;
     }
 
+    /**
+     * Whether this format trains a dictionary for every segment that it writes.
+     */
+    public boolean trainsDictionary() {
+        return trainDictionary;
+    }
+
+    /**
+     * Returns the stats of the stored fields of the given segment if they were compressed with a dictionary, {@code null} otherwise.
+     */
+    public static DictionaryStats dictionaryStats(SegmentReader reader) {
+        final SegmentInfo si = reader.getSegmentInfo().info;
+        final String uncompressedBytes = si.getAttribute(UNCOMPRESSED_BYTES_KEY);
+        final String compressedBytes = si.getAttribute(COMPRESSED_BYTES_KEY);
+        if (si.getAttribute(DICTIONARY_KEY) == null || uncompressedBytes == null || compressedBytes == null) {
+            return null;
+        }
+        final long decompressionTimeInNanos = reader.getFieldsReader() instanceof DictionaryStoredFieldsReader dictionaryReader
+            ? dictionaryReader.decompressionTimeInNanos.sum()
+            : 0L;
+        return new DictionaryStats(Long.parseLong(uncompressedBytes), Long.parseLong(compressedBytes), decompressionTimeInNanos);
+    }
+
+    /**
+     * Stats of the stored fields of a segment that were compressed with a dictionary.
+     *
+     * @param uncompressedBytes the number of bytes of all blocks before compression
+     * @param compressedBytes the number of bytes of all blocks after compression
+     * @param decompressionTimeInNanos the time spent decompressing blocks since the segment was opened
+     */
+    public record DictionaryStats(long uncompressedBytes, long compressedBytes, long decompressionTimeInNanos) {}
+
     private static class ZstdCompressionMode extends CompressionMode {
         private final int level;
 
@@ -117,8 +224,17 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
         // Buffer for copying between the DataInput and native memory. No hard science behind this number, it just tries to be high enough
         // to benefit from bulk copying and low enough to keep heap usage under control.
         final byte[] copyBuffer = new byte[4096];
+        // the compression mode of the segment if its blocks were compressed with a dictionary
+        final ZstdDictionaryCompressionMode dictionaryMode;
 
-        ZstdDecompressor() {}
+        ZstdDecompressor() {
+            this(null);
+        }
+
+        ZstdDecompressor(ZstdDictionaryCompressionMode dictionaryMode) {
+            assert dictionaryMode == null || dictionaryMode.decompressionDictionary != null;
+            this.dictionaryMode = dictionaryMode;
+        }
 
         @Override
         public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
@@ -145,7 +261,19 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
                 }
                 src.buffer().flip();
 
-                final int decompressedLen = zstd.decompress(dest, src);
+                final int decompressedLen;
+                if (dictionaryMode == null) {
+                    decompressedLen = zstd.decompress(dest, src);
+                } else {
+                    final long start = System.nanoTime();
+                    final Zstd.DecompressionContext context = dictionaryMode.acquireDecompressionContext();
+                    try {
+                        decompressedLen = context.decompress(dest, src, dictionaryMode.decompressionDictionary);
+                    } finally {
+                        dictionaryMode.releaseDecompressionContext(context);
+                    }
+                    dictionaryMode.decompressionTimeInNanos.add(System.nanoTime() - start);
+                }
                 if (decompressedLen != originalLength) {
                     throw new CorruptIndexException("Expected " + originalLength + " decompressed bytes, got " + decompressedLen, in);
                 }
@@ -159,7 +287,7 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
 
         @Override
         public Decompressor clone() {
-            return new ZstdDecompressor();
+            return new ZstdDecompressor(dictionaryMode);
         }
     }
 
@@ -169,6 +297,8 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
         // Buffer for copying between the DataInput and native memory. No hard science behind this number, it just tries to be high enough
         // to benefit from bulk copying and low enough to keep heap usage under control.
         final byte[] copyBuffer = new byte[4096];
+        // only created for blocks that are compressed with a dictionary, and reused across these blocks
+        private Zstd.CompressionContext compressionContext;
 
         ZstdCompressor(int level) {
             this.level = level;
@@ -176,12 +306,20 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
 
         @Override
         public void compress(ByteBuffersDataInput buffersInput, DataOutput out) throws IOException {
+            compress(buffersInput, out, null);
+        }
+
+        /**
+         * Compresses the given block with the given dictionary, or without a dictionary if it is {@code null}, and returns the number of
+         * compressed bytes.
+         */
+        int compress(ByteBuffersDataInput buffersInput, DataOutput out, Zstd.CompressionDictionary dictionary) throws IOException {
             final NativeAccess nativeAccess = NativeAccess.instance();
             final Zstd zstd = nativeAccess.getZstd();
 
             final int srcLen = Math.toIntExact(buffersInput.length());
             if (srcLen == 0) {
-                return;
+                return 0;
             }
 
             final int compressBound = zstd.compressBound(srcLen);
@@ -204,7 +342,15 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
                 }
                 src.buffer().flip();
 
-                final int compressedLen = zstd.compress(dest, src, level);
+                final int compressedLen;
+                if (dictionary == null) {
+                    compressedLen = zstd.compress(dest, src, level);
+                } else {
+                    if (compressionContext == null) {
+                        compressionContext = zstd.newCompressionContext();
+                    }
+                    compressedLen = compressionContext.compress(dest, src, dictionary);
+                }
                 out.writeVInt(compressedLen);
 
                 for (int written = 0; written < compressedLen;) {
@@ -214,10 +360,216 @@ public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFi
                     written += numBytes;
                     assert written == dest.buffer().position();
                 }
+                return compressedLen;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (compressionContext != null) {
+                compressionContext.close();
+                compressionContext = null;
+            }
+        }
+    }
+
+    /**
+     * The compression mode of a single segment that is compressed with a dictionary. When writing, the dictionary is trained on the
+     * first block of the segment. When reading, the dictionary comes from the attributes of the segment. The dictionary is digested
+     * once, and the decompression contexts are pooled, for the lifetime of the segment rather than for every block.
+     */
+    private static class ZstdDictionaryCompressionMode extends CompressionMode implements Closeable {
+        private final int level;
+        private final SegmentInfo si;
+        private final LongAdder decompressionTimeInNanos = new LongAdder();
+        private final Zstd.DecompressionDictionary decompressionDictionary;
+        private final Queue<Zstd.DecompressionContext> decompressionContexts = new ConcurrentLinkedQueue<>();
+        private byte[] dictionary;
+        private boolean trained;
+        private long uncompressedBytes;
+        private long compressedBytes;
+
+        ZstdDictionaryCompressionMode(int level, SegmentInfo si, byte[] dictionary) {
+            this.level = level;
+            this.si = si;
+            this.dictionary = dictionary;
+            this.trained = dictionary != null;
+            if (dictionary != null) {
+                final NativeAccess nativeAccess = NativeAccess.instance();
+                try (CloseableByteBuffer dict = nativeAccess.newBuffer(dictionary.length)) {
+                    dict.buffer().put(0, dictionary);
+                    this.decompressionDictionary = nativeAccess.getZstd().newDecompressionDictionary(dict);
+                }
+            } else {
+                this.decompressionDictionary = null;
+            }
+        }
+
+        @Override
+        public Compressor newCompressor() {
+            return new ZstdCompressor(level) {
+                private Zstd.CompressionDictionary compressionDictionary;
+
+                @Override
+                public void compress(ByteBuffersDataInput buffersInput, DataOutput out) throws IOException {
+                    final int srcLen = Math.toIntExact(buffersInput.length());
+                    if (srcLen == 0) {
+                        return;
+                    }
+                    if (trained == false) {
+                        trained = true;
+                        dictionary = trainDictionary(buffersInput.slice(0, srcLen));
+                        if (dictionary != null) {
+                            si.putAttribute(DICTIONARY_KEY, Base64.getEncoder().encodeToString(dictionary));
+                        }
+                    }
+                    if (dictionary != null && compressionDictionary == null) {
+                        final NativeAccess nativeAccess = NativeAccess.instance();
+                        try (CloseableByteBuffer dict = nativeAccess.newBuffer(dictionary.length)) {
+                            dict.buffer().put(0, dictionary);
+                            compressionDictionary = nativeAccess.getZstd().newCompressionDictionary(dict, level);
+                        }
+                    }
+                    compressedBytes += compress(buffersInput, out, compressionDictionary);
+                    uncompressedBytes += srcLen;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    if (compressionDictionary != null) {
+                        compressionDictionary.close();
+                        compressionDictionary = null;
+                    }
+                    if (dictionary != null) {
+                        si.putAttribute(UNCOMPRESSED_BYTES_KEY, Long.toString(uncompressedBytes));
+                        si.putAttribute(COMPRESSED_BYTES_KEY, Long.toString(compressedBytes));
+                    }
+                }
+            };
+        }
+
+        @Override
+        public Decompressor newDecompressor() {
+            return decompressionDictionary == null ? new ZstdDecompressor() : new ZstdDecompressor(this);
+        }
+
+        Zstd.DecompressionContext acquireDecompressionContext() {
+            final Zstd.DecompressionContext context = decompressionContexts.poll();
+            return context != null ? context : NativeAccess.instance().getZstd().newDecompressionContext();
+        }
+
+        void releaseDecompressionContext(Zstd.DecompressionContext context) {
+            decompressionContexts.offer(context);
+        }
+
+        @Override
+        public void close() {
+            Zstd.DecompressionContext context;
+            while ((context = decompressionContexts.poll()) != null) {
+                context.close();
+            }
+            if (decompressionDictionary != null) {
+                decompressionDictionary.close();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ZSTD(level=" + level + ", dictionary=" + (dictionary == null ? 0 : dictionary.length) + ")";
+        }
+    }
+
+    /**
+     * Trains a dictionary on the given block, or returns {@code null} if the block is too small or too uniform to train a dictionary.
+     */
+    static byte[] trainDictionary(ByteBuffersDataInput block) throws IOException {
+        final int srcLen = Math.toIntExact(block.length());
+        final int numSamples = srcLen / DICTIONARY_SAMPLE_SIZE;
+        final int dictionaryCapacity = Math.min(MAX_DICTIONARY_SIZE, srcLen / 8);
+        if (numSamples < 8 || dictionaryCapacity < MIN_DICTIONARY_SIZE) {
+            return null;
+        }
+        final NativeAccess nativeAccess = NativeAccess.instance();
+        final Zstd zstd = nativeAccess.getZstd();
+        final int[] sampleSizes = new int[numSamples];
+        for (int i = 0; i < numSamples; ++i) {
+            sampleSizes[i] = i == numSamples - 1 ? srcLen - i * DICTIONARY_SAMPLE_SIZE : DICTIONARY_SAMPLE_SIZE;
+        }
+        try (
+            CloseableByteBuffer samples = nativeAccess.newBuffer(srcLen);
+            CloseableByteBuffer dict = nativeAccess.newBuffer(dictionaryCapacity)
+        ) {
+            final byte[] copyBuffer = new byte[4096];
+            while (block.position() < block.length()) {
+                final int numBytes = Math.min(copyBuffer.length, (int) (block.length() - block.position()));
+                block.readBytes(copyBuffer, 0, numBytes);
+                samples.buffer().put(copyBuffer, 0, numBytes);
+            }
+            samples.buffer().flip();
+            final int dictionaryLength;
+            try {
+                dictionaryLength = zstd.trainDictionary(dict, samples, sampleSizes);
+            } catch (IllegalArgumentException | UnsupportedOperationException e) {
+                // not enough content to train a dictionary, or a zstd library that can't train dictionaries: compress the segment
+                // without a dictionary
+                return null;
             }
+            final byte[] dictionary = new byte[dictionaryLength];
+            dict.buffer().get(0, dictionary);
+            return dictionary;
+        }
+    }
+
+    /**
+     * Reader of the stored fields of a segment that were compressed with a dictionary. It exposes the time spent decompressing blocks and
+     * prevents the writer from copying the compressed blocks of the segment as-is when merging.
+     */
+    private static final class DictionaryStoredFieldsReader extends StoredFieldsReader {
+        private final StoredFieldsReader in;
+        private final ZstdDictionaryCompressionMode segmentMode;
+        private final LongAdder decompressionTimeInNanos;
+
+        DictionaryStoredFieldsReader(StoredFieldsReader in, ZstdDictionaryCompressionMode segmentMode) {
+            this.in = in;
+            this.segmentMode = segmentMode;
+            this.decompressionTimeInNanos = segmentMode.decompressionTimeInNanos;
+        }
+
+        @Override
+        public void prefetch(int docID) throws IOException {
+            in.prefetch(docID);
+        }
+
+        @Override
+        public void document(int docID, StoredFieldVisitor visitor) throws IOException {
+            in.document(docID, visitor);
+        }
+
+        @Override
+        public StoredFieldsReader clone() {
+            return new DictionaryStoredFieldsReader(in.clone(), segmentMode);
         }
 
         @Override
-        public void close() throws IOException {}
+        public StoredFieldsReader getMergeInstance() {
+            return new DictionaryStoredFieldsReader(in.getMergeInstance(), segmentMode);
+        }
+
+        @Override
+        public void checkIntegrity() throws IOException {
+            in.checkIntegrity();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // clones and merge instances are never closed, so this only releases the native resources of the segment once
+            IOUtils.close(in, segmentMode);
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "(" + in + ")";
+        }
     }
 }
@@ -60,6 +60,7 @@ import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.IndexVersion;
 import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.codec.zstd.Zstd814StoredFieldsFormat;
 import org.elasticsearch.index.mapper.DocumentParser;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
 import org.elasticsearch.index.mapper.LuceneDocument;
@@ -1048,6 +1049,14 @@ public abstract class Engine implements Closeable {
 
     protected void fillSegmentStats(SegmentReader segmentReader, boolean includeSegmentFileSizes, SegmentsStats stats) {
         stats.add(1);
+        final Zstd814StoredFieldsFormat.DictionaryStats dictionaryStats = Zstd814StoredFieldsFormat.dictionaryStats(segmentReader);
+        if (dictionaryStats != null) {
+            stats.addStoredFieldsCompression(
+                dictionaryStats.uncompressedBytes(),
+                dictionaryStats.compressedBytes(),
+                dictionaryStats.decompressionTimeInNanos()
+            );
+        }
         if (includeSegmentFileSizes) {
             stats.addFiles(getSegmentFileSizes(segmentReader));
         }
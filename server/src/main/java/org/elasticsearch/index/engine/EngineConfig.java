@@ -122,6 +122,45 @@ public final class EngineConfig {
     // don't convert to Setting<> and register... we only set this in tests and register via a test plugin
     public static final String USE_COMPOUND_FILE = "index.use_compound_file";
 
+    /**
+     * Where the live version map keeps the versions of the documents that were indexed since the last refresh.
+     */
+    public enum VersionMapStorage {
+        /**
+         * One {@link org.apache.lucene.util.BytesRef} and one version object per document, on heap.
+         */
+        HEAP,
+        /**
+         * Encoded ids and versions packed in pages of big arrays, see {@code PagedVersionMap}. This reduces the number of objects
+         * that the garbage collector has to trace for update-heavy indices and accounts their memory to the circuit breaker.
+         */
+        PAGED
+    }
+
+    /**
+     * Index setting to train a zstd dictionary for the stored fields of every segment, see
+     * {@link org.elasticsearch.index.codec.zstd.Zstd814StoredFieldsFormat}. This only applies to the {@code default} and
+     * {@code best_compression} codecs. This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<Boolean> INDEX_STORED_FIELDS_DICTIONARY_SETTING = Setting.boolSetting(
+        "index.stored_fields.train_dictionary",
+        false,
+        Property.IndexScope,
+        Property.Final
+    );
+
+    /**
+     * Index setting to change where the live version map keeps the versions of the documents indexed since the last refresh.
+     * This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<VersionMapStorage> INDEX_VERSION_MAP_STORAGE_SETTING = Setting.enumSetting(
+        VersionMapStorage.class,
+        "index.version_map.storage",
+        VersionMapStorage.HEAP,
+        Property.IndexScope,
+        Property.Final
+    );
+
     /**
      * Legacy index setting, kept for 7.x BWC compatibility. This setting has no effect in 8.x. Do not use.
      * TODO: Remove in 9.0
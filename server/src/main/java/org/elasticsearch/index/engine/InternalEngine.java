@@ -49,6 +49,7 @@ import org.elasticsearch.cluster.metadata.DataStream;
 import org.elasticsearch.cluster.service.ClusterApplierService;
 import org.elasticsearch.common.ReferenceDocs;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.lucene.LoggerInfoStream;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
@@ -60,6 +61,7 @@ import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
@@ -101,6 +103,7 @@ import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogCorruptedException;
 import org.elasticsearch.index.translog.TranslogDeletionPolicy;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.recovery.RecoverySettings;
 import org.elasticsearch.search.suggest.completion.CompletionStats;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -243,7 +246,7 @@ public class InternalEngine extends Engine {
         this.relativeTimeInNanosSupplier = config().getRelativeTimeInNanosSupplier();
         this.lastFlushTimestamp = relativeTimeInNanosSupplier.getAsLong(); // default to creation timestamp
         this.liveVersionMapArchive = createLiveVersionMapArchive();
-        this.versionMap = new LiveVersionMap(liveVersionMapArchive);
+        this.versionMap = createLiveVersionMap(engineConfig, liveVersionMapArchive);
         final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy();
         store.incRef();
         IndexWriter writer = null;
@@ -531,7 +534,7 @@ public class InternalEngine extends Engine {
     public int restoreLocalHistoryFromTranslog(TranslogRecoveryRunner translogRecoveryRunner) throws IOException {
         try (var ignored = acquireEnsureOpenRef()) {
             final long localCheckpoint = localCheckpointTracker.getProcessedCheckpoint();
-            try (Translog.Snapshot snapshot = getTranslog().newSnapshot(localCheckpoint + 1, Long.MAX_VALUE)) {
+            try (Translog.Snapshot snapshot = getTranslog().newSnapshot(localCheckpoint + 1, Long.MAX_VALUE, true)) {
                 return translogRecoveryRunner.run(this, snapshot);
             }
         }
@@ -642,7 +645,8 @@ public class InternalEngine extends Engine {
     }
 
     protected Translog.Snapshot newTranslogSnapshot(long fromSeqNo, long toSeqNo) throws IOException {
-        return translog.newSnapshot(fromSeqNo, toSeqNo);
+        // recovery replays the translog front to back, read it through memory mapping
+        return translog.newSnapshot(fromSeqNo, toSeqNo, true);
     }
 
     private Translog openTranslog(
@@ -716,12 +720,35 @@ public class InternalEngine extends Engine {
 
     @Override
     public void asyncEnsureTranslogSynced(Translog.Location location, Consumer<Exception> listener) {
-        translogSyncProcessor.put(new Tuple<>(SequenceNumbers.NO_OPS_PERFORMED, location), listener);
+        asyncEnsureSynced(SequenceNumbers.NO_OPS_PERFORMED, location, listener);
     }
 
     @Override
     public void asyncEnsureGlobalCheckpointSynced(long globalCheckpoint, Consumer<Exception> listener) {
-        translogSyncProcessor.put(new Tuple<>(globalCheckpoint, Translog.Location.EMPTY), listener);
+        asyncEnsureSynced(globalCheckpoint, Translog.Location.EMPTY, listener);
+    }
+
+    private void asyncEnsureSynced(long globalCheckpoint, Translog.Location location, Consumer<Exception> listener) {
+        final TranslogSyncCoordinator.Group syncGroup = engineConfig.getTranslogConfig().getSyncGroup();
+        if (syncGroup == null || syncGroup.isEnabled() == false) {
+            translogSyncProcessor.put(new Tuple<>(globalCheckpoint, location), listener);
+            return;
+        }
+        // sync together with the other shards on the same data path, see TranslogSyncCoordinator
+        syncGroup.sync(translog, location, globalCheckpoint, ActionListener.wrap(synced -> {
+            if (synced) {
+                revisitIndexDeletionPolicyOnTranslogSynced();
+            }
+            listener.accept(null);
+        }, e -> {
+            if (e instanceof AlreadyClosedException) {
+                // that's fine since we already synced everything on engine close, same as for the per-shard sync processor
+                listener.accept(null);
+            } else {
+                logger.debug("failed to sync translog", e);
+                listener.accept(e);
+            }
+        }));
     }
 
     @Override
@@ -3454,6 +3481,22 @@ public class InternalEngine extends Engine {
         return LiveVersionMapArchive.NOOP_ARCHIVE;
     }
 
+    private static LiveVersionMap createLiveVersionMap(EngineConfig engineConfig, LiveVersionMapArchive archive) {
+        final EngineConfig.VersionMapStorage storage = engineConfig.getIndexSettings()
+            .getValue(EngineConfig.INDEX_VERSION_MAP_STORAGE_SETTING);
+        if (storage == EngineConfig.VersionMapStorage.PAGED && archive == LiveVersionMapArchive.NOOP_ARCHIVE) {
+            // the version map is long-lived indexing memory so it is accounted to the accounting breaker, which it never trips: by the
+            // time an entry is added to the version map the operation has already been applied to Lucene and must not fail. Pages are
+            // not recycled since lookups read the maps without locking
+            return new LiveVersionMap(
+                archive,
+                new BigArrays(null, engineConfig.getCircuitBreakerService(), CircuitBreaker.ACCOUNTING)
+            );
+        }
+        // archived version maps are kept around after refresh, they always stay on heap
+        return new LiveVersionMap(archive);
+    }
+
     protected LiveVersionMapArchive getLiveVersionMapArchive() {
         return liveVersionMapArchive;
     }
@@ -13,14 +13,18 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
 /** Maps _uid value to its version information. */
 public final class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
@@ -29,15 +33,41 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
 
     private final LiveVersionMapArchive archive;
 
+    // creates the maps backing the current and old version lookups, given the expected number of entries
+    private volatile IntFunction<Map<BytesRef, VersionValue>> mapFactory;
+
     LiveVersionMap() {
         this(LiveVersionMapArchive.NOOP_ARCHIVE);
     }
 
     LiveVersionMap(LiveVersionMapArchive archive) {
+        this(archive, null);
+    }
+
+    /**
+     * @param pagedBigArrays if not null, the current and old version lookups are backed by {@link PagedVersionMap}s allocated from these
+     *                       big arrays rather than by heap maps. The big arrays must not recycle pages. This is only supported with the
+     *                       {@link LiveVersionMapArchive#NOOP_ARCHIVE} since paged maps are released as soon as they are superseded by a
+     *                       refresh.
+     */
+    LiveVersionMap(LiveVersionMapArchive archive, @Nullable BigArrays pagedBigArrays) {
+        assert pagedBigArrays == null || archive == LiveVersionMapArchive.NOOP_ARCHIVE : "paged version maps can't be archived";
         this.archive = archive;
+        if (pagedBigArrays == null) {
+            this.mapFactory = LiveVersionMap::newHeapMap;
+        } else {
+            this.mapFactory = expectedSize -> new PagedVersionMap(pagedBigArrays);
+        }
+        this.maps = new Maps(mapFactory);
     }
 
-    public static final class VersionLookup {
+    private static Map<BytesRef, VersionValue> newHeapMap(int expectedSize) {
+        return expectedSize == 0
+            ? ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()
+            : ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize);
+    }
+
+    public static final class VersionLookup implements Releasable {
 
         /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones,
          *  we only account for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not
@@ -132,7 +162,8 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         }
 
         public long ramBytesUsed() {
-            return ramBytesUsed.get();
+            // maps that are not on heap track their own memory usage
+            return map instanceof Accountable accountable ? accountable.ramBytesUsed() : ramBytesUsed.get();
         }
 
         public static long mapEntryBytesUsed(BytesRef key, VersionValue value) {
@@ -143,6 +174,17 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         Map<BytesRef, VersionValue> getMap() {
             return map;
         }
+
+        /**
+         * Releases the memory held by this lookup if its map is not on heap. The lookup must not be used anymore once it has been
+         * superseded by a refresh and released, although concurrent accesses will safely see an empty map.
+         */
+        @Override
+        public void close() {
+            if (map instanceof Releasable releasable) {
+                releasable.close();
+            }
+        }
     }
 
     private static final class Maps {
@@ -164,8 +206,8 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()), VersionLookup.EMPTY, false);
+        Maps(IntFunction<Map<BytesRef, VersionValue>> mapFactory) {
+            this(new VersionLookup(mapFactory.apply(0)), VersionLookup.EMPTY, false);
         }
 
         boolean isSafeAccessMode() {
@@ -182,12 +224,8 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         /**
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
-        Maps buildTransitionMap() {
-            return new Maps(
-                new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())),
-                current,
-                shouldInheritSafeAccess()
-            );
+        Maps buildTransitionMap(IntFunction<Map<BytesRef, VersionValue>> mapFactory) {
+            return new Maps(new VersionLookup(mapFactory.apply(current.size())), current, shouldInheritSafeAccess());
         }
 
         /**
@@ -202,6 +240,8 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
          */
         Maps invalidateOldMap(LiveVersionMapArchive archive) {
             archive.afterRefresh(old);
+            // only paged maps hold memory that must be released, and they are never archived
+            old.close();
             return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
         }
 
@@ -224,17 +264,17 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         }
 
         long ramBytesUsed() {
-            return current.ramBytesUsed.get() + old.ramBytesUsed.get();
+            return current.ramBytesUsed() + old.ramBytesUsed();
         }
     }
 
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    private volatile Maps unsafeKeysMap = new Maps(LiveVersionMap::newHeapMap);
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -282,8 +322,8 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         // map. While reopen is running, any lookup will first
         // try this new map, then fallback to old, then to the
         // current searcher:
-        maps = maps.buildTransitionMap();
-        assert (unsafeKeysMap = unsafeKeysMap.buildTransitionMap()) != null;
+        maps = maps.buildTransitionMap(mapFactory);
+        assert (unsafeKeysMap = unsafeKeysMap.buildTransitionMap(LiveVersionMap::newHeapMap)) != null;
         // This is not 100% correct, since concurrent indexing ops can change these counters in between our execution of the previous
         // line and this one, but that should be minor, and the error won't accumulate over time:
     }
@@ -463,7 +503,12 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        final Maps previousMaps = maps;
+        // use heap maps from now on so that operations and refreshes racing with closing the index don't allocate pages that are never
+        // released
+        mapFactory = LiveVersionMap::newHeapMap;
+        maps = new Maps(mapFactory);
+        Releasables.close(previousMaps.current, previousMaps.old);
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip. Presumably it's fine if our ramBytesUsedForTombstones is non-zero after clear since the
@@ -495,7 +540,7 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
      */
     long reclaimableRefreshRamBytes() {
         return archive == LiveVersionMapArchive.NOOP_ARCHIVE
-            ? maps.current.ramBytesUsed.get()
+            ? maps.current.ramBytesUsed()
             : maps.ramBytesUsed() + archive.getReclaimableRamBytes();
     }
 
@@ -512,7 +557,7 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
      * fraction of the Archive entries that are kept around until an ongoing unpromotable refresh is finished.
      */
     long getRefreshingBytes() {
-        return archive == LiveVersionMapArchive.NOOP_ARCHIVE ? maps.old.ramBytesUsed.get() : archive.getRefreshingRamBytes();
+        return archive == LiveVersionMapArchive.NOOP_ARCHIVE ? maps.old.ramBytesUsed() : archive.getRefreshingRamBytes();
     }
 
     /**
@@ -0,0 +1,444 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A map from encoded {@code _id} to its {@link VersionValue} that keeps keys and values in {@link BigArrays} rather than in one
+ * {@link BytesRef} and one {@link VersionValue} object per document. Each segment of the map is an open addressing hash table of entry
+ * ids, the bytes of the keys are appended to a {@link ByteArray} and the fields of the version values are stored in a parallel
+ * {@link LongArray}, so that the map only holds a handful of large arrays on heap no matter how many documents are indexed between two
+ * refreshes.
+ * <p>
+ * Each segment is protected by its own {@link StampedLock}: writes take the write lock while lookups are optimistic and only fall back to
+ * the read lock if a write raced with them. An optimistic lookup may observe arrays that are being grown or released, so it bounds every
+ * index it reads and discards whatever it read if the lock stamp is no longer valid. The map must therefore be allocated from big arrays
+ * that do not recycle pages, so that released arrays are never written to by their next owner while a lookup still reads them.
+ * <p>
+ * The entry id and key bytes of a removed entry are reused by the next entry added to the same segment. The map releases its arrays when
+ * it is {@link #close() closed}, which {@link LiveVersionMap} does once the map has been superseded by a refresh. After closing, the map
+ * behaves as an empty map and ignores writes, which is what a lookup or write racing with the refresh that superseded the map expects.
+ * {@link VersionValue}s returned by this map are copies of the stored values.
+ */
+final class PagedVersionMap extends AbstractMap<BytesRef, VersionValue> implements Accountable, Releasable {
+
+    private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(PagedVersionMap.class);
+
+    static final int NUM_SEGMENTS = 16;
+
+    // layout of a value, each value uses STRIDE consecutive longs
+    private static final int VERSION = 0;
+    private static final int SEQ_NO = 1;
+    private static final int TERM = 2;
+    // the lower 32 bits hold the size of the translog location, the upper bits hold the flags below
+    private static final int FLAGS = 3;
+    // the generation of the translog location or the time of a delete
+    private static final int GENERATION_OR_TIME = 4;
+    private static final int TRANSLOG_LOCATION = 5;
+    // the offset of the key in the key bytes
+    private static final int KEY_OFFSET = 6;
+    // the lower 32 bits hold the length of the key, the upper bits hold the number of bytes reserved for the key
+    private static final int KEY_LENGTH = 7;
+    private static final int STRIDE = 8;
+
+    private static final long DELETE = 1L << 32;
+    private static final long HAS_LOCATION = 1L << 33;
+
+    // a slot of a hash table holds the hash code of the key in its upper 32 bits and the entry id plus one in its lower 32 bits, 0 marks
+    // an empty slot
+    private static final long ID_MASK = 0xFFFFFFFFL;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float MAX_LOAD_FACTOR = 0.6f;
+
+    private final BigArrays bigArrays;
+    private final Segment[] segments = new Segment[NUM_SEGMENTS];
+    private final AtomicInteger size = new AtomicInteger();
+
+    PagedVersionMap(BigArrays bigArrays) {
+        this.bigArrays = bigArrays;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private Segment segment(int hash) {
+        // the slot of a key is picked with the lower bits of its hash code so use the upper bits to pick its segment
+        return segments[hash >>> 28];
+    }
+
+    @Override
+    public VersionValue get(Object key) {
+        if (key instanceof BytesRef uid) {
+            final int hash = uid.hashCode();
+            return segment(hash).get(uid, hash);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue value) {
+        final int hash = uid.hashCode();
+        return segment(hash).put(uid, hash, value);
+    }
+
+    @Override
+    public VersionValue remove(Object key) {
+        if (key instanceof BytesRef uid) {
+            final int hash = uid.hashCode();
+            return segment(hash).remove(uid, hash);
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns a point-in-time copy of the entries of this map.
+     */
+    @Override
+    public Set<Entry<BytesRef, VersionValue>> entrySet() {
+        final Map<BytesRef, VersionValue> copy = new HashMap<>();
+        for (Segment segment : segments) {
+            segment.copyTo(copy);
+        }
+        return Collections.unmodifiableSet(copy.entrySet());
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = SHALLOW_SIZE;
+        for (Segment segment : segments) {
+            ramBytesUsed += segment.ramBytesUsed;
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        size.set(0);
+    }
+
+    /**
+     * Returns the slot that holds {@code uid} or {@code -1 - slot} with the empty slot where {@code uid} would be inserted. Every array
+     * access is bounded so that this is safe to call on arrays that are concurrently modified, in which case the result is meaningless
+     * and possibly {@link Long#MIN_VALUE} if the table has no empty slot.
+     */
+    private static long findSlot(LongArray table, LongArray values, ByteArray keyBytes, BytesRef uid, int hash, BytesRef scratch) {
+        final long capacity = table.size();
+        final long mask = capacity - 1;
+        long slot = hash & mask;
+        for (long probes = 0; probes < capacity; probes++) {
+            final long entry = table.get(slot);
+            if (entry == 0) {
+                return -1 - slot;
+            }
+            if ((int) (entry >>> 32) == hash && keyEquals(values, keyBytes, (entry & ID_MASK) - 1, uid, scratch)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private static boolean keyEquals(LongArray values, ByteArray keyBytes, long id, BytesRef uid, BytesRef scratch) {
+        if (id < 0 || (id + 1) * STRIDE > values.size()) {
+            return false;
+        }
+        final long offset = values.get(id * STRIDE + KEY_OFFSET);
+        final int length = (int) values.get(id * STRIDE + KEY_LENGTH);
+        if (length != uid.length || offset < 0 || offset + length > keyBytes.size()) {
+            return false;
+        }
+        keyBytes.get(offset, length, scratch);
+        return scratch.bytesEquals(uid);
+    }
+
+    private static VersionValue read(LongArray values, long id) {
+        final long offset = id * STRIDE;
+        if (id < 0 || offset + STRIDE > values.size()) {
+            return null;
+        }
+        final long flags = values.get(offset + FLAGS);
+        final long version = values.get(offset + VERSION);
+        final long seqNo = values.get(offset + SEQ_NO);
+        final long term = values.get(offset + TERM);
+        if ((flags & DELETE) != 0) {
+            return new DeleteVersionValue(version, seqNo, term, values.get(offset + GENERATION_OR_TIME));
+        }
+        final Translog.Location location = (flags & HAS_LOCATION) == 0
+            ? null
+            : new Translog.Location(values.get(offset + GENERATION_OR_TIME), values.get(offset + TRANSLOG_LOCATION), (int) flags);
+        return new IndexVersionValue(location, version, seqNo, term);
+    }
+
+    private final class Segment {
+        private final StampedLock lock = new StampedLock();
+        // written under the write lock, read optimistically
+        private LongArray table;
+        private LongArray values;
+        private ByteArray keyBytes;
+        // only accessed under the write lock
+        private LongArray freeIds;
+        private long numFreeIds;
+        private long numIds;
+        private long numKeyBytes;
+        private long numEntries;
+        private boolean closed;
+        // written under the write lock, read without it for stats
+        private volatile long ramBytesUsed;
+
+        VersionValue get(BytesRef uid, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    final VersionValue value = doGet(uid, hash);
+                    if (lock.validate(stamp)) {
+                        return value;
+                    }
+                } catch (RuntimeException e) {
+                    // a write changed the arrays while we were reading them, retry under the read lock
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return doGet(uid, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private VersionValue doGet(BytesRef uid, int hash) {
+            final LongArray table = this.table;
+            final LongArray values = this.values;
+            final ByteArray keyBytes = this.keyBytes;
+            if (table == null || values == null || keyBytes == null) {
+                return null;
+            }
+            final long slot = findSlot(table, values, keyBytes, uid, hash, new BytesRef());
+            return slot < 0 ? null : read(values, (table.get(slot) & ID_MASK) - 1);
+        }
+
+        VersionValue put(BytesRef uid, int hash, VersionValue value) {
+            final long stamp = lock.writeLock();
+            try {
+                if (closed) {
+                    return null;
+                }
+                if (table == null) {
+                    table = bigArrays.newLongArray(INITIAL_CAPACITY, true);
+                    values = bigArrays.newLongArray((long) INITIAL_CAPACITY * STRIDE, false);
+                    keyBytes = bigArrays.newByteArray(INITIAL_CAPACITY, false);
+                    freeIds = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+                }
+                final long slot = findSlot(table, values, keyBytes, uid, hash, new BytesRef());
+                assert slot != Long.MIN_VALUE : "hash table is full";
+                if (slot >= 0) {
+                    final long id = (table.get(slot) & ID_MASK) - 1;
+                    final VersionValue previous = read(values, id);
+                    write(id, value);
+                    return previous;
+                }
+                final long id = newId(uid);
+                write(id, value);
+                table.set(-1 - slot, ((long) hash << 32) | (id + 1));
+                numEntries++;
+                if (numEntries > table.size() * MAX_LOAD_FACTOR) {
+                    rehash();
+                }
+                size.incrementAndGet();
+                updateRamBytesUsed();
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        VersionValue remove(BytesRef uid, int hash) {
+            final long stamp = lock.writeLock();
+            try {
+                if (table == null) {
+                    return null;
+                }
+                final long slot = findSlot(table, values, keyBytes, uid, hash, new BytesRef());
+                if (slot < 0) {
+                    return null;
+                }
+                final long id = (table.get(slot) & ID_MASK) - 1;
+                final VersionValue previous = read(values, id);
+                clearSlot(slot);
+                freeIds = bigArrays.grow(freeIds, numFreeIds + 1);
+                freeIds.set(numFreeIds++, id);
+                numEntries--;
+                size.decrementAndGet();
+                updateRamBytesUsed();
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void copyTo(Map<BytesRef, VersionValue> copy) {
+            final long stamp = lock.readLock();
+            try {
+                if (table == null) {
+                    return;
+                }
+                for (long slot = 0; slot < table.size(); slot++) {
+                    final long entry = table.get(slot);
+                    if (entry != 0) {
+                        final long id = (entry & ID_MASK) - 1;
+                        final BytesRef key = new BytesRef();
+                        keyBytes.get(values.get(id * STRIDE + KEY_OFFSET), (int) values.get(id * STRIDE + KEY_LENGTH), key);
+                        copy.put(BytesRef.deepCopyOf(key), read(values, id));
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void close() {
+            final long stamp = lock.writeLock();
+            try {
+                closed = true;
+                Releasables.close(table, values, keyBytes, freeIds);
+                table = null;
+                values = null;
+                keyBytes = null;
+                freeIds = null;
+                numEntries = 0;
+                ramBytesUsed = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Returns the id of a new entry for {@code uid}, reusing the id and if possible the key bytes of a removed entry.
+         */
+        private long newId(BytesRef uid) {
+            final long id;
+            if (numFreeIds > 0) {
+                id = freeIds.get(--numFreeIds);
+                final long reserved = values.get(id * STRIDE + KEY_LENGTH) >>> 32;
+                if (uid.length <= reserved) {
+                    keyBytes.set(values.get(id * STRIDE + KEY_OFFSET), uid.bytes, uid.offset, uid.length);
+                    values.set(id * STRIDE + KEY_LENGTH, (reserved << 32) | uid.length);
+                    return id;
+                }
+            } else {
+                id = numIds++;
+                values = bigArrays.grow(values, (id + 1) * STRIDE);
+            }
+            keyBytes = bigArrays.grow(keyBytes, numKeyBytes + uid.length);
+            keyBytes.set(numKeyBytes, uid.bytes, uid.offset, uid.length);
+            values.set(id * STRIDE + KEY_OFFSET, numKeyBytes);
+            values.set(id * STRIDE + KEY_LENGTH, ((long) uid.length << 32) | uid.length);
+            numKeyBytes += uid.length;
+            return id;
+        }
+
+        /**
+         * Empties {@code slot} and shifts back the entries of the probe sequence that follows it so that no lookup stops early at the
+         * emptied slot.
+         */
+        private void clearSlot(long slot) {
+            final long mask = table.size() - 1;
+            long hole = slot;
+            long next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                final long entry = table.get(next);
+                if (entry == 0) {
+                    break;
+                }
+                final long home = (entry >>> 32) & mask;
+                // the entry stays where it is if its home slot lies cyclically in (hole, next]
+                final boolean stays = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+                if (stays == false) {
+                    table.set(hole, entry);
+                    hole = next;
+                }
+            }
+            table.set(hole, 0L);
+        }
+
+        private void rehash() {
+            final LongArray newTable = bigArrays.newLongArray(table.size() << 1, true);
+            final long mask = newTable.size() - 1;
+            for (long slot = 0; slot < table.size(); slot++) {
+                final long entry = table.get(slot);
+                if (entry != 0) {
+                    long newSlot = (entry >>> 32) & mask;
+                    while (newTable.get(newSlot) != 0) {
+                        newSlot = (newSlot + 1) & mask;
+                    }
+                    newTable.set(newSlot, entry);
+                }
+            }
+            final LongArray oldTable = table;
+            table = newTable;
+            oldTable.close();
+        }
+
+        private void updateRamBytesUsed() {
+            ramBytesUsed = table.ramBytesUsed() + values.ramBytesUsed() + keyBytes.ramBytesUsed() + freeIds.ramBytesUsed();
+        }
+
+        private void write(long id, VersionValue value) {
+            final long offset = id * STRIDE;
+            long flags = 0;
+            values.set(offset + VERSION, value.version);
+            values.set(offset + SEQ_NO, value.seqNo);
+            values.set(offset + TERM, value.term);
+            if (value instanceof DeleteVersionValue delete) {
+                flags |= DELETE;
+                values.set(offset + GENERATION_OR_TIME, delete.time);
+            } else {
+                final Translog.Location location = value.getLocation();
+                if (location != null) {
+                    flags |= HAS_LOCATION | Integer.toUnsignedLong(location.size());
+                    values.set(offset + GENERATION_OR_TIME, location.generation());
+                    values.set(offset + TRANSLOG_LOCATION, location.translogLocation());
+                }
+            }
+            values.set(offset + FLAGS, flags);
+        }
+    }
+}
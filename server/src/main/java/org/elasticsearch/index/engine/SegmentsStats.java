@@ -15,6 +15,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.store.LuceneFilesExtensions;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -32,6 +33,9 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
     private long versionMapMemoryInBytes;
     private long maxUnsafeAutoIdTimestamp = Long.MIN_VALUE;
     private long bitsetMemoryInBytes;
+    private long storedFieldsUncompressedBytes;
+    private long storedFieldsCompressedBytes;
+    private long storedFieldsDecompressionTimeInNanos;
     private final Map<String, FileStats> files;
 
     public SegmentsStats() {
@@ -53,6 +57,11 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         versionMapMemoryInBytes = in.readLong();
         bitsetMemoryInBytes = in.readLong();
         maxUnsafeAutoIdTimestamp = in.readLong();
+        if (in.getTransportVersion().onOrAfter(TransportVersions.STORED_FIELDS_DICTIONARY_STATS)) {
+            storedFieldsUncompressedBytes = in.readVLong();
+            storedFieldsCompressedBytes = in.readVLong();
+            storedFieldsDecompressionTimeInNanos = in.readVLong();
+        }
         files = in.readMapValues(FileStats::new, FileStats::getExt);
     }
 
@@ -76,6 +85,16 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         this.bitsetMemoryInBytes += bitsetMemoryInBytes;
     }
 
+    /**
+     * Adds the stored fields of a segment that was compressed with a trained dictionary, see
+     * {@link org.elasticsearch.index.codec.zstd.Zstd814StoredFieldsFormat}.
+     */
+    public void addStoredFieldsCompression(long uncompressedBytes, long compressedBytes, long decompressionTimeInNanos) {
+        this.storedFieldsUncompressedBytes += uncompressedBytes;
+        this.storedFieldsCompressedBytes += compressedBytes;
+        this.storedFieldsDecompressionTimeInNanos += decompressionTimeInNanos;
+    }
+
     public void addFiles(Map<String, FileStats> newFiles) {
         newFiles.forEach((k, v) -> files.merge(k, v, FileStats::merge));
     }
@@ -89,6 +108,11 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         addIndexWriterMemoryInBytes(mergeStats.indexWriterMemoryInBytes);
         addVersionMapMemoryInBytes(mergeStats.versionMapMemoryInBytes);
         addBitsetMemoryInBytes(mergeStats.bitsetMemoryInBytes);
+        addStoredFieldsCompression(
+            mergeStats.storedFieldsUncompressedBytes,
+            mergeStats.storedFieldsCompressedBytes,
+            mergeStats.storedFieldsDecompressionTimeInNanos
+        );
         addFiles(mergeStats.files);
     }
 
@@ -132,6 +156,35 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         return ByteSizeValue.ofBytes(bitsetMemoryInBytes);
     }
 
+    /**
+     * The number of bytes of stored fields that were compressed with a trained dictionary, before compression.
+     */
+    public long getStoredFieldsUncompressedBytes() {
+        return storedFieldsUncompressedBytes;
+    }
+
+    /**
+     * The number of bytes of stored fields that were compressed with a trained dictionary, after compression.
+     */
+    public long getStoredFieldsCompressedBytes() {
+        return storedFieldsCompressedBytes;
+    }
+
+    /**
+     * The ratio between the uncompressed and the compressed size of stored fields that were compressed with a trained dictionary, or
+     * {@code 0} if no segment was compressed with a dictionary.
+     */
+    public double getStoredFieldsCompressionRatio() {
+        return storedFieldsCompressedBytes == 0 ? 0.0 : (double) storedFieldsUncompressedBytes / storedFieldsCompressedBytes;
+    }
+
+    /**
+     * The time spent decompressing blocks of stored fields that were compressed with a trained dictionary, in nanoseconds.
+     */
+    public long getStoredFieldsDecompressionTimeInNanos() {
+        return storedFieldsDecompressionTimeInNanos;
+    }
+
     /**
      * Returns a mapping of file extension to statistics about files of that type.
      *
@@ -164,6 +217,26 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.VERSION_MAP_MEMORY_IN_BYTES, Fields.VERSION_MAP_MEMORY, getVersionMapMemory());
         builder.humanReadableField(Fields.FIXED_BIT_SET_MEMORY_IN_BYTES, Fields.FIXED_BIT_SET, getBitsetMemory());
         builder.field(Fields.MAX_UNSAFE_AUTO_ID_TIMESTAMP, maxUnsafeAutoIdTimestamp);
+        if (storedFieldsUncompressedBytes > 0) {
+            builder.startObject(Fields.STORED_FIELDS_DICTIONARY);
+            builder.humanReadableField(
+                Fields.UNCOMPRESSED_SIZE_IN_BYTES,
+                Fields.UNCOMPRESSED_SIZE,
+                ByteSizeValue.ofBytes(storedFieldsUncompressedBytes)
+            );
+            builder.humanReadableField(
+                Fields.COMPRESSED_SIZE_IN_BYTES,
+                Fields.COMPRESSED_SIZE,
+                ByteSizeValue.ofBytes(storedFieldsCompressedBytes)
+            );
+            builder.field(Fields.COMPRESSION_RATIO, getStoredFieldsCompressionRatio());
+            builder.humanReadableField(
+                Fields.DECOMPRESSION_TIME_IN_MILLIS,
+                Fields.DECOMPRESSION_TIME,
+                TimeValue.timeValueNanos(storedFieldsDecompressionTimeInNanos)
+            );
+            builder.endObject();
+        }
         builder.startObject(Fields.FILE_SIZES);
         for (Map.Entry<String, FileStats> entry : files.entrySet()) {
             entry.getValue().toXContent(builder, params);
@@ -183,12 +256,25 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
             && versionMapMemoryInBytes == that.versionMapMemoryInBytes
             && maxUnsafeAutoIdTimestamp == that.maxUnsafeAutoIdTimestamp
             && bitsetMemoryInBytes == that.bitsetMemoryInBytes
+            && storedFieldsUncompressedBytes == that.storedFieldsUncompressedBytes
+            && storedFieldsCompressedBytes == that.storedFieldsCompressedBytes
+            && storedFieldsDecompressionTimeInNanos == that.storedFieldsDecompressionTimeInNanos
             && Objects.equals(files, that.files);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(count, indexWriterMemoryInBytes, versionMapMemoryInBytes, maxUnsafeAutoIdTimestamp, bitsetMemoryInBytes, files);
+        return Objects.hash(
+            count,
+            indexWriterMemoryInBytes,
+            versionMapMemoryInBytes,
+            maxUnsafeAutoIdTimestamp,
+            bitsetMemoryInBytes,
+            storedFieldsUncompressedBytes,
+            storedFieldsCompressedBytes,
+            storedFieldsDecompressionTimeInNanos,
+            files
+        );
     }
 
     static final class Fields {
@@ -216,6 +302,14 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         static final String FIXED_BIT_SET = "fixed_bit_set";
         static final String FIXED_BIT_SET_MEMORY_IN_BYTES = "fixed_bit_set_memory_in_bytes";
         static final String FILE_SIZES = "file_sizes";
+        static final String STORED_FIELDS_DICTIONARY = "stored_fields_dictionary";
+        static final String UNCOMPRESSED_SIZE = "uncompressed_size";
+        static final String UNCOMPRESSED_SIZE_IN_BYTES = "uncompressed_size_in_bytes";
+        static final String COMPRESSED_SIZE = "compressed_size";
+        static final String COMPRESSED_SIZE_IN_BYTES = "compressed_size_in_bytes";
+        static final String COMPRESSION_RATIO = "compression_ratio";
+        static final String DECOMPRESSION_TIME = "decompression_time";
+        static final String DECOMPRESSION_TIME_IN_MILLIS = "decompression_time_in_millis";
     }
 
     @Override
@@ -234,6 +328,11 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         out.writeLong(versionMapMemoryInBytes);
         out.writeLong(bitsetMemoryInBytes);
         out.writeLong(maxUnsafeAutoIdTimestamp);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.STORED_FIELDS_DICTIONARY_STATS)) {
+            out.writeVLong(storedFieldsUncompressedBytes);
+            out.writeVLong(storedFieldsCompressedBytes);
+            out.writeVLong(storedFieldsDecompressionTimeInNanos);
+        }
 
         out.writeCollection(files.values());
     }
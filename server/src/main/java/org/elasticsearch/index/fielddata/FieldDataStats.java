@@ -34,6 +34,7 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
     private static final String GLOBAL_ORDINALS = "global_ordinals";
     private static final String SHARD_MAX_VALUE_COUNT = "shard_max_value_count";
     private static final String BUILD_TIME = "build_time";
+    private static final String EAGER_BUILD_TIME = "eager_build_time";
     private long memorySize;
     private long evictions;
     @Nullable
@@ -56,7 +57,10 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
                     in1 -> new GlobalOrdinalsStats.GlobalOrdinalFieldStats(in1.readVLong(), in1.readVLong())
                 );
             }
-            globalOrdinalsStats = new GlobalOrdinalsStats(buildTimeMillis, fieldGlobalOrdinalsStats);
+            final long eagerBuildTimeMillis = in.getTransportVersion().onOrAfter(TransportVersions.GLOBAL_ORDINALS_EAGER_BUILD_TIME)
+                ? in.readVLong()
+                : 0;
+            globalOrdinalsStats = new GlobalOrdinalsStats(buildTimeMillis, eagerBuildTimeMillis, fieldGlobalOrdinalsStats);
         } else {
             globalOrdinalsStats = new GlobalOrdinalsStats(0, null);
         }
@@ -122,6 +126,9 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
             } else {
                 out.writeBoolean(false);
             }
+            if (out.getTransportVersion().onOrAfter(TransportVersions.GLOBAL_ORDINALS_EAGER_BUILD_TIME)) {
+                out.writeVLong(globalOrdinalsStats.eagerBuildTimeMillis);
+            }
         }
     }
 
@@ -135,6 +142,13 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         }
         builder.startObject(GLOBAL_ORDINALS);
         builder.humanReadableField(BUILD_TIME + "_in_millis", BUILD_TIME, new TimeValue(globalOrdinalsStats.buildTimeMillis));
+        if (globalOrdinalsStats.eagerBuildTimeMillis > 0) {
+            builder.humanReadableField(
+                EAGER_BUILD_TIME + "_in_millis",
+                EAGER_BUILD_TIME,
+                new TimeValue(globalOrdinalsStats.eagerBuildTimeMillis)
+            );
+        }
         if (globalOrdinalsStats.fieldGlobalOrdinalsStats != null) {
             builder.startObject(FIELDS);
             for (var entry : globalOrdinalsStats.fieldGlobalOrdinalsStats.entrySet()) {
@@ -176,11 +190,21 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
     public static class GlobalOrdinalsStats {
 
         private long buildTimeMillis;
+        private long eagerBuildTimeMillis;
         @Nullable
         private Map<String, GlobalOrdinalFieldStats> fieldGlobalOrdinalsStats;
 
         public GlobalOrdinalsStats(long buildTimeMillis, Map<String, GlobalOrdinalFieldStats> fieldGlobalOrdinalsStats) {
+            this(buildTimeMillis, 0, fieldGlobalOrdinalsStats);
+        }
+
+        public GlobalOrdinalsStats(
+            long buildTimeMillis,
+            long eagerBuildTimeMillis,
+            Map<String, GlobalOrdinalFieldStats> fieldGlobalOrdinalsStats
+        ) {
             this.buildTimeMillis = buildTimeMillis;
+            this.eagerBuildTimeMillis = eagerBuildTimeMillis;
             this.fieldGlobalOrdinalsStats = fieldGlobalOrdinalsStats;
         }
 
@@ -188,6 +212,14 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
             return buildTimeMillis;
         }
 
+        /**
+         * The time the index warmer spent loading the global ordinals of the fields that have {@code eager_global_ordinals} enabled after
+         * a refresh, including loading the segments of these fields, before the new reader was made visible to searches.
+         */
+        public long getEagerBuildTimeMillis() {
+            return eagerBuildTimeMillis;
+        }
+
         @Nullable
         public Map<String, GlobalOrdinalFieldStats> getFieldGlobalOrdinalsStats() {
             return fieldGlobalOrdinalsStats;
@@ -195,6 +227,7 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
 
         void add(GlobalOrdinalsStats other) {
             buildTimeMillis += other.buildTimeMillis;
+            eagerBuildTimeMillis += other.eagerBuildTimeMillis;
             if (fieldGlobalOrdinalsStats != null && other.fieldGlobalOrdinalsStats != null) {
                 for (var entry : other.fieldGlobalOrdinalsStats.entrySet()) {
                     fieldGlobalOrdinalsStats.merge(
@@ -216,12 +249,14 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             GlobalOrdinalsStats that = (GlobalOrdinalsStats) o;
-            return buildTimeMillis == that.buildTimeMillis && Objects.equals(fieldGlobalOrdinalsStats, that.fieldGlobalOrdinalsStats);
+            return buildTimeMillis == that.buildTimeMillis
+                && eagerBuildTimeMillis == that.eagerBuildTimeMillis
+                && Objects.equals(fieldGlobalOrdinalsStats, that.fieldGlobalOrdinalsStats);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(buildTimeMillis, fieldGlobalOrdinalsStats);
+            return Objects.hash(buildTimeMillis, eagerBuildTimeMillis, fieldGlobalOrdinalsStats);
         }
 
         public record GlobalOrdinalFieldStats(long totalBuildingTime, long valueCount) {}
@@ -29,6 +29,7 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
     private final CounterMetric totalMetric = new CounterMetric();
     private final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
     private final CounterMetric buildTime = new CounterMetric();
+    private final CounterMetric eagerBuildTime = new CounterMetric();
     private final ConcurrentMap<String, GlobalOrdinalFieldStats> perFieldGlobalOrdinalStats = ConcurrentCollections.newConcurrentMap();
 
     public FieldDataStats stats(String... fields) {
@@ -60,7 +61,7 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
             totalMetric.count(),
             evictionsMetric.count(),
             fieldTotals == null ? null : new FieldMemoryStats(fieldTotals),
-            new FieldDataStats.GlobalOrdinalsStats(buildTime.count(), fieldGlobalOrdinalsStats)
+            new FieldDataStats.GlobalOrdinalsStats(buildTime.count(), eagerBuildTime.count(), fieldGlobalOrdinalsStats)
         );
     }
 
@@ -95,6 +96,13 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
         });
     }
 
+    /**
+     * Records the time the index warmer spent loading the global ordinals of a field with {@code eager_global_ordinals} enabled.
+     */
+    public void onEagerGlobalOrdinalsLoaded(long tookInMillis) {
+        eagerBuildTime.inc(tookInMillis);
+    }
+
     @Override
     public void onRemoval(ShardId shardId, String fieldName, boolean wasEvicted, long sizeInBytes) {
         if (wasEvicted) {
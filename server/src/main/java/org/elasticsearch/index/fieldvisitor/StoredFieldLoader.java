@@ -136,12 +136,40 @@ public abstract class StoredFieldLoader {
         };
     }
 
+    // docs that are at most this many doc ids apart are likely stored in the same compressed block
+    private static final int SAME_BLOCK_MAX_DOC_DISTANCE = 32;
+
+    /**
+     * Picks the stored fields reader for the given sorted document set:
+     * <ul>
+     *     <li>contiguous documents are read with the sequential reader,</li>
+     *     <li>documents that are mostly close to each other are also read with the sequential reader, which decompresses each stored
+     *     fields block once and serves all the documents of the block from it, instead of decompressing the block again for every
+     *     document,</li>
+     *     <li>other documents are read with a regular reader.</li>
+     * </ul>
+     * The blocks of non-contiguous documents are prefetched so that directories that support it, such as the ones backed by the blob
+     * cache, can fetch them in parallel rather than one document at a time.
+     */
     private static CheckedBiConsumer<Integer, FieldsVisitor, IOException> reader(LeafReaderContext ctx, int[] docs) throws IOException {
         LeafReader leafReader = ctx.reader();
-        if (docs != null && docs.length > 10 && hasSequentialDocs(docs)) {
+        if (docs == null) {
+            return leafReader.storedFields()::document;
+        }
+        if (docs.length > 10 && hasSequentialDocs(docs)) {
             return sequentialReader(ctx);
         }
-        StoredFields storedFields = leafReader.storedFields();
+        final StoredFields storedFields;
+        if (leafReader instanceof SequentialStoredFieldsLeafReader lf && hasClusteredDocs(docs)) {
+            storedFields = lf.getSequentialStoredFieldsReader();
+        } else {
+            storedFields = leafReader.storedFields();
+        }
+        if (docs.length > 1) {
+            for (int doc : docs) {
+                storedFields.prefetch(doc);
+            }
+        }
         return storedFields::document;
     }
 
@@ -168,6 +196,19 @@ public abstract class StoredFieldLoader {
         return docs.length > 0 && docs[docs.length - 1] - docs[0] == docs.length - 1;
     }
 
+    /**
+     * Returns whether at least half of the given sorted docs are close enough to the previous doc to likely share its stored fields block.
+     */
+    static boolean hasClusteredDocs(int[] docs) {
+        int clustered = 0;
+        for (int i = 1; i < docs.length; i++) {
+            if (docs[i] - docs[i - 1] <= SAME_BLOCK_MAX_DOC_DISTANCE) {
+                clustered++;
+            }
+        }
+        return docs.length > 1 && clustered * 2 >= docs.length;
+    }
+
     private static class EmptyStoredFieldLoader implements LeafStoredFieldLoader {
 
         @Override
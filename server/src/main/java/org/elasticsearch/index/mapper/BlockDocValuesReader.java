@@ -16,8 +16,11 @@ import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.io.stream.ByteArrayStreamInput;
+import org.elasticsearch.index.codec.tsdb.BulkNumericDocValues;
+import org.elasticsearch.index.codec.tsdb.BulkSortedDocValues;
 import org.elasticsearch.index.mapper.BlockLoader.BlockFactory;
 import org.elasticsearch.index.mapper.BlockLoader.BooleanBuilder;
 import org.elasticsearch.index.mapper.BlockLoader.Builder;
@@ -53,6 +56,26 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
     @Override
     public abstract String toString();
 
+    /**
+     * Checks if {@code docs} is a run of consecutive documents that doc values positioned on {@code docID} can copy in bulk with
+     * {@link BulkNumericDocValues#longValues} or {@link BulkSortedDocValues#ordValues}.
+     */
+    static boolean isDenseRange(int docID, Docs docs) {
+        if (docs.count() == 0) {
+            return false;
+        }
+        int firstDoc = docs.get(0);
+        if (firstDoc < docID) {
+            return false;
+        }
+        for (int i = 1; i < docs.count(); i++) {
+            if (docs.get(i) != firstDoc + i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public abstract static class DocValuesBlockLoader implements BlockLoader {
         public abstract AllReader reader(LeafReaderContext context) throws IOException;
 
@@ -114,6 +137,7 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
 
     private static class SingletonLongs extends BlockDocValuesReader {
         private final NumericDocValues numericDocValues;
+        private long[] scratch = new long[0];
 
         SingletonLongs(NumericDocValues numericDocValues) {
             this.numericDocValues = numericDocValues;
@@ -121,6 +145,11 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
 
         @Override
         public BlockLoader.Block read(BlockFactory factory, Docs docs) throws IOException {
+            if (numericDocValues instanceof BulkNumericDocValues bulk && isDenseRange(bulk.docID(), docs)) {
+                scratch = ArrayUtil.grow(scratch, docs.count());
+                bulk.longValues(docs.get(0), docs.count(), scratch, 0);
+                return factory.denseLongs(scratch, docs.count());
+            }
             try (BlockLoader.LongBuilder builder = factory.longsFromDocValues(docs.count())) {
                 int lastDoc = -1;
                 for (int i = 0; i < docs.count(); i++) {
@@ -249,6 +278,7 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
 
     private static class SingletonInts extends BlockDocValuesReader {
         private final NumericDocValues numericDocValues;
+        private long[] scratch = new long[0];
 
         SingletonInts(NumericDocValues numericDocValues) {
             this.numericDocValues = numericDocValues;
@@ -257,6 +287,14 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
         @Override
         public BlockLoader.Block read(BlockFactory factory, Docs docs) throws IOException {
             try (BlockLoader.IntBuilder builder = factory.intsFromDocValues(docs.count())) {
+                if (numericDocValues instanceof BulkNumericDocValues bulk && isDenseRange(bulk.docID(), docs)) {
+                    scratch = ArrayUtil.grow(scratch, docs.count());
+                    bulk.longValues(docs.get(0), docs.count(), scratch, 0);
+                    for (int i = 0; i < docs.count(); i++) {
+                        builder.appendInt(Math.toIntExact(scratch[i]));
+                    }
+                    return builder.build();
+                }
                 int lastDoc = -1;
                 for (int i = 0; i < docs.count(); i++) {
                     int doc = docs.get(i);
@@ -397,6 +435,7 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
         private final NumericDocValues docValues;
         private final ToDouble toDouble;
         private int docID = -1;
+        private long[] scratch = new long[0];
 
         SingletonDoubles(NumericDocValues docValues, ToDouble toDouble) {
             this.docValues = docValues;
@@ -406,6 +445,15 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
         @Override
         public BlockLoader.Block read(BlockFactory factory, Docs docs) throws IOException {
             try (BlockLoader.DoubleBuilder builder = factory.doublesFromDocValues(docs.count())) {
+                if (docValues instanceof BulkNumericDocValues bulk && isDenseRange(bulk.docID(), docs)) {
+                    scratch = ArrayUtil.grow(scratch, docs.count());
+                    bulk.longValues(docs.get(0), docs.count(), scratch, 0);
+                    for (int i = 0; i < docs.count(); i++) {
+                        builder.appendDouble(toDouble.convert(scratch[i]));
+                    }
+                    this.docID = docs.get(docs.count() - 1);
+                    return builder.build();
+                }
                 int lastDoc = -1;
                 for (int i = 0; i < docs.count(); i++) {
                     int doc = docs.get(i);
@@ -551,6 +599,7 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
 
     private static class SingletonOrdinals extends BlockDocValuesReader {
         private final SortedDocValues ordinals;
+        private long[] scratch = new long[0];
 
         SingletonOrdinals(SortedDocValues ordinals) {
             this.ordinals = ordinals;
@@ -571,6 +620,9 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
             if (docs.count() == 1) {
                 return readSingleDoc(factory, docs.get(0));
             }
+            if (ordinals instanceof BulkSortedDocValues bulk && isDenseRange(bulk.docID(), docs)) {
+                return readDenseRange(factory, bulk, docs);
+            }
             try (BlockLoader.SingletonOrdinalsBuilder builder = factory.singletonOrdinalsBuilder(ordinals, docs.count())) {
                 for (int i = 0; i < docs.count(); i++) {
                     int doc = docs.get(i);
@@ -587,6 +639,26 @@ public abstract class BlockDocValuesReader implements BlockLoader.AllReader {
             }
         }
 
+        private BlockLoader.Block readDenseRange(BlockFactory factory, BulkSortedDocValues bulk, Docs docs) throws IOException {
+            scratch = ArrayUtil.grow(scratch, docs.count());
+            bulk.ordValues(docs.get(0), docs.count(), scratch, 0);
+            int firstOrd = (int) scratch[0];
+            int i = 1;
+            while (i < docs.count() && scratch[i] == firstOrd) {
+                i++;
+            }
+            if (i == docs.count()) {
+                // the whole range is a single run of the same ordinal
+                return factory.constantBytes(BytesRef.deepCopyOf(bulk.lookupOrd(firstOrd)));
+            }
+            try (BlockLoader.SingletonOrdinalsBuilder builder = factory.singletonOrdinalsBuilder(bulk, docs.count())) {
+                for (i = 0; i < docs.count(); i++) {
+                    builder.appendOrd((int) scratch[i]);
+                }
+                return builder.build();
+            }
+        }
+
         @Override
         public void read(int docId, BlockLoader.StoredFields storedFields, Builder builder) throws IOException {
             if (ordinals.advanceExact(docId)) {
@@ -395,6 +395,13 @@ public interface BlockLoader {
          */
         LongBuilder longs(int expectedCount);
 
+        /**
+         * Build a block of longs from {@code count} values that were loaded
+         * from doc values in bulk, none of them {@code null}. The values are
+         * copied so the caller may reuse {@code values} for the next block.
+         */
+        Block denseLongs(long[] values, int count);
+
         /**
          * Build a builder to load only {@code null}s.
          */
@@ -11,10 +11,13 @@ package org.elasticsearch.index.query;
 
 import org.elasticsearch.client.internal.Client;
 import org.elasticsearch.cluster.ProjectState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.CanMatchFieldRangeCache;
 import org.elasticsearch.indices.DateFieldRangeInfo;
 import org.elasticsearch.xcontent.XContentParserConfiguration;
 
@@ -28,6 +31,8 @@ public class CoordinatorRewriteContextProvider {
     private final LongSupplier nowInMillis;
     private final Supplier<ProjectState> projectStateSupplier;
     private final Function<Index, DateFieldRangeInfo> mappingSupplier;
+    @Nullable
+    private final CanMatchFieldRangeCache fieldRangeCache;
 
     public CoordinatorRewriteContextProvider(
         XContentParserConfiguration parserConfig,
@@ -35,12 +40,51 @@ public class CoordinatorRewriteContextProvider {
         LongSupplier nowInMillis,
         Supplier<ProjectState> projectStateSupplier,
         Function<Index, DateFieldRangeInfo> mappingSupplier
+    ) {
+        this(parserConfig, client, nowInMillis, projectStateSupplier, mappingSupplier, null);
+    }
+
+    public CoordinatorRewriteContextProvider(
+        XContentParserConfiguration parserConfig,
+        Client client,
+        LongSupplier nowInMillis,
+        Supplier<ProjectState> projectStateSupplier,
+        Function<Index, DateFieldRangeInfo> mappingSupplier,
+        @Nullable CanMatchFieldRangeCache fieldRangeCache
     ) {
         this.parserConfig = parserConfig;
         this.client = client;
         this.nowInMillis = nowInMillis;
         this.projectStateSupplier = projectStateSupplier;
         this.mappingSupplier = mappingSupplier;
+        this.fieldRangeCache = fieldRangeCache;
+    }
+
+    /**
+     * Returns a context to rewrite the query of the given shard. The ranges that the shard reported with its last can_match response
+     * are used if they are still valid, and the ranges of the whole index from the cluster state otherwise.
+     */
+    @Nullable
+    public CoordinatorRewriteContext getCoordinatorRewriteContext(ShardId shardId) {
+        if (fieldRangeCache != null) {
+            final IndexMetadata indexMetadata = projectStateSupplier.get().metadata().index(shardId.getIndex());
+            if (indexMetadata != null) {
+                final DateFieldRangeInfo shardRanges = fieldRangeCache.get(shardId, indexMetadata);
+                if (shardRanges != null) {
+                    return new CoordinatorRewriteContext(parserConfig, client, nowInMillis, shardRanges, getTier(indexMetadata));
+                }
+            }
+        }
+        return getCoordinatorRewriteContext(shardId.getIndex());
+    }
+
+    /**
+     * Caches the ranges that a shard reported with its can_match response so that the next searches can skip it on the coordinator.
+     */
+    public void onShardFieldRanges(ShardId shardId, CanMatchFieldRangeCache.ShardRanges fieldRanges) {
+        if (fieldRangeCache != null) {
+            fieldRangeCache.put(shardId, fieldRanges);
+        }
     }
 
     @Nullable
@@ -83,7 +127,11 @@ public class CoordinatorRewriteContextProvider {
                     dateFieldRangeInfo.eventIngestedFieldType(),
                     eventIngestedRange
                 ),
-            indexMetadata.getTierPreference().isEmpty() == false ? indexMetadata.getTierPreference().getFirst() : ""
+            getTier(indexMetadata)
         );
     }
+
+    private static String getTier(IndexMetadata indexMetadata) {
+        return indexMetadata.getTierPreference().isEmpty() == false ? indexMetadata.getTierPreference().getFirst() : "";
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.core.TimeValue;
+
+/**
+ * Decides how often a shard in {@link org.elasticsearch.index.IndexSettings.RefreshMode#ADAPTIVE} refresh mode refreshes. The index
+ * level refresh task asks the policy on every tick whether the shard should refresh, and the policy answers based on how long ago the
+ * shard last refreshed compared to its current target interval:
+ * <ul>
+ *     <li>the target interval starts at the maximum interval and shrinks as the search rate of the shard grows, so that frequently
+ *     searched shards stay fresh while shards that are rarely searched stop creating tiny segments,</li>
+ *     <li>every running merge lengthens the interval since refreshing while merges lag behind only adds to the merge backlog,</li>
+ *     <li>the interval shrinks as the node wide indexing buffer fills up so that the buffer is moved to disk before
+ *     {@link org.elasticsearch.indices.IndexingMemoryController} has to throttle indexing,</li>
+ *     <li>refresh listeners are never kept waiting, the shard refreshes on the next tick without consulting the policy.</li>
+ * </ul>
+ * The target interval is bounded by the minimum and maximum intervals of the index.
+ */
+final class AdaptiveRefreshPolicy {
+
+    // the weight of the latest search rate sample, high enough that a shard that starts being searched becomes fresh within a few ticks
+    static final double SEARCH_RATE_ALPHA = 0.3;
+    // how much longer the interval becomes for every running merge
+    static final double MERGE_BACKLOG_FACTOR = 0.5;
+
+    private final ExponentiallyWeightedMovingAverage searchRate = new ExponentiallyWeightedMovingAverage(SEARCH_RATE_ALPHA, 0.0);
+    private volatile double indexingBufferPressure;
+    private long lastQueryCount = -1;
+    private long lastSampleMillis;
+    private long lastRefreshMillis;
+
+    AdaptiveRefreshPolicy(long nowInMillis) {
+        this.lastSampleMillis = nowInMillis;
+        this.lastRefreshMillis = nowInMillis;
+    }
+
+    /**
+     * Sets the share of the node wide indexing buffer that is used, as a number between {@code 0} and {@code 1}.
+     */
+    void setIndexingBufferPressure(double indexingBufferPressure) {
+        this.indexingBufferPressure = Math.max(0.0, Math.min(1.0, indexingBufferPressure));
+    }
+
+    double getIndexingBufferPressure() {
+        return indexingBufferPressure;
+    }
+
+    /**
+     * Returns the smoothed number of queries per second that the shard executed.
+     */
+    double getSearchRate() {
+        return searchRate.getAverage();
+    }
+
+    /**
+     * Records the number of queries that the shard executed so far. The difference with the previous sample feeds the search rate.
+     */
+    synchronized void sampleSearches(long nowInMillis, long queryCount) {
+        if (lastQueryCount >= 0 && nowInMillis > lastSampleMillis && queryCount >= lastQueryCount) {
+            searchRate.addValue((queryCount - lastQueryCount) * 1000.0 / (nowInMillis - lastSampleMillis));
+        }
+        lastQueryCount = queryCount;
+        lastSampleMillis = nowInMillis;
+    }
+
+    /**
+     * Returns the interval that the shard should currently refresh at.
+     */
+    TimeValue targetInterval(TimeValue minInterval, TimeValue maxInterval, long currentMerges) {
+        final double maxSeconds = maxInterval.millis() / 1000.0;
+        // close to the time between two queries once the shard is searched more than once per max interval
+        double intervalMillis = maxInterval.millis() / (1.0 + getSearchRate() * maxSeconds);
+        intervalMillis *= 1.0 + MERGE_BACKLOG_FACTOR * currentMerges;
+        intervalMillis *= 1.0 - indexingBufferPressure;
+        return TimeValue.timeValueMillis(Math.max(minInterval.millis(), Math.min(maxInterval.millis(), (long) intervalMillis)));
+    }
+
+    /**
+     * Returns whether the shard should refresh now, given the last time it refreshed.
+     */
+    synchronized boolean shouldRefresh(long nowInMillis, TimeValue minInterval, TimeValue maxInterval, long currentMerges) {
+        return nowInMillis - lastRefreshMillis >= targetInterval(minInterval, maxInterval, currentMerges).millis();
+    }
+
+    /**
+     * Records that the shard refreshed.
+     */
+    synchronized void onRefresh(long nowInMillis) {
+        lastRefreshMillis = nowInMillis;
+    }
+}
@@ -46,6 +46,7 @@ import org.elasticsearch.cluster.routing.RecoverySource.SnapshotRecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.io.DiskIoBufferPool;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
@@ -134,6 +135,7 @@ import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
@@ -290,6 +292,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final RefreshListeners refreshListeners;
 
     private final AtomicLong lastSearcherAccess = new AtomicLong();
+    private final AdaptiveRefreshPolicy adaptiveRefreshPolicy;
     private final AtomicReference<Translog.Location> pendingRefreshLocation = new AtomicReference<>();
     private final RefreshPendingLocationListener refreshPendingLocationListener;
     private final RefreshFieldHasValueListener refreshFieldHasValueListener;
@@ -326,7 +329,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
         final LongSupplier relativeTimeInNanosSupplier,
         final Engine.IndexCommitListener indexCommitListener,
-        final MapperMetrics mapperMetrics
+        final MapperMetrics mapperMetrics,
+        @Nullable final TranslogSyncCoordinator translogSyncCoordinator
     ) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
@@ -369,7 +373,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         logger.debug("state: [CREATED]");
 
         this.checkIndexOnStartup = indexSettings.getValue(IndexSettings.INDEX_CHECK_ON_STARTUP);
-        this.translogConfig = new TranslogConfig(shardId, shardPath().resolveTranslog(), indexSettings, bigArrays);
+        this.translogConfig = new TranslogConfig(
+            shardId,
+            shardPath().resolveTranslog(),
+            indexSettings,
+            bigArrays,
+            TranslogConfig.DEFAULT_BUFFER_SIZE,
+            DiskIoBufferPool.INSTANCE,
+            TranslogConfig.NOOP_OPERATION_LISTENER,
+            true,
+            translogSyncCoordinator == null ? null : translogSyncCoordinator.group(path.getRootDataPath())
+        );
         final String aId = shardRouting.allocationId().getId();
         final long primaryTerm = indexSettings.getIndexMetadata().primaryTerm(shardId.id());
         this.pendingPrimaryTerm = primaryTerm;
@@ -407,6 +421,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             externalRefreshMetric
         );
         lastSearcherAccess.set(threadPool.relativeTimeInMillis());
+        this.adaptiveRefreshPolicy = new AdaptiveRefreshPolicy(threadPool.relativeTimeInMillis());
         persistMetadata(path, indexSettings, shardRouting, null, logger);
         this.useRetentionLeasesInPeerRecovery = replicationTracker.hasAllPeerRecoveryRetentionLeases();
         this.refreshPendingLocationListener = new RefreshPendingLocationListener();
@@ -1365,7 +1380,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             throttled,
             throttleTimeInMillis,
             indexingTimeBeforeShardStartedInNanos,
-            getRelativeTimeInNanos() - startedRelativeTimeInNanos
+            getRelativeTimeInNanos() - startedRelativeTimeInNanos,
+            getIndexBufferRAMBytesUsed()
         );
     }
 
@@ -2728,6 +2744,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         }
     }
 
+    /**
+     * Records the time that an indexing thread spent writing the indexing buffer of this shard to disk, see {@link IndexingStats}.
+     */
+    public void addIndexingBufferStallTime(long stallTimeInNanos) {
+        internalIndexingStats.indexBufferStall(stallTimeInNanos);
+    }
+
     /**
      * Notifies the service to update the local checkpoint for the shard with the provided allocation ID. See
      * {@link ReplicationTracker#updateLocalCheckpoint(String, long)} for
@@ -4021,6 +4044,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             verifyNotClosed();
             boolean listenerNeedsRefresh = refreshListeners.refreshNeeded();
             final Engine engine = getEngine();
+            final boolean adaptive = indexSettings.getRefreshMode() == IndexSettings.RefreshMode.ADAPTIVE;
+            if (adaptive) {
+                adaptiveRefreshPolicy.sampleSearches(threadPool.relativeTimeInMillis(), searchStats.stats().getTotal().getQueryCount());
+            }
             if (isReadAllowed() && (listenerNeedsRefresh || engine.refreshNeeded())) {
                 if (listenerNeedsRefresh == false // if we have a listener that is waiting for a refresh we need to force it
                     && engine.allowSearchIdleOptimization()
@@ -4034,8 +4061,21 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     engine.maybePruneDeletes(); // try to prune the deletes in the engine if we accumulated some
                     setRefreshPending(engine);
                     l.onResponse(false);
+                } else if (listenerNeedsRefresh == false
+                    && adaptive
+                    && adaptiveRefreshPolicy.shouldRefresh(
+                        threadPool.relativeTimeInMillis(),
+                        indexSettings.getAdaptiveRefreshMinInterval(),
+                        indexSettings.getAdaptiveRefreshMaxInterval(),
+                        engine.getMergeStats().getCurrent()
+                    ) == false) {
+                    // the shard is not searched often enough to be worth a refresh yet, changes become visible on a later tick
+                    logger.trace("scheduledRefresh: adaptive refresh interval not reached, skipping refresh");
+                    engine.maybePruneDeletes(); // try to prune the deletes in the engine if we accumulated some
+                    l.onResponse(false);
                 } else {
                     logger.trace("scheduledRefresh: refresh with source [schedule]");
+                    adaptiveRefreshPolicy.onRefresh(threadPool.relativeTimeInMillis());
                     engine.maybeRefresh("schedule", l.map(Engine.RefreshResult::refreshed));
                 }
                 return;
@@ -4046,6 +4086,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         });
     }
 
+    /**
+     * Sets the share of the node wide indexing buffer that is in use, which makes shards in
+     * {@link IndexSettings.RefreshMode#ADAPTIVE} refresh mode refresh more often as the buffer fills up.
+     */
+    public void setIndexingBufferPressure(double indexingBufferPressure) {
+        adaptiveRefreshPolicy.setIndexingBufferPressure(indexingBufferPressure);
+    }
+
     /**
      * Returns true if this shards is search idle
      */
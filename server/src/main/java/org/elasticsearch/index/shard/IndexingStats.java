@@ -14,6 +14,7 @@ import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.xcontent.ToXContent;
@@ -43,6 +44,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         private boolean isThrottled;
         private long totalIndexingTimeSinceShardStartedInNanos;
         private long totalActiveTimeInNanos;
+        private long indexBufferBytesUsed;
+        private long indexBufferStallTimeInMillis;
 
         Stats() {}
 
@@ -64,6 +67,10 @@ public class IndexingStats implements Writeable, ToXContentFragment {
                 totalIndexingTimeSinceShardStartedInNanos = in.readLong();
                 totalActiveTimeInNanos = in.readLong();
             }
+            if (in.getTransportVersion().onOrAfter(TransportVersions.INDEXING_BUFFER_STATS)) {
+                indexBufferBytesUsed = in.readVLong();
+                indexBufferStallTimeInMillis = in.readVLong();
+            }
         }
 
         public Stats(
@@ -80,6 +87,42 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             long throttleTimeInMillis,
             long totalIndexingTimeSinceShardStartedInNanos,
             long totalActiveTimeInNanos
+        ) {
+            this(
+                indexCount,
+                indexTimeInMillis,
+                indexCurrent,
+                indexFailedCount,
+                indexFailedDueToVersionConflictCount,
+                deleteCount,
+                deleteTimeInMillis,
+                deleteCurrent,
+                noopUpdateCount,
+                isThrottled,
+                throttleTimeInMillis,
+                totalIndexingTimeSinceShardStartedInNanos,
+                totalActiveTimeInNanos,
+                0,
+                0
+            );
+        }
+
+        public Stats(
+            long indexCount,
+            long indexTimeInMillis,
+            long indexCurrent,
+            long indexFailedCount,
+            long indexFailedDueToVersionConflictCount,
+            long deleteCount,
+            long deleteTimeInMillis,
+            long deleteCurrent,
+            long noopUpdateCount,
+            boolean isThrottled,
+            long throttleTimeInMillis,
+            long totalIndexingTimeSinceShardStartedInNanos,
+            long totalActiveTimeInNanos,
+            long indexBufferBytesUsed,
+            long indexBufferStallTimeInMillis
         ) {
             this.indexCount = indexCount;
             this.indexTimeInMillis = indexTimeInMillis;
@@ -95,6 +138,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             // We store the raw write-load values in order to avoid losing precision when we combine the shard stats
             this.totalIndexingTimeSinceShardStartedInNanos = totalIndexingTimeSinceShardStartedInNanos;
             this.totalActiveTimeInNanos = totalActiveTimeInNanos;
+            this.indexBufferBytesUsed = indexBufferBytesUsed;
+            this.indexBufferStallTimeInMillis = indexBufferStallTimeInMillis;
         }
 
         public void add(Stats stats) {
@@ -115,6 +160,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             }
             totalIndexingTimeSinceShardStartedInNanos += stats.totalIndexingTimeSinceShardStartedInNanos;
             totalActiveTimeInNanos += stats.totalActiveTimeInNanos;
+            indexBufferBytesUsed += stats.indexBufferBytesUsed;
+            indexBufferStallTimeInMillis += stats.indexBufferStallTimeInMillis;
         }
 
         /**
@@ -199,6 +246,21 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             return TimeUnit.NANOSECONDS.toMillis(totalActiveTimeInNanos);
         }
 
+        /**
+         * Returns the number of heap bytes that the indexing buffer currently uses.
+         */
+        public ByteSizeValue getIndexBufferSize() {
+            return ByteSizeValue.ofBytes(indexBufferBytesUsed);
+        }
+
+        /**
+         * Returns the time that indexing threads spent writing the indexing buffer to disk because it used too much heap, during which
+         * they could not index documents.
+         */
+        public TimeValue getIndexBufferStallTime() {
+            return new TimeValue(indexBufferStallTimeInMillis);
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             out.writeVLong(indexCount);
@@ -218,6 +280,10 @@ public class IndexingStats implements Writeable, ToXContentFragment {
                 out.writeLong(totalIndexingTimeSinceShardStartedInNanos);
                 out.writeLong(totalActiveTimeInNanos);
             }
+            if (out.getTransportVersion().onOrAfter(TransportVersions.INDEXING_BUFFER_STATS)) {
+                out.writeVLong(indexBufferBytesUsed);
+                out.writeVLong(indexBufferStallTimeInMillis);
+            }
         }
 
         @Override
@@ -238,6 +304,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             builder.humanReadableField(Fields.THROTTLED_TIME_IN_MILLIS, Fields.THROTTLED_TIME, getThrottleTime());
 
             builder.field(Fields.WRITE_LOAD, getWriteLoad());
+
+            builder.humanReadableField(Fields.INDEX_BUFFER_SIZE_IN_BYTES, Fields.INDEX_BUFFER_SIZE, getIndexBufferSize());
+            builder.humanReadableField(Fields.INDEX_BUFFER_STALL_TIME_IN_MILLIS, Fields.INDEX_BUFFER_STALL_TIME, getIndexBufferStallTime());
             return builder;
         }
 
@@ -258,7 +327,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
                 && isThrottled == that.isThrottled
                 && throttleTimeInMillis == that.throttleTimeInMillis
                 && totalIndexingTimeSinceShardStartedInNanos == that.totalIndexingTimeSinceShardStartedInNanos
-                && totalActiveTimeInNanos == that.totalActiveTimeInNanos;
+                && totalActiveTimeInNanos == that.totalActiveTimeInNanos
+                && indexBufferBytesUsed == that.indexBufferBytesUsed
+                && indexBufferStallTimeInMillis == that.indexBufferStallTimeInMillis;
         }
 
         @Override
@@ -276,7 +347,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
                 isThrottled,
                 throttleTimeInMillis,
                 totalIndexingTimeSinceShardStartedInNanos,
-                totalActiveTimeInNanos
+                totalActiveTimeInNanos,
+                indexBufferBytesUsed,
+                indexBufferStallTimeInMillis
             );
         }
     }
@@ -358,6 +431,10 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         static final String THROTTLED_TIME_IN_MILLIS = "throttle_time_in_millis";
         static final String THROTTLED_TIME = "throttle_time";
         static final String WRITE_LOAD = "write_load";
+        static final String INDEX_BUFFER_SIZE = "index_buffer_size";
+        static final String INDEX_BUFFER_SIZE_IN_BYTES = "index_buffer_size_in_bytes";
+        static final String INDEX_BUFFER_STALL_TIME = "index_buffer_stall_time";
+        static final String INDEX_BUFFER_STALL_TIME_IN_MILLIS = "index_buffer_stall_time_in_millis";
     }
 
     @Override
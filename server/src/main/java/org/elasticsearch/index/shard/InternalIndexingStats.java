@@ -34,13 +34,15 @@ final class InternalIndexingStats implements IndexingOperationListener {
         boolean isThrottled,
         long currentThrottleInMillis,
         long indexingTimeBeforeShardStartedInNanos,
-        long timeSinceShardStartedInNanos
+        long timeSinceShardStartedInNanos,
+        long indexBufferBytesUsed
     ) {
         IndexingStats.Stats total = totalStats.stats(
             isThrottled,
             currentThrottleInMillis,
             indexingTimeBeforeShardStartedInNanos,
-            timeSinceShardStartedInNanos
+            timeSinceShardStartedInNanos,
+            indexBufferBytesUsed
         );
         return new IndexingStats(total);
     }
@@ -124,6 +126,10 @@ final class InternalIndexingStats implements IndexingOperationListener {
         totalStats.noopUpdates.inc();
     }
 
+    void indexBufferStall(long stallTimeInNanos) {
+        totalStats.indexBufferStallTime.inc(stallTimeInNanos);
+    }
+
     static class StatsHolder {
         private final MeanMetric indexMetric = new MeanMetric();
         private final MeanMetric deleteMetric = new MeanMetric();
@@ -132,12 +138,14 @@ final class InternalIndexingStats implements IndexingOperationListener {
         private final CounterMetric indexFailedDueToVersionConflicts = new CounterMetric();
         private final CounterMetric deleteCurrent = new CounterMetric();
         private final CounterMetric noopUpdates = new CounterMetric();
+        private final CounterMetric indexBufferStallTime = new CounterMetric();
 
         IndexingStats.Stats stats(
             boolean isThrottled,
             long currentThrottleMillis,
             long indexingTimeBeforeShardStartedInNanos,
-            long timeSinceShardStartedInNanos
+            long timeSinceShardStartedInNanos,
+            long indexBufferBytesUsed
         ) {
             final long totalIndexingTimeInNanos = indexMetric.sum();
             final long totalIndexingTimeSinceShardStartedInNanos = totalIndexingTimeInNanos - indexingTimeBeforeShardStartedInNanos;
@@ -154,7 +162,9 @@ final class InternalIndexingStats implements IndexingOperationListener {
                 isThrottled,
                 TimeUnit.MILLISECONDS.toMillis(currentThrottleMillis),
                 totalIndexingTimeSinceShardStartedInNanos,
-                timeSinceShardStartedInNanos
+                timeSinceShardStartedInNanos,
+                indexBufferBytesUsed,
+                TimeUnit.NANOSECONDS.toMillis(indexBufferStallTime.count())
             );
         }
     }
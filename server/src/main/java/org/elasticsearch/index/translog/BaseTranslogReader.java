@@ -108,7 +108,10 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
     }
 
     protected Translog.Operation read(BufferedChecksumStreamInput inStream) throws IOException {
-        final Translog.Operation op = Translog.readOperation(inStream);
+        return ensureValidPrimaryTerm(Translog.readOperation(inStream));
+    }
+
+    protected final Translog.Operation ensureValidPrimaryTerm(Translog.Operation op) throws TranslogCorruptedException {
         if (op.primaryTerm() > getPrimaryTerm() && getPrimaryTerm() != SequenceNumbers.UNASSIGNED_PRIMARY_TERM) {
             throw new TranslogCorruptedException(
                 path.toString(),
@@ -21,10 +21,12 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.TranslogOperationAsserter;
@@ -52,6 +54,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -125,6 +128,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
     private final LongConsumer persistedSequenceNumberConsumer;
     private final OperationListener operationListener;
     private final TranslogOperationAsserter operationAsserter;
+    private final MeanMetric groupSyncBatchSize = new MeanMetric();
+    private final MeanMetric groupSyncTime = new MeanMetric();
 
     /**
      * Creates a new Translog instance. This method will create a new transaction log unless the given {@link TranslogGeneration} is
@@ -709,14 +714,30 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
      * @return the new snapshot
      */
     public Snapshot newSnapshot(long fromSeqNo, long toSeqNo) throws IOException {
+        return newSnapshot(fromSeqNo, toSeqNo, false);
+    }
+
+    /**
+     * Creates a new translog snapshot containing operations from the given range, optionally reading the translog files through
+     * memory mapping. Memory mapping avoids copying every operation into a heap buffer and is meant for replaying large parts of the
+     * translog, e.g. during recovery. It is only used if {@link IndexModule#NODE_STORE_ALLOW_MMAP} allows it.
+     *
+     * @param fromSeqNo    the lower bound of the range (inclusive)
+     * @param toSeqNo      the upper bound of the range (inclusive)
+     * @param memoryMapped whether to read the translog files through memory mapping
+     * @return the new snapshot
+     */
+    public Snapshot newSnapshot(long fromSeqNo, long toSeqNo, boolean memoryMapped) throws IOException {
         assert fromSeqNo <= toSeqNo : fromSeqNo + " > " + toSeqNo;
         assert fromSeqNo >= 0 : "from_seq_no must be non-negative " + fromSeqNo;
+        final boolean mmap = memoryMapped && IndexModule.NODE_STORE_ALLOW_MMAP.get(indexSettings.getNodeSettings());
         readLock.lock();
         try {
             ensureOpen();
             TranslogSnapshot[] snapshots = Stream.concat(readers.stream(), Stream.of(current))
                 .filter(reader -> reader.getCheckpoint().minSeqNo <= toSeqNo && fromSeqNo <= reader.getCheckpoint().maxEffectiveSeqNo())
                 .map(BaseTranslogReader::newSnapshot)
+                .map(snapshot -> mmap ? snapshot.memoryMapped() : snapshot)
                 .toArray(TranslogSnapshot[]::new);
             final Snapshot snapshot = newMultiSnapshot(snapshots);
             return new SeqNoFilterSnapshot(snapshot, fromSeqNo, toSeqNo);
@@ -919,6 +940,15 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         return false;
     }
 
+    /**
+     * Records that this translog was synced by a {@link TranslogSyncCoordinator} as part of a batch of the given size, and that the
+     * oldest request of this translog in that batch waited the given time for the sync to complete.
+     */
+    void onGroupSync(int batchSize, long tookInNanos) {
+        groupSyncBatchSize.inc(batchSize);
+        groupSyncTime.inc(tookInNanos);
+    }
+
     /**
      * Closes the translog if the current translog writer experienced a tragic exception.
      *
@@ -958,7 +988,10 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
                 sizeInBytes(),
                 totalOperationsByMinGen(uncommittedGen),
                 sizeInBytesByMinGen(uncommittedGen),
-                earliestLastModifiedAge()
+                earliestLastModifiedAge(),
+                groupSyncBatchSize.count(),
+                groupSyncBatchSize.sum(),
+                TimeUnit.NANOSECONDS.toMillis(groupSyncTime.sum())
             );
         } finally {
             readLock.unlock();
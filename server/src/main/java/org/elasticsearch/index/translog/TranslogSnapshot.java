@@ -9,14 +9,23 @@
 package org.elasticsearch.index.translog;
 
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
 
 final class TranslogSnapshot extends BaseTranslogReader {
 
+    /**
+     * The size of the regions that a memory mapped snapshot maps at a time. Matches the default generation size threshold so that
+     * most generations are mapped at once, operations that are larger than this are mapped on their own.
+     */
+    static final long MAPPED_REGION_SIZE = 64L << 20;
+
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final long length;
@@ -27,11 +36,27 @@ final class TranslogSnapshot extends BaseTranslogReader {
     private int readOperations;
     private BufferedChecksumStreamInput reuse;
 
+    // only used by memory mapped snapshots
+    private final boolean memoryMapped;
+    private CRC32 checksum;
+    private ByteBuffer mappedRegion;
+    private long mappedRegionStart;
+
     /**
      * Create a snapshot of translog file channel.
      */
     TranslogSnapshot(final BaseTranslogReader reader, final long length) {
+        this(reader, length, false);
+    }
+
+    /**
+     * Create a snapshot of translog file channel. A memory mapped snapshot maps the file and decodes operations directly from the
+     * mapped region rather than copying each operation into a heap buffer first, and verifies the checksum of each operation in a
+     * single pass over its bytes.
+     */
+    TranslogSnapshot(final BaseTranslogReader reader, final long length, final boolean memoryMapped) {
         super(reader.generation, reader.channel, reader.path, reader.header);
+        this.memoryMapped = memoryMapped;
         this.length = length;
         this.totalOperations = reader.totalOperations();
         this.checkpoint = reader.getCheckpoint();
@@ -64,10 +89,22 @@ final class TranslogSnapshot extends BaseTranslogReader {
             skippedOperations++;
         }
         reuse = null; // release buffer, it may be large and is no longer needed
+        mappedRegion = null; // release the mapping
         return null;
     }
 
+    /**
+     * Returns a memory mapped copy of this snapshot, see {@link #TranslogSnapshot(BaseTranslogReader, long, boolean)}.
+     */
+    TranslogSnapshot memoryMapped() {
+        assert readOperations == 0 : "snapshot was already consumed";
+        return new TranslogSnapshot(this, length, true);
+    }
+
     private Translog.Operation readOperation() throws IOException {
+        if (memoryMapped) {
+            return readMappedOperation();
+        }
         final int opSize = readSize(reusableBuffer, position);
         reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
         Translog.Operation op = read(reuse);
@@ -76,6 +113,90 @@ final class TranslogSnapshot extends BaseTranslogReader {
         return op;
     }
 
+    private Translog.Operation readMappedOperation() throws IOException {
+        final ByteBuffer sizeRegion = mapRegion(position, Integer.BYTES);
+        final int opSize = sizeRegion.getInt(mappedOffset(position)) + Integer.BYTES;
+        final long maxSize = length - position;
+        if (opSize < 2 * Integer.BYTES || opSize > maxSize) {
+            throw new TranslogCorruptedException(
+                path.toString(),
+                "operation size is corrupted must be [" + 2 * Integer.BYTES + ".." + maxSize + "] but was: " + opSize
+            );
+        }
+        final ByteBuffer region = mapRegion(position, opSize);
+        // the operation is framed by its size and its checksum, neither of which is part of the checksum
+        final int bodyOffset = mappedOffset(position) + Integer.BYTES;
+        final int bodyLength = opSize - 2 * Integer.BYTES;
+        final ByteBuffer body = region.slice(bodyOffset, bodyLength);
+        if (checksum == null) {
+            checksum = new CRC32();
+        }
+        checksum.reset();
+        // CRC32 is an intrinsic on direct buffers that checksums the whole operation with vector instructions
+        checksum.update(body.duplicate());
+        final long expectedChecksum = checksum.getValue();
+        final long readChecksum = Integer.toUnsignedLong(region.getInt(bodyOffset + bodyLength));
+        if (readChecksum != expectedChecksum) {
+            throw new TranslogCorruptedException(
+                path.toString(),
+                "checksum verification failed - expected: 0x"
+                    + Long.toHexString(expectedChecksum)
+                    + ", got: 0x"
+                    + Long.toHexString(readChecksum)
+            );
+        }
+        final Translog.Operation op;
+        try {
+            op = ensureValidPrimaryTerm(Translog.Operation.readOperation(new ByteBufferStreamInput(body)));
+        } catch (EOFException e) {
+            throw new TruncatedTranslogException(path.toString(), "reached premature end of file, translog is truncated", e);
+        }
+        if (body.hasRemaining()) {
+            // the stream reader fails on the checksum in that case, but here the checksum covers the unread bytes too
+            throw new TranslogCorruptedException(
+                path.toString(),
+                "operation size is corrupted, the operation was read from [" + body.position() + "] of its [" + bodyLength + "] bytes"
+            );
+        }
+        position += opSize;
+        readOperations++;
+        return op;
+    }
+
+    /**
+     * Returns a mapped region of the file that holds the given number of bytes starting at the given position.
+     */
+    private ByteBuffer mapRegion(long position, int size) throws IOException {
+        assert position >= getFirstOperationOffset() : position + " < " + getFirstOperationOffset();
+        if (position + size > length) {
+            throw new TruncatedTranslogException(
+                path.toString(),
+                "translog truncated",
+                new EOFException("read requested past EOF. pos [" + position + "] size [" + size + "] end: [" + length + "]")
+            );
+        }
+        if (mappedRegion == null || position < mappedRegionStart || position + size > mappedRegionStart + mappedRegion.capacity()) {
+            final long regionSize = Math.max(size, Math.min(MAPPED_REGION_SIZE, length - position));
+            // accessing a mapping beyond the end of the file crashes rather than throwing an exception, check the file size first
+            final long fileSize = channel.size();
+            if (position + regionSize > fileSize) {
+                throw new TruncatedTranslogException(
+                    path.toString(),
+                    "translog truncated",
+                    new EOFException("read requested past EOF. pos [" + position + "] size [" + regionSize + "] end: [" + fileSize + "]")
+                );
+            }
+            // the previous region is unmapped once it gets garbage collected
+            mappedRegion = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+            mappedRegionStart = position;
+        }
+        return mappedRegion;
+    }
+
+    private int mappedOffset(long position) {
+        return Math.toIntExact(position - mappedRegionStart);
+    }
+
     public long sizeInBytes() {
         return length;
     }
@@ -132,6 +253,8 @@ final class TranslogSnapshot extends BaseTranslogReader {
             + generation
             + ", reusableBuffer="
             + reusableBuffer
+            + ", memoryMapped="
+            + memoryMapped
             + '}';
     }
 }
@@ -8,11 +8,13 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -26,6 +28,9 @@ public class TranslogStats implements Writeable, ToXContentFragment {
     private long uncommittedSizeInBytes;
     private int uncommittedOperations;
     private long earliestLastModifiedAge;
+    private long groupSyncCount;
+    private long groupSyncBatchSizeTotal;
+    private long groupSyncTimeInMillis;
 
     public TranslogStats() {}
 
@@ -35,6 +40,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         uncommittedOperations = in.readVInt();
         uncommittedSizeInBytes = in.readVLong();
         earliestLastModifiedAge = in.readVLong();
+        if (in.getTransportVersion().onOrAfter(TransportVersions.TRANSLOG_GROUP_SYNC_STATS)) {
+            groupSyncCount = in.readVLong();
+            groupSyncBatchSizeTotal = in.readVLong();
+            groupSyncTimeInMillis = in.readVLong();
+        }
     }
 
     public TranslogStats(
@@ -43,6 +53,19 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         int uncommittedOperations,
         long uncommittedSizeInBytes,
         long earliestLastModifiedAge
+    ) {
+        this(numberOfOperations, translogSizeInBytes, uncommittedOperations, uncommittedSizeInBytes, earliestLastModifiedAge, 0, 0, 0);
+    }
+
+    public TranslogStats(
+        int numberOfOperations,
+        long translogSizeInBytes,
+        int uncommittedOperations,
+        long uncommittedSizeInBytes,
+        long earliestLastModifiedAge,
+        long groupSyncCount,
+        long groupSyncBatchSizeTotal,
+        long groupSyncTimeInMillis
     ) {
         if (numberOfOperations < 0) {
             throw new IllegalArgumentException("numberOfOperations must be >= 0");
@@ -59,11 +82,23 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         if (earliestLastModifiedAge < 0) {
             throw new IllegalArgumentException("earliestLastModifiedAge must be >= 0");
         }
+        if (groupSyncCount < 0) {
+            throw new IllegalArgumentException("groupSyncCount must be >= 0");
+        }
+        if (groupSyncBatchSizeTotal < 0) {
+            throw new IllegalArgumentException("groupSyncBatchSizeTotal must be >= 0");
+        }
+        if (groupSyncTimeInMillis < 0) {
+            throw new IllegalArgumentException("groupSyncTimeInMillis must be >= 0");
+        }
         this.numberOfOperations = numberOfOperations;
         this.translogSizeInBytes = translogSizeInBytes;
         this.uncommittedSizeInBytes = uncommittedSizeInBytes;
         this.uncommittedOperations = uncommittedOperations;
         this.earliestLastModifiedAge = earliestLastModifiedAge;
+        this.groupSyncCount = groupSyncCount;
+        this.groupSyncBatchSizeTotal = groupSyncBatchSizeTotal;
+        this.groupSyncTimeInMillis = groupSyncTimeInMillis;
     }
 
     public void add(TranslogStats translogStats) {
@@ -80,6 +115,9 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         } else {
             this.earliestLastModifiedAge = Math.min(this.earliestLastModifiedAge, translogStats.earliestLastModifiedAge);
         }
+        this.groupSyncCount += translogStats.groupSyncCount;
+        this.groupSyncBatchSizeTotal += translogStats.groupSyncBatchSizeTotal;
+        this.groupSyncTimeInMillis += translogStats.groupSyncTimeInMillis;
     }
 
     public long getTranslogSizeInBytes() {
@@ -104,6 +142,21 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         return earliestLastModifiedAge;
     }
 
+    /** the number of times the translog was synced as part of a batch of a {@link TranslogSyncCoordinator} */
+    public long getGroupSyncCount() {
+        return groupSyncCount;
+    }
+
+    /** the sum of the number of translogs in each batch this translog was synced in, divide by the count for the average batch size */
+    public long getGroupSyncBatchSizeTotal() {
+        return groupSyncBatchSizeTotal;
+    }
+
+    /** the total time sync requests waited for their batch to be synced */
+    public long getGroupSyncTimeInMillis() {
+        return groupSyncTimeInMillis;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("translog");
@@ -112,6 +165,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         builder.field("uncommitted_operations", uncommittedOperations);
         builder.humanReadableField("uncommitted_size_in_bytes", "uncommitted_size", ByteSizeValue.ofBytes(uncommittedSizeInBytes));
         builder.field("earliest_last_modified_age", earliestLastModifiedAge);
+        builder.startObject("group_sync");
+        builder.field("total", groupSyncCount);
+        builder.field("batch_size_total", groupSyncBatchSizeTotal);
+        builder.humanReadableField("total_time_in_millis", "total_time", new TimeValue(groupSyncTimeInMillis));
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -128,6 +186,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         out.writeVInt(uncommittedOperations);
         out.writeVLong(uncommittedSizeInBytes);
         out.writeVLong(earliestLastModifiedAge);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.TRANSLOG_GROUP_SYNC_STATS)) {
+            out.writeVLong(groupSyncCount);
+            out.writeVLong(groupSyncBatchSizeTotal);
+            out.writeVLong(groupSyncTimeInMillis);
+        }
     }
 
     @Override
@@ -139,7 +202,10 @@ public class TranslogStats implements Writeable, ToXContentFragment {
             && translogSizeInBytes == that.translogSizeInBytes
             && uncommittedOperations == that.uncommittedOperations
             && uncommittedSizeInBytes == that.uncommittedSizeInBytes
-            && earliestLastModifiedAge == that.earliestLastModifiedAge;
+            && earliestLastModifiedAge == that.earliestLastModifiedAge
+            && groupSyncCount == that.groupSyncCount
+            && groupSyncBatchSizeTotal == that.groupSyncBatchSizeTotal
+            && groupSyncTimeInMillis == that.groupSyncTimeInMillis;
     }
 
     @Override
@@ -149,7 +215,10 @@ public class TranslogStats implements Writeable, ToXContentFragment {
             translogSizeInBytes,
             uncommittedOperations,
             uncommittedSizeInBytes,
-            earliestLastModifiedAge
+            earliestLastModifiedAge,
+            groupSyncCount,
+            groupSyncBatchSizeTotal,
+            groupSyncTimeInMillis
         );
     }
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ContextPreservingActionListener;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Groups the translog syncs of all the shards of a node that live on the same data path. A shard that needs its translog to be durable
+ * up to a location hands the request to the {@link Group} of its data path instead of syncing right away. The group collects the
+ * requests for up to {@link #GROUP_SYNC_WINDOW_SETTING} and then syncs every translog of the batch, coalescing all the requests of a
+ * shard into a single write and fsync. A batch is synced early once it holds {@link #GROUP_SYNC_MAX_BATCH_SIZE_SETTING} shards. The
+ * translogs of a batch are synced concurrently on the {@link ThreadPool.Names#FLUSH} thread pool, like the periodic translog fsyncs of
+ * async durability, so that a slow fsync only delays the requests of its own shard.
+ * <p>
+ * Compared to syncing each translog as soon as a bulk request completes, this trades a bounded amount of latency for far fewer fsyncs
+ * when many shards receive small bulk requests at the same time. Group syncing is disabled when the window is zero, which is the
+ * default.
+ */
+public final class TranslogSyncCoordinator implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(TranslogSyncCoordinator.class);
+
+    /**
+     * How long a translog sync may wait for the syncs of other shards on the same data path. {@code 0} disables group syncing.
+     */
+    public static final Setting<TimeValue> GROUP_SYNC_WINDOW_SETTING = Setting.timeSetting(
+        "indices.translog.group_sync.window",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        TimeValue.timeValueMillis(100),
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    /**
+     * The number of shards after which a batch is synced without waiting for the end of the window.
+     */
+    public static final Setting<Integer> GROUP_SYNC_MAX_BATCH_SIZE_SETTING = Setting.intSetting(
+        "indices.translog.group_sync.max_batch_size",
+        128,
+        1,
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    private final ThreadPool threadPool;
+    private final Map<Path, Group> groups = ConcurrentCollections.newConcurrentMap();
+    private volatile TimeValue window;
+    private volatile int maxBatchSize;
+    private volatile boolean closed;
+
+    public TranslogSyncCoordinator(Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool) {
+        this.threadPool = threadPool;
+        this.window = GROUP_SYNC_WINDOW_SETTING.get(settings);
+        this.maxBatchSize = GROUP_SYNC_MAX_BATCH_SIZE_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(GROUP_SYNC_WINDOW_SETTING, value -> this.window = value);
+        clusterSettings.addSettingsUpdateConsumer(GROUP_SYNC_MAX_BATCH_SIZE_SETTING, value -> this.maxBatchSize = value);
+    }
+
+    /**
+     * Returns the group that syncs the translogs stored on the given data path.
+     */
+    public Group group(Path dataPath) {
+        return groups.computeIfAbsent(dataPath, Group::new);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Group group : groups.values()) {
+            group.close();
+        }
+    }
+
+    /**
+     * The group sync of the translogs of a single data path.
+     */
+    public final class Group {
+        private final Path dataPath;
+        // translogs do not override equals so this is an identity map, the linked map keeps the syncs in arrival order
+        private Map<Translog, PendingSync> pending = new LinkedHashMap<>();
+        private boolean scheduled;
+
+        private Group(Path dataPath) {
+            this.dataPath = dataPath;
+        }
+
+        /**
+         * Whether syncs should go through this group, which is the case if the group sync window is not zero.
+         */
+        public boolean isEnabled() {
+            return closed == false && window.nanos() > 0;
+        }
+
+        /**
+         * Ensures that the given translog is synced up to the given location and global checkpoint. The listener is notified with
+         * the result of {@link Translog#ensureSynced(Translog.Location, long)} once the batch that holds this request was synced.
+         */
+        public void sync(Translog translog, Translog.Location location, long globalCheckpoint, ActionListener<Boolean> listener) {
+            final ActionListener<Boolean> contextPreservingListener = ContextPreservingActionListener.wrapPreservingContext(
+                listener,
+                threadPool.getThreadContext()
+            );
+            List<PendingSync> batch = null;
+            synchronized (this) {
+                pending.computeIfAbsent(translog, PendingSync::new).add(location, globalCheckpoint, contextPreservingListener);
+                if (closed || pending.size() >= maxBatchSize) {
+                    batch = takePending();
+                } else if (scheduled == false) {
+                    try {
+                        threadPool.schedule(this::syncScheduledBatch, window, threadPool.executor(ThreadPool.Names.FLUSH));
+                        scheduled = true;
+                    } catch (EsRejectedExecutionException e) {
+                        // the node is shutting down, sync right away rather than leaving the listeners hanging
+                        batch = takePending();
+                    }
+                }
+            }
+            if (batch != null) {
+                // once closed the flush pool may be shutting down too, so sync everything on this thread
+                syncBatch(batch, closed ? EsExecutors.DIRECT_EXECUTOR_SERVICE : threadPool.executor(ThreadPool.Names.FLUSH));
+            }
+        }
+
+        private void syncScheduledBatch() {
+            final List<PendingSync> batch;
+            synchronized (this) {
+                scheduled = false;
+                batch = takePending();
+            }
+            syncBatch(batch, threadPool.executor(ThreadPool.Names.FLUSH));
+        }
+
+        private List<PendingSync> takePending() {
+            assert Thread.holdsLock(this);
+            final List<PendingSync> batch = new ArrayList<>(pending.values());
+            pending = new LinkedHashMap<>();
+            return batch;
+        }
+
+        /**
+         * Syncs every translog of the batch, forking all but the last one to the given executor and syncing the last one on this thread.
+         */
+        private void syncBatch(List<PendingSync> batch, Executor executor) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            logger.trace("syncing [{}] translogs on data path [{}]", batch.size(), dataPath);
+            final int batchSize = batch.size();
+            for (int i = 0; i < batchSize - 1; i++) {
+                final PendingSync sync = batch.get(i);
+                try {
+                    executor.execute(() -> sync.run(batchSize));
+                } catch (EsRejectedExecutionException e) {
+                    // the node is shutting down, sync right away rather than leaving the listeners hanging
+                    sync.run(batchSize);
+                }
+            }
+            batch.get(batchSize - 1).run(batchSize);
+        }
+
+        private void close() {
+            final List<PendingSync> batch;
+            synchronized (this) {
+                batch = takePending();
+            }
+            // complete the outstanding syncs before returning, closed translogs fail their syncs
+            syncBatch(batch, EsExecutors.DIRECT_EXECUTOR_SERVICE);
+        }
+    }
+
+    /**
+     * The syncs requested for a single translog since its last group sync.
+     */
+    private static final class PendingSync {
+        private final Translog translog;
+        private final long startTimeNanos = System.nanoTime();
+        private final List<ActionListener<Boolean>> listeners = new ArrayList<>();
+        private Translog.Location location = Translog.Location.EMPTY;
+        private long globalCheckpoint = SequenceNumbers.UNASSIGNED_SEQ_NO;
+
+        PendingSync(Translog translog) {
+            this.translog = translog;
+        }
+
+        void add(Translog.Location location, long globalCheckpoint, ActionListener<Boolean> listener) {
+            if (location.compareTo(this.location) > 0) {
+                this.location = location;
+            }
+            if (globalCheckpoint != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                this.globalCheckpoint = SequenceNumbers.max(this.globalCheckpoint, globalCheckpoint);
+            }
+            listeners.add(listener);
+        }
+
+        /**
+         * Syncs the translog and completes the listeners of the requests on the calling thread.
+         */
+        void run(int batchSize) {
+            final boolean synced;
+            try {
+                synced = translog.ensureSynced(location, globalCheckpoint);
+            } catch (Exception e) {
+                ActionListener.onFailure(listeners, e);
+                return;
+            }
+            translog.onGroupSync(batchSize, System.nanoTime() - startTimeNanos);
+            ActionListener.onResponse(listeners, synced);
+        }
+    }
+}
@@ -24,6 +24,13 @@ abstract class AbstractIndexShardCacheEntity implements IndicesRequestCache.Cach
      */
     protected abstract ShardRequestCache stats();
 
+    /**
+     * Whether the cached results of this entity hold top hits, which are tracked separately in the statistics.
+     */
+    protected boolean cachesTopHits() {
+        return false;
+    }
+
     @Override
     public final void onCached(IndicesRequestCache.Key key, BytesReference value) {
         stats().onCached(key, value);
@@ -31,12 +38,20 @@ abstract class AbstractIndexShardCacheEntity implements IndicesRequestCache.Cach
 
     @Override
     public final void onHit() {
-        stats().onHit();
+        if (cachesTopHits()) {
+            stats().onTopHitsHit();
+        } else {
+            stats().onHit();
+        }
     }
 
     @Override
     public final void onMiss() {
-        stats().onMiss();
+        if (cachesTopHits()) {
+            stats().onTopHitsMiss();
+        } else {
+            stats().onMiss();
+        }
     }
 
     @Override
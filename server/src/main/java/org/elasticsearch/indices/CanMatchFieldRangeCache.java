@@ -0,0 +1,217 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.PointValues;
+import org.elasticsearch.cluster.metadata.DataStream;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.time.DateFormatter;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A coordinator side cache of the min and max values that shards reported for the date fields that the
+ * {@link org.elasticsearch.index.query.CoordinatorRewriteContext} can rewrite range queries against, i.e. {@code @timestamp} and
+ * {@code event.ingested}. The cluster state only holds the ranges of these fields for indices with a read-only engine; this cache
+ * fills the gap for other indices so that a search that filters on time over many backing indices can skip the shards whose cached
+ * range does not intersect the query without sending them a can_match request.
+ * <p>
+ * Shards only report their ranges for indices with a write block, whose ranges cannot change anymore. An entry is tied to the settings
+ * version of the index at the time the shard computed it, so that it is ignored as soon as the block is removed, even if the block is
+ * added back later.
+ */
+public final class CanMatchFieldRangeCache {
+
+    /**
+     * The date fields whose ranges shards report to the coordinator.
+     */
+    public static final List<String> FIELDS = List.of(DataStream.TIMESTAMP_FIELD_NAME, IndexMetadata.EVENT_INGESTED_FIELD_NAME);
+
+    /**
+     * The maximum number of shards whose ranges the coordinator keeps, {@code 0} disables the cache.
+     */
+    public static final Setting<Integer> CACHE_SIZE_SETTING = Setting.intSetting(
+        "search.can_match.field_range_cache.size",
+        10_000,
+        0,
+        Property.NodeScope
+    );
+
+    @Nullable
+    private final Cache<ShardId, Entry> cache;
+
+    public CanMatchFieldRangeCache(Settings settings) {
+        this(CACHE_SIZE_SETTING.get(settings));
+    }
+
+    CanMatchFieldRangeCache(int size) {
+        this.cache = size == 0 ? null : CacheBuilder.<ShardId, Entry>builder().setMaximumWeight(size).build();
+    }
+
+    /**
+     * Records the ranges that a shard reported with its can_match response.
+     */
+    public void put(ShardId shardId, ShardRanges ranges) {
+        if (cache != null) {
+            cache.put(shardId, new Entry(ranges.settingsVersion(), ranges.toDateFieldRangeInfo()));
+        }
+    }
+
+    /**
+     * Returns the cached ranges of the given shard, or {@code null} if the shard did not report its ranges yet or if they may have
+     * changed since then given the current metadata of its index.
+     */
+    @Nullable
+    public DateFieldRangeInfo get(ShardId shardId, IndexMetadata indexMetadata) {
+        if (cache == null) {
+            return null;
+        }
+        final Entry entry = cache.get(shardId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.settingsVersion != indexMetadata.getSettingsVersion() || isWriteBlocked(indexMetadata) == false) {
+            cache.invalidate(shardId, entry);
+            return null;
+        }
+        return entry.dateFieldRangeInfo;
+    }
+
+    int count() {
+        return cache == null ? 0 : cache.count();
+    }
+
+    private static boolean isWriteBlocked(IndexMetadata indexMetadata) {
+        return IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.get(indexMetadata.getSettings());
+    }
+
+    /**
+     * Reads the ranges of the cached date fields of a shard from the points of the given reader. Returns {@code null} if the index
+     * has no write block or if the reader does not see all the documents of the shard yet, since the ranges could still change.
+     */
+    @Nullable
+    public static ShardRanges readShardRanges(IndexMetadata indexMetadata, MapperService mapperService, DirectoryReader reader)
+        throws IOException {
+        if (isWriteBlocked(indexMetadata) == false) {
+            return null;
+        }
+        // read the points of all the documents, a reader that hides documents or fields from the user must not decide for everyone
+        final DirectoryReader unwrapped = FilterDirectoryReader.unwrap(reader);
+        if (unwrapped.isCurrent() == false) {
+            return null;
+        }
+        final Map<String, FieldRange> fields = new HashMap<>();
+        for (String field : FIELDS) {
+            if (mapperService.fieldType(field) instanceof DateFieldMapper.DateFieldType fieldType
+                && fieldType.name().equals(field)
+                && fieldType.isIndexed()
+                && DateFieldMapper.DEFAULT_LOCALE.equals(fieldType.dateTimeFormatter().locale())) {
+                final byte[] minPackedValue = PointValues.getMinPackedValue(unwrapped, field);
+                final byte[] maxPackedValue = PointValues.getMaxPackedValue(unwrapped, field);
+                final ShardLongFieldRange range = minPackedValue == null
+                    ? ShardLongFieldRange.EMPTY
+                    : ShardLongFieldRange.of(LongPoint.decodeDimension(minPackedValue, 0), LongPoint.decodeDimension(maxPackedValue, 0));
+                fields.put(field, FieldRange.of(fieldType, range));
+            }
+        }
+        return fields.isEmpty() ? null : new ShardRanges(indexMetadata.getSettingsVersion(), Map.copyOf(fields));
+    }
+
+    private record Entry(long settingsVersion, DateFieldRangeInfo dateFieldRangeInfo) {}
+
+    /**
+     * The ranges of the date fields of a shard, along with the settings version of its index when they were computed.
+     */
+    public record ShardRanges(long settingsVersion, Map<String, FieldRange> fields) implements Writeable {
+
+        public ShardRanges(StreamInput in) throws IOException {
+            this(in.readVLong(), in.readImmutableMap(FieldRange::new));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(settingsVersion);
+            out.writeMap(fields, StreamOutput::writeWriteable);
+        }
+
+        DateFieldRangeInfo toDateFieldRangeInfo() {
+            final FieldRange timestamp = fields.get(DataStream.TIMESTAMP_FIELD_NAME);
+            final FieldRange eventIngested = fields.get(IndexMetadata.EVENT_INGESTED_FIELD_NAME);
+            return new DateFieldRangeInfo(
+                timestamp == null ? null : timestamp.toFieldType(DataStream.TIMESTAMP_FIELD_NAME),
+                timestamp == null ? null : timestamp.toIndexRange(),
+                eventIngested == null ? null : eventIngested.toFieldType(IndexMetadata.EVENT_INGESTED_FIELD_NAME),
+                eventIngested == null ? null : eventIngested.toIndexRange()
+            );
+        }
+    }
+
+    /**
+     * The range of the raw values of a date field in a shard, along with the format and resolution of the field which are needed to
+     * parse the bounds of range queries on the coordinator. A shard that has no value for the field reports an empty range.
+     */
+    public record FieldRange(String format, DateFieldMapper.Resolution resolution, long min, long max) implements Writeable {
+
+        public static FieldRange of(DateFieldMapper.DateFieldType fieldType, ShardLongFieldRange range) {
+            final String format = fieldType.dateTimeFormatter().pattern();
+            if (range == ShardLongFieldRange.EMPTY) {
+                // an inverted range, like the one of ShardLongFieldRange#EMPTY
+                return new FieldRange(format, fieldType.resolution(), Long.MAX_VALUE, Long.MIN_VALUE);
+            }
+            return new FieldRange(format, fieldType.resolution(), range.getMin(), range.getMax());
+        }
+
+        public FieldRange(StreamInput in) throws IOException {
+            this(in.readString(), in.readEnum(DateFieldMapper.Resolution.class), in.readLong(), in.readLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(format);
+            out.writeEnum(resolution);
+            out.writeLong(min);
+            out.writeLong(max);
+        }
+
+        DateFieldMapper.DateFieldType toFieldType(String field) {
+            return new DateFieldMapper.DateFieldType(
+                field,
+                resolution,
+                DateFormatter.forPattern(format).withLocale(DateFieldMapper.DEFAULT_LOCALE)
+            );
+        }
+
+        IndexLongFieldRange toIndexRange() {
+            final ShardLongFieldRange shardRange = min > max ? ShardLongFieldRange.EMPTY : ShardLongFieldRange.of(min, max);
+            // the range of a single shard, which is complete on its own
+            return IndexLongFieldRange.NO_SHARDS.extendWithShardRange(0, 1, shardRange);
+        }
+    }
+}
@@ -12,6 +12,7 @@ package org.elasticsearch.indices;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
@@ -36,8 +37,10 @@ import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -87,6 +90,44 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         Property.NodeScope
     );
 
+    /**
+     * How the indexing buffer is shared between the shards of the node.
+     */
+    public enum IndexBufferMode {
+        /**
+         * All shards share the indexing buffer. Once the shards together use more than the indexing buffer, the periodic check
+         * writes the buffers of some shards to disk.
+         */
+        SHARED,
+        /**
+         * Every shard gets a budget, which is a share of the indexing buffer that grows with its recent indexing rate. A shard that
+         * exceeds its budget writes its buffer to disk as soon as an indexing operation notices it, and the number of buffers that
+         * indexing threads write concurrently is bounded by {@link #MAX_CONCURRENT_INDEX_BUFFER_WRITES_SETTING}.
+         */
+        BUDGETED
+    }
+
+    /** How the indexing buffer is shared between the shards of the node (default: shared). */
+    public static final Setting<IndexBufferMode> INDEX_BUFFER_MODE_SETTING = Setting.enumSetting(
+        IndexBufferMode.class,
+        "indices.memory.index_buffer_mode",
+        IndexBufferMode.SHARED,
+        Property.NodeScope
+    );
+
+    /** Only applies to the budgeted mode, how many indexing buffers may be written to disk concurrently (default: 2). */
+    public static final Setting<Integer> MAX_CONCURRENT_INDEX_BUFFER_WRITES_SETTING = Setting.intSetting(
+        "indices.memory.max_concurrent_index_buffer_writes",
+        2,
+        1,
+        Property.NodeScope
+    );
+
+    // the share of the indexing buffer that is split evenly across shards in budgeted mode, the rest is split by indexing rate
+    static final double EVEN_BUDGET_SHARE = 0.25;
+    // the weight of the latest indexing rate sample of a shard in budgeted mode
+    static final double INDEXING_RATE_ALPHA = 0.3;
+
     private final ThreadPool threadPool;
 
     private final Iterable<IndexShard> indexShards;
@@ -112,6 +153,12 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
     private final Set<IndexShard> pendingWriteIndexingBufferSet = ConcurrentCollections.newConcurrentSet();
     private final Deque<IndexShard> pendingWriteIndexingBufferQueue = new ConcurrentLinkedDeque<>();
 
+    private final IndexBufferMode indexBufferMode;
+    /** Bounds the number of indexing buffers that are written concurrently in budgeted mode, {@code null} in shared mode */
+    private final Semaphore indexBufferWritePermits;
+    /** The budget of each shard in budgeted mode */
+    private final Map<ShardId, ShardBudget> shardBudgets = ConcurrentCollections.newConcurrentMap();
+
     IndexingMemoryController(Settings settings, ThreadPool threadPool, Iterable<IndexShard> indexServices) {
         this.indexShards = indexServices;
 
@@ -132,6 +179,11 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         }
         this.indexingBuffer = indexingBuffer.getBytes();
 
+        this.indexBufferMode = INDEX_BUFFER_MODE_SETTING.get(settings);
+        this.indexBufferWritePermits = indexBufferMode == IndexBufferMode.BUDGETED
+            ? new Semaphore(MAX_CONCURRENT_INDEX_BUFFER_WRITES_SETTING.get(settings))
+            : null;
+
         this.inactiveTime = SHARD_INACTIVE_TIME_SETTING.get(settings);
         // we need to have this relatively small to free up heap quickly enough
         this.interval = SHARD_MEMORY_INTERVAL_TIME_SETTING.get(settings);
@@ -139,8 +191,9 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         this.statusChecker = new ShardsIndicesStatusChecker();
 
         logger.debug(
-            "using indexing buffer size [{}] with {} [{}], {} [{}]",
+            "using indexing buffer size [{}] in mode [{}] with {} [{}], {} [{}]",
             this.indexingBuffer,
+            this.indexBufferMode,
             SHARD_INACTIVE_TIME_SETTING.getKey(),
             this.inactiveTime,
             SHARD_MEMORY_INTERVAL_TIME_SETTING.getKey(),
@@ -170,6 +223,14 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         return indexingBuffer;
     }
 
+    /**
+     * returns the current budget of the given shard in budgeted mode, or {@code -1} if the shard has no budget
+     */
+    long indexingBufferBudget(ShardId shardId) {
+        final ShardBudget budget = shardBudgets.get(shardId);
+        return budget == null ? -1 : budget.budgetBytes;
+    }
+
     protected List<IndexShard> availableShards() {
         List<IndexShard> availableShards = new ArrayList<>();
         for (IndexShard shard : indexShards) {
@@ -205,28 +266,62 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
      */
     private boolean writePendingIndexingBuffers() {
         boolean wrotePendingIndexingBuffer = false;
-        for (IndexShard shard = pendingWriteIndexingBufferQueue.pollFirst(); shard != null; shard = pendingWriteIndexingBufferQueue
-            .pollFirst()) {
-            // Remove the shard from the set first, so that multiple threads can run writeIndexingBuffer concurrently on the same shard.
-            pendingWriteIndexingBufferSet.remove(shard);
-            shard.writeIndexingBuffer();
-            wrotePendingIndexingBuffer = true;
+        while (tryAcquireWritePermit()) {
+            final IndexShard shard = pendingWriteIndexingBufferQueue.pollFirst();
+            try {
+                if (shard == null) {
+                    break;
+                }
+                // Remove the shard from the set first, so that multiple threads can run writeIndexingBuffer concurrently on the same
+                // shard.
+                pendingWriteIndexingBufferSet.remove(shard);
+                final long startTimeNanos = System.nanoTime();
+                shard.writeIndexingBuffer();
+                // this indexing thread could not make progress while it was writing the buffer
+                shard.addIndexingBufferStallTime(System.nanoTime() - startTimeNanos);
+                wrotePendingIndexingBuffer = true;
+            } finally {
+                releaseWritePermit();
+            }
         }
         return wrotePendingIndexingBuffer;
     }
 
     private void writePendingIndexingBuffersAsync() {
-        for (IndexShard shard = pendingWriteIndexingBufferQueue.pollFirst(); shard != null; shard = pendingWriteIndexingBufferQueue
-            .pollFirst()) {
-            final IndexShard finalShard = shard;
+        while (tryAcquireWritePermit()) {
+            final IndexShard shard = pendingWriteIndexingBufferQueue.pollFirst();
+            if (shard == null) {
+                releaseWritePermit();
+                break;
+            }
             threadPool.executor(ThreadPool.Names.REFRESH).execute(() -> {
-                // Remove the shard from the set first, so that multiple threads can run writeIndexingBuffer concurrently on the same shard.
-                pendingWriteIndexingBufferSet.remove(finalShard);
-                finalShard.writeIndexingBuffer();
+                try {
+                    // Remove the shard from the set first, so that multiple threads can run writeIndexingBuffer concurrently on the same
+                    // shard.
+                    pendingWriteIndexingBufferSet.remove(shard);
+                    shard.writeIndexingBuffer();
+                } finally {
+                    releaseWritePermit();
+                }
             });
         }
     }
 
+    /**
+     * In budgeted mode, returns whether the caller may write an indexing buffer. The buffers that cannot be written now stay queued and
+     * are written by the next indexing operation or check, which spreads the writes of many shards over time rather than writing them
+     * all at once.
+     */
+    private boolean tryAcquireWritePermit() {
+        return indexBufferWritePermits == null || indexBufferWritePermits.tryAcquire();
+    }
+
+    private void releaseWritePermit() {
+        if (indexBufferWritePermits != null) {
+            indexBufferWritePermits.release();
+        }
+    }
+
     /** force checker to run now */
     void forceCheck() {
         statusChecker.run();
@@ -253,7 +348,7 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
     }
 
     private void postOperation(ShardId shardId, Engine.Operation operation, Engine.Result result) {
-        recordOperationBytes(operation, result);
+        recordOperationBytes(shardId, operation, result);
         // Piggy back on indexing threads to write segments. We're not submitting a task to the index threadpool because we want memory to
         // be reclaimed rapidly. This has the downside of increasing the latency of _bulk requests though. Lucene does the same thing in
         // DocumentsWriter#postUpdate, flushing a segment because the size limit on the RAM buffer was reached happens on the call to
@@ -267,12 +362,60 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
     }
 
     /** called by IndexShard to record estimated bytes written to translog for the operation */
-    private void recordOperationBytes(Engine.Operation operation, Engine.Result result) {
+    private void recordOperationBytes(ShardId shardId, Engine.Operation operation, Engine.Result result) {
         if (result.getResultType() == Engine.Result.Type.SUCCESS) {
+            bytesIndexed(shardId, operation.estimatedSizeInBytes());
             statusChecker.bytesWritten(operation.estimatedSizeInBytes());
         }
     }
 
+    /**
+     * Records the bytes indexed into the given shard. In budgeted mode, this feeds the indexing rate of the shard and queues the write of
+     * its indexing buffer as soon as the shard exceeds its budget rather than waiting for the next check.
+     */
+    void bytesIndexed(ShardId shardId, long bytes) {
+        if (indexBufferMode != IndexBufferMode.BUDGETED) {
+            return;
+        }
+        final ShardBudget budget = shardBudgets.get(shardId);
+        if (budget == null) {
+            // the next check creates the budget of this shard
+            return;
+        }
+        budget.bytesIndexedSinceCheck.addAndGet(bytes);
+        // only look at the buffer once every 1/16th of the budget since reading its size is not free
+        final long bytesSinceBudgetCheck = budget.bytesIndexedSinceBudgetCheck.addAndGet(bytes);
+        if (bytesSinceBudgetCheck >= budget.budgetBytes / 16
+            && budget.bytesIndexedSinceBudgetCheck.compareAndSet(bytesSinceBudgetCheck, 0)) {
+            final long shardBytesUsed = getIndexBufferRAMBytesUsed(budget.shard) - getShardWritingBytes(budget.shard);
+            if (shardBytesUsed > budget.budgetBytes) {
+                logger.debug(
+                    "write indexing buffer to disk for shard [{}]: its [{}] indexing buffer exceeds its budget of [{}]",
+                    shardId,
+                    ByteSizeValue.ofBytes(shardBytesUsed),
+                    ByteSizeValue.ofBytes(budget.budgetBytes)
+                );
+                enqueueWriteIndexingBuffer(budget.shard);
+            }
+        }
+    }
+
+    /**
+     * The share of the indexing buffer of a shard in budgeted mode.
+     */
+    private static final class ShardBudget {
+        final IndexShard shard;
+        final AtomicLong bytesIndexedSinceCheck = new AtomicLong();
+        final AtomicLong bytesIndexedSinceBudgetCheck = new AtomicLong();
+        // bytes indexed per second, only accessed under the run lock of the checker
+        final ExponentiallyWeightedMovingAverage indexingRate = new ExponentiallyWeightedMovingAverage(INDEXING_RATE_ALPHA, 0.0);
+        volatile long budgetBytes = Long.MAX_VALUE;
+
+        ShardBudget(IndexShard shard) {
+            this.shard = shard;
+        }
+    }
+
     private static final class ShardAndBytesUsed {
         final long bytesUsed;
         final IndexShard shard;
@@ -291,6 +434,8 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         final ReentrantLock runLock = new ReentrantLock();
         // Last shard ID whose indexing buffer was written. We keep track of it to be able to go over shards in a round-robin fashion.
         private ShardId lastShardId = null;
+        // When the shard budgets were last updated
+        private long lastBudgetUpdateNanos = System.nanoTime();
 
         /** Shard calls this on each indexing/delete op */
         public void bytesWritten(int bytes) {
@@ -359,7 +504,8 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
             // to disk:
             long totalBytesUsed = 0;
             long totalBytesWriting = 0;
-            for (IndexShard shard : availableShards()) {
+            final List<IndexShard> availableShards = availableShards();
+            for (IndexShard shard : availableShards) {
 
                 // Give shard a chance to transition to inactive so we can flush
                 checkIdle(shard, inactiveTime.nanos());
@@ -392,6 +538,16 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                 );
             }
 
+            // Let shards that adapt their refresh interval refresh sooner as the indexing buffer fills up:
+            final double indexingBufferPressure = (double) totalBytesUsed / indexingBuffer;
+            for (IndexShard shard : availableShards) {
+                shard.setIndexingBufferPressure(indexingBufferPressure);
+            }
+
+            if (indexBufferMode == IndexBufferMode.BUDGETED) {
+                totalBytesUsed -= enforceShardBudgets(availableShards);
+            }
+
             // If we are using more than 50% of our budget across both indexing buffer and bytes we are still moving to disk, then we now
             // throttle the top shards to send back-pressure to ongoing indexing:
             boolean doThrottle = (totalBytesWriting + totalBytesUsed) > 1.5 * indexingBuffer;
@@ -503,6 +659,55 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                 throttled.clear();
             }
         }
+
+        /**
+         * Splits the indexing buffer into shard budgets according to the recent indexing rate of the shards and queues the write of the
+         * indexing buffers of the shards that exceed their budget. Returns the number of bytes that are going to be written.
+         */
+        private long enforceShardBudgets(List<IndexShard> availableShards) {
+            assert runLock.isHeldByCurrentThread() : "shard budgets must be updated under the run lock";
+            final long nowNanos = System.nanoTime();
+            final double elapsedSeconds = Math.max(1L, nowNanos - lastBudgetUpdateNanos) / 1_000_000_000.0;
+            lastBudgetUpdateNanos = nowNanos;
+
+            final List<ShardBudget> budgets = new ArrayList<>(availableShards.size());
+            final Set<ShardId> shardIds = new HashSet<>();
+            double totalIndexingRate = 0;
+            for (IndexShard shard : availableShards) {
+                ShardBudget budget = shardBudgets.get(shard.shardId());
+                if (budget == null || budget.shard != shard) {
+                    budget = new ShardBudget(shard);
+                    shardBudgets.put(shard.shardId(), budget);
+                }
+                budget.indexingRate.addValue(budget.bytesIndexedSinceCheck.getAndSet(0) / elapsedSeconds);
+                totalIndexingRate += budget.indexingRate.getAverage();
+                budgets.add(budget);
+                shardIds.add(shard.shardId());
+            }
+            // forget about the shards that were closed or relocated
+            shardBudgets.keySet().retainAll(shardIds);
+
+            long bytesToWrite = 0;
+            for (ShardBudget budget : budgets) {
+                final double rateShare = totalIndexingRate > 0
+                    ? budget.indexingRate.getAverage() / totalIndexingRate
+                    : 1.0 / budgets.size();
+                budget.budgetBytes = (long) (indexingBuffer * (EVEN_BUDGET_SHARE / budgets.size() + (1 - EVEN_BUDGET_SHARE) * rateShare));
+
+                final long shardBytesUsed = getIndexBufferRAMBytesUsed(budget.shard) - getShardWritingBytes(budget.shard);
+                if (shardBytesUsed > budget.budgetBytes) {
+                    logger.debug(
+                        "write indexing buffer to disk for shard [{}]: its [{}] indexing buffer exceeds its budget of [{}]",
+                        budget.shard.shardId(),
+                        ByteSizeValue.ofBytes(shardBytesUsed),
+                        ByteSizeValue.ofBytes(budget.budgetBytes)
+                    );
+                    enqueueWriteIndexingBuffer(budget.shard);
+                    bytesToWrite += shardBytesUsed;
+                }
+            }
+            return bytesToWrite;
+        }
     }
 
     /**
@@ -61,8 +61,16 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         false,
         Property.NodeScope
     );
+    // the size of the cache that is keyed on segment ids and shared by all the copies of a segment, 0 disables it
+    public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_SHARED_SEGMENTS_SIZE_SETTING = Setting.memorySizeSetting(
+        "indices.queries.cache.shared_segments.size",
+        "0b",
+        Property.NodeScope
+    );
 
     private final LRUQueryCache cache;
+    @Nullable
+    private final SharedSegmentQueryCache sharedSegmentCache;
     private final ShardCoreKeyMap shardKeyMap = new ShardCoreKeyMap();
     private final Map<ShardId, Stats> shardStats = new ConcurrentHashMap<>();
     private volatile long sharedRamBytesUsed;
@@ -82,6 +90,16 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         } else {
             cache = new ElasticsearchLRUQueryCache(count, size.getBytes());
         }
+        final ByteSizeValue sharedSegmentsSize = INDICES_CACHE_QUERY_SHARED_SEGMENTS_SIZE_SETTING.get(settings);
+        if (sharedSegmentsSize.getBytes() > 0) {
+            logger.debug("using [node] shared segments query cache with size [{}]", sharedSegmentsSize);
+            sharedSegmentCache = new SharedSegmentQueryCache(
+                sharedSegmentsSize.getBytes(),
+                INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.get(settings)
+            );
+        } else {
+            sharedSegmentCache = null;
+        }
         sharedRamBytesUsed = 0;
     }
 
@@ -136,6 +154,9 @@ public class IndicesQueryCache implements QueryCache, Closeable {
     public QueryCacheStats getStats(ShardId shard) {
         final QueryCacheStats queryCacheStats = toQueryCacheStatsSafe(shardStats.get(shard));
         queryCacheStats.addRamBytesUsed(getShareOfAdditionalRamBytesUsed(queryCacheStats.getCacheSize()));
+        if (sharedSegmentCache != null) {
+            sharedSegmentCache.addStats(shard, queryCacheStats);
+        }
         return queryCacheStats;
     }
 
@@ -144,7 +165,11 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         while (weight instanceof CachingWeightWrapper) {
             weight = ((CachingWeightWrapper) weight).in;
         }
-        final Weight in = cache.doCache(weight, policy);
+        Weight in = cache.doCache(weight, policy);
+        if (sharedSegmentCache != null) {
+            // segments that can be shared are cached by segment id, the others by core
+            in = sharedSegmentCache.doCache(weight, in, policy);
+        }
         // We wrap the weight to track the readers it sees and map them with
         // the shards they belong to
         return new CachingWeightWrapper(in);
@@ -189,6 +214,9 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         for (Object coreKey : coreCacheKeys) {
             cache.clearCoreCacheKey(coreKey);
         }
+        if (sharedSegmentCache != null) {
+            sharedSegmentCache.clearCores(coreCacheKeys);
+        }
 
         // This cache stores two things: filters, and doc id sets. Calling
         // clear only removes the doc id sets, but if we reach the situation
@@ -209,6 +237,9 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         // we only know that there are no more doc id sets, but we still track
         // recently used queries, which we want to reclaim.
         cache.clear();
+        if (sharedSegmentCache != null) {
+            sharedSegmentCache.clear();
+        }
     }
 
     private static class Stats implements Cloneable {
@@ -271,6 +302,9 @@ public class IndicesQueryCache implements QueryCache, Closeable {
     public void onClose(ShardId shardId) {
         assert empty(shardStats.get(shardId));
         shardStats.remove(shardId);
+        if (sharedSegmentCache != null) {
+            sharedSegmentCache.onClose(shardId);
+        }
     }
 
     private class ElasticsearchLRUQueryCache extends LRUQueryCache {
@@ -18,6 +18,7 @@ import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.cache.CacheLoader;
 import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.cache.WindowTinyLfuCache;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -34,6 +35,7 @@ import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * The indices request cache allows to cache a shard level request stage responses, helping with improving
@@ -45,6 +47,10 @@ import java.util.concurrent.ConcurrentMap;
  * Currently, the cache is only enabled for count requests, and can only be opted in on an index
  * level setting that can be dynamically changed and defaults to false.
  * <p>
+ * With {@link #INDEX_CACHE_REQUEST_PER_SEGMENT_SETTING}, the results of eligible requests are cached per segment
+ * instead, using the cache key of the segment reader. Segments that are not modified by a refresh keep their cached
+ * results, so only new and modified segments need to be searched after a refresh.
+ * <p>
  * There are still several TODOs left in this class, some easily addressable, some more complex, but the support
  * is functional.
  */
@@ -60,6 +66,16 @@ public final class IndicesRequestCache implements Closeable {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * A setting to cache the results of {@code size:0} requests per segment rather than per shard, so that cached
+     * results survive refreshes that do not modify the segments they were computed on.
+     */
+    public static final Setting<Boolean> INDEX_CACHE_REQUEST_PER_SEGMENT_SETTING = Setting.boolSetting(
+        "index.requests.cache.per_segment",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_SIZE = Setting.memorySizeSetting(
         "indices.requests.cache.size",
         "1%",
@@ -70,10 +86,34 @@ public final class IndicesRequestCache implements Closeable {
         new TimeValue(0),
         Property.NodeScope
     );
+    /**
+     * The policy used to pick the entries to evict once the cache is full. {@link EvictionPolicy#WINDOW_TINY_LFU} keeps entries that are
+     * requested often, such as the results of dashboards, when a burst of one-off requests goes through the cache.
+     */
+    public static final Setting<EvictionPolicy> INDICES_CACHE_QUERY_EVICTION_POLICY = Setting.enumSetting(
+        EvictionPolicy.class,
+        "indices.requests.cache.eviction_policy",
+        EvictionPolicy.LRU,
+        Property.NodeScope
+    );
+
+    /**
+     * The eviction policies supported by the request cache.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the least recently used entry, see {@link Cache}.
+         */
+        LRU,
+        /**
+         * Evicts the entry that is least likely to be used again based on its recency and frequency, see {@link WindowTinyLfuCache}.
+         */
+        WINDOW_TINY_LFU
+    }
 
     private final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
     private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
-    private final Cache<Key, BytesReference> cache;
+    private final Store cache;
 
     IndicesRequestCache(Settings settings) {
         TimeValue expire = INDICES_CACHE_QUERY_EXPIRE.exists(settings) ? INDICES_CACHE_QUERY_EXPIRE.get(settings) : null;
@@ -84,7 +124,10 @@ public final class IndicesRequestCache implements Closeable {
         if (expire != null) {
             cacheBuilder.setExpireAfterAccess(expire);
         }
-        cache = cacheBuilder.build();
+        cache = switch (INDICES_CACHE_QUERY_EVICTION_POLICY.get(settings)) {
+            case LRU -> new LruStore(cacheBuilder.build());
+            case WINDOW_TINY_LFU -> new WindowTinyLfuStore(cacheBuilder.buildWindowTinyLfu());
+        };
     }
 
     @Override
@@ -106,6 +149,20 @@ public final class IndicesRequestCache implements Closeable {
     ) throws Exception {
         final ESCacheHelper cacheHelper = ElasticsearchDirectoryReader.getESReaderCacheHelper(reader);
         assert cacheHelper != null;
+        return getOrCompute(cacheEntity, loader, mappingCacheKey, cacheHelper, cacheKey);
+    }
+
+    /**
+     * Same as {@link #getOrCompute(CacheEntity, CheckedSupplier, MappingLookup.CacheKey, DirectoryReader, BytesReference)} but
+     * ties the cache entry to the given cache helper, typically the one of a single segment, rather than to a top-level reader.
+     */
+    BytesReference getOrCompute(
+        CacheEntity cacheEntity,
+        CheckedSupplier<BytesReference, IOException> loader,
+        MappingLookup.CacheKey mappingCacheKey,
+        ESCacheHelper cacheHelper,
+        BytesReference cacheKey
+    ) throws Exception {
         final Key key = new Key(cacheEntity, mappingCacheKey, cacheHelper.getKey(), cacheKey);
         Loader cacheLoader = new Loader(cacheEntity, loader);
         BytesReference value = cache.computeIfAbsent(key, cacheLoader);
@@ -142,7 +199,14 @@ public final class IndicesRequestCache implements Closeable {
      */
     void invalidate(CacheEntity cacheEntity, MappingLookup.CacheKey mappingCacheKey, DirectoryReader reader, BytesReference cacheKey) {
         assert reader.getReaderCacheHelper() != null;
-        cache.invalidate(new Key(cacheEntity, mappingCacheKey, reader.getReaderCacheHelper().getKey(), cacheKey));
+        invalidate(cacheEntity, mappingCacheKey, reader.getReaderCacheHelper().getKey(), cacheKey);
+    }
+
+    /**
+     * Invalidates the cache entry for the given key and the reader, or segment, with the given cache key
+     */
+    void invalidate(CacheEntity cacheEntity, MappingLookup.CacheKey mappingCacheKey, Object readerCacheKey, BytesReference cacheKey) {
+        cache.invalidate(new Key(cacheEntity, mappingCacheKey, readerCacheKey, cacheKey));
     }
 
     private static class Loader implements CacheLoader<Key, BytesReference> {
@@ -342,4 +406,85 @@ public final class IndicesRequestCache implements Closeable {
     int numRegisteredCloseListeners() { // for testing
         return registeredClosedListeners.size();
     }
+
+    /**
+     * The operations the request cache needs from the underlying cache, so that it can be backed by either eviction policy.
+     */
+    private interface Store {
+        BytesReference computeIfAbsent(Key key, CacheLoader<Key, BytesReference> loader) throws ExecutionException;
+
+        void invalidate(Key key);
+
+        void invalidateAll();
+
+        void refresh();
+
+        int count();
+
+        Iterable<Key> keys();
+    }
+
+    private record LruStore(Cache<Key, BytesReference> cache) implements Store {
+        @Override
+        public BytesReference computeIfAbsent(Key key, CacheLoader<Key, BytesReference> loader) throws ExecutionException {
+            return cache.computeIfAbsent(key, loader);
+        }
+
+        @Override
+        public void invalidate(Key key) {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void refresh() {
+            cache.refresh();
+        }
+
+        @Override
+        public int count() {
+            return cache.count();
+        }
+
+        @Override
+        public Iterable<Key> keys() {
+            return cache.keys();
+        }
+    }
+
+    private record WindowTinyLfuStore(WindowTinyLfuCache<Key, BytesReference> cache) implements Store {
+        @Override
+        public BytesReference computeIfAbsent(Key key, CacheLoader<Key, BytesReference> loader) throws ExecutionException {
+            return cache.computeIfAbsent(key, loader);
+        }
+
+        @Override
+        public void invalidate(Key key) {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void refresh() {
+            cache.refresh();
+        }
+
+        @Override
+        public int count() {
+            return cache.count();
+        }
+
+        @Override
+        public Iterable<Key> keys() {
+            return cache.keys();
+        }
+    }
 }
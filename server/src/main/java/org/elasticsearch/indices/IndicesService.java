@@ -12,7 +12,9 @@ package org.elasticsearch.indices;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexReader.CacheHelper;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.CollectionUtil;
 import org.apache.lucene.util.RamUsageEstimator;
@@ -129,6 +131,7 @@ import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -145,10 +148,12 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
 import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QueryPhase;
 import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.query.SegmentQueryResult;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.xcontent.XContentParserConfiguration;
@@ -180,6 +185,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
@@ -246,6 +252,7 @@ public class IndicesService extends AbstractLifecycleComponent
     private final NamedWriteableRegistry namedWriteableRegistry;
     private final Map<String, IndexStorePlugin.SnapshotCommitSupplier> snapshotCommitSuppliers;
     private final IndexingMemoryController indexingMemoryController;
+    private final TranslogSyncCoordinator translogSyncCoordinator;
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
@@ -268,6 +275,7 @@ public class IndicesService extends AbstractLifecycleComponent
     private final boolean nodeWriteDanglingIndicesInfo;
     private final ValuesSourceRegistry valuesSourceRegistry;
     private final TimestampFieldMapperService timestampFieldMapperService;
+    private final CanMatchFieldRangeCache canMatchFieldRangeCache;
     private final CheckedBiConsumer<ShardSearchRequest, StreamOutput, IOException> requestCacheKeyDifferentiator;
     private final MapperMetrics mapperMetrics;
     private final PostRecoveryMerger postRecoveryMerger;
@@ -312,6 +320,7 @@ public class IndicesService extends AbstractLifecycleComponent
         this.clusterService = builder.clusterService;
         this.projectResolver = builder.projectResolver;
         this.client = builder.client;
+        this.translogSyncCoordinator = new TranslogSyncCoordinator(settings, clusterService.getClusterSettings(), threadPool);
         this.idFieldDataEnabled = INDICES_ID_FIELD_DATA_ENABLED_SETTING.get(clusterService.getSettings());
         clusterService.getClusterSettings().addSettingsUpdateConsumer(INDICES_ID_FIELD_DATA_ENABLED_SETTING, this::setIdFieldDataEnabled);
         this.indicesFieldDataCache = new IndicesFieldDataCache(settings, new IndexFieldDataCache.Listener() {
@@ -354,6 +363,7 @@ public class IndicesService extends AbstractLifecycleComponent
                 IOUtils.close(
                     analysisRegistry,
                     indexingMemoryController,
+                    translogSyncCoordinator,
                     indicesFieldDataCache,
                     cacheCleaner,
                     indicesRequestCache,
@@ -391,6 +401,7 @@ public class IndicesService extends AbstractLifecycleComponent
         clusterService.getClusterSettings().addSettingsUpdateConsumer(ALLOW_EXPENSIVE_QUERIES, this::setAllowExpensiveQueries);
 
         this.timestampFieldMapperService = new TimestampFieldMapperService(settings, threadPool, this);
+        this.canMatchFieldRangeCache = new CanMatchFieldRangeCache(settings);
         this.postRecoveryMerger = new PostRecoveryMerger(settings, threadPool.executor(ThreadPool.Names.FORCE_MERGE), this::getShardOrNull);
         this.searchOperationListeners = builder.searchOperationListener;
         this.slowLogFieldProvider = builder.slowLogFieldProvider;
@@ -772,6 +783,7 @@ public class IndicesService extends AbstractLifecycleComponent
         for (IndexingOperationListener operationListener : indexingOperationListeners) {
             indexModule.addIndexOperationListener(operationListener);
         }
+        indexModule.setTranslogSyncCoordinator(translogSyncCoordinator);
         pluginsService.forEach(p -> p.onIndexModule(indexModule));
         for (IndexEventListener listener : builtInListeners) {
             indexModule.addIndexEventListener(listener);
@@ -1580,6 +1592,11 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         } else if (request.requestCache() == false) {
             return false;
+        } else if (context.size() != 0 && context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            // The query phase results of requests that return top hits are only cached when the request opts in. The top docs and their
+            // sort values only depend on the reader that is part of the cache key, except for the hits collected before terminating
+            // early which depend on the order in which the slices of the shard are searched.
+            return false;
         }
         // We use the cacheKey of the index reader as a part of a key of the IndicesRequestCache.
         assert context.searcher().getIndexReader().getReaderCacheHelper() != null;
@@ -1606,7 +1623,7 @@ public class IndicesService extends AbstractLifecycleComponent
         boolean[] loadedFromCache = new boolean[] { true };
         BytesReference cacheKey = request.cacheKey(requestCacheKeyDifferentiator);
         BytesReference bytesReference = cacheShardLevelResult(
-            context.indexShard(),
+            new IndexShardCacheEntity(context.indexShard(), context.size() > 0),
             context.getSearchExecutionContext().mappingCacheKey(),
             directoryReader,
             cacheKey,
@@ -1647,26 +1664,115 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Can the results of the shard request be cached per segment rather than for the whole shard? This requires the
+     * {@link IndicesRequestCache#INDEX_CACHE_REQUEST_PER_SEGMENT_SETTING} to be enabled and a request that only counts hits and
+     * computes aggregations that can be merged across segments, the same way they are merged across the slices of a concurrent search.
+     */
+    public static boolean canCachePerSegment(
+        ShardSearchRequest request,
+        SearchContext context,
+        ToLongFunction<String> fieldCardinality
+    ) {
+        assert canCache(request, context);
+        if (context.indexShard().indexSettings().getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_PER_SEGMENT_SETTING) == false) {
+            return false;
+        }
+        if (context.size() != 0
+            || context.parsedPostFilter() != null
+            || context.minimumScore() != null
+            || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+            || (context.rescore() != null && context.rescore().isEmpty() == false)
+            || context.suggest() != null
+            || context.collapse() != null
+            || context.queryPhaseRankShardContext() != null) {
+            return false;
+        }
+        if (context.aggregations() != null && context.aggregations().isInSortOrderExecutionRequired()) {
+            return false;
+        }
+        // aggregations that cannot be collected in parallel, like terms on a high cardinality field, cannot be merged accurately either
+        if (request.source() != null
+            && (request.source().rankBuilder() != null || request.source().supportsParallelCollection(fieldCardinality) == false)) {
+            return false;
+        }
+        final List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        if (leaves.isEmpty()) {
+            return false;
+        }
+        for (LeafReaderContext leaf : leaves) {
+            if (leaf.reader().getReaderCacheHelper() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link #loadIntoContext} but caches the results of every segment of the shard separately, keyed on the segment reader.
+     * Segments that were not modified since the last request, which are most segments after a refresh, are served from the cache and
+     * only the results of the new segments are computed. The results of all segments are then merged into the query result of the
+     * context.
+     */
+    public void loadIntoContextPerSegment(ShardSearchRequest request, SearchContext context) throws Exception {
+        assert canCachePerSegment(request, context, field -> -1);
+        final IndexShardCacheEntity cacheEntity = new IndexShardCacheEntity(context.indexShard());
+        final MappingLookup.CacheKey mappingCacheKey = context.getSearchExecutionContext().mappingCacheKey();
+        final BytesReference cacheKey = request.cacheKey(requestCacheKeyDifferentiator);
+        final ContextIndexSearcher searcher = context.searcher();
+        final Runnable timeoutRunnable = QueryPhase.getTimeoutCheck(context);
+        if (timeoutRunnable != null) {
+            searcher.addQueryCancellation(timeoutRunnable);
+        }
+        try {
+            final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+            final List<SegmentQueryResult> segmentResults = new ArrayList<>(leaves.size());
+            for (LeafReaderContext leaf : leaves) {
+                // the reader key rather than the core key, deletes change the results of a segment
+                final IndexReader.CacheHelper cacheHelper = leaf.reader().getReaderCacheHelper();
+                final boolean[] loadedFromCache = new boolean[] { true };
+                final BytesReference bytesReference = indicesRequestCache.getOrCompute(cacheEntity, () -> {
+                    try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                        QueryPhase.executeOnSegment(context, leaf).writeTo(out);
+                        loadedFromCache[0] = false;
+                        return out.bytes();
+                    }
+                }, mappingCacheKey, new ESCacheHelper.Wrapper(cacheHelper), cacheKey);
+                try (StreamInput in = new NamedWriteableAwareStreamInput(bytesReference.streamInput(), namedWriteableRegistry)) {
+                    segmentResults.add(SegmentQueryResult.readFrom(in));
+                }
+                if (loadedFromCache[0] == false && searcher.timeExceeded()) {
+                    // partial results of a segment must not be served to other requests, see loadIntoContext
+                    indicesRequestCache.invalidate(cacheEntity, mappingCacheKey, cacheHelper.getKey(), cacheKey);
+                }
+            }
+            QueryPhase.setSegmentResults(context, segmentResults);
+        } finally {
+            if (timeoutRunnable != null) {
+                searcher.removeQueryCancellation(timeoutRunnable);
+            }
+        }
+    }
+
     public long getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
 
     /**
      * Cache something calculated at the shard level.
-     * @param shard the shard this item is part of
+     * @param cacheEntity the shard this item is part of
      * @param reader a reader for this shard. Used to invalidate the cache when there are changes.
      * @param cacheKey key for the thing being cached within this shard
      * @param loader loads the data into the cache if needed
      * @return the contents of the cache or the result of calling the loader
      */
     private BytesReference cacheShardLevelResult(
-        IndexShard shard,
+        IndexShardCacheEntity cacheEntity,
         MappingLookup.CacheKey mappingCacheKey,
         DirectoryReader reader,
         BytesReference cacheKey,
         CheckedConsumer<StreamOutput, IOException> loader
     ) throws Exception {
-        IndexShardCacheEntity cacheEntity = new IndexShardCacheEntity(shard);
         CheckedSupplier<BytesReference, IOException> supplier = () -> {
             /* BytesStreamOutput allows to pass the expected size but by default uses
              * BigArrays.PAGE_SIZE_IN_BYTES which is 16k. A common cached result ie.
@@ -1689,9 +1795,15 @@ public class IndicesService extends AbstractLifecycleComponent
     static final class IndexShardCacheEntity extends AbstractIndexShardCacheEntity {
         private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IndexShardCacheEntity.class);
         private final IndexShard indexShard;
+        private final boolean topHits;
 
         protected IndexShardCacheEntity(IndexShard indexShard) {
+            this(indexShard, false);
+        }
+
+        protected IndexShardCacheEntity(IndexShard indexShard, boolean topHits) {
             this.indexShard = indexShard;
+            this.topHits = topHits;
         }
 
         @Override
@@ -1699,6 +1811,11 @@ public class IndicesService extends AbstractLifecycleComponent
             return indexShard.requestCache();
         }
 
+        @Override
+        protected boolean cachesTopHits() {
+            return topHits;
+        }
+
         @Override
         public boolean isOpen() {
             return indexShard.state() != IndexShardState.CLOSED;
@@ -1808,7 +1925,8 @@ public class IndicesService extends AbstractLifecycleComponent
             client,
             nowInMillis,
             () -> clusterService.state().projectState(projectId),
-            this::getTimestampFieldTypeInfo
+            this::getTimestampFieldTypeInfo,
+            canMatchFieldRangeCache
         );
     }
 
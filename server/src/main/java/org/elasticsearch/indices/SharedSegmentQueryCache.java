@@ -0,0 +1,378 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitDocIdSet;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.RoaringDocIdSet;
+import org.apache.lucene.util.StringHelper;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A node level cache of the {@link DocIdSet}s of filters that is keyed on the id of the segment rather than on the core of the segment
+ * reader like {@link IndicesQueryCache}. Copies of the same segment files that are opened by different shards, like a snapshot that is
+ * mounted twice or a replica that was recovered from the files of its primary, share their cached filters.
+ * <p>
+ * The key is the id of the segment, which identifies its files and is the same for every reader of the segment. Like in Lucene's
+ * query cache, the cached filters ignore deleted documents, which are filtered out at search time, and segments whose doc values were
+ * updated are not cacheable, so the same filter can be reused by every reader of a segment. Entries of a segment are released once the
+ * last reader that uses the segment is closed.
+ */
+final class SharedSegmentQueryCache {
+
+    // same threshold as the default one of Lucene's LRUQueryCache, small segments are cheap to search
+    private static final int MIN_SEGMENT_SIZE = 10_000;
+
+    private final Cache<Key, CachedDocIdSet> cache;
+    private final boolean cacheAllSegments;
+    // the segment id of every core that was seen by this cache, and the cores that are still open for every segment id
+    private final Map<Object, String> segmentIdByCore = ConcurrentCollections.newConcurrentMap();
+    private final Map<String, Set<Object>> openCoresBySegmentId = new HashMap<>();
+    // the keys of the cached entries of every segment id, so that the entries of a segment can be cleared without scanning the cache
+    private final Map<String, Set<Key>> keysBySegmentId = ConcurrentCollections.newConcurrentMap();
+    private final Map<ShardId, Stats> shardStats = ConcurrentCollections.newConcurrentMap();
+
+    SharedSegmentQueryCache(long maxRamBytesUsed, boolean cacheAllSegments) {
+        this.cacheAllSegments = cacheAllSegments;
+        this.cache = CacheBuilder.<Key, CachedDocIdSet>builder()
+            .setMaximumWeight(maxRamBytesUsed)
+            .weigher((key, value) -> value.ramBytesUsed)
+            .removalListener(notification -> {
+                notification.getValue().owner.ramBytesUsed.add(-notification.getValue().ramBytesUsed);
+                unregister(notification.getKey());
+            })
+            .build();
+    }
+
+    /**
+     * Wraps the given weight so that its {@link DocIdSet}s are cached per segment id. Segments that cannot be shared fall back to
+     * {@code fallback}, which is the weight wrapped by the per core cache.
+     */
+    Weight doCache(Weight weight, Weight fallback, QueryCachingPolicy policy) {
+        return new SharedCachingWeight(weight, fallback, policy);
+    }
+
+    /**
+     * Adds the usage of the shared cache by the given shard to the given stats.
+     */
+    void addStats(ShardId shardId, QueryCacheStats stats) {
+        final Stats shard = shardStats.get(shardId);
+        if (shard != null) {
+            stats.addSharedSegmentStats(shard.ramBytesUsed.sum(), shard.hitCount.sum(), shard.missCount.sum());
+        }
+    }
+
+    long ramBytesUsed() {
+        return cache.weight();
+    }
+
+    int count() {
+        return cache.count();
+    }
+
+    void onClose(ShardId shardId) {
+        // entries that the shard added stay in the cache for other copies of the same segments, they are accounted to no shard anymore
+        shardStats.remove(shardId);
+    }
+
+    /**
+     * Clears the entries of the segments of the given cores.
+     */
+    void clearCores(Iterable<Object> coreKeys) {
+        final List<String> segmentIds = new ArrayList<>();
+        for (Object coreKey : coreKeys) {
+            final String segmentId = segmentIdByCore.get(coreKey);
+            if (segmentId != null) {
+                segmentIds.add(segmentId);
+            }
+        }
+        if (segmentIds.isEmpty() == false) {
+            invalidate(Set.copyOf(segmentIds));
+        }
+    }
+
+    void clear() {
+        cache.invalidateAll();
+    }
+
+    @Nullable
+    private String segmentId(LeafReaderContext context) {
+        final IndexReader.CacheHelper coreCacheHelper = context.reader().getCoreCacheHelper();
+        if (coreCacheHelper == null) {
+            return null;
+        }
+        final Object coreKey = coreCacheHelper.getKey();
+        final String known = segmentIdByCore.get(coreKey);
+        if (known != null) {
+            return known;
+        }
+        final SegmentReader segmentReader;
+        try {
+            segmentReader = Lucene.segmentReader(context.reader());
+        } catch (IllegalStateException e) {
+            return null;
+        }
+        final SegmentInfo segmentInfo = segmentReader.getSegmentInfo().info;
+        if (segmentInfo.getId() == null) {
+            // segments written by old versions of Lucene have no id
+            return null;
+        }
+        // the core of a segment reader is shared by the readers of the same segment only, so the id can be memoized per core
+        final String segmentId = StringHelper.idToString(segmentInfo.getId());
+        if (segmentIdByCore.putIfAbsent(coreKey, segmentId) == null) {
+            synchronized (openCoresBySegmentId) {
+                openCoresBySegmentId.computeIfAbsent(segmentId, k -> new HashSet<>()).add(coreKey);
+            }
+            coreCacheHelper.addClosedListener(this::onCoreClosed);
+        }
+        return segmentId;
+    }
+
+    private boolean isOpen(String segmentId) {
+        synchronized (openCoresBySegmentId) {
+            return openCoresBySegmentId.containsKey(segmentId);
+        }
+    }
+
+    private void onCoreClosed(IndexReader.CacheKey coreKey) {
+        final String segmentId = segmentIdByCore.remove(coreKey);
+        if (segmentId == null) {
+            return;
+        }
+        final boolean lastCore;
+        synchronized (openCoresBySegmentId) {
+            final Set<Object> cores = openCoresBySegmentId.get(segmentId);
+            cores.remove(coreKey);
+            lastCore = cores.isEmpty();
+            if (lastCore) {
+                openCoresBySegmentId.remove(segmentId);
+            }
+        }
+        if (lastCore) {
+            invalidate(Set.of(segmentId));
+        }
+    }
+
+    private void invalidate(Set<String> segmentIds) {
+        for (String segmentId : segmentIds) {
+            final Set<Key> keys = keysBySegmentId.remove(segmentId);
+            if (keys != null) {
+                // the set was removed from the index so invalidating its keys does not modify it
+                for (Key key : keys) {
+                    cache.invalidate(key);
+                }
+            }
+        }
+    }
+
+    private void register(Key key) {
+        keysBySegmentId.compute(key.segmentId, (segmentId, keys) -> {
+            final Set<Key> registered = keys == null ? new HashSet<>() : keys;
+            registered.add(key);
+            return registered;
+        });
+    }
+
+    private void unregister(Key key) {
+        keysBySegmentId.computeIfPresent(key.segmentId, (segmentId, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private Stats stats(LeafReaderContext context) {
+        final ShardId shardId = ShardUtils.extractShardId(context.reader());
+        return shardId == null ? Stats.UNASSIGNED : shardStats.computeIfAbsent(shardId, id -> new Stats());
+    }
+
+    private static CachedDocIdSet cacheImpl(Weight weight, LeafReaderContext context, Stats owner) throws IOException {
+        final BulkScorer scorer = weight.bulkScorer(context);
+        final DocIdSet docIdSet;
+        if (scorer == null) {
+            docIdSet = DocIdSet.EMPTY;
+        } else {
+            final int maxDoc = context.reader().maxDoc();
+            // dense sets are cheaper to store as a bit set, sparse ones as a roaring doc id set, like in Lucene's LRUQueryCache
+            if (scorer.cost() * 100 >= maxDoc) {
+                final FixedBitSet bitSet = new FixedBitSet(maxDoc);
+                scorer.score(collector(bitSet::set), null, 0, DocIdSetIterator.NO_MORE_DOCS);
+                docIdSet = new BitDocIdSet(bitSet);
+            } else {
+                final RoaringDocIdSet.Builder builder = new RoaringDocIdSet.Builder(maxDoc);
+                scorer.score(collector(builder::add), null, 0, DocIdSetIterator.NO_MORE_DOCS);
+                docIdSet = builder.build();
+            }
+        }
+        return new CachedDocIdSet(docIdSet, owner);
+    }
+
+    private static LeafCollector collector(DocConsumer consumer) {
+        return new LeafCollector() {
+            @Override
+            public void setScorer(Scorable scorer) {}
+
+            @Override
+            public void collect(int doc) {
+                consumer.accept(doc);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface DocConsumer {
+        void accept(int doc);
+    }
+
+    private class SharedCachingWeight extends Weight {
+        private final Weight in;
+        private final Weight fallback;
+        private final QueryCachingPolicy policy;
+        private boolean used;
+
+        SharedCachingWeight(Weight in, Weight fallback, QueryCachingPolicy policy) {
+            super(in.getQuery());
+            this.in = in;
+            this.fallback = fallback;
+            this.policy = policy;
+        }
+
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+            return fallback.explain(context, doc);
+        }
+
+        @Override
+        public int count(LeafReaderContext context) throws IOException {
+            return fallback.count(context);
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+            return in.isCacheable(ctx);
+        }
+
+        @Override
+        public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+            final String segmentId = cacheAllSegments || context.reader().maxDoc() >= MIN_SEGMENT_SIZE ? segmentId(context) : null;
+            if (segmentId == null || in.isCacheable(context) == false) {
+                return fallback.scorerSupplier(context);
+            }
+            synchronized (this) {
+                if (used == false) {
+                    used = true;
+                    policy.onUse(getQuery());
+                }
+            }
+            final Stats stats = stats(context);
+            final Key key = new Key(segmentId, getQuery());
+            CachedDocIdSet cached = cache.get(key);
+            if (cached != null) {
+                stats.hitCount.increment();
+            } else {
+                stats.missCount.increment();
+                if (policy.shouldCache(getQuery()) == false) {
+                    return fallback.scorerSupplier(context);
+                }
+                final boolean[] loaded = new boolean[] { false };
+                try {
+                    cached = cache.computeIfAbsent(key, k -> {
+                        final CachedDocIdSet value = cacheImpl(in, context, stats);
+                        stats.ramBytesUsed.add(value.ramBytesUsed);
+                        loaded[0] = true;
+                        return value;
+                    });
+                } catch (ExecutionException e) {
+                    throw ExceptionsHelper.convertToElastic(e);
+                }
+                if (loaded[0]) {
+                    // registered once the entry is in the cache, the last reader of the segment may have been closed in the meantime
+                    register(key);
+                    if (isOpen(segmentId) == false) {
+                        invalidate(Set.of(segmentId));
+                    }
+                }
+            }
+            final DocIdSetIterator iterator = cached.docIdSet.iterator();
+            if (iterator == null) {
+                return null;
+            }
+            return new ScorerSupplier() {
+                @Override
+                public Scorer get(long leadCost) {
+                    return new ConstantScoreScorer(0f, ScoreMode.COMPLETE_NO_SCORES, iterator);
+                }
+
+                @Override
+                public long cost() {
+                    return iterator.cost();
+                }
+            };
+        }
+    }
+
+    private record Key(String segmentId, Query query) {}
+
+    private static final class CachedDocIdSet {
+        private final DocIdSet docIdSet;
+        private final Stats owner;
+        private final long ramBytesUsed;
+
+        CachedDocIdSet(DocIdSet docIdSet, Stats owner) {
+            this.docIdSet = docIdSet;
+            this.owner = owner;
+            this.ramBytesUsed = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + docIdSet.ramBytesUsed();
+        }
+    }
+
+    private static final class Stats {
+        // entries computed by readers that do not belong to a shard, only used in tests
+        static final Stats UNASSIGNED = new Stats();
+
+        final LongAdder ramBytesUsed = new LongAdder();
+        final LongAdder hitCount = new LongAdder();
+        final LongAdder missCount = new LongAdder();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.SearchExportResponseStream;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.features.NodeFeature;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.Scope;
+import org.elasticsearch.rest.ServerlessScope;
+import org.elasticsearch.rest.action.RestCancellableNodeClient;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.usage.SearchUsageHolder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+/**
+ * Exports all the hits that match a query as newline delimited JSON, see {@link SearchExportResponseStream}.
+ */
+@ServerlessScope(Scope.PUBLIC)
+public class RestSearchExportAction extends BaseRestHandler {
+
+    static final int DEFAULT_PAGE_SIZE = 1000;
+    static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+    static final int DEFAULT_MAX_CONCURRENT_SHARD_REQUESTS = 5;
+
+    private final NamedWriteableRegistry namedWriteableRegistry;
+    private final SearchUsageHolder searchUsageHolder;
+    private final Predicate<NodeFeature> clusterSupportsFeature;
+
+    public RestSearchExportAction(
+        NamedWriteableRegistry namedWriteableRegistry,
+        SearchUsageHolder searchUsageHolder,
+        Predicate<NodeFeature> clusterSupportsFeature
+    ) {
+        this.namedWriteableRegistry = namedWriteableRegistry;
+        this.searchUsageHolder = searchUsageHolder;
+        this.clusterSupportsFeature = clusterSupportsFeature;
+    }
+
+    @Override
+    public String getName() {
+        return "search_export_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return List.of(new Route(GET, "/{index}/_export"), new Route(POST, "/{index}/_export"));
+    }
+
+    @Override
+    public RestChannelConsumer prepareRequest(final RestRequest request, final NodeClient client) throws IOException {
+        final String[] indices = Strings.splitStringByCommaToArray(request.param("index"));
+        final TimeValue keepAlive = request.paramAsTime("keep_alive", DEFAULT_KEEP_ALIVE);
+        final OpenPointInTimeRequest openRequest = new OpenPointInTimeRequest(indices);
+        openRequest.indicesOptions(IndicesOptions.fromRequest(request, OpenPointInTimeRequest.DEFAULT_INDICES_OPTIONS));
+        openRequest.routing(request.param("routing"));
+        openRequest.preference(request.param("preference"));
+        openRequest.keepAlive(keepAlive);
+        final int maxConcurrentShards = request.paramAsInt("max_concurrent_shard_requests", DEFAULT_MAX_CONCURRENT_SHARD_REQUESTS);
+        if (maxConcurrentShards < 1) {
+            throw new IllegalArgumentException("[max_concurrent_shard_requests] must be greater than 0, got [" + maxConcurrentShards + "]");
+        }
+
+        final SearchSourceBuilder source = new SearchSourceBuilder();
+        request.withContentOrSourceParamParserOrNull(parser -> {
+            if (parser != null) {
+                source.parseXContent(parser, true, searchUsageHolder, clusterSupportsFeature);
+            }
+        });
+        if (source.size() < 0) {
+            source.size(DEFAULT_PAGE_SIZE);
+        } else if (source.size() == 0) {
+            throw new IllegalArgumentException("[size] must be greater than 0 for an export, it is the number of hits per page");
+        }
+        validate(source);
+
+        return channel -> {
+            final RestCancellableNodeClient cancelClient = new RestCancellableNodeClient(client, request.getHttpChannel());
+            new SearchExportResponseStream(cancelClient, client, namedWriteableRegistry, channel, source, keepAlive, maxConcurrentShards)
+                .start(openRequest);
+        };
+    }
+
+    /**
+     * Rejects the parts of a search that require the hits of all shards to be reduced together, which an export never does.
+     */
+    static void validate(SearchSourceBuilder source) {
+        rejectIf(source.from() > 0, "from");
+        rejectIf(source.sorts() != null && source.sorts().isEmpty() == false, "sort");
+        rejectIf(source.searchAfter() != null, "search_after");
+        rejectIf(source.pointInTimeBuilder() != null, "pit");
+        rejectIf(source.slice() != null, "slice");
+        rejectIf(source.collapse() != null, "collapse");
+        rejectIf(source.aggregations() != null, "aggs");
+        rejectIf(source.suggest() != null, "suggest");
+        rejectIf(source.rescores() != null && source.rescores().isEmpty() == false, "rescore");
+        rejectIf(source.knnSearch().isEmpty() == false, "knn");
+        rejectIf(source.rankBuilder() != null, "rank");
+        rejectIf(source.retriever() != null, "retriever");
+    }
+
+    private static void rejectIf(boolean condition, String field) {
+        if (condition) {
+            throw new IllegalArgumentException("[" + field + "] is not supported by the export API");
+        }
+    }
+}
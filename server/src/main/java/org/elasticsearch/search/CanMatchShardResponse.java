@@ -9,8 +9,11 @@
 
 package org.elasticsearch.search;
 
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.indices.CanMatchFieldRangeCache;
 import org.elasticsearch.search.sort.MinAndMax;
 
 import java.io.IOException;
@@ -21,22 +24,41 @@ import java.io.IOException;
 public final class CanMatchShardResponse extends SearchPhaseResult {
     private final boolean canMatch;
     private final MinAndMax<?> estimatedMinAndMax;
+    @Nullable
+    private final CanMatchFieldRangeCache.ShardRanges fieldRanges;
 
     public CanMatchShardResponse(StreamInput in) throws IOException {
         super(in);
         this.canMatch = in.readBoolean();
         estimatedMinAndMax = in.readOptionalWriteable(MinAndMax::new);
+        if (in.getTransportVersion().onOrAfter(TransportVersions.CAN_MATCH_FIELD_RANGES)) {
+            fieldRanges = in.readOptionalWriteable(CanMatchFieldRangeCache.ShardRanges::new);
+        } else {
+            fieldRanges = null;
+        }
     }
 
     public CanMatchShardResponse(boolean canMatch, MinAndMax<?> estimatedMinAndMax) {
+        this(canMatch, estimatedMinAndMax, null);
+    }
+
+    public CanMatchShardResponse(
+        boolean canMatch,
+        MinAndMax<?> estimatedMinAndMax,
+        @Nullable CanMatchFieldRangeCache.ShardRanges fieldRanges
+    ) {
         this.canMatch = canMatch;
         this.estimatedMinAndMax = estimatedMinAndMax;
+        this.fieldRanges = fieldRanges;
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeBoolean(canMatch);
         out.writeOptionalWriteable(estimatedMinAndMax);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.CAN_MATCH_FIELD_RANGES)) {
+            out.writeOptionalWriteable(fieldRanges);
+        }
     }
 
     public boolean canMatch() {
@@ -46,4 +68,13 @@ public final class CanMatchShardResponse extends SearchPhaseResult {
     public MinAndMax<?> estimatedMinAndMax() {
         return estimatedMinAndMax;
     }
+
+    /**
+     * The ranges of the date fields of the shard that the coordinator may cache to skip the shard without a can_match round trip,
+     * or {@code null} if the ranges of the shard may still change.
+     */
+    @Nullable
+    public CanMatchFieldRangeCache.ShardRanges fieldRanges() {
+        return fieldRanges;
+    }
 }
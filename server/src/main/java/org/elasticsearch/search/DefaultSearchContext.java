@@ -25,6 +25,7 @@ import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cluster.routing.IndexRouting;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.TimeValue;
@@ -192,6 +193,7 @@ final class DefaultSearchContext extends SearchContext {
                 enableQueryPhaseParallelCollection,
                 field -> getFieldCardinality(field, readerContext.indexService(), engineSearcher.getDirectoryReader())
             );
+            maximumNumberOfSlices = determineLoadAwareNumberOfSlices(executor, maximumNumberOfSlices);
             if (executor == null || maximumNumberOfSlices <= 1) {
                 this.searcher = new ContextIndexSearcher(
                     engineSearcher.getIndexReader(),
@@ -302,6 +304,23 @@ final class DefaultSearchContext extends SearchContext {
                 : 1;
     }
 
+    /**
+     * Lowers the maximum number of slices of a request according to the current load of the executor. Threads of the executor that are
+     * busy, or that queued tasks are waiting for, are threads that the slices of this request would have to compete for: a request
+     * executes on a single thread when the executor is saturated while a request that finds the executor idle still fans out to the
+     * whole pool. The load is read from counters that do not lock the executor. The slices are further bounded by the cost of the query
+     * when it is executed, see {@link ContextIndexSearcher}.
+     */
+    static int determineLoadAwareNumberOfSlices(Executor executor, int maximumNumberOfSlices) {
+        if (maximumNumberOfSlices <= 1 || executor instanceof EsThreadPoolExecutor == false) {
+            return maximumNumberOfSlices;
+        }
+        final EsThreadPoolExecutor tpe = (EsThreadPoolExecutor) executor;
+        final long idleThreads = (long) tpe.getMaximumPoolSize() - tpe.getRunningTaskCount() - tpe.getCurrentQueueSize();
+        // the request itself usually runs on one of the threads of the executor, which is then counted as running
+        return (int) Math.min(maximumNumberOfSlices, Math.max(1, idleThreads + 1));
+    }
+
     static boolean isParallelCollectionSupportedForResults(
         SearchService.ResultsType resultsType,
         SearchSourceBuilder source,
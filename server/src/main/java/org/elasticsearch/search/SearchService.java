@@ -12,6 +12,7 @@ package org.elasticsearch.search;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
@@ -49,6 +50,7 @@ import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.RefCounted;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
@@ -72,6 +74,7 @@ import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.CanMatchFieldRangeCache;
 import org.elasticsearch.indices.ExecutorSelector;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -260,6 +263,19 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * The number of threads that the coordinating node uses to reduce the aggregations of a single search request. With
+     * more than one thread the shard results are split into groups that are reduced concurrently before their partial
+     * results are merged.
+     */
+    public static final Setting<Integer> AGGS_REDUCE_CONCURRENCY = Setting.intSetting(
+        "search.aggs.reduce_concurrency",
+        1,
+        1,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final Setting<ByteSizeValue> MAX_ASYNC_SEARCH_RESPONSE_SIZE_SETTING = Setting.byteSizeSetting(
         "search.max_async_search_response_size",
         ByteSizeValue.of(10, ByteSizeUnit.MB),
@@ -325,6 +341,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
 
+    private volatile int aggsReduceConcurrency;
+
     private volatile long memoryAccountingBufferSize;
 
     private final Cancellable keepAliveReaper;
@@ -395,6 +413,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
 
+        aggsReduceConcurrency = AGGS_REDUCE_CONCURRENCY.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(AGGS_REDUCE_CONCURRENCY, this::setAggsReduceConcurrency);
+
         if (SEARCH_WORKER_THREADS_ENABLED.get(settings)) {
             searchExecutor = threadPool.executor(Names.SEARCH);
         }
@@ -462,6 +483,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.maxOpenScrollContext = maxOpenScrollContext;
     }
 
+    private void setAggsReduceConcurrency(int aggsReduceConcurrency) {
+        this.aggsReduceConcurrency = aggsReduceConcurrency;
+    }
+
+    /**
+     * The number of threads that reduce the aggregations of a search request on the coordinating node.
+     */
+    public int getAggsReduceConcurrency() {
+        return aggsReduceConcurrency;
+    }
+
     private void setLowLevelCancellation(Boolean lowLevelCancellation) {
         this.lowLevelCancellation = lowLevelCancellation;
     }
@@ -594,7 +626,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         final boolean canCache = IndicesService.canCache(request, context);
         context.getSearchExecutionContext().freezeContext();
         if (canCache) {
-            indicesService.loadIntoContext(request, context);
+            final IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
+            final DirectoryReader directoryReader = context.searcher().getDirectoryReader();
+            final boolean perSegment = IndicesService.canCachePerSegment(
+                request,
+                context,
+                field -> DefaultSearchContext.getFieldCardinality(field, indexService, directoryReader)
+            );
+            if (perSegment) {
+                indicesService.loadIntoContextPerSegment(request, context);
+            } else {
+                indicesService.loadIntoContext(request, context);
+            }
         } else {
             QueryPhase.execute(context);
         }
@@ -1854,12 +1897,16 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             try (canMatchSearcher) {
                 SearchExecutionContext context = canMatchContext.getSearchExecutionContext(canMatchSearcher);
                 final boolean canMatch = queryStillMatchesAfterRewrite(canMatchContext.request, context);
+                // a point in time may predate the latest documents of the shard so only report ranges of the latest searcher
+                final CanMatchFieldRangeCache.ShardRanges fieldRanges = canMatchContext.request.readerId() == null
+                    ? readShardFieldRanges(canMatchContext.getIndexService(), canMatchSearcher)
+                    : null;
                 if (canMatch || hasRefreshPending) {
                     FieldSortBuilder sortBuilder = FieldSortBuilder.getPrimaryFieldSortOrNull(canMatchContext.request.source());
                     final MinAndMax<?> minMax = sortBuilder != null ? FieldSortBuilder.getMinMaxOrNull(context, sortBuilder) : null;
-                    return new CanMatchShardResponse(true, minMax);
+                    return new CanMatchShardResponse(true, minMax, fieldRanges);
                 }
-                return new CanMatchShardResponse(false, null);
+                return new CanMatchShardResponse(false, null, fieldRanges);
             }
         } catch (Exception e) {
             return new CanMatchShardResponse(true, null);
@@ -1868,6 +1915,24 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
     }
 
+    /**
+     * Returns the ranges of the date fields of the shard that the coordinator may cache, or {@code null} if there are none. Failing to
+     * read them must not change the outcome of the can_match request.
+     */
+    @Nullable
+    private static CanMatchFieldRangeCache.ShardRanges readShardFieldRanges(IndexService indexService, Engine.Searcher searcher) {
+        try {
+            return CanMatchFieldRangeCache.readShardRanges(
+                indexService.getMetadata(),
+                indexService.mapperService(),
+                searcher.getDirectoryReader()
+            );
+        } catch (Exception e) {
+            logger.debug("failed to read the field ranges of the shard for the can_match phase", e);
+            return null;
+        }
+    }
+
     /**
      * This method tries to rewrite a query without using a {@link SearchExecutionContext}. It takes advantage of the fact that
      * we can skip some shards in the query phase because we have enough information in the index mapping to decide the 'can match'
@@ -13,6 +13,7 @@ import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -44,6 +45,20 @@ public class AggregationPhase {
             );
     }
 
+    /**
+     * Creates a collector manager for the aggregations of the request that is independent of the one that {@link #preProcess}
+     * registers, and that hands the collected aggregations to the given consumer. Used to collect the aggregations of a single
+     * segment at a time.
+     */
+    public static AggregatorCollectorManager newCollectorManager(SearchContext context, Consumer<InternalAggregations> consumer) {
+        assert context.aggregations().isInSortOrderExecutionRequired() == false : "time series aggregations must see all segments";
+        return new AggregatorCollectorManager(
+            () -> newAggregatorCollector(context),
+            consumer,
+            () -> context.aggregations().getAggregationReduceContextBuilder().forPartialReduction()
+        );
+    }
+
     private static AggregatorCollector newAggregatorCollector(SearchContext context) {
         try {
             Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators();
@@ -0,0 +1,90 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.util.ArrayUtil;
+
+import java.io.IOException;
+
+/**
+ * Reusable buffer that reads the single valued doc values of a block of docs passed to
+ * {@link LeafBucketCollector#collect(int[], int, long)} into primitive arrays, keeping only
+ * the docs that have a value. Reading the whole block first keeps the doc values iteration
+ * out of the loop that updates the buckets.
+ */
+public final class DocValuesBlock {
+    private int[] docs = new int[0];
+    private long[] values = new long[0];
+    private int size;
+
+    /**
+     * Read the values of the first {@code count} docs of {@code blockDocs}.
+     */
+    public void read(NumericDocValues dv, int[] blockDocs, int count) throws IOException {
+        grow(count);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            final int doc = blockDocs[i];
+            if (dv.advanceExact(doc)) {
+                docs[size] = doc;
+                values[size] = dv.longValue();
+                size++;
+            }
+        }
+        this.size = size;
+    }
+
+    /**
+     * Read the ordinals of the first {@code count} docs of {@code blockDocs}.
+     */
+    public void read(SortedDocValues dv, int[] blockDocs, int count) throws IOException {
+        grow(count);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            final int doc = blockDocs[i];
+            if (dv.advanceExact(doc)) {
+                docs[size] = doc;
+                values[size] = dv.ordValue();
+                size++;
+            }
+        }
+        this.size = size;
+    }
+
+    private void grow(int count) {
+        if (docs.length < count) {
+            docs = ArrayUtil.growExact(docs, ArrayUtil.oversize(count, Integer.BYTES));
+            values = ArrayUtil.growExact(values, docs.length);
+        }
+    }
+
+    /**
+     * The number of docs of the last block that have a value.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The {@code i}th doc of the last block that has a value.
+     */
+    public int doc(int i) {
+        return docs[i];
+    }
+
+    /**
+     * The value of {@link #doc(int)}.
+     */
+    public long value(int i) {
+        return values[i];
+    }
+}
@@ -9,6 +9,7 @@
 
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.search.DocIdStream;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Scorable;
 import org.elasticsearch.search.aggregations.bucket.terms.LongKeyedBucketOrds;
@@ -21,6 +22,12 @@ import java.io.IOException;
  * to do the collecting.
  */
 public abstract class LeafBucketCollector implements LeafCollector {
+    /**
+     * The maximum number of documents that are passed to {@link #collect(int[], int, long)} at once when the query hands out
+     * its matches in bulk.
+     */
+    public static final int MAX_BLOCK_SIZE = 512;
+
     /**
      * A {@linkplain LeafBucketCollector} that doesn't collect anything.
      * {@link Aggregator}s will return this if they've already collected
@@ -39,6 +46,11 @@ public abstract class LeafBucketCollector implements LeafCollector {
             // no-op
         }
 
+        @Override
+        public void collect(int[] docs, int count, long bucket) {
+            // no-op
+        }
+
         @Override
         public boolean isNoop() {
             return true;
@@ -74,6 +86,20 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect the first {@code count} docs of {@code docs}, which are in increasing order, in the bucket owned by
+     * {@code owningBucketOrd}. This is the same as calling {@link #collect(int, long)} for every doc, which is what the default
+     * implementation does, but it allows collectors to read the doc values of the whole block into primitive arrays and then update
+     * their buckets in a tight loop. Blocks are collected when the query hands out its matches as a {@link DocIdStream}, which
+     * happens when scores are not needed but also for constant-score queries, so implementations must not expect the scorer to be
+     * positioned on each doc of the block.
+     */
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrd);
+        }
+    }
+
     /**
      * Does this collector collect anything? If this returns true we can safely
      * just never call {@link #collect}.
@@ -87,6 +113,27 @@ public abstract class LeafBucketCollector implements LeafCollector {
         collect(doc, 0);
     }
 
+    private int[] docBlock;
+
+    @Override
+    public void collect(DocIdStream stream) throws IOException {
+        if (docBlock == null) {
+            docBlock = new int[MAX_BLOCK_SIZE];
+        }
+        final int[] docs = docBlock;
+        final int[] count = new int[] { 0 };
+        stream.forEach(doc -> {
+            docs[count[0]++] = doc;
+            if (count[0] == docs.length) {
+                collect(docs, count[0], 0);
+                count[0] = 0;
+            }
+        });
+        if (count[0] > 0) {
+            collect(docs, count[0], 0);
+        }
+    }
+
     @Override
     public void setScorer(Scorable scorer) throws IOException {
         // no-op by default
@@ -246,6 +246,29 @@ public class MultiBucketCollector extends BucketCollector {
                 }
             }
         }
+
+        @Override
+        public void collect(int[] docs, int count, long bucket) throws IOException {
+            if (scorable != null) {
+                // blocks only come from queries that don't score or give all docs the same score, so the score is cached for the block
+                scorable.curDoc = docs[0];
+            }
+            final LeafBucketCollector[] collectors = this.collectors;
+            int numCollectors = this.numCollectors;
+            for (int i = 0; i < numCollectors;) {
+                final LeafBucketCollector collector = collectors[i];
+                try {
+                    collector.collect(docs, count, bucket);
+                    ++i;
+                } catch (CollectionTerminatedException e) {
+                    removeCollector(i);
+                    numCollectors = this.numCollectors;
+                    if (numCollectors == 0) {
+                        throw new CollectionTerminatedException();
+                    }
+                }
+            }
+        }
     }
 
     private static class ScoreCachingScorable extends Scorable {
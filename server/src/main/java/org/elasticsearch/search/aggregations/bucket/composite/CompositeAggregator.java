@@ -31,7 +31,6 @@ import org.apache.lucene.search.SortedNumericSelector;
 import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.comparators.LongComparator;
-import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.RoaringDocIdSet;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Rounding;
@@ -85,6 +84,7 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
     private final SingleDimensionValuesSource<?>[] sources;
     private final CompositeValuesCollectorQueue queue;
     private final DateHistogramValuesSource[] innerSizedBucketAggregators;
+    private final IndexSortSortedDocsProducer[] indexSortSortedDocsProducers;
 
     private final List<Entry> entries = new ArrayList<>();
     private AggregationExecutionContext currentAggCtx;
@@ -140,6 +140,7 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             }
         }
         this.innerSizedBucketAggregators = dateHistogramValuesSources.toArray(new DateHistogramValuesSource[0]);
+        this.indexSortSortedDocsProducers = new IndexSortSortedDocsProducer[sourceConfigs.length + 1];
         this.queue = new CompositeValuesCollectorQueue(aggCtx.bigArrays(), sources, size, aggCtx.searcher().getIndexReader());
         if (rawAfterKey != null) {
             try {
@@ -410,8 +411,17 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
         return new Sort(sortFields);
     }
 
-    private void processLeafFromQuery(LeafReaderContext ctx, Sort indexSortPrefix) throws IOException {
-        DocValueFormat[] formats = new DocValueFormat[indexSortPrefix.getSort().length];
+    /**
+     * Returns the {@link IndexSortSortedDocsProducer} that seeks directly to the documents
+     * after the {@link #rawAfterKey} in segments sorted by the provided index sort prefix.
+     * The weight is built once per prefix length and shared by all segments.
+     */
+    private IndexSortSortedDocsProducer getIndexSortSortedDocsProducer(Sort indexSortPrefix) throws IOException {
+        final int prefixLen = indexSortPrefix.getSort().length;
+        if (indexSortSortedDocsProducers[prefixLen] != null) {
+            return indexSortSortedDocsProducers[prefixLen];
+        }
+        DocValueFormat[] formats = new DocValueFormat[prefixLen];
         for (int i = 0; i < formats.length; i++) {
             formats[i] = sources[i].format;
         }
@@ -420,7 +430,7 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             Arrays.copyOfRange(rawAfterKey.values(), 0, formats.length),
             null
         );
-        if (indexSortPrefix.getSort().length < sources.length) {
+        if (prefixLen < sources.length) {
             // include all docs that belong to the partial bucket
             fieldDoc.doc = -1;
         }
@@ -428,21 +438,9 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             .add(new SearchAfterSortedDocQuery(applySortFieldRounding(indexSortPrefix), fieldDoc), BooleanClause.Occur.FILTER)
             .build();
         Weight weight = searcher().createWeight(searcher().rewrite(newQuery), ScoreMode.COMPLETE_NO_SCORES, 1f);
-        Scorer scorer = weight.scorer(ctx);
-        if (scorer != null) {
-            DocIdSetIterator docIt = scorer.iterator();
-            final LeafBucketCollector inner = queue.getLeafCollector(
-                ctx,
-                getFirstPassCollector(docIdSetBuilder, indexSortPrefix.getSort().length)
-            );
-            inner.setScorer(scorer);
-            final Bits liveDocs = ctx.reader().getLiveDocs();
-            while (docIt.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
-                if (liveDocs == null || liveDocs.get(docIt.docID())) {
-                    inner.collect(docIt.docID());
-                }
-            }
-        }
+        IndexSortSortedDocsProducer producer = new IndexSortSortedDocsProducer(indexSortPrefix.getSort()[0].getField(), prefixLen, weight);
+        indexSortSortedDocsProducers[prefixLen] = producer;
+        return producer;
     }
 
     @Override
@@ -470,48 +468,46 @@ public final class CompositeAggregator extends BucketsAggregator implements Size
             // see {@link MultiCollector} for more details on how we handle early termination in aggregations.
             earlyTerminated = true;
             return LeafBucketCollector.NO_OP_COLLECTOR;
+        } else if (rawAfterKey != null && sortPrefixLen > 0) {
+            // We have an after key and index sort is applicable so we jump directly to the doc
+            // that is after the index sort prefix using the rawAfterKey and we stop collecting
+            // as soon as the index sort guarantees that the page is complete.
+            IndexSortSortedDocsProducer producer = getIndexSortSortedDocsProducer(indexSortPrefix);
+            DocIdSet docIdSet = producer.processLeaf(queue, aggCtx.getLeafReaderContext(), fillDocIdSet);
+            if (fillDocIdSet) {
+                entries.add(new Entry(aggCtx, docIdSet));
+            }
+            if (producer.hasTerminatedEarly()) {
+                earlyTerminated = true;
+            }
+            return LeafBucketCollector.NO_OP_COLLECTOR;
         } else {
             if (fillDocIdSet) {
                 currentAggCtx = aggCtx;
                 docIdSetBuilder = new RoaringDocIdSet.Builder(aggCtx.getLeafReaderContext().reader().maxDoc());
             }
-            if (rawAfterKey != null && sortPrefixLen > 0) {
-                // We have an after key and index sort is applicable so we jump directly to the doc
-                // that is after the index sort prefix using the rawAfterKey and we start collecting
-                // document from there.
-                try {
-                    processLeafFromQuery(aggCtx.getLeafReaderContext(), indexSortPrefix);
-                } catch (CollectionTerminatedException e) {
-                    /*
-                     * Signal that there isn't anything to collect. We're going
-                     * to return noop collector anyway so we can ignore it.
-                     */
-                }
+            final LeafBucketCollector inner;
+            try {
+                inner = queue.getLeafCollector(aggCtx.getLeafReaderContext(), getFirstPassCollector(docIdSetBuilder, sortPrefixLen));
+            } catch (CollectionTerminatedException e) {
                 return LeafBucketCollector.NO_OP_COLLECTOR;
-            } else {
-                final LeafBucketCollector inner;
-                try {
-                    inner = queue.getLeafCollector(aggCtx.getLeafReaderContext(), getFirstPassCollector(docIdSetBuilder, sortPrefixLen));
-                } catch (CollectionTerminatedException e) {
-                    return LeafBucketCollector.NO_OP_COLLECTOR;
+            }
+            return new LeafBucketCollector() {
+                @Override
+                public void collect(int doc, long zeroBucket) throws IOException {
+                    assert zeroBucket == 0L;
+                    inner.collect(doc);
                 }
-                return new LeafBucketCollector() {
-                    @Override
-                    public void collect(int doc, long zeroBucket) throws IOException {
-                        assert zeroBucket == 0L;
-                        inner.collect(doc);
-                    }
 
-                    @Override
-                    public DocIdSetIterator competitiveIterator() throws IOException {
-                        if (queue.mayDynamicallyPrune()) {
-                            return inner.competitiveIterator();
-                        } else {
-                            return null;
-                        }
+                @Override
+                public DocIdSetIterator competitiveIterator() throws IOException {
+                    if (queue.mayDynamicallyPrune()) {
+                        return inner.competitiveIterator();
+                    } else {
+                        return null;
                     }
-                };
-            }
+                }
+            };
         }
     }
 
@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.RoaringDocIdSet;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.bucket.DocCountProvider;
+
+import java.io.IOException;
+
+/**
+ * A {@link SortedDocsProducer} for segments that are sorted on a prefix of the sources of the composite
+ * definition. The provided {@link Weight} combines the top level query with a
+ * {@link org.elasticsearch.lucene.queries.SearchAfterSortedDocQuery} so each segment jumps directly to the
+ * first document after the {@code after} key. Collection stops as soon as the queue is full and the index
+ * sort guarantees that the remaining documents can't produce a competitive composite bucket, so the cost
+ * of a page is proportional to its size rather than to the size of the segment.
+ */
+class IndexSortSortedDocsProducer extends SortedDocsProducer {
+    private final int sortPrefixLen;
+    private final Weight weight;
+    private boolean terminatedEarly;
+
+    /**
+     * @param field the name of the leading index sort field
+     * @param sortPrefixLen the number of leading sources that match the index sort
+     * @param weight the weight of the top level query filtered to the documents after the {@code after} key
+     */
+    IndexSortSortedDocsProducer(String field, int sortPrefixLen, Weight weight) {
+        super(field);
+        assert sortPrefixLen > 0;
+        this.sortPrefixLen = sortPrefixLen;
+        this.weight = weight;
+    }
+
+    @Override
+    DocIdSet processLeaf(CompositeValuesCollectorQueue queue, LeafReaderContext context, boolean fillDocIdSet) throws IOException {
+        final Scorer scorer = weight.scorer(context);
+        if (scorer == null) {
+            return DocIdSet.EMPTY;
+        }
+        final RoaringDocIdSet.Builder builder = fillDocIdSet ? new RoaringDocIdSet.Builder(context.reader().maxDoc()) : null;
+        final DocCountProvider docCountProvider = new DocCountProvider();
+        docCountProvider.setLeafReaderContext(context);
+        final LeafBucketCollector queueCollector = new LeafBucketCollector() {
+            int lastDoc = -1;
+
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                try {
+                    if (queue.addIfCompetitive(sortPrefixLen, docCountProvider.getDocCount(doc))) {
+                        if (builder != null && lastDoc != doc) {
+                            builder.add(doc);
+                            lastDoc = doc;
+                        }
+                    }
+                } catch (CollectionTerminatedException e) {
+                    terminatedEarly = true;
+                    throw e;
+                }
+            }
+        };
+        try {
+            final LeafBucketCollector collector = queue.getLeafCollector(context, queueCollector);
+            collector.setScorer(scorer);
+            final DocIdSetIterator iterator = scorer.iterator();
+            final Bits liveDocs = context.reader().getLiveDocs();
+            while (iterator.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+                if (liveDocs == null || liveDocs.get(iterator.docID())) {
+                    collector.collect(iterator.docID());
+                }
+            }
+        } catch (CollectionTerminatedException e) {
+            // the rest of the segment can't contain competitive buckets
+        }
+        return builder == null ? DocIdSet.EMPTY : builder.build();
+    }
+
+    /**
+     * Returns true if the collection of any segment stopped because the index sort
+     * guarantees that the remaining documents are not competitive.
+     */
+    boolean hasTerminatedEarly() {
+        return terminatedEarly;
+    }
+}
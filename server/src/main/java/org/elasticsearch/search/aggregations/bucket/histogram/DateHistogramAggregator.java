@@ -28,6 +28,7 @@ import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.DocValuesBlock;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
@@ -316,12 +317,41 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
 
     private LeafBucketCollector getLeafCollector(NumericDocValues values, LeafBucketCollector sub) {
         return new LeafBucketCollectorBase(sub, values) {
+            private final DocValuesBlock block = new DocValuesBlock();
+
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
                 if (values.advanceExact(doc)) {
                     addRoundedValue(preparedRounding.round(values.longValue()), doc, owningBucketOrd, sub);
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+                block.read(values, docs, count);
+                // neighbouring docs usually fall in the same bucket so skip the hash lookup while the rounded value doesn't change
+                long previousRounded = 0;
+                long previousBucketOrd = -1;
+                for (int i = 0; i < block.size(); i++) {
+                    final long rounded = preparedRounding.round(block.value(i));
+                    if (previousBucketOrd >= 0 && rounded == previousRounded) {
+                        collectExistingBucket(sub, block.doc(i), previousBucketOrd);
+                        continue;
+                    }
+                    if (hardBounds != null && hardBounds.contain(rounded) == false) {
+                        continue;
+                    }
+                    long bucketOrd = bucketOrds.add(owningBucketOrd, rounded);
+                    if (bucketOrd < 0) { // already seen
+                        bucketOrd = -1 - bucketOrd;
+                        collectExistingBucket(sub, block.doc(i), bucketOrd);
+                    } else {
+                        collectBucket(sub, block.doc(i), bucketOrd);
+                    }
+                    previousRounded = rounded;
+                    previousBucketOrd = bucketOrd;
+                }
+            }
         };
     }
 
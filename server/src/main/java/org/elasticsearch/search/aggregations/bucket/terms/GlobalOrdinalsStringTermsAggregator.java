@@ -130,6 +130,8 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                  * common and marginally faster.
                  */
                 return resultStrategy.wrapCollector(new LeafBucketCollectorBase(sub, globalOrds) {
+                    private final DocValuesBlock block = new DocValuesBlock();
+
                     @Override
                     public void collect(int doc, long owningBucketOrd) throws IOException {
                         if (false == singleValues.advanceExact(doc)) {
@@ -138,9 +140,19 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                         int globalOrd = singleValues.ordValue();
                         collectionStrategy.collectGlobalOrd(owningBucketOrd, doc, globalOrd, sub);
                     }
+
+                    @Override
+                    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+                        block.read(singleValues, docs, count);
+                        for (int i = 0; i < block.size(); i++) {
+                            collectionStrategy.collectGlobalOrd(owningBucketOrd, block.doc(i), block.value(i), sub);
+                        }
+                    }
                 });
             }
             return resultStrategy.wrapCollector(new LeafBucketCollectorBase(sub, globalOrds) {
+                private final DocValuesBlock block = new DocValuesBlock();
+
                 @Override
                 public void collect(int doc, long owningBucketOrd) throws IOException {
                     if (false == singleValues.advanceExact(doc)) {
@@ -152,6 +164,17 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                     }
                     collectionStrategy.collectGlobalOrd(owningBucketOrd, doc, globalOrd, sub);
                 }
+
+                @Override
+                public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+                    block.read(singleValues, docs, count);
+                    for (int i = 0; i < block.size(); i++) {
+                        final long globalOrd = block.value(i);
+                        if (acceptedGlobalOrdinals.test(globalOrd)) {
+                            collectionStrategy.collectGlobalOrd(owningBucketOrd, block.doc(i), globalOrd, sub);
+                        }
+                    }
+                }
             });
         }
         segmentsWithMultiValuedOrds++;
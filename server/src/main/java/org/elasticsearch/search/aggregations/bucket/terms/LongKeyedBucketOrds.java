@@ -12,6 +12,8 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.common.util.LongLongHash;
+import org.elasticsearch.common.util.LongSwissHash;
+import org.elasticsearch.core.Booleans;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.search.aggregations.CardinalityUpperBound;
 
@@ -24,6 +26,11 @@ import java.util.TreeSet;
  * Maps owning bucket ordinals and long bucket keys to bucket ordinals.
  */
 public abstract class LongKeyedBucketOrds implements Releasable {
+    /**
+     * Use {@link FromSingleSwiss} rather than {@link FromSingle} when collecting from a single bucket.
+     */
+    static final boolean USE_SWISS_HASH = Booleans.parseBoolean(System.getProperty("es.aggs.swiss_bucket_ords"), false);
+
     /**
      * Build a {@link LongKeyedBucketOrds} who's values have unknown bounds.
      *
@@ -31,7 +38,7 @@ public abstract class LongKeyedBucketOrds implements Releasable {
      *                    owning bucket ordinals.
      */
     public static LongKeyedBucketOrds build(BigArrays bigArrays, CardinalityUpperBound cardinality) {
-        return cardinality.map(estimate -> estimate < 2 ? new FromSingle(bigArrays) : new FromMany(bigArrays));
+        return cardinality.map(estimate -> estimate < 2 ? buildSingle(bigArrays) : new FromMany(bigArrays));
     }
 
     /**
@@ -45,7 +52,7 @@ public abstract class LongKeyedBucketOrds implements Releasable {
     public static LongKeyedBucketOrds buildForValueRange(BigArrays bigArrays, CardinalityUpperBound cardinality, long min, long max) {
         return cardinality.map((int cardinalityUpperBound) -> {
             if (cardinalityUpperBound < 2) {
-                return new FromSingle(bigArrays);
+                return buildSingle(bigArrays);
             }
             if (min < 0 || cardinalityUpperBound == Integer.MAX_VALUE) {
                 // cardinalityUpperBound tops out at maxint. If you see maxInt it could be anything above maxint.
@@ -61,6 +68,10 @@ public abstract class LongKeyedBucketOrds implements Releasable {
         });
     }
 
+    private static LongKeyedBucketOrds buildSingle(BigArrays bigArrays) {
+        return USE_SWISS_HASH ? new FromSingleSwiss(bigArrays) : new FromSingle(bigArrays);
+    }
+
     private TreeSet<Long> keySet = null;
 
     private LongKeyedBucketOrds() {}
@@ -294,6 +305,92 @@ public abstract class LongKeyedBucketOrds implements Releasable {
         }
     }
 
+    /**
+     * Implementation that only works if it is collecting from a single bucket and that is backed by
+     * a {@link LongSwissHash} rather than a {@link LongHash}.
+     */
+    public static class FromSingleSwiss extends LongKeyedBucketOrds {
+        private final LongSwissHash ords;
+
+        public FromSingleSwiss(BigArrays bigArrays) {
+            ords = new LongSwissHash(1, bigArrays);
+        }
+
+        @Override
+        public long add(long owningBucketOrd, long value) {
+            // This is in the critical path for collecting most aggs. Be careful of performance.
+            assert owningBucketOrd == 0;
+            return ords.add(value);
+        }
+
+        @Override
+        public long find(long owningBucketOrd, long value) {
+            assert owningBucketOrd == 0;
+            return ords.find(value);
+        }
+
+        @Override
+        public long get(long ordinal) {
+            return ords.get(ordinal);
+        }
+
+        @Override
+        public long bucketsInOrd(long owningBucketOrd) {
+            assert owningBucketOrd == 0;
+            return ords.size();
+        }
+
+        @Override
+        public long size() {
+            return ords.size();
+        }
+
+        @Override
+        public long maxOwningBucketOrd() {
+            return 0;
+        }
+
+        @Override
+        public String decribe() {
+            return "single bucket swiss ords";
+        }
+
+        @Override
+        public BucketOrdsEnum ordsEnum(long owningBucketOrd) {
+            assert owningBucketOrd == 0;
+            return new BucketOrdsEnum() {
+                private long ord = -1;
+                private long value;
+
+                @Override
+                public boolean next() {
+                    ord++;
+                    if (ord >= ords.size()) {
+                        return false;
+                    }
+                    value = ords.get(ord);
+                    return true;
+                }
+
+                @Override
+                public long value() {
+                    return value;
+                }
+
+                @Override
+                public long ord() {
+                    return ord;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            ords.close();
+        }
+    }
+
     /**
      * Implementation that works properly when collecting from many buckets.
      */
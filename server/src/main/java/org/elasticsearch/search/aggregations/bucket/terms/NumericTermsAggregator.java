@@ -27,6 +27,7 @@ import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.DocValuesBlock;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.InternalOrder;
@@ -115,12 +116,22 @@ public final class NumericTermsAggregator extends TermsAggregator {
 
     private LeafBucketCollector getLeafCollector(NumericDocValues values, LeafBucketCollector sub) {
         return new LeafBucketCollectorBase(sub, values) {
+            private final DocValuesBlock block = new DocValuesBlock();
+
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
                 if (values.advanceExact(doc)) {
                     collectValue(values.longValue(), doc, owningBucketOrd, sub);
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+                block.read(values, docs, count);
+                for (int i = 0; i < block.size(); i++) {
+                    collectValue(block.value(i), block.doc(i), owningBucketOrd, sub);
+                }
+            }
         };
     }
 
@@ -0,0 +1,278 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntroSorter;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregationExecutionContext;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalOrder;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Approximate {@code terms} aggregator for fields with so many distinct values
+ * that keeping a bucket per value isn't practical. Every owning bucket counts
+ * global ordinals in a fixed size {@link SpaceSavingSketch} so heap usage
+ * doesn't depend on the cardinality of the field.
+ * <p>
+ * The most frequent counters are returned as regular {@link StringTerms}
+ * buckets whose {@code doc_count} is the guaranteed lower bound of the count
+ * and whose {@code doc_count_error_upper_bound} is the error of the counter.
+ * The shard level error is the largest count any value that wasn't returned
+ * could have. That is exactly what the standard terms reduction needs to
+ * merge the sketches of all shards and keep the bounds correct.
+ */
+class SketchStringTermsAggregator extends AbstractStringTermsAggregator {
+    /**
+     * The smallest number of counters in each sketch.
+     */
+    static final int MIN_SKETCH_SIZE = 1024;
+    /**
+     * The largest number of counters in each sketch, this bounds the memory
+     * used by each owning bucket to a few megabytes.
+     */
+    static final int MAX_SKETCH_SIZE = 1 << 16;
+    /**
+     * How many counters to keep for each bucket the shard returns.
+     */
+    static final int COUNTERS_PER_BUCKET = 16;
+
+    private final ValuesSource.Bytes.WithOrdinals valuesSource;
+    private final CheckedSupplier<SortedSetDocValues, IOException> valuesSupplier;
+    private final LongPredicate acceptedGlobalOrdinals;
+    private final int sketchSize;
+    private final int shardSize;
+    private ObjectArray<SpaceSavingSketch> sketches;
+
+    SketchStringTermsAggregator(
+        String name,
+        ValuesSource.Bytes.WithOrdinals valuesSource,
+        CheckedSupplier<SortedSetDocValues, IOException> valuesSupplier,
+        BucketOrder order,
+        DocValueFormat format,
+        BucketCountThresholds bucketCountThresholds,
+        LongPredicate acceptedOrds,
+        AggregationContext context,
+        Aggregator parent,
+        Map<String, Object> metadata
+    ) throws IOException {
+        super(
+            name,
+            AggregatorFactories.EMPTY,
+            context,
+            parent,
+            order,
+            format,
+            bucketCountThresholds,
+            SubAggCollectionMode.DEPTH_FIRST,
+            true,
+            metadata
+        );
+        this.valuesSource = valuesSource;
+        this.valuesSupplier = valuesSupplier;
+        this.acceptedGlobalOrdinals = acceptedOrds;
+        this.sketchSize = sketchSize(bucketCountThresholds.getShardSize());
+        /*
+         * We can't return more terms than we have counters. The reduction
+         * assumes a shard that returned fewer terms than its shard_size returned
+         * every term it has seen, so we have to report the capped size or
+         * we'd drop the error of a full sketch.
+         */
+        this.shardSize = Math.min(bucketCountThresholds.getShardSize(), sketchSize);
+        this.sketches = context.bigArrays().newObjectArray(1);
+    }
+
+    static int sketchSize(int shardSize) {
+        return (int) Math.min(MAX_SKETCH_SIZE, Math.max(MIN_SKETCH_SIZE, (long) shardSize * COUNTERS_PER_BUCKET));
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(AggregationExecutionContext aggCtx, LeafBucketCollector sub) throws IOException {
+        SortedSetDocValues globalOrds = valuesSource.globalOrdinalsValues(aggCtx.getLeafReaderContext());
+        SortedDocValues singleValues = DocValues.unwrapSingleton(globalOrds);
+        if (singleValues != null) {
+            return new LeafBucketCollectorBase(sub, globalOrds) {
+                @Override
+                public void collect(int doc, long owningBucketOrd) throws IOException {
+                    if (false == singleValues.advanceExact(doc)) {
+                        return;
+                    }
+                    long globalOrd = singleValues.ordValue();
+                    if (acceptedGlobalOrdinals.test(globalOrd)) {
+                        sketch(owningBucketOrd).add(globalOrd, docCountProvider.getDocCount(doc));
+                    }
+                }
+            };
+        }
+        return new LeafBucketCollectorBase(sub, globalOrds) {
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                if (false == globalOrds.advanceExact(doc)) {
+                    return;
+                }
+                SpaceSavingSketch sketch = sketch(owningBucketOrd);
+                long docCount = docCountProvider.getDocCount(doc);
+                for (int i = 0; i < globalOrds.docValueCount(); i++) {
+                    long globalOrd = globalOrds.nextOrd();
+                    if (acceptedGlobalOrdinals.test(globalOrd)) {
+                        sketch.add(globalOrd, docCount);
+                    }
+                }
+            }
+        };
+    }
+
+    private SpaceSavingSketch sketch(long owningBucketOrd) {
+        if (owningBucketOrd >= sketches.size()) {
+            sketches = bigArrays().grow(sketches, owningBucketOrd + 1);
+        }
+        SpaceSavingSketch sketch = sketches.get(owningBucketOrd);
+        if (sketch == null) {
+            sketch = new SpaceSavingSketch(sketchSize);
+            addRequestCircuitBreakerBytes(sketch.ramBytesUsed());
+            sketches.set(owningBucketOrd, sketch);
+        }
+        return sketch;
+    }
+
+    @Override
+    public InternalAggregation[] buildAggregations(LongArray owningBucketOrds) throws IOException {
+        SortedSetDocValues lookup = valuesSupplier.get();
+        return buildAggregations(Math.toIntExact(owningBucketOrds.size()), ordIdx -> {
+            long owningBucketOrd = owningBucketOrds.get(ordIdx);
+            if (owningBucketOrd >= sketches.size() || sketches.get(owningBucketOrd) == null) {
+                return buildEmptyTermsAggregation();
+            }
+            return buildResult(sketches.get(owningBucketOrd), lookup);
+        });
+    }
+
+    private StringTerms buildResult(SpaceSavingSketch sketch, SortedSetDocValues lookup) throws IOException {
+        int[] slots = topSlots(sketch);
+        int size = Math.min(slots.length, shardSize);
+        StringTerms.Bucket[] buckets = new StringTerms.Bucket[size];
+        long otherDocCount = sketch.total();
+        for (int i = 0; i < size; i++) {
+            checkRealMemoryCBForInternalBucket();
+            int slot = slots[i];
+            long docCount = sketch.count(slot) - sketch.error(slot);
+            buckets[i] = new StringTerms.Bucket(
+                BytesRef.deepCopyOf(lookup.lookupOrd(sketch.key(slot))),
+                docCount,
+                InternalAggregations.EMPTY,
+                true,
+                sketch.error(slot),
+                format
+            );
+            otherDocCount -= docCount;
+        }
+        // Anything we didn't return may have been seen as many times as the biggest counter we dropped
+        long docCountError = size < slots.length ? sketch.count(slots[size]) : sketch.minCount();
+        BucketOrder reduceOrder = InternalOrder.key(true);
+        Arrays.sort(buckets, reduceOrder.comparator());
+        return new StringTerms(
+            name,
+            reduceOrder,
+            order,
+            bucketCountThresholds.getRequiredSize(),
+            bucketCountThresholds.getMinDocCount(),
+            metadata(),
+            format,
+            shardSize,
+            true,
+            otherDocCount,
+            Arrays.asList(buckets),
+            docCountError
+        );
+    }
+
+    /**
+     * The slots of the sketch sorted by descending count, breaking ties on the
+     * global ordinal so we pick the same terms as the exact implementations.
+     */
+    private static int[] topSlots(SpaceSavingSketch sketch) {
+        int[] slots = new int[sketch.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i;
+        }
+        new IntroSorter() {
+            private int pivot;
+
+            @Override
+            protected void swap(int i, int j) {
+                int tmp = slots[i];
+                slots[i] = slots[j];
+                slots[j] = tmp;
+            }
+
+            @Override
+            protected int compare(int i, int j) {
+                return compareSlots(slots[i], slots[j]);
+            }
+
+            @Override
+            protected void setPivot(int i) {
+                pivot = slots[i];
+            }
+
+            @Override
+            protected int comparePivot(int j) {
+                return compareSlots(pivot, slots[j]);
+            }
+
+            private int compareSlots(int lhs, int rhs) {
+                int cmp = Long.compare(sketch.count(rhs), sketch.count(lhs));
+                if (cmp != 0) {
+                    return cmp;
+                }
+                return Long.compare(sketch.key(lhs), sketch.key(rhs));
+            }
+        }.sort(0, slots.length);
+        return slots;
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return buildEmptyTermsAggregation();
+    }
+
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        super.collectDebugInfo(add);
+        add.accept("sketch_size", sketchSize);
+        add.accept("has_filter", acceptedGlobalOrdinals != GlobalOrdinalsStringTermsAggregator.ALWAYS_TRUE);
+    }
+
+    @Override
+    protected void doClose() {
+        Releasables.close(sketches);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Fixed size "Space-Saving" heavy hitters sketch over {@code long} keys as
+ * described by Metwally, Agrawal and El Abbadi in "Efficient Computation of
+ * Frequent and Top-k Elements in Data Streams".
+ * <p>
+ * The sketch tracks at most {@code capacity} counters. When a key that isn't
+ * tracked arrives and all counters are in use the counter with the smallest
+ * count is handed over to the new key, which inherits that count as its
+ * {@link #error}. So for every tracked key
+ * {@code count - error <= true count <= count} and any key that isn't
+ * tracked has a true count of at most {@link #minCount()}. Memory use only
+ * depends on {@code capacity}, never on the number of distinct keys.
+ */
+final class SpaceSavingSketch implements Accountable {
+    private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(SpaceSavingSketch.class);
+
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    /**
+     * Min-heap of counter slots ordered by their count.
+     */
+    private final int[] heap;
+    /**
+     * Position of each counter slot in the {@link #heap}.
+     */
+    private final int[] heapPositions;
+    /**
+     * Open addressing table from key to {@code slot + 1}, {@code 0} marks an empty entry.
+     */
+    private final int[] table;
+    private final int mask;
+    private int size;
+    private long total;
+
+    SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1 but was [" + capacity + "]");
+        }
+        keys = new long[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        heap = new int[capacity];
+        heapPositions = new int[capacity];
+        table = new int[Integer.highestOneBit(capacity) << 2];
+        mask = table.length - 1;
+    }
+
+    /**
+     * Count {@code increment} occurrences of {@code key}.
+     */
+    void add(long key, long increment) {
+        total += increment;
+        int index = home(key);
+        while (table[index] != 0) {
+            int slot = table[index] - 1;
+            if (keys[slot] == key) {
+                counts[slot] += increment;
+                siftDown(heapPositions[slot]);
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        if (size < keys.length) {
+            int slot = size++;
+            keys[slot] = key;
+            counts[slot] = increment;
+            errors[slot] = 0;
+            table[index] = slot + 1;
+            heap[slot] = slot;
+            heapPositions[slot] = slot;
+            siftUp(slot);
+            return;
+        }
+        // Hand the least frequent counter over to the new key
+        int slot = heap[0];
+        remove(keys[slot]);
+        keys[slot] = key;
+        errors[slot] = counts[slot];
+        counts[slot] += increment;
+        insert(key, slot);
+        siftDown(0);
+    }
+
+    /**
+     * The number of counters in use.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Are all counters in use? Until they are every count is exact.
+     */
+    boolean isFull() {
+        return size == keys.length;
+    }
+
+    long key(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Upper bound of the number of occurrences of {@link #key}.
+     */
+    long count(int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * Maximum overestimation of {@link #count}.
+     */
+    long error(int slot) {
+        return errors[slot];
+    }
+
+    /**
+     * Upper bound of the number of occurrences of any key that isn't tracked.
+     */
+    long minCount() {
+        return isFull() ? counts[heap[0]] : 0;
+    }
+
+    /**
+     * The sum of all increments passed to {@link #add}.
+     */
+    long total() {
+        return total;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return SHALLOW_SIZE + RamUsageEstimator.sizeOf(keys) + RamUsageEstimator.sizeOf(counts) + RamUsageEstimator.sizeOf(errors)
+            + RamUsageEstimator.sizeOf(heap) + RamUsageEstimator.sizeOf(heapPositions) + RamUsageEstimator.sizeOf(table);
+    }
+
+    private int home(long key) {
+        return (int) BitMixer.mix64(key) & mask;
+    }
+
+    private void insert(long key, int slot) {
+        int index = home(key);
+        while (table[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        table[index] = slot + 1;
+    }
+
+    /**
+     * Remove a key from the table, shifting back the entries that follow it
+     * so lookups never need tombstones.
+     */
+    private void remove(long key) {
+        int index = home(key);
+        while (keys[table[index] - 1] != key) {
+            index = (index + 1) & mask;
+        }
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            if (table[next] == 0) {
+                break;
+            }
+            int nextHome = home(keys[table[next] - 1]);
+            boolean stays = index <= next ? index < nextHome && nextHome <= next : index < nextHome || nextHome <= next;
+            if (stays == false) {
+                table[index] = table[next];
+                index = next;
+            }
+        }
+        table[index] = 0;
+    }
+
+    private void siftUp(int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(slot, position);
+    }
+
+    private void siftDown(int position) {
+        int slot = heap[position];
+        while (true) {
+            int child = (position << 1) + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[slot] <= counts[heap[child]]) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(slot, position);
+    }
+
+    private void place(int slot, int position) {
+        heap[position] = slot;
+        heapPositions[slot] = position;
+    }
+}
@@ -564,14 +564,76 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                     excludeDeletedDocs
                 );
             }
+        },
+        SKETCH(new ParseField("sketch")) {
+
+            @Override
+            Aggregator create(
+                String name,
+                AggregatorFactories factories,
+                ValuesSourceConfig valuesSourceConfig,
+                BucketOrder order,
+                TermsAggregator.BucketCountThresholds bucketCountThresholds,
+                IncludeExclude includeExclude,
+                AggregationContext context,
+                Aggregator parent,
+                SubAggCollectionMode subAggCollectMode,
+                boolean showTermDocCountError,
+                CardinalityUpperBound cardinality,
+                Map<String, Object> metadata,
+                boolean excludeDeletedDocs
+            ) throws IOException {
+                if (factories != AggregatorFactories.EMPTY
+                    || InternalOrder.isCountDesc(order) == false
+                    || bucketCountThresholds.getMinDocCount() == 0) {
+                    /*
+                     * The sketch only tracks counts of the most frequent terms so
+                     * it can't feed sub-aggregations, sort on anything but the
+                     * doc count, or return terms that weren't seen at all.
+                     */
+                    logger.debug("Can't use the sketch implementation, falling back to global ordinals");
+                    return GLOBAL_ORDINALS.create(
+                        name,
+                        factories,
+                        valuesSourceConfig,
+                        order,
+                        bucketCountThresholds,
+                        includeExclude,
+                        context,
+                        parent,
+                        subAggCollectMode,
+                        showTermDocCountError,
+                        cardinality,
+                        metadata,
+                        excludeDeletedDocs
+                    );
+                }
+                assert valuesSourceConfig.getValuesSource() instanceof ValuesSource.Bytes.WithOrdinals;
+                ValuesSource.Bytes.WithOrdinals ordinalsValuesSource = (ValuesSource.Bytes.WithOrdinals) valuesSourceConfig
+                    .getValuesSource();
+                SortedSetDocValues values = globalOrdsValues(context, ordinalsValuesSource);
+                return new SketchStringTermsAggregator(
+                    name,
+                    ordinalsValuesSource,
+                    () -> globalOrdsValues(context, ordinalsValuesSource),
+                    order,
+                    valuesSourceConfig.format(),
+                    bucketCountThresholds,
+                    gloabalOrdsFilter(includeExclude, valuesSourceConfig.format(), values),
+                    context,
+                    parent,
+                    metadata
+                );
+            }
         };
 
         public static ExecutionMode fromString(String value) {
             return switch (value) {
                 case "global_ordinals" -> GLOBAL_ORDINALS;
                 case "map" -> MAP;
+                case "sketch" -> SKETCH;
                 default -> throw new IllegalArgumentException(
-                    "Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals]"
+                    "Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals, sketch]"
                 );
             };
         }
@@ -81,6 +81,13 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
     private final int minimumDocsPerSlice;
 
     private volatile boolean timeExceeded = false;
+    // the largest number of slices that a search of this searcher was executed with
+    private volatile int executedSliceCount = 0;
+
+    // the query searched one segment at a time and its weight, shared by all the segments of the shard request
+    private Query segmentQuery;
+    private ScoreMode segmentScoreMode;
+    private Weight segmentWeight;
 
     /** constructor for non-concurrent search */
     @SuppressWarnings("this-escape")
@@ -336,12 +343,47 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         return search(weight, collectorManager, firstCollector);
     }
 
+    /**
+     * Searches a single segment with a single collector of the given manager, ignoring the slices of this searcher. Used to compute
+     * results per segment, so that they can be cached independently of the other segments of the reader. The query is rewritten and
+     * its weight created on the first call only, the following calls for the other segments reuse the weight as long as they search
+     * the same query with the same score mode. Segments are searched one after another, this method is not thread-safe.
+     */
+    public <C extends Collector, T> T search(Query query, LeafReaderContext leaf, CollectorManager<C, T> collectorManager)
+        throws IOException {
+        assert leafContexts.contains(leaf) : "segment is not part of this searcher";
+        final C collector = collectorManager.newCollector();
+        final ScoreMode scoreMode = collector.scoreMode();
+        final Weight weight;
+        if (query == segmentQuery && scoreMode == segmentScoreMode) {
+            weight = segmentWeight;
+        } else {
+            final Query rewritten = scoreMode.needsScores() ? rewrite(query) : rewrite(new ConstantScoreQuery(query));
+            try {
+                weight = createWeight(rewritten, scoreMode, 1);
+            } catch (@SuppressWarnings("unused") TimeExceededException e) {
+                timeExceeded = true;
+                doAggregationPostCollection(collector);
+                return collectorManager.reduce(Collections.singletonList(collector));
+            }
+            segmentQuery = query;
+            segmentScoreMode = scoreMode;
+            segmentWeight = weight;
+        }
+        search(new LeafReaderContextPartition[] { LeafReaderContextPartition.createForEntireSegment(leaf) }, weight, collector);
+        return collectorManager.reduce(Collections.singletonList(collector));
+    }
+
     /**
      * Same implementation as the default one in Lucene, with an additional call to postCollection in cased there are no segments.
      * The rest is a plain copy from Lucene.
      */
     private <C extends Collector, T> T search(Weight weight, CollectorManager<C, T> collectorManager, C firstCollector) throws IOException {
         LeafSlice[] leafSlices = getSlices();
+        if (leafSlices.length > 1) {
+            leafSlices = slicesForCost(weight, leafSlices);
+        }
+        executedSliceCount = Math.max(executedSliceCount, leafSlices.length);
         if (leafSlices.length == 0) {
             assert leafContexts.isEmpty();
             doAggregationPostCollection(firstCollector);
@@ -371,6 +413,37 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         }
     }
 
+    /**
+     * Lowers the number of slices of a search when the documents that its weight matches are not enough to give every slice
+     * {@code minimumDocsPerSlice} documents. Matches are counted with {@link Weight#count}, segments that cannot count their matches
+     * cheaply are assumed to match all their documents.
+     */
+    private LeafSlice[] slicesForCost(Weight weight, LeafSlice[] leafSlices) throws IOException {
+        final long docsForAllSlices = (long) leafSlices.length * minimumDocsPerSlice;
+        long estimatedCost = 0;
+        try {
+            for (LeafReaderContext leaf : leafContexts) {
+                final int count = weight.count(leaf);
+                estimatedCost += count >= 0 ? count : leaf.reader().maxDoc();
+                if (estimatedCost >= docsForAllSlices) {
+                    return leafSlices;
+                }
+            }
+        } catch (@SuppressWarnings("unused") TimeExceededException e) {
+            // the search itself reports the timeout
+            return leafSlices;
+        }
+        final int maxSliceNum = (int) Math.max(1, estimatedCost / Math.max(1, minimumDocsPerSlice));
+        return computeSlices(leafContexts, maxSliceNum, minimumDocsPerSlice);
+    }
+
+    /**
+     * Returns the largest number of slices that a search of this searcher was executed with, or {@code 0} if no search was executed.
+     */
+    public int getExecutedSliceCount() {
+        return executedSliceCount;
+    }
+
     private static final ThreadLocal<Boolean> timeoutOverwrites = ThreadLocal.withInitial(() -> false);
 
     /**
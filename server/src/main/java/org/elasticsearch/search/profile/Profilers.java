@@ -22,11 +22,13 @@ import java.util.Collections;
 /** Wrapper around all the profilers that makes management easier. */
 public final class Profilers {
 
+    private final ContextIndexSearcher searcher;
     private final QueryProfiler queryProfiler;
     private final AggregationProfiler aggProfiler = new AggregationProfiler();
     private DfsProfiler dfsProfiler;
 
     public Profilers(ContextIndexSearcher searcher) {
+        this.searcher = searcher;
         this.queryProfiler = new QueryProfiler();
         searcher.setProfiler(this.queryProfiler);
     }
@@ -67,7 +69,8 @@ public final class Profilers {
             queryProfiler.getTree(),
             queryProfiler.getRewriteTime(),
             queryProfiler.getCollectorResult(),
-            null
+            null,
+            searcher.getExecutedSliceCount()
         );
         AggregationProfileShardResult aggResults = new AggregationProfileShardResult(aggProfiler.getTree());
         return new SearchProfileQueryPhaseResult(Collections.singletonList(result), aggResults);
@@ -36,6 +36,7 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
     public static final String QUERY_ARRAY = "query";
 
     public static final String VECTOR_OPERATIONS_COUNT = "vector_operations_count";
+    public static final String SLICE_COUNT = "slice_count";
 
     private final List<ProfileResult> queryProfileResults;
 
@@ -45,17 +46,21 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
 
     private final Long vectorOperationsCount;
 
+    private final Integer sliceCount;
+
     public QueryProfileShardResult(
         List<ProfileResult> queryProfileResults,
         long rewriteTime,
         CollectorResult profileCollector,
-        @Nullable Long vectorOperationsCount
+        @Nullable Long vectorOperationsCount,
+        @Nullable Integer sliceCount
     ) {
         assert (profileCollector != null);
         this.queryProfileResults = queryProfileResults;
         this.profileCollector = profileCollector;
         this.rewriteTime = rewriteTime;
         this.vectorOperationsCount = vectorOperationsCount;
+        this.sliceCount = sliceCount;
     }
 
     /**
@@ -71,6 +76,7 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         profileCollector = new CollectorResult(in);
         rewriteTime = in.readLong();
         vectorOperationsCount = (in.getTransportVersion().onOrAfter(TransportVersions.V_8_12_0)) ? in.readOptionalLong() : null;
+        sliceCount = (in.getTransportVersion().onOrAfter(TransportVersions.PROFILE_QUERY_SLICE_COUNT)) ? in.readOptionalVInt() : null;
     }
 
     @Override
@@ -84,6 +90,9 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         if (out.getTransportVersion().onOrAfter(TransportVersions.V_8_12_0)) {
             out.writeOptionalLong(vectorOperationsCount);
         }
+        if (out.getTransportVersion().onOrAfter(TransportVersions.PROFILE_QUERY_SLICE_COUNT)) {
+            out.writeOptionalVInt(sliceCount);
+        }
     }
 
     public List<ProfileResult> getQueryResults() {
@@ -98,12 +107,23 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         return profileCollector;
     }
 
+    /**
+     * The number of slices that the query was executed with, {@code null} if unknown.
+     */
+    @Nullable
+    public Integer getSliceCount() {
+        return sliceCount;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
         if (vectorOperationsCount != null) {
             builder.field(VECTOR_OPERATIONS_COUNT, vectorOperationsCount);
         }
+        if (sliceCount != null) {
+            builder.field(SLICE_COUNT, sliceCount);
+        }
         builder.startArray(QUERY_ARRAY);
         for (ProfileResult p : queryProfileResults) {
             p.toXContent(builder, params);
@@ -125,12 +145,13 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         QueryProfileShardResult other = (QueryProfileShardResult) obj;
         return queryProfileResults.equals(other.queryProfileResults)
             && profileCollector.equals(other.profileCollector)
-            && rewriteTime == other.rewriteTime;
+            && rewriteTime == other.rewriteTime
+            && Objects.equals(sliceCount, other.sliceCount);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(queryProfileResults, profileCollector, rewriteTime);
+        return Objects.hash(queryProfileResults, profileCollector, rewriteTime, sliceCount);
     }
 
     @Override
@@ -23,7 +23,10 @@ import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
@@ -33,6 +36,7 @@ import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchContextSourcePrinter;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
@@ -43,6 +47,7 @@ import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.search.suggest.SuggestPhase;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -225,19 +230,97 @@ public class QueryPhase {
             if (searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
                 queryResult.terminatedEarly(queryPhaseResult.terminatedAfter());
             }
-            ExecutorService executor = searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
-            assert executor instanceof TaskExecutionTimeTrackingEsThreadPoolExecutor
-                || (executor instanceof EsThreadPoolExecutor == false /* in case thread pool is mocked out in tests */)
-                : "SEARCH threadpool should have an executor that exposes EWMA metrics, but is of type " + executor.getClass();
-            if (executor instanceof TaskExecutionTimeTrackingEsThreadPoolExecutor rExecutor) {
-                queryResult.nodeQueueSize(rExecutor.getCurrentQueueSize());
-                queryResult.serviceTimeEWMA((long) rExecutor.getTaskExecutionEWMA());
-            }
+            recordSearchThreadPoolStats(searchContext);
         } catch (Exception e) {
             throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Failed to execute main query", e);
         }
     }
 
+    /**
+     * Runs the query and the aggregations of a {@code size:0} request on a single segment of the shard. The results of all the segments
+     * are combined into the result of the shard with {@link #setSegmentResults}. Unlike {@link #execute} this neither sets the query
+     * result of the context nor handles timeouts, it is up to the caller to check {@link ContextIndexSearcher#timeExceeded()}.
+     */
+    public static SegmentQueryResult executeOnSegment(SearchContext searchContext, LeafReaderContext leaf) throws IOException {
+        assert searchContext.size() == 0 : "only size:0 requests can be executed per segment";
+        final SetOnce<InternalAggregations> aggregations = new SetOnce<>();
+        final CollectorManager<Collector, QueryPhaseResult> collectorManager = QueryPhaseCollectorManager.createQueryPhaseCollectorManager(
+            null,
+            searchContext.aggregations() == null ? null : AggregationPhase.newCollectorManager(searchContext, aggregations::set),
+            searchContext,
+            false
+        );
+        final QueryPhaseResult result = searchContext.searcher().search(searchContext.rewrittenQuery(), leaf, collectorManager);
+        return new SegmentQueryResult(result.topDocsAndMaxScore().topDocs.totalHits, aggregations.get());
+    }
+
+    /**
+     * Sets the query result of the context to the combination of the results of all the segments of the shard, as computed by
+     * {@link #executeOnSegment}. Hit counts are summed and aggregations are reduced like the aggregations of the slices of a
+     * concurrent search.
+     */
+    public static void setSegmentResults(SearchContext searchContext, List<SegmentQueryResult> segmentResults) {
+        final QuerySearchResult queryResult = searchContext.queryResult();
+        queryResult.searchTimedOut(false);
+        try {
+            queryResult.from(searchContext.from());
+            queryResult.size(searchContext.size());
+            long totalHits = 0;
+            TotalHits.Relation relation = TotalHits.Relation.EQUAL_TO;
+            final List<InternalAggregations> aggregations = new ArrayList<>(segmentResults.size());
+            for (SegmentQueryResult segmentResult : segmentResults) {
+                totalHits += segmentResult.totalHits().value();
+                if (segmentResult.totalHits().relation() != TotalHits.Relation.EQUAL_TO) {
+                    relation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+                }
+                if (segmentResult.aggregations() != null) {
+                    aggregations.add(segmentResult.aggregations());
+                }
+            }
+            final TotalHits hits = new TotalHits(totalHits, relation);
+            final SortAndFormats sort = searchContext.sort();
+            if (sort != null) {
+                queryResult.topDocs(
+                    new TopDocsAndMaxScore(new TopFieldDocs(hits, Lucene.EMPTY_SCORE_DOCS, sort.sort.getSort()), Float.NaN),
+                    sort.formats
+                );
+            } else {
+                queryResult.topDocs(new TopDocsAndMaxScore(new TopDocs(hits, Lucene.EMPTY_SCORE_DOCS), Float.NaN), null);
+            }
+            if (searchContext.aggregations() != null) {
+                queryResult.aggregations(
+                    aggregations.size() == 1
+                        ? aggregations.get(0)
+                        : InternalAggregations.topLevelReduce(
+                            aggregations,
+                            searchContext.aggregations().getAggregationReduceContextBuilder().forPartialReduction()
+                        )
+                );
+            }
+            if (searchContext.searcher().timeExceeded()) {
+                SearchTimeoutException.handleTimeout(
+                    searchContext.request().allowPartialSearchResults(),
+                    searchContext.shardTarget(),
+                    queryResult
+                );
+            }
+            recordSearchThreadPoolStats(searchContext);
+        } catch (Exception e) {
+            throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Failed to merge segment results", e);
+        }
+    }
+
+    private static void recordSearchThreadPoolStats(SearchContext searchContext) {
+        ExecutorService executor = searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
+        assert executor instanceof TaskExecutionTimeTrackingEsThreadPoolExecutor
+            || (executor instanceof EsThreadPoolExecutor == false /* in case thread pool is mocked out in tests */)
+            : "SEARCH threadpool should have an executor that exposes EWMA metrics, but is of type " + executor.getClass();
+        if (executor instanceof TaskExecutionTimeTrackingEsThreadPoolExecutor rExecutor) {
+            searchContext.queryResult().nodeQueueSize(rExecutor.getCurrentQueueSize());
+            searchContext.queryResult().serviceTimeEWMA((long) rExecutor.getTaskExecutionEWMA());
+        }
+    }
+
     /**
      * Returns whether collection within the provided <code>reader</code> can be early-terminated if it sorts
      * with <code>sortAndFormats</code>.
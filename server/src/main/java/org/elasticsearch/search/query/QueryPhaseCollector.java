@@ -10,9 +10,11 @@
 package org.elasticsearch.search.query;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CheckedIntConsumer;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.DocIdStream;
 import org.apache.lucene.search.FilterLeafCollector;
 import org.apache.lucene.search.FilterScorable;
 import org.apache.lucene.search.LeafCollector;
@@ -23,6 +25,7 @@ import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.internal.TwoPhaseCollector;
 
 import java.io.IOException;
@@ -257,6 +260,7 @@ public final class QueryPhaseCollector implements TwoPhaseCollector {
         private LeafCollector topDocsLeafCollector;
         private LeafCollector aggsLeafCollector;
         private Scorable scorer;
+        private int[] docBlock;
 
         CompositeLeafCollector(Bits postFilterBits, LeafCollector topDocsLeafCollector, LeafCollector aggsLeafCollector) {
             assert topDocsLeafCollector != null || aggsLeafCollector != null;
@@ -316,6 +320,72 @@ public final class QueryPhaseCollector implements TwoPhaseCollector {
             }
         }
 
+        @Override
+        public void collect(DocIdStream stream) throws IOException {
+            if (postFilterBits != null || terminateAfterChecker != NO_OP_TERMINATE_AFTER_CHECKER || minScore != null) {
+                // docs are filtered and counted one at a time
+                LeafCollector.super.collect(stream);
+                return;
+            }
+            if (topDocsLeafCollector == null) {
+                collectAggs(stream);
+                return;
+            }
+            if (aggsLeafCollector == null) {
+                collectTopDocs(stream);
+                return;
+            }
+            // both collectors need the docs but a stream can only be consumed once, so it is replayed to both of them in blocks
+            if (docBlock == null) {
+                docBlock = new int[LeafBucketCollector.MAX_BLOCK_SIZE];
+            }
+            final int[] docs = docBlock;
+            final int[] count = new int[] { 0 };
+            stream.forEach(doc -> {
+                docs[count[0]++] = doc;
+                if (count[0] == docs.length) {
+                    collectBlock(docs, count[0]);
+                    count[0] = 0;
+                }
+            });
+            if (count[0] > 0) {
+                collectBlock(docs, count[0]);
+            }
+        }
+
+        private void collectBlock(int[] docs, int count) throws IOException {
+            if (topDocsLeafCollector != null) {
+                collectTopDocs(new ArrayDocIdStream(docs, count));
+            }
+            if (aggsLeafCollector != null) {
+                collectAggs(new ArrayDocIdStream(docs, count));
+            }
+        }
+
+        private void collectTopDocs(DocIdStream stream) throws IOException {
+            try {
+                topDocsLeafCollector.collect(stream);
+            } catch (@SuppressWarnings("unused") CollectionTerminatedException e) {
+                topDocsLeafCollector = null;
+                // top docs collector does not need this segment, but the aggs collector may.
+                if (aggsLeafCollector == null) {
+                    throw e;
+                }
+            }
+        }
+
+        private void collectAggs(DocIdStream stream) throws IOException {
+            try {
+                aggsLeafCollector.collect(stream);
+            } catch (@SuppressWarnings("unused") CollectionTerminatedException e) {
+                aggsLeafCollector = null;
+                // aggs collector does not need this segment, but the top docs collector may.
+                if (topDocsLeafCollector == null) {
+                    throw e;
+                }
+            }
+        }
+
         @Override
         public DocIdSetIterator competitiveIterator() throws IOException {
             // TODO we expose the competitive iterator only when one of the two sub-leaf collectors has early terminated,
@@ -330,6 +400,31 @@ public final class QueryPhaseCollector implements TwoPhaseCollector {
         }
     }
 
+    /**
+     * A {@link DocIdStream} over the first {@code count} docs of an array.
+     */
+    private static final class ArrayDocIdStream extends DocIdStream {
+        private final int[] docs;
+        private final int count;
+
+        ArrayDocIdStream(int[] docs, int count) {
+            this.docs = docs;
+            this.count = count;
+        }
+
+        @Override
+        public void forEach(CheckedIntConsumer<IOException> consumer) throws IOException {
+            for (int i = 0; i < count; i++) {
+                consumer.accept(docs[i]);
+            }
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+    }
+
     static TerminateAfterChecker resolveTerminateAfterChecker(int terminateAfter) {
         if (terminateAfter < 0) {
             throw new IllegalArgumentException("terminateAfter must be greater than or equal to 0");
@@ -418,7 +418,9 @@ abstract class QueryPhaseCollectorManager implements CollectorManager<Collector,
             if (sortAndFormats == null) {
                 this.topDocsManager = new TopScoreDocCollectorManager(numHits, searchAfter, hitCountThreshold);
             } else {
-                this.topDocsManager = new TopFieldCollectorManager(sortAndFormats.sort, numHits, (FieldDoc) searchAfter, hitCountThreshold);
+                // skips the documents that cannot beat the bottom of the slices that are furthest ahead
+                final Sort sort = SharedBottomNumericSortField.maybeWrap(sortAndFormats.sort, reader);
+                this.topDocsManager = new TopFieldCollectorManager(sort, numHits, (FieldDoc) searchAfter, hitCountThreshold);
             }
         }
 
@@ -453,12 +455,11 @@ abstract class QueryPhaseCollectorManager implements CollectorManager<Collector,
                 TopDocsCollector<?>,
                 ? extends TopDocs>) topDocsManager;
             TopDocs topDocs = tdcm.reduce(topDocsCollectors);
-            if (shortcutTotalHits != null) {
-                if (topDocs instanceof TopFieldDocs fieldDocs) {
-                    topDocs = new TopFieldDocs(shortcutTotalHits, fieldDocs.scoreDocs, fieldDocs.fields);
-                } else {
-                    topDocs = new TopDocs(shortcutTotalHits, topDocs.scoreDocs);
-                }
+            if (topDocs instanceof TopFieldDocs fieldDocs) {
+                final TotalHits totalHits = shortcutTotalHits != null ? shortcutTotalHits : fieldDocs.totalHits;
+                topDocs = new TopFieldDocs(totalHits, fieldDocs.scoreDocs, SharedBottomNumericSortField.unwrap(fieldDocs.fields));
+            } else if (shortcutTotalHits != null) {
+                topDocs = new TopDocs(shortcutTotalHits, topDocs.scoreDocs);
             }
             final float maxScore = getMaxScore(topDocs, sortAndFormats, trackMaxScore, maxScoreCollectors);
             return new TopDocsAndMaxScore(topDocs, maxScore);
@@ -0,0 +1,41 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+
+import java.io.IOException;
+
+/**
+ * The result of the query phase of a {@code size:0} request on a single segment of a shard, see
+ * {@link QueryPhase#executeOnSegment}. The results of all the segments of a shard are merged into the result of the shard with
+ * {@link QueryPhase#setSegmentResults}.
+ *
+ * @param totalHits the number of hits of the segment
+ * @param aggregations the aggregations of the segment, or {@code null} if the request has no aggregations
+ */
+public record SegmentQueryResult(TotalHits totalHits, @Nullable InternalAggregations aggregations) implements Writeable {
+
+    public static SegmentQueryResult readFrom(StreamInput in) throws IOException {
+        return new SegmentQueryResult(Lucene.readTotalHits(in), in.readOptionalWriteable(InternalAggregations::readFrom));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        Lucene.writeTotalHits(out, totalHits);
+        out.writeOptionalWriteable(aggregations);
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.index.DocValuesSkipper;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.ConjunctionUtils;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.FieldComparatorSource;
+import org.apache.lucene.search.LeafFieldComparator;
+import org.apache.lucene.search.Pruning;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.util.NumericUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps the primary {@link SortedNumericSortField} of a top-N search on a long or date field that is not the primary index sort so
+ * that whole ranges of documents that cannot compete are skipped:
+ * <ul>
+ *     <li>the bottom value of the queue of every slice is published to a bound shared by all the slices of the search, so that a slice
+ *     that only just started skips what the slices that are further ahead already know cannot make it to the top hits,</li>
+ *     <li>the blocks of the {@link DocValuesSkipper} of the field, or the range of the points of the whole segment if the field has no
+ *     skipper, are skipped when their values cannot beat the shared bound.</li>
+ * </ul>
+ * Lucene already skips within a segment using the points of the field, but it does not share the bottom value across slices and it
+ * cannot skip at all on fields that only have a doc values skipper, which is how {@code @timestamp} is indexed in logs and time series
+ * indices. Documents are only skipped once the hits threshold is reached, like Lucene's comparators do, so that the total hits stay
+ * accurate up to {@code track_total_hits}.
+ */
+final class SharedBottomNumericSortField extends SortField {
+
+    private final SortedNumericSortField delegate;
+    private final long missingValue;
+    // the best bottom value of all the slices, documents that sort strictly after it cannot make it to the top hits
+    private final AtomicLong bound;
+
+    private SharedBottomNumericSortField(SortedNumericSortField delegate, Source source) {
+        super(delegate.getField(), source, delegate.getReverse());
+        this.delegate = delegate;
+        this.missingValue = delegate.getMissingValue() == null ? 0L : ((Number) delegate.getMissingValue()).longValue();
+        this.bound = new AtomicLong(delegate.getReverse() ? Long.MIN_VALUE : Long.MAX_VALUE);
+        source.field = this;
+    }
+
+    /**
+     * Returns a copy of the given sort whose primary sort field skips non-competitive documents using a bound shared across slices,
+     * or the sort itself if its primary sort field does not support it or if the index is already sorted on it.
+     */
+    static Sort maybeWrap(Sort sort, IndexReader reader) {
+        final SortField[] fields = sort.getSort();
+        if (fields[0] instanceof SortedNumericSortField numeric == false || numeric.getNumericType() != SortField.Type.LONG) {
+            return sort;
+        }
+        for (LeafReaderContext leaf : reader.leaves()) {
+            final Sort indexSort = leaf.reader().getMetaData().sort();
+            if (indexSort != null && indexSort.getSort()[0].getField().equals(numeric.getField())) {
+                // Lucene terminates early on the segments that are sorted on the primary sort, leave it alone
+                return sort;
+            }
+        }
+        final SortField[] wrapped = fields.clone();
+        wrapped[0] = new SharedBottomNumericSortField(numeric, new Source());
+        return new Sort(wrapped);
+    }
+
+    /**
+     * Replaces the wrapped sort fields of the given sort fields by the original ones so that they can be serialized.
+     */
+    static SortField[] unwrap(SortField[] fields) {
+        if (fields.length > 0 && fields[0] instanceof SharedBottomNumericSortField sharedBottom) {
+            final SortField[] unwrapped = fields.clone();
+            unwrapped[0] = sharedBottom.delegate;
+            return unwrapped;
+        }
+        return fields;
+    }
+
+    long bound() {
+        return bound.get();
+    }
+
+    private void publishBottom(long bottom) {
+        if (getReverse()) {
+            bound.accumulateAndGet(bottom, Math::max);
+        } else {
+            bound.accumulateAndGet(bottom, Math::min);
+        }
+    }
+
+    /**
+     * Whether a document with the given value may still make it to the top hits. Documents that are equal to the bound compete since
+     * they may win the tie break on the doc id.
+     */
+    private boolean competes(long value) {
+        return getReverse() ? value >= bound.get() : value <= bound.get();
+    }
+
+    /**
+     * Whether a document with a value between the given minimum and maximum may still make it to the top hits.
+     */
+    private boolean competes(long min, long max) {
+        return getReverse() ? competes(max) : competes(min);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+
+    private static final class Source extends FieldComparatorSource {
+        private SharedBottomNumericSortField field;
+
+        @Override
+        public FieldComparator<?> newComparator(String fieldname, int numHits, Pruning pruning, boolean reversed) {
+            final FieldComparator<?> comparator = field.delegate.getComparator(numHits, pruning);
+            return new SharedBottomComparator<>(field, comparator, pruning != Pruning.NONE);
+        }
+    }
+
+    private static final class SharedBottomComparator<T> extends FieldComparator<T> {
+        private final SharedBottomNumericSortField field;
+        private final FieldComparator<T> delegate;
+        private boolean canSkip;
+
+        SharedBottomComparator(SharedBottomNumericSortField field, FieldComparator<T> delegate, boolean canSkip) {
+            this.field = field;
+            this.delegate = delegate;
+            this.canSkip = canSkip;
+        }
+
+        @Override
+        public int compare(int slot1, int slot2) {
+            return delegate.compare(slot1, slot2);
+        }
+
+        @Override
+        public void setTopValue(T value) {
+            delegate.setTopValue(value);
+        }
+
+        @Override
+        public T value(int slot) {
+            return delegate.value(slot);
+        }
+
+        @Override
+        public int compareValues(T first, T second) {
+            return delegate.compareValues(first, second);
+        }
+
+        @Override
+        public void setSingleSort() {
+            delegate.setSingleSort();
+        }
+
+        @Override
+        public void disableSkipping() {
+            delegate.disableSkipping();
+            canSkip = false;
+        }
+
+        @Override
+        public LeafFieldComparator getLeafComparator(LeafReaderContext context) throws IOException {
+            final LeafFieldComparator leafDelegate = delegate.getLeafComparator(context);
+            final CompetitiveIterator iterator = canSkip ? CompetitiveIterator.create(field, context) : null;
+            return new LeafFieldComparator() {
+                @Override
+                public void setBottom(int slot) throws IOException {
+                    leafDelegate.setBottom(slot);
+                    // only called once the queue of the slice is full
+                    field.publishBottom(((Number) delegate.value(slot)).longValue());
+                }
+
+                @Override
+                public int compareBottom(int doc) throws IOException {
+                    return leafDelegate.compareBottom(doc);
+                }
+
+                @Override
+                public int compareTop(int doc) throws IOException {
+                    return leafDelegate.compareTop(doc);
+                }
+
+                @Override
+                public void copy(int slot, int doc) throws IOException {
+                    leafDelegate.copy(slot, doc);
+                }
+
+                @Override
+                public void setScorer(Scorable scorer) throws IOException {
+                    leafDelegate.setScorer(scorer);
+                }
+
+                @Override
+                public DocIdSetIterator competitiveIterator() throws IOException {
+                    final DocIdSetIterator delegateIterator = leafDelegate.competitiveIterator();
+                    if (iterator == null) {
+                        return delegateIterator;
+                    } else if (delegateIterator == null) {
+                        return iterator;
+                    }
+                    return ConjunctionUtils.intersectIterators(List.of(iterator, delegateIterator));
+                }
+
+                @Override
+                public void setHitsThresholdReached() throws IOException {
+                    leafDelegate.setHitsThresholdReached();
+                    if (iterator != null) {
+                        iterator.enabled = true;
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterates over all the documents of a segment except the ranges of documents whose values cannot beat the shared bound.
+     */
+    private static final class CompetitiveIterator extends DocIdSetIterator {
+        private final SharedBottomNumericSortField field;
+        private final int maxDoc;
+        private final DocValuesSkipper skipper;
+        // the range of the values of the segment, used when the field has no skipper
+        private final long segmentMin;
+        private final long segmentMax;
+        private final boolean segmentDense;
+        private boolean enabled;
+        private int doc = -1;
+
+        private CompetitiveIterator(
+            SharedBottomNumericSortField field,
+            int maxDoc,
+            DocValuesSkipper skipper,
+            long segmentMin,
+            long segmentMax,
+            boolean segmentDense
+        ) {
+            this.field = field;
+            this.maxDoc = maxDoc;
+            this.skipper = skipper;
+            this.segmentMin = segmentMin;
+            this.segmentMax = segmentMax;
+            this.segmentDense = segmentDense;
+        }
+
+        static CompetitiveIterator create(SharedBottomNumericSortField field, LeafReaderContext context) throws IOException {
+            final int maxDoc = context.reader().maxDoc();
+            final DocValuesSkipper skipper = context.reader().getDocValuesSkipper(field.getField());
+            if (skipper != null) {
+                return new CompetitiveIterator(field, maxDoc, skipper, Long.MIN_VALUE, Long.MAX_VALUE, false);
+            }
+            if (field.delegate.getOptimizeSortWithPoints() == false) {
+                return null;
+            }
+            final PointValues points = context.reader().getPointValues(field.getField());
+            if (points == null) {
+                // no document has a value, they all sort on the missing value
+                return new CompetitiveIterator(field, maxDoc, null, field.missingValue, field.missingValue, true);
+            }
+            if (points.getNumDimensions() != 1 || points.getBytesPerDimension() != Long.BYTES) {
+                return null;
+            }
+            final long min = NumericUtils.sortableBytesToLong(points.getMinPackedValue(), 0);
+            final long max = NumericUtils.sortableBytesToLong(points.getMaxPackedValue(), 0);
+            return new CompetitiveIterator(field, maxDoc, null, min, max, points.getDocCount() == maxDoc);
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            return doc = enabled ? nextCompetitiveDoc(target) : (target < maxDoc ? target : NO_MORE_DOCS);
+        }
+
+        private int nextCompetitiveDoc(int target) throws IOException {
+            final boolean missingCompetes = field.competes(field.missingValue);
+            if (skipper == null) {
+                if (target >= maxDoc || (field.competes(segmentMin, segmentMax) == false && (segmentDense || missingCompetes == false))) {
+                    return NO_MORE_DOCS;
+                }
+                return target;
+            }
+            while (target < maxDoc) {
+                if (target > skipper.maxDocID(0)) {
+                    skipper.advance(target);
+                }
+                final int blockStart = skipper.minDocID(0);
+                if (blockStart == NO_MORE_DOCS) {
+                    // the documents after the last block have no value
+                    return missingCompetes ? target : NO_MORE_DOCS;
+                }
+                if (target < blockStart) {
+                    // the documents between two blocks have no value
+                    if (missingCompetes) {
+                        return target;
+                    }
+                    target = blockStart;
+                }
+                // skip the largest block that cannot compete, starting from the top level
+                int skipTo = -1;
+                for (int level = skipper.numLevels() - 1; level >= 0; level--) {
+                    final boolean dense = skipper.docCount(level) == skipper.maxDocID(level) - skipper.minDocID(level) + 1;
+                    if (field.competes(skipper.minValue(level), skipper.maxValue(level)) == false && (dense || missingCompetes == false)) {
+                        skipTo = skipper.maxDocID(level) + 1;
+                        break;
+                    }
+                }
+                if (skipTo == -1) {
+                    return target;
+                }
+                target = skipTo;
+            }
+            return NO_MORE_DOCS;
+        }
+
+        @Override
+        public long cost() {
+            return maxDoc;
+        }
+    }
+}
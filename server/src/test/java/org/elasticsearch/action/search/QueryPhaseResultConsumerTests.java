@@ -41,6 +41,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.mock;
 
 public class QueryPhaseResultConsumerTests extends ESTestCase {
@@ -148,6 +150,63 @@ public class QueryPhaseResultConsumerTests extends ESTestCase {
         }
     }
 
+    public void testPartialReduceNotificationsWithStreamedTopDocs() throws Exception {
+        int numShards = randomIntBetween(4, 20);
+        int batchedReduceSize = randomIntBetween(2, numShards - 1);
+        SearchRequest searchRequest = new SearchRequest("index");
+        searchRequest.setBatchedReduceSize(batchedReduceSize);
+        AtomicInteger numPartialReduces = new AtomicInteger();
+        AtomicReference<TotalHits> partialTotalHits = new AtomicReference<>();
+        SearchProgressListener progressListener = new SearchProgressListener() {
+            @Override
+            protected void onPartialReduce(List<SearchShard> shards, TotalHits totalHits, InternalAggregations aggs, int reducePhase) {
+                assertNull(aggs);
+                assertEquals(numPartialReduces.incrementAndGet(), reducePhase);
+                TotalHits previous = partialTotalHits.getAndSet(totalHits);
+                assertTrue(previous == null || previous.value() <= totalHits.value());
+            }
+        };
+        AtomicReference<Exception> onPartialMergeFailure = new AtomicReference<>();
+        long expectedTotalHits = 0;
+        try (
+            QueryPhaseResultConsumer queryPhaseResultConsumer = new QueryPhaseResultConsumer(
+                searchRequest,
+                executor,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+                searchPhaseController,
+                () -> false,
+                progressListener,
+                numShards,
+                onPartialMergeFailure::set
+            )
+        ) {
+            CountDownLatch consumed = new CountDownLatch(numShards);
+            for (int i = 0; i < numShards; i++) {
+                int numHits = randomIntBetween(1, 5);
+                expectedTotalHits += numHits;
+                ScoreDoc[] scoreDocs = new ScoreDoc[numHits];
+                for (int j = 0; j < numHits; j++) {
+                    scoreDocs[j] = new ScoreDoc(j, numHits - j);
+                }
+                QuerySearchResult querySearchResult = new QuerySearchResult();
+                TopDocs topDocs = new TopDocs(new TotalHits(numHits, TotalHits.Relation.EQUAL_TO), scoreDocs);
+                querySearchResult.topDocs(new TopDocsAndMaxScore(topDocs, numHits), new DocValueFormat[0]);
+                querySearchResult.setSearchShardTarget(new SearchShardTarget("node", new ShardId("index", "uuid", i), null));
+                querySearchResult.setShardIndex(i);
+                queryPhaseResultConsumer.consumeResult(querySearchResult, consumed::countDown);
+            }
+            assertTrue(consumed.await(10, TimeUnit.SECONDS));
+            assertNull(onPartialMergeFailure.get());
+            // the top docs are merged as they arrive, but the listener is still notified every batchedReduceSize results
+            assertThat(numPartialReduces.get(), greaterThan(0));
+            assertEquals(numPartialReduces.get(), queryPhaseResultConsumer.getNumReducePhases());
+
+            SearchPhaseController.ReducedQueryPhase reducedQueryPhase = queryPhaseResultConsumer.reduce();
+            assertEquals(expectedTotalHits, reducedQueryPhase.totalHits().value());
+            assertThat(partialTotalHits.get().value(), lessThanOrEqualTo(expectedTotalHits));
+        }
+    }
+
     private static class ThrowingSearchProgressListener extends SearchProgressListener {
         private final AtomicInteger onQueryResult = new AtomicInteger(0);
         private final AtomicInteger onPartialReduce = new AtomicInteger(0);
@@ -24,6 +24,7 @@ import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -138,4 +139,83 @@ public class SearchContextIdTests extends ESTestCase {
         assertThat(indices[1], equalTo("cluster_y:idy"));
         assertThat(indices[2], equalTo("idy"));
     }
+
+    public void testSplitByShard() {
+        final NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(
+            List.of(new NamedWriteableRegistry.Entry(QueryBuilder.class, TermQueryBuilder.NAME, TermQueryBuilder::new))
+        );
+        final AtomicArray<SearchPhaseResult> queryResults = TransportSearchHelperTests.generateQueryResults();
+        final List<ShardSearchFailure> shardSearchFailures = new ArrayList<>();
+        final Map<ShardId, SearchContextIdForNode> expectedShards = new HashMap<>();
+        for (int i = 0; i < queryResults.length(); i++) {
+            final SearchPhaseResult result = queryResults.get(i);
+            final SearchShardTarget target = result.getSearchShardTarget();
+            if (randomBoolean()) {
+                shardSearchFailures.add(new ShardSearchFailure(new NoShardAvailableActionException(target.getShardId()), target));
+                queryResults.set(i, null);
+            } else {
+                expectedShards.put(
+                    target.getShardId(),
+                    new SearchContextIdForNode(target.getClusterAlias(), target.getNodeId(), result.getContextId())
+                );
+            }
+        }
+        final Map<String, AliasFilter> aliasFilters = Map.of("uuid2", AliasFilter.of(new TermQueryBuilder("field", "value")));
+        final BytesReference id = SearchContextId.encode(
+            queryResults.asList(),
+            aliasFilters,
+            TransportVersion.current(),
+            shardSearchFailures.toArray(ShardSearchFailure[]::new)
+        );
+
+        final List<BytesReference> shardIds = SearchContextId.splitByShard(namedWriteableRegistry, id);
+        assertThat(shardIds, hasSize(expectedShards.size()));
+        final Map<ShardId, SearchContextIdForNode> actualShards = new HashMap<>();
+        for (BytesReference shardId : shardIds) {
+            final SearchContextId context = SearchContextId.decode(namedWriteableRegistry, shardId);
+            assertThat(context.shards().keySet(), hasSize(1));
+            assertThat(context.aliasFilter(), equalTo(aliasFilters));
+            actualShards.putAll(context.shards());
+        }
+        assertThat(actualShards.keySet(), equalTo(expectedShards.keySet()));
+        for (Map.Entry<ShardId, SearchContextIdForNode> entry : expectedShards.entrySet()) {
+            final SearchContextIdForNode actual = actualShards.get(entry.getKey());
+            assertThat(actual.getNode(), equalTo(entry.getValue().getNode()));
+            assertThat(actual.getClusterAlias(), equalTo(entry.getValue().getClusterAlias()));
+            assertThat(actual.getSearchContextId(), equalTo(entry.getValue().getSearchContextId()));
+        }
+    }
+
+    public void testMergeSplitIds() {
+        final NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(
+            List.of(new NamedWriteableRegistry.Entry(QueryBuilder.class, TermQueryBuilder.NAME, TermQueryBuilder::new))
+        );
+        final AtomicArray<SearchPhaseResult> queryResults = TransportSearchHelperTests.generateQueryResults();
+        final Map<String, AliasFilter> aliasFilters = Map.of("uuid2", AliasFilter.of(new TermQueryBuilder("field", "value")));
+        final BytesReference id = SearchContextId.encode(
+            queryResults.asList(),
+            aliasFilters,
+            TransportVersion.current(),
+            ShardSearchFailure.EMPTY_ARRAY
+        );
+        final SearchContextId original = SearchContextId.decode(namedWriteableRegistry, id);
+
+        final List<BytesReference> shardIds = SearchContextId.splitByShard(namedWriteableRegistry, id);
+        final BytesReference mergedId = SearchContextId.merge(namedWriteableRegistry, shardIds);
+        final SearchContextId merged = SearchContextId.decode(namedWriteableRegistry, mergedId);
+        assertThat(merged.shards().keySet(), equalTo(original.shards().keySet()));
+        assertThat(merged.aliasFilter(), equalTo(aliasFilters));
+
+        final List<BytesReference> subset = randomSubsetOf(between(1, shardIds.size()), shardIds);
+        final BytesReference partialId = SearchContextId.merge(namedWriteableRegistry, subset);
+        final SearchContextId partial = SearchContextId.decode(namedWriteableRegistry, partialId);
+        assertThat(partial.shards().keySet(), hasSize(subset.size()));
+        for (Map.Entry<ShardId, SearchContextIdForNode> entry : partial.shards().entrySet()) {
+            final SearchContextIdForNode expected = original.shards().get(entry.getKey());
+            assertThat(entry.getValue().getNode(), equalTo(expected.getNode()));
+            assertThat(entry.getValue().getSearchContextId(), equalTo(expected.getSearchContextId()));
+        }
+
+        expectThrows(IllegalArgumentException.class, () -> SearchContextId.merge(namedWriteableRegistry, List.of()));
+    }
 }
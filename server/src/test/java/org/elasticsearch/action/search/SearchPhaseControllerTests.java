@@ -66,6 +66,7 @@ import org.elasticsearch.search.suggest.Suggest;
 import org.elasticsearch.search.suggest.completion.CompletionSuggestion;
 import org.elasticsearch.search.suggest.phrase.PhraseSuggestion;
 import org.elasticsearch.search.suggest.term.TermSuggestion;
+import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.tasks.TaskId;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.InternalAggregationTestCase;
@@ -848,6 +849,132 @@ public class SearchPhaseControllerTests extends ESTestCase {
         }
     }
 
+    public void testConsumerConcurrentFinalReduce() throws Exception {
+        int concurrency = randomIntBetween(2, 4);
+        SearchPhaseController controller = new SearchPhaseController((t, agg) -> new AggregationReduceContext.Builder() {
+            @Override
+            public AggregationReduceContext forPartialReduction() {
+                reductions.add(false);
+                return new AggregationReduceContext.ForPartial(BigArrays.NON_RECYCLING_INSTANCE, null, t, agg, b -> {});
+            }
+
+            public AggregationReduceContext forFinalReduction() {
+                reductions.add(true);
+                return new AggregationReduceContext.ForFinal(BigArrays.NON_RECYCLING_INSTANCE, null, t, agg, b -> {});
+            };
+        }, () -> concurrency);
+        int expectedNumResults = randomIntBetween(QueryPhaseResultConsumer.MIN_RESULTS_PER_CONCURRENT_REDUCE * concurrency, 200);
+        SearchRequest request = new SearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(new MaxAggregationBuilder("test")).size(0));
+        // no partial reduce before the final one
+        request.setBatchedReduceSize(expectedNumResults);
+        try (
+            SearchPhaseResults<SearchPhaseResult> consumer = controller.newSearchPhaseResults(
+                fixedExecutor,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+                () -> false,
+                SearchProgressListener.NOOP,
+                request,
+                expectedNumResults,
+                exc -> {}
+            )
+        ) {
+            AtomicInteger max = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(expectedNumResults);
+            for (int i = 0; i < expectedNumResults; i++) {
+                int number = randomIntBetween(1, 1000);
+                max.updateAndGet(prev -> Math.max(prev, number));
+                QuerySearchResult result = new QuerySearchResult(
+                    new ShardSearchContextId("", i),
+                    new SearchShardTarget("node", new ShardId("a", "b", i), null),
+                    null
+                );
+                try {
+                    result.topDocs(
+                        new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]), number),
+                        new DocValueFormat[0]
+                    );
+                    InternalAggregations aggs = InternalAggregations.from(
+                        Collections.singletonList(new Max("test", (double) number, DocValueFormat.RAW, Collections.emptyMap()))
+                    );
+                    result.aggregations(aggs);
+                    result.setShardIndex(i);
+                    result.size(1);
+                    consumer.consumeResult(result, latch::countDown);
+                } finally {
+                    result.decRef();
+                }
+            }
+            latch.await();
+
+            SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+            Max internalMax = (Max) reduce.aggregations().asList().get(0);
+            assertEquals(max.get(), internalMax.value(), 0.0D);
+            assertEquals(expectedNumResults, reduce.totalHits().value());
+            assertEquals(2, reduce.numReducePhases());
+            assertThat(reductions.stream().filter(finalReduce -> finalReduce == false).count(), equalTo((long) concurrency));
+            assertEquals(List.of(true), reductions.stream().filter(finalReduce -> finalReduce).toList());
+        }
+    }
+
+    public void testConsumerConcurrentFinalReduceCancelled() throws Exception {
+        int concurrency = randomIntBetween(2, 4);
+        SearchPhaseController controller = new SearchPhaseController((t, agg) -> new AggregationReduceContext.Builder() {
+            @Override
+            public AggregationReduceContext forPartialReduction() {
+                return new AggregationReduceContext.ForPartial(BigArrays.NON_RECYCLING_INSTANCE, null, () -> false, agg, b -> {});
+            }
+
+            public AggregationReduceContext forFinalReduction() {
+                return new AggregationReduceContext.ForFinal(BigArrays.NON_RECYCLING_INSTANCE, null, () -> false, agg, b -> {});
+            };
+        }, () -> concurrency);
+        int expectedNumResults = QueryPhaseResultConsumer.MIN_RESULTS_PER_CONCURRENT_REDUCE * concurrency;
+        SearchRequest request = new SearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(new MaxAggregationBuilder("test")).size(0));
+        request.setBatchedReduceSize(expectedNumResults);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try (
+            SearchPhaseResults<SearchPhaseResult> consumer = controller.newSearchPhaseResults(
+                fixedExecutor,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+                cancelled::get,
+                SearchProgressListener.NOOP,
+                request,
+                expectedNumResults,
+                exc -> {}
+            )
+        ) {
+            CountDownLatch latch = new CountDownLatch(expectedNumResults);
+            for (int i = 0; i < expectedNumResults; i++) {
+                QuerySearchResult result = new QuerySearchResult(
+                    new ShardSearchContextId("", i),
+                    new SearchShardTarget("node", new ShardId("a", "b", i), null),
+                    null
+                );
+                try {
+                    result.topDocs(
+                        new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]), i),
+                        new DocValueFormat[0]
+                    );
+                    result.aggregations(
+                        InternalAggregations.from(
+                            Collections.singletonList(new Max("test", (double) i, DocValueFormat.RAW, Collections.emptyMap()))
+                        )
+                    );
+                    result.setShardIndex(i);
+                    result.size(1);
+                    consumer.consumeResult(result, latch::countDown);
+                } finally {
+                    result.decRef();
+                }
+            }
+            latch.await();
+            cancelled.set(true);
+            expectThrows(TaskCancelledException.class, consumer::reduce);
+        }
+    }
+
     public void testConsumerOnlyHits() throws Exception {
         int expectedNumResults = randomIntBetween(1, 100);
         int bufferSize = randomIntBetween(2, 200);
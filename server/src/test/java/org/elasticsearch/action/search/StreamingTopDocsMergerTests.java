@@ -0,0 +1,158 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class StreamingTopDocsMergerTests extends ESTestCase {
+
+    public void testMergeScoreDocs() {
+        int topN = randomIntBetween(1, 50);
+        int numShards = randomIntBetween(1, 20);
+        List<TopDocs> shardTopDocs = new ArrayList<>();
+        for (int shard = 0; shard < numShards; shard++) {
+            ScoreDoc[] scoreDocs = new ScoreDoc[randomIntBetween(0, topN)];
+            for (int i = 0; i < scoreDocs.length; i++) {
+                // few distinct scores to exercise the tie break
+                scoreDocs[i] = new ScoreDoc(i, randomIntBetween(0, 5));
+            }
+            Arrays.sort(scoreDocs, Comparator.comparingDouble((ScoreDoc doc) -> -doc.score).thenComparingInt(doc -> doc.doc));
+            shardTopDocs.add(new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs));
+        }
+        assertSameAsBatchMerge(topN, shardTopDocs);
+    }
+
+    public void testMergeFieldDocs() {
+        int topN = randomIntBetween(1, 50);
+        int numShards = randomIntBetween(1, 20);
+        boolean reverse = randomBoolean();
+        SortField[] sortFields = new SortField[] { new SortField("field", SortField.Type.LONG, reverse) };
+        List<TopDocs> shardTopDocs = new ArrayList<>();
+        for (int shard = 0; shard < numShards; shard++) {
+            FieldDoc[] fieldDocs = new FieldDoc[randomIntBetween(0, topN)];
+            for (int i = 0; i < fieldDocs.length; i++) {
+                fieldDocs[i] = new FieldDoc(i, Float.NaN, new Object[] { (long) randomIntBetween(0, 10) });
+            }
+            Comparator<FieldDoc> comparator = Comparator.comparingLong(doc -> (Long) doc.fields[0]);
+            Arrays.sort(fieldDocs, (reverse ? comparator.reversed() : comparator).thenComparingInt(doc -> doc.doc));
+            shardTopDocs.add(new TopFieldDocs(new TotalHits(fieldDocs.length, TotalHits.Relation.EQUAL_TO), fieldDocs, sortFields));
+        }
+        TopDocs merged = assertSameAsBatchMerge(topN, shardTopDocs);
+        assertThat(((TopFieldDocs) merged).fields, equalTo(sortFields));
+    }
+
+    public void testIncompatibleSortTypes() {
+        StreamingTopDocsMerger merger = new StreamingTopDocsMerger(10, new TopDocsStats(SearchContext.TRACK_TOTAL_HITS_ACCURATE));
+        merger.consume(
+            shardResult(
+                0,
+                new TopFieldDocs(
+                    new TotalHits(1, TotalHits.Relation.EQUAL_TO),
+                    new FieldDoc[] { new FieldDoc(0, Float.NaN, new Object[] { 1L }) },
+                    new SortField[] { new SortField("field", SortField.Type.LONG) }
+                )
+            )
+        );
+        QuerySearchResult other = shardResult(
+            1,
+            new TopFieldDocs(
+                new TotalHits(1, TotalHits.Relation.EQUAL_TO),
+                new FieldDoc[] { new FieldDoc(0, Float.NaN, new Object[] { 1.0d }) },
+                new SortField[] { new SortField("field", SortField.Type.DOUBLE) }
+            )
+        );
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> merger.consume(other));
+        assertThat(
+            e.getMessage(),
+            equalTo("Can't sort on field [field]; the field has incompatible sort types: [LONG] and [DOUBLE] across shards!")
+        );
+    }
+
+    public void testNoResults() {
+        StreamingTopDocsMerger merger = new StreamingTopDocsMerger(10, new TopDocsStats(SearchContext.TRACK_TOTAL_HITS_ACCURATE));
+        assertNull(merger.topDocs());
+    }
+
+    private TopDocs assertSameAsBatchMerge(int topN, List<TopDocs> shardTopDocs) {
+        TopDocsStats stats = new TopDocsStats(SearchContext.TRACK_TOTAL_HITS_ACCURATE);
+        StreamingTopDocsMerger merger = new StreamingTopDocsMerger(topN, stats);
+        List<TopDocs> expectedInput = new ArrayList<>();
+        List<Integer> arrivalOrder = new ArrayList<>();
+        for (int shard = 0; shard < shardTopDocs.size(); shard++) {
+            arrivalOrder.add(shard);
+            TopDocs copy = copy(shardTopDocs.get(shard));
+            SearchPhaseController.setShardIndex(copy, shard);
+            expectedInput.add(copy);
+        }
+        TopDocs expected = SearchPhaseController.mergeTopDocs(expectedInput, topN, 0);
+        // shard results arrive in any order
+        for (int shard : shuffledList(arrivalOrder)) {
+            merger.consume(shardResult(shard, shardTopDocs.get(shard)));
+        }
+        TopDocs merged = merger.topDocs();
+        assertThat(merged.scoreDocs.length, equalTo(expected.scoreDocs.length));
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertThat(merged.scoreDocs[i].shardIndex, equalTo(expected.scoreDocs[i].shardIndex));
+            assertThat(merged.scoreDocs[i].doc, equalTo(expected.scoreDocs[i].doc));
+        }
+        long totalHits = shardTopDocs.stream().mapToLong(topDocs -> topDocs.totalHits.value()).sum();
+        assertThat(stats.getTotalHits().value(), equalTo(totalHits));
+        assertThat(merged.totalHits.value(), equalTo(totalHits));
+        return merged;
+    }
+
+    private static TopDocs copy(TopDocs topDocs) {
+        if (topDocs instanceof TopFieldDocs fieldDocs) {
+            FieldDoc[] docs = new FieldDoc[fieldDocs.scoreDocs.length];
+            for (int i = 0; i < docs.length; i++) {
+                FieldDoc doc = (FieldDoc) fieldDocs.scoreDocs[i];
+                docs[i] = new FieldDoc(doc.doc, doc.score, doc.fields);
+            }
+            return new TopFieldDocs(fieldDocs.totalHits, docs, fieldDocs.fields);
+        }
+        ScoreDoc[] docs = new ScoreDoc[topDocs.scoreDocs.length];
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = new ScoreDoc(topDocs.scoreDocs[i].doc, topDocs.scoreDocs[i].score);
+        }
+        return new TopDocs(topDocs.totalHits, docs);
+    }
+
+    private static QuerySearchResult shardResult(int shardIndex, TopDocs topDocs) {
+        QuerySearchResult result = new QuerySearchResult();
+        result.setShardIndex(shardIndex);
+        result.setSearchShardTarget(new SearchShardTarget("node", new ShardId("index", "_na_", shardIndex), null));
+        DocValueFormat[] formats = topDocs instanceof TopFieldDocs fieldDocs ? new DocValueFormat[fieldDocs.fields.length] : null;
+        if (formats != null) {
+            Arrays.fill(formats, DocValueFormat.RAW);
+        }
+        result.topDocs(new TopDocsAndMaxScore(topDocs, Float.NaN), formats);
+        return result;
+    }
+}
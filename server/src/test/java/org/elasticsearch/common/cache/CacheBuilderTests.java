@@ -41,4 +41,15 @@ public class CacheBuilderTests extends ESTestCase {
         Cache<Object, Object> cache = CacheBuilder.builder().setExpireAfterWrite(timeValue).build();
         assertEquals(timeValue.getNanos(), cache.getExpireAfterWriteNanos());
     }
+
+    public void testBuildWindowTinyLfu() {
+        final TimeValue expireAfterAccess = randomPositiveTimeValue();
+        final TimeValue expireAfterWrite = randomPositiveTimeValue();
+        WindowTinyLfuCache<Object, Object> cache = CacheBuilder.builder()
+            .setExpireAfterAccess(expireAfterAccess)
+            .setExpireAfterWrite(expireAfterWrite)
+            .buildWindowTinyLfu();
+        assertEquals(expireAfterAccess.getNanos(), cache.getExpireAfterAccessNanos());
+        assertEquals(expireAfterWrite.getNanos(), cache.getExpireAfterWriteNanos());
+    }
 }
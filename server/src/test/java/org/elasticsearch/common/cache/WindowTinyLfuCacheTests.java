@@ -0,0 +1,333 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.common.cache;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class WindowTinyLfuCacheTests extends ESTestCase {
+
+    private static CacheBuilder<Integer, String> builder() {
+        return CacheBuilder.<Integer, String>builder();
+    }
+
+    public void testPutAndGet() {
+        WindowTinyLfuCache<Integer, String> cache = builder().buildWindowTinyLfu();
+        int numberOfEntries = randomIntBetween(1, 1000);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        assertEquals(numberOfEntries, cache.count());
+        assertEquals(numberOfEntries, cache.weight());
+        for (int i = 0; i < numberOfEntries; i++) {
+            assertEquals(Integer.toString(i), cache.get(i));
+        }
+        assertNull(cache.get(numberOfEntries));
+        assertEquals(numberOfEntries, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    public void testWeightIsBounded() {
+        int maximumWeight = randomIntBetween(10, 1000);
+        AtomicLong evictions = new AtomicLong();
+        WindowTinyLfuCache<Integer, String> cache = builder().setMaximumWeight(maximumWeight).removalListener(notification -> {
+            assertEquals(RemovalNotification.RemovalReason.EVICTED, notification.getRemovalReason());
+            evictions.incrementAndGet();
+        }).buildWindowTinyLfu();
+        int numberOfEntries = randomIntBetween(maximumWeight, 10 * maximumWeight);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+            assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+        }
+        assertEquals(maximumWeight, cache.count());
+        assertEquals(numberOfEntries - maximumWeight, evictions.get());
+        assertEquals(numberOfEntries - maximumWeight, cache.stats().getEvictions());
+    }
+
+    public void testWeigher() {
+        int maximumWeight = 2 * randomIntBetween(10, 100);
+        WindowTinyLfuCache<Integer, String> cache = builder().setMaximumWeight(maximumWeight).weigher((k, v) -> k).buildWindowTinyLfu();
+        int numberOfEntries = randomIntBetween(100, 1000);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(randomIntBetween(1, maximumWeight / 2), Integer.toString(i));
+            assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+        }
+        // an entry heavier than the cache is evicted immediately
+        cache.put(maximumWeight + 1, "heavy");
+        assertNull(cache.get(maximumWeight + 1));
+    }
+
+    // frequently used entries must survive a scan over entries that are only used once, which would flush an LRU cache
+    public void testFrequentEntriesSurviveScan() {
+        Cache<Integer, String> lru = CacheBuilder.<Integer, String>builder().setMaximumWeight(100).build();
+        WindowTinyLfuCache<Integer, String> tinyLfu = builder().setMaximumWeight(100).buildWindowTinyLfu();
+        int hitsLru = runScanWorkload(lru::get, lru::put);
+        int hitsTinyLfu = runScanWorkload(tinyLfu::get, tinyLfu::put);
+        assertEquals(0, hitsLru);
+        assertThat(hitsTinyLfu, greaterThan(3000));
+    }
+
+    private static int runScanWorkload(Function<Integer, String> get, BiConsumer<Integer, String> put) {
+        int hits = 0;
+        for (int i = 0; i < 20000; i++) {
+            put.accept(-1 - i, "scan");
+            if (i % 5 == 0) {
+                // each of the 50 hot keys is used once every 250 operations
+                int hotKey = (i / 5) % 50;
+                if (get.apply(hotKey) == null) {
+                    put.accept(hotKey, "hot");
+                } else {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    public void testExpireAfterAccess() {
+        AtomicLong now = new AtomicLong();
+        WindowTinyLfuCache<Integer, String> cache = new WindowTinyLfuCache<>() {
+            @Override
+            protected long now() {
+                return now.get();
+            }
+        };
+        cache.setExpireAfterAccessNanos(1);
+        List<Integer> evicted = new ArrayList<>();
+        cache.setRemovalListener(notification -> evicted.add(notification.getKey()));
+        int numberOfEntries = randomIntBetween(1, 100);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        now.set(2);
+        for (int i = 0; i < numberOfEntries; i++) {
+            assertNull(cache.get(i));
+        }
+        cache.refresh();
+        assertEquals(0, cache.count());
+        assertEquals(numberOfEntries, evicted.size());
+    }
+
+    public void testReplaceNotifies() {
+        List<RemovalNotification<Integer, String>> notifications = new ArrayList<>();
+        WindowTinyLfuCache<Integer, String> cache = builder().removalListener(notifications::add).buildWindowTinyLfu();
+        cache.put(0, "a");
+        cache.put(0, "b");
+        assertEquals("b", cache.get(0));
+        assertEquals(1, cache.count());
+        assertEquals(1, notifications.size());
+        assertEquals("a", notifications.get(0).getValue());
+        assertEquals(RemovalNotification.RemovalReason.REPLACED, notifications.get(0).getRemovalReason());
+    }
+
+    public void testInvalidate() {
+        Set<Integer> notified = new HashSet<>();
+        WindowTinyLfuCache<Integer, String> cache = builder().removalListener(notification -> {
+            assertEquals(RemovalNotification.RemovalReason.INVALIDATED, notification.getRemovalReason());
+            notified.add(notification.getKey());
+        }).buildWindowTinyLfu();
+        int numberOfEntries = randomIntBetween(10, 1000);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        cache.invalidate(0);
+        cache.invalidate(1, "not the value");
+        cache.invalidate(2, "2");
+        assertNull(cache.get(0));
+        assertEquals("1", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(Set.of(0, 2), notified);
+        assertEquals(numberOfEntries - 2, cache.count());
+
+        for (Iterator<Integer> iterator = cache.keys().iterator(); iterator.hasNext();) {
+            if (iterator.next() % 2 == 1) {
+                iterator.remove();
+            }
+        }
+        cache.forEach((k, v) -> assertEquals(0, k % 2));
+        assertEquals(numberOfEntries - numberOfEntries / 2 - 2, cache.count());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.weight());
+        assertEquals(numberOfEntries, notified.size());
+        assertFalse(cache.values().iterator().hasNext());
+    }
+
+    public void testComputeIfAbsentLoadsOnce() throws Exception {
+        WindowTinyLfuCache<Integer, String> cache = builder().setMaximumWeight(1000).buildWindowTinyLfu();
+        int numberOfThreads = randomIntBetween(2, 8);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 1000; j++) {
+                        assertEquals(Integer.toString(j % 100), cache.computeIfAbsent(j % 100, k -> {
+                            loads.incrementAndGet();
+                            return Integer.toString(k);
+                        }));
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, loads.get());
+        assertEquals(100, cache.count());
+    }
+
+    public void testComputeIfAbsentThrows() {
+        WindowTinyLfuCache<Integer, String> cache = builder().buildWindowTinyLfu();
+        ExecutionException e = expectThrows(ExecutionException.class, () -> cache.computeIfAbsent(1, k -> {
+            throw new IllegalArgumentException("boom");
+        }));
+        assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        e = expectThrows(ExecutionException.class, () -> cache.computeIfAbsent(1, k -> null));
+        assertThat(e.getCause(), instanceOf(NullPointerException.class));
+        assertEquals(0, cache.count());
+        assertNull(cache.get(1));
+    }
+
+    public void testConcurrentWritesKeepWeightConsistent() throws InterruptedException {
+        int maximumWeight = randomIntBetween(10, 500);
+        AtomicLong removed = new AtomicLong();
+        WindowTinyLfuCache<Integer, String> cache = builder().setMaximumWeight(maximumWeight)
+            .removalListener(notification -> removed.incrementAndGet())
+            .buildWindowTinyLfu();
+        int numberOfThreads = randomIntBetween(2, 8);
+        int operations = randomIntBetween(1000, 10000);
+        AtomicLong puts = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            Random random = new Random(randomLong());
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < operations; j++) {
+                    int key = random.nextInt(2 * maximumWeight + 1);
+                    switch (random.nextInt(3)) {
+                        case 0 -> {
+                            cache.put(key, Integer.toString(key));
+                            puts.incrementAndGet();
+                        }
+                        case 1 -> cache.get(key);
+                        default -> cache.invalidate(key);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        cache.refresh();
+        assertThat(cache.weight(), lessThanOrEqualTo((long) maximumWeight));
+        int count = 0;
+        for (Integer ignored : cache.keys()) {
+            count++;
+        }
+        assertThat(cache.count(), equalTo(count));
+        // every put either remains in the cache or was notified
+        assertEquals(puts.get(), removed.get() + count);
+    }
+
+    public void testRemovalListenerIsNotifiedOutsideOfTheEvictionLock() {
+        int maximumWeight = randomIntBetween(1, 100);
+        List<WindowTinyLfuCache<Integer, String>> holder = new ArrayList<>();
+        AtomicInteger notified = new AtomicInteger();
+        WindowTinyLfuCache<Integer, String> cache = builder().setMaximumWeight(maximumWeight).removalListener(notification -> {
+            // refresh blocks on the eviction lock, so it can only complete on another thread if the listener does not hold it
+            Thread refresh = new Thread(() -> holder.get(0).refresh());
+            refresh.start();
+            try {
+                refresh.join(10_000);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            assertFalse("removal listener was notified under the eviction lock", refresh.isAlive());
+            notified.incrementAndGet();
+        }).buildWindowTinyLfu();
+        holder.add(cache);
+        int numberOfEntries = maximumWeight + randomIntBetween(1, 10);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        cache.refresh();
+        assertEquals(numberOfEntries - maximumWeight, notified.get());
+    }
+
+    public void testInvalidateDuringLoad() throws Exception {
+        WindowTinyLfuCache<Integer, String> cache = builder().buildWindowTinyLfu();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        Thread loader = new Thread(() -> {
+            try {
+                assertEquals("value", cache.computeIfAbsent(0, key -> {
+                    loading.countDown();
+                    loaded.await();
+                    return "value";
+                }));
+            } catch (ExecutionException e) {
+                throw new AssertionError(e);
+            }
+        });
+        loader.start();
+        loading.await();
+        // blocks until the load completes
+        Thread invalidator = new Thread(() -> cache.invalidate(0));
+        invalidator.start();
+        loaded.countDown();
+        loader.join();
+        invalidator.join();
+        assertNull(cache.get(0));
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.weight());
+        assertFalse(cache.keys().iterator().hasNext());
+    }
+
+    public void testFrequencySketch() {
+        FrequencySketch sketch = new FrequencySketch();
+        assertEquals(0, sketch.frequency(randomInt()));
+        sketch.ensureCapacity(randomIntBetween(0, 512));
+        int item = randomInt();
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(item);
+        }
+        // counters saturate at 15
+        assertEquals(15, sketch.frequency(item));
+        sketch.ensureCapacity(Long.MAX_VALUE);
+        assertEquals(FrequencySketch.MAXIMUM_TABLE_SIZE, sketch.tableLength());
+    }
+}
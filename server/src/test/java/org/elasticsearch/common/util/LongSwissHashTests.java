@@ -0,0 +1,90 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class LongSwissHashTests extends ESTestCase {
+    private BigArrays mockBigArrays() {
+        return new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+    }
+
+    private LongSwissHash randomHash() {
+        return new LongSwissHash(randomIntBetween(0, 100), mockBigArrays());
+    }
+
+    public void testDuel() {
+        try (LongSwissHash hash = randomHash()) {
+            final long[] values = new long[randomIntBetween(1, 100000)];
+            for (int i = 0; i < values.length; ++i) {
+                // few distinct low bits make sure that the control bytes collide
+                values[i] = randomBoolean() ? randomLong() : randomLongBetween(0, 1000) << 32;
+            }
+            final Map<Long, Long> valueToId = new HashMap<>();
+            final int iters = randomInt(1000000);
+            for (int i = 0; i < iters; ++i) {
+                final long value = randomFrom(values);
+                final Long id = valueToId.get(value);
+                if (id != null) {
+                    assertEquals(-1 - id, hash.add(value));
+                } else {
+                    assertEquals(valueToId.size(), hash.add(value));
+                    valueToId.put(value, (long) valueToId.size());
+                }
+                if (rarely()) {
+                    // check lookups while the table may be migrating
+                    final long lookup = randomFrom(values);
+                    assertEquals(valueToId.getOrDefault(lookup, -1L).longValue(), hash.find(lookup));
+                }
+            }
+
+            assertEquals(valueToId.size(), hash.size());
+            for (var entry : valueToId.entrySet()) {
+                assertEquals(entry.getValue().longValue(), hash.find(entry.getKey()));
+                assertEquals(entry.getKey().longValue(), hash.get(entry.getValue()));
+            }
+        }
+    }
+
+    public void testGrow() {
+        try (LongSwissHash hash = new LongSwissHash(0, mockBigArrays())) {
+            assertThat(hash.capacity(), equalTo((long) LongSwissHash.GROUP_SIZE));
+            final int count = scaledRandomIntBetween(1000, 100000);
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, hash.add(i));
+                assertThat(hash.capacity() * (LongSwissHash.GROUP_SIZE - 1) / LongSwissHash.GROUP_SIZE, greaterThanOrEqualTo(hash.size()));
+            }
+            for (int i = 0; i < count; i++) {
+                assertEquals(-1 - i, hash.add(i));
+                assertEquals(i, hash.find(i));
+            }
+            assertEquals(-1, hash.find(count));
+        }
+    }
+
+    public void testInitialCapacity() {
+        final int capacity = randomIntBetween(0, 10000);
+        try (LongSwissHash hash = new LongSwissHash(capacity, mockBigArrays())) {
+            final long initial = hash.capacity();
+            for (int i = 0; i < capacity; i++) {
+                hash.add(randomLong());
+            }
+            assertEquals(initial, hash.capacity());
+        }
+    }
+}
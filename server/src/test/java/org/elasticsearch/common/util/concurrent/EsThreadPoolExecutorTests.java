@@ -130,6 +130,37 @@ public class EsThreadPoolExecutorTests extends ESSingleNodeTestCase {
         }
     }
 
+    public void testRunningTaskCount() throws Exception {
+        final int size = randomIntBetween(1, 4);
+        final EsThreadPoolExecutor executor = EsExecutors.newFixed(
+            getTestName(),
+            size,
+            size,
+            EsExecutors.daemonThreadFactory("test"),
+            new ThreadContext(Settings.EMPTY),
+            EsExecutors.TaskTrackingConfig.DO_NOT_TRACK
+        );
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            for (int i = 0; i < 2 * size; i++) {
+                executor.execute(() -> {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                });
+            }
+            // queued tasks are not running
+            assertBusy(() -> assertThat(executor.getRunningTaskCount(), equalTo(size)));
+            assertThat(executor.getCurrentQueueSize(), equalTo(size));
+            latch.countDown();
+            assertBusy(() -> assertThat(executor.getRunningTaskCount(), equalTo(0)));
+        } finally {
+            terminate(executor);
+        }
+    }
+
     /**
      * EsThreadPoolExecutor that throws a given exception, preventing {@link Runnable} to be added to the thread pool work queue.
      */
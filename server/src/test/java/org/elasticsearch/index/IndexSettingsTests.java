@@ -339,6 +339,46 @@ public class IndexSettingsTests extends ESTestCase {
         );
     }
 
+    public void testAdaptiveRefreshSettings() {
+        IndexMetadata metadata = newIndexMeta(
+            "index",
+            Settings.builder().put(IndexMetadata.SETTING_VERSION_CREATED, IndexVersion.current()).build()
+        );
+        IndexSettings settings = new IndexSettings(metadata, Settings.EMPTY);
+        assertEquals(IndexSettings.RefreshMode.FIXED, settings.getRefreshMode());
+        assertEquals(TimeValue.timeValueSeconds(1), settings.getAdaptiveRefreshMinInterval());
+        assertEquals(TimeValue.timeValueSeconds(30), settings.getAdaptiveRefreshMaxInterval());
+
+        settings.updateIndexMetadata(
+            newIndexMeta(
+                "index",
+                Settings.builder()
+                    .put(IndexSettings.INDEX_REFRESH_MODE_SETTING.getKey(), "adaptive")
+                    .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING.getKey(), "500ms")
+                    .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING.getKey(), "1m")
+                    .build()
+            )
+        );
+        assertEquals(IndexSettings.RefreshMode.ADAPTIVE, settings.getRefreshMode());
+        assertEquals(TimeValue.timeValueMillis(500), settings.getAdaptiveRefreshMinInterval());
+        assertEquals(TimeValue.timeValueMinutes(1), settings.getAdaptiveRefreshMaxInterval());
+
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> IndexSettings.INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING.get(
+                Settings.builder()
+                    .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_MIN_INTERVAL_SETTING.getKey(), "10s")
+                    .put(IndexSettings.INDEX_REFRESH_ADAPTIVE_MAX_INTERVAL_SETTING.getKey(), "5s")
+                    .build()
+            )
+        );
+        assertEquals(
+            "index setting [index.refresh.adaptive.max_interval=5s] must be greater than or equal to "
+                + "[index.refresh.adaptive.min_interval=10s]",
+            e.getMessage()
+        );
+    }
+
     public void testDefaultRefreshInterval() {
         IndexMetadata metadata = newIndexMeta(
             "index",
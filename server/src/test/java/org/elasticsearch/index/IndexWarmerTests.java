@@ -0,0 +1,98 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.fielddata.LeafFieldData;
+import org.elasticsearch.index.fielddata.ShardFieldData;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.warmer.ShardIndexWarmerService;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IndexWarmerTests extends ESTestCase {
+
+    public void testRecordsEagerGlobalOrdinalsLoading() throws IOException {
+        IndexFieldData.Global<LeafFieldData> fieldData = mockGlobalFieldData();
+        ShardFieldData shardFieldData = mock(ShardFieldData.class);
+        List<MappedFieldType> eagerFields = List.of(
+            new KeywordFieldMapper.KeywordFieldType("foo"),
+            new KeywordFieldMapper.KeywordFieldType("bar")
+        );
+        warm(fieldData, shardFieldData, eagerFields);
+        verify(fieldData, times(2)).loadGlobal(any());
+        verify(shardFieldData, times(2)).onEagerGlobalOrdinalsLoaded(anyLong());
+    }
+
+    public void testDoesNotRecordFailedEagerGlobalOrdinalsLoading() throws IOException {
+        IndexFieldData.Global<LeafFieldData> fieldData = mockGlobalFieldData();
+        when(fieldData.loadGlobal(any())).thenThrow(new IllegalStateException("boom"));
+        ShardFieldData shardFieldData = mock(ShardFieldData.class);
+        warm(fieldData, shardFieldData, List.of(new KeywordFieldMapper.KeywordFieldType("foo")));
+        verify(fieldData).loadGlobal(any());
+        verify(shardFieldData, never()).onEagerGlobalOrdinalsLoaded(anyLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IndexFieldData.Global<LeafFieldData> mockGlobalFieldData() {
+        IndexFieldData.Global<LeafFieldData> fieldData = mock(IndexFieldData.Global.class);
+        when(fieldData.loadGlobal(any())).thenReturn(fieldData);
+        return fieldData;
+    }
+
+    private void warm(IndexFieldData.Global<LeafFieldData> fieldData, ShardFieldData shardFieldData, List<MappedFieldType> eagerFields)
+        throws IOException {
+        ShardId shardId = new ShardId("index", "_na_", 0);
+        IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("index", Settings.EMPTY);
+
+        ThreadPool threadPool = mock(ThreadPool.class);
+        when(threadPool.executor(ThreadPool.Names.WARMER)).thenReturn(EsExecutors.DIRECT_EXECUTOR_SERVICE);
+        IndexFieldDataService indexFieldDataService = mock(IndexFieldDataService.class);
+        when(indexFieldDataService.getForField(any(), any())).thenReturn(fieldData);
+        MapperService mapperService = mock(MapperService.class);
+        when(mapperService.getEagerGlobalOrdinalsFields()).thenReturn(eagerFields);
+        IndexShard indexShard = mock(IndexShard.class);
+        when(indexShard.shardId()).thenReturn(shardId);
+        when(indexShard.mapperService()).thenReturn(mapperService);
+        when(indexShard.fieldData()).thenReturn(shardFieldData);
+        when(indexShard.warmerService()).thenReturn(new ShardIndexWarmerService(shardId, indexSettings));
+
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig())) {
+            writer.addDocument(new Document());
+            try (ElasticsearchDirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), shardId)) {
+                new IndexWarmer(threadPool, indexFieldDataService).warm(reader, indexShard, indexSettings);
+            }
+        }
+    }
+}
@@ -15,11 +15,16 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.IndexMode;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.IndexVersions;
 import org.elasticsearch.index.MapperTestUtils;
 import org.elasticsearch.index.codec.bloomfilter.ES87BloomFilterPostingsFormat;
 import org.elasticsearch.index.codec.postings.ES812PostingsFormat;
+import org.elasticsearch.index.codec.tsdb.ES819TSDBDocValuesFormat;
+import org.elasticsearch.index.codec.tsdb.ES87TSDBDocValuesFormat;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.index.IndexVersionUtils;
 
 import java.io.IOException;
 
@@ -195,8 +200,27 @@ public class PerFieldMapperCodecTests extends ESTestCase {
         assertThat((perFieldMapperCodec.useTSDBDocValuesFormat("response_size")), is(true));
     }
 
+    public void testTSDBDocValuesFormatDependsOnIndexVersion() throws IOException {
+        PerFieldFormatSupplier current = createFormatSupplier(true, IndexMode.TIME_SERIES, MAPPING_2);
+        assertThat(current.getDocValuesFormatForField("gauge"), instanceOf(ES819TSDBDocValuesFormat.class));
+
+        IndexVersion previous = IndexVersionUtils.getPreviousVersion(IndexVersions.TSDB_DOC_VALUES_ORDINAL_RUNS);
+        PerFieldFormatSupplier old = createFormatSupplier(true, IndexMode.TIME_SERIES, MAPPING_2, previous);
+        assertThat(old.getDocValuesFormatForField("gauge"), instanceOf(ES87TSDBDocValuesFormat.class));
+    }
+
     private PerFieldFormatSupplier createFormatSupplier(boolean enableES87TSDBCodec, IndexMode mode, String mapping) throws IOException {
+        return createFormatSupplier(enableES87TSDBCodec, mode, mapping, IndexVersion.current());
+    }
+
+    private PerFieldFormatSupplier createFormatSupplier(
+        boolean enableES87TSDBCodec,
+        IndexMode mode,
+        String mapping,
+        IndexVersion versionCreated
+    ) throws IOException {
         Settings.Builder settings = Settings.builder();
+        settings.put(IndexMetadata.SETTING_VERSION_CREATED, versionCreated);
         settings.put(IndexSettings.MODE.getKey(), mode);
         if (mode == IndexMode.TIME_SERIES) {
             settings.put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "field");
@@ -14,6 +14,7 @@ import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.lucene.tests.util.TestUtil;
 import org.apache.lucene.util.NumericUtils;
 import org.apache.lucene.util.packed.PackedInts;
 
@@ -221,7 +222,8 @@ public class ES87TSDBDocValuesEncoderTests extends LuceneTestCase {
     public void testEncodeOrdinalsSingleValueGrande() throws IOException {
         long[] arr = new long[blockSize];
         Arrays.fill(arr, Long.MAX_VALUE);
-        final long expectedNumBytes = 1 + blockSize * Long.BYTES;
+        // too large for the single run header, the block is a single run of a 9 bytes vlong instead
+        final long expectedNumBytes = 1 + 9;
 
         doTestOrdinals(arr, expectedNumBytes);
     }
@@ -248,7 +250,8 @@ public class ES87TSDBDocValuesEncoderTests extends LuceneTestCase {
         long[] arr = new long[blockSize];
         Arrays.fill(arr, Long.MAX_VALUE);
         arr[0] = Long.MAX_VALUE - 1;
-        final long expectedNumBytes = 1 + blockSize * Long.BYTES;
+        // too large for the two runs header, the block is run-length encoded instead
+        final long expectedNumBytes = 1 + 9 + 1 + 1;
 
         doTestOrdinals(arr, expectedNumBytes);
     }
@@ -262,12 +265,61 @@ public class ES87TSDBDocValuesEncoderTests extends LuceneTestCase {
     }
 
     public void testEncodeOrdinalsBitPack3Bits() throws IOException {
+        long[] arr = new long[blockSize];
+        // every ordinal differs from the previous one, and there are as many distinct ordinals as 3 bits can hold
+        Arrays.setAll(arr, i -> (i + i / 8) % 8);
+        doTestOrdinals(arr, 49);
+    }
+
+    public void testEncodeOrdinalsRunLength() throws IOException {
         long[] arr = new long[blockSize];
         Arrays.fill(arr, 4);
         for (int i = 0; i < 4; i++) {
             arr[i] = i;
         }
-        doTestOrdinals(arr, 49);
+        // header, first ordinal, then the length and delta of 4 runs
+        doTestOrdinals(arr, 2 + 1 + 4 * 2);
+    }
+
+    public void testEncodeOrdinalsEqualRuns() throws IOException {
+        long[] arr = new long[blockSize];
+        Arrays.setAll(arr, i -> 7 - i / 16);
+        doTestOrdinals(arr, 2 + 1 + 7 * 2);
+    }
+
+    public void testEncodeOrdinalsDictionary() throws IOException {
+        long[] dictionary = new long[] { 100, 500, 1000, 4000 };
+        long[] arr = new long[blockSize];
+        Arrays.setAll(arr, i -> dictionary[(i + i / 8) % dictionary.length]);
+        // header, the delta-encoded dictionary, then 2 bits per value instead of 12
+        doTestOrdinals(arr, 2 + 1 + 3 * 2 + 2 * blockSize / Byte.SIZE);
+    }
+
+    public void testEncodeOrdinalsRandomRuns() throws IOException {
+        long[] arr = new long[blockSize];
+        long ord = TestUtil.nextLong(random(), 0, 1000);
+        for (int i = 0; i < blockSize; i++) {
+            if (random().nextInt(20) == 0) {
+                ord = TestUtil.nextLong(random(), 0, 1000);
+            }
+            arr[i] = ord;
+        }
+        doTestOrdinals(arr, -1);
+    }
+
+    public void testEncodeOrdinalsWithoutRunsOrDictionaries() throws IOException {
+        // the blocks that run-length and dictionary encoding would shrink are bit-packed like ES87TSDBDocValuesFormat always did
+        long[] runs = new long[blockSize];
+        Arrays.fill(runs, 4);
+        for (int i = 0; i < 4; i++) {
+            runs[i] = i;
+        }
+        doTestOrdinals(runs, 49, false);
+
+        long[] dictionary = new long[] { 100, 500, 1000, 4000 };
+        long[] arr = new long[blockSize];
+        Arrays.setAll(arr, i -> dictionary[(i + i / 8) % dictionary.length]);
+        doTestOrdinals(arr, 1 + 12 * blockSize / Byte.SIZE, false);
     }
 
     public void testEncodeOrdinalsCycle2() throws IOException {
@@ -299,7 +351,8 @@ public class ES87TSDBDocValuesEncoderTests extends LuceneTestCase {
         long[] arr = new long[blockSize];
         Arrays.setAll(arr, i -> i % 3);
         arr[arr.length - 1] = 4;
-        doTestOrdinals(arr, 49);
+        // not a cycle, the four distinct ordinals are dictionary encoded with 2 bits per value
+        doTestOrdinals(arr, 2 + 1 + 3 + 2 * blockSize / Byte.SIZE);
     }
 
     public void testEncodeOrdinalsDifferentCycles() throws IOException {
@@ -309,6 +362,10 @@ public class ES87TSDBDocValuesEncoderTests extends LuceneTestCase {
     }
 
     private void doTestOrdinals(long[] arr, long expectedNumBytes) throws IOException {
+        doTestOrdinals(arr, expectedNumBytes, true);
+    }
+
+    private void doTestOrdinals(long[] arr, long expectedNumBytes, boolean runsAndDictionaries) throws IOException {
         long maxOrd = 0;
         for (long ord : arr) {
             maxOrd = Math.max(maxOrd, ord);
@@ -317,8 +374,10 @@ public class ES87TSDBDocValuesEncoderTests extends LuceneTestCase {
         final long[] expected = arr.clone();
         try (Directory dir = newDirectory()) {
             try (IndexOutput out = dir.createOutput("tests.bin", IOContext.DEFAULT)) {
-                encoder.encodeOrdinals(arr, out, bitsPerOrd);
-                assertEquals(expectedNumBytes, out.getFilePointer());
+                encoder.encodeOrdinals(arr, out, bitsPerOrd, runsAndDictionaries);
+                if (expectedNumBytes >= 0) {
+                    assertEquals(expectedNumBytes, out.getFilePointer());
+                }
             }
             try (IndexInput in = dir.openInput("tests.bin", IOContext.DEFAULT)) {
                 long[] decoded = new long[blockSize];
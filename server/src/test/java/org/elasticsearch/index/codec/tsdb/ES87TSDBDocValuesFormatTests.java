@@ -13,6 +13,7 @@ import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
@@ -22,6 +23,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
@@ -43,6 +45,7 @@ import java.util.Map;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class ES87TSDBDocValuesFormatTests extends BaseDocValuesFormatTestCase {
 
@@ -242,4 +245,80 @@ public class ES87TSDBDocValuesFormatTests extends BaseDocValuesFormatTestCase {
             }
         }
     }
+
+    public void testBulkLongValues() throws Exception {
+        final int numDocs = TestUtil.nextInt(random(), 1, 2000);
+        final long[] values = new long[numDocs];
+        IndexWriterConfig config = new IndexWriterConfig();
+        config.setCodec(getCodec());
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, config)) {
+            for (int i = 0; i < numDocs; i++) {
+                values[i] = random().nextBoolean() ? random().nextLong() : TestUtil.nextLong(random(), 1000, 1200);
+                Document d = new Document();
+                d.add(new NumericDocValuesField("dv", values[i]));
+                writer.addDocument(d);
+            }
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                NumericDocValues dv = reader.leaves().get(0).reader().getNumericDocValues("dv");
+                assertThat(dv, instanceOf(BulkNumericDocValues.class));
+                BulkNumericDocValues bulk = (BulkNumericDocValues) dv;
+                int doc = 0;
+                while (doc < numDocs) {
+                    if (random().nextBoolean()) {
+                        assertTrue(bulk.advanceExact(doc));
+                        assertThat(bulk.longValue(), equalTo(values[doc]));
+                        doc += TestUtil.nextInt(random(), 1, 300);
+                        continue;
+                    }
+                    int count = TestUtil.nextInt(random(), 1, Math.min(numDocs - doc, 300));
+                    int offset = TestUtil.nextInt(random(), 0, 5);
+                    long[] actual = new long[offset + count];
+                    bulk.longValues(doc, count, actual, offset);
+                    assertArrayEquals(Arrays.copyOfRange(values, doc, doc + count), Arrays.copyOfRange(actual, offset, offset + count));
+                    assertThat(bulk.docID(), equalTo(doc + count - 1));
+                    doc += count + TestUtil.nextInt(random(), 0, 300);
+                }
+            }
+        }
+    }
+
+    public void testBulkOrdValues() throws Exception {
+        // at least two distinct values, a single value is not stored in blocks
+        final int numDocs = TestUtil.nextInt(random(), 2, 2000);
+        final String[] values = new String[numDocs];
+        IndexWriterConfig config = new IndexWriterConfig();
+        config.setCodec(getCodec());
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, config)) {
+            // long runs of the same value, like the dimensions of a time series index
+            String value = "v-" + TestUtil.nextInt(random(), 0, 10);
+            for (int i = 0; i < numDocs; i++) {
+                if (random().nextInt(50) == 0) {
+                    value = "v-" + TestUtil.nextInt(random(), 0, 10);
+                }
+                values[i] = value;
+                Document d = new Document();
+                d.add(new SortedDocValuesField("dv", new BytesRef(i == 0 ? "v-11" : value)));
+                writer.addDocument(d);
+            }
+            values[0] = "v-11";
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                SortedDocValues dv = reader.leaves().get(0).reader().getSortedDocValues("dv");
+                assertThat(dv, instanceOf(BulkSortedDocValues.class));
+                BulkSortedDocValues bulk = (BulkSortedDocValues) dv;
+                int doc = 0;
+                while (doc < numDocs) {
+                    int count = TestUtil.nextInt(random(), 1, Math.min(numDocs - doc, 300));
+                    long[] ords = new long[count];
+                    bulk.ordValues(doc, count, ords, 0);
+                    for (int i = 0; i < count; i++) {
+                        assertThat(bulk.lookupOrd((int) ords[i]).utf8ToString(), equalTo(values[doc + i]));
+                    }
+                    assertThat(bulk.docID(), equalTo(doc + count - 1));
+                    doc += count + TestUtil.nextInt(random(), 0, 300);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.codec.zstd;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.BaseStoredFieldsFormatTestCase;
+import org.apache.lucene.tests.util.TestUtil;
+import org.elasticsearch.index.codec.Elasticsearch900Lucene101Codec;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class Zstd814DictionaryStoredFieldsFormatTests extends BaseStoredFieldsFormatTestCase {
+
+    private final Codec codec = new Elasticsearch900Lucene101Codec(Zstd814StoredFieldsFormat.Mode.BEST_SPEED, true);
+
+    @Override
+    protected Codec getCodec() {
+        return codec;
+    }
+
+    public void testSmallDocumentsAreCompressedWithDictionary() throws IOException {
+        final int numDocs = TestUtil.nextInt(random(), 1000, 5000);
+        try (Directory dir = newDirectory()) {
+            final IndexWriterConfig config = newIndexWriterConfig().setCodec(codec);
+            try (IndexWriter writer = new IndexWriter(dir, config)) {
+                for (int i = 0; i < numDocs; i++) {
+                    final Document doc = new Document();
+                    doc.add(new StoredField("_source", source(i)));
+                    writer.addDocument(doc);
+                }
+                writer.forceMerge(1);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                final LeafReaderContext leaf = reader.leaves().get(0);
+                final SegmentReader segmentReader = (SegmentReader) leaf.reader();
+                assertNotNull(segmentReader.getSegmentInfo().info.getAttribute(Zstd814StoredFieldsFormat.DICTIONARY_KEY));
+
+                final StoredFields storedFields = segmentReader.storedFields();
+                for (int i = 0; i < numDocs; i++) {
+                    assertThat(storedFields.document(i).get("_source"), equalTo(source(i)));
+                }
+
+                final Zstd814StoredFieldsFormat.DictionaryStats stats = Zstd814StoredFieldsFormat.dictionaryStats(segmentReader);
+                assertNotNull(stats);
+                assertThat(stats.uncompressedBytes(), greaterThan(stats.compressedBytes()));
+                assertThat(stats.compressedBytes(), greaterThan(0L));
+                assertThat(stats.decompressionTimeInNanos(), greaterThan(0L));
+            }
+        }
+    }
+
+    public void testTinySegmentIsCompressedWithoutDictionary() throws IOException {
+        try (Directory dir = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setCodec(codec))) {
+                final Document doc = new Document();
+                doc.add(new StoredField("_source", source(0)));
+                writer.addDocument(doc);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                final SegmentReader segmentReader = (SegmentReader) reader.leaves().get(0).reader();
+                assertNull(segmentReader.getSegmentInfo().info.getAttribute(Zstd814StoredFieldsFormat.DICTIONARY_KEY));
+                assertNull(Zstd814StoredFieldsFormat.dictionaryStats(segmentReader));
+                assertThat(segmentReader.storedFields().document(0).get("_source"), equalTo(source(0)));
+            }
+        }
+    }
+
+    private static String source(int i) {
+        return "{\"@timestamp\":"
+            + (1700000000000L + i)
+            + ",\"log.level\":\""
+            + (i % 7 == 0 ? "WARN" : "INFO")
+            + "\",\"http.request.method\":\""
+            + (i % 3 == 0 ? "POST" : "GET")
+            + "\",\"url.path\":\"/api/v1/items/"
+            + i
+            + "\",\"http.response.status_code\":"
+            + (i % 11 == 0 ? 500 : 200)
+            + "}";
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.elasticsearch.index.engine.LiveVersionMapTestUtils.randomIndexVersionValue;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PagedVersionMapTests extends ESTestCase {
+
+    private static BigArrays newBigArrays() {
+        CircuitBreakerService breakerService = mock(CircuitBreakerService.class);
+        when(breakerService.getBreaker(CircuitBreaker.ACCOUNTING)).thenReturn(
+            new MockBigArrays.LimitedBreaker(CircuitBreaker.ACCOUNTING, ByteSizeValue.ofMb(100))
+        );
+        return new BigArrays(null, breakerService, CircuitBreaker.ACCOUNTING);
+    }
+
+    private static long breakerUsed(BigArrays bigArrays) {
+        return bigArrays.breakerService().getBreaker(CircuitBreaker.ACCOUNTING).getUsed();
+    }
+
+    private static BytesRef randomUid() {
+        return new BytesRef(randomAlphaOfLengthBetween(1, 32));
+    }
+
+    private static VersionValue randomVersionValue() {
+        return randomBoolean()
+            ? randomIndexVersionValue()
+            : new DeleteVersionValue(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+    }
+
+    public void testMatchesHeapMap() {
+        BigArrays bigArrays = newBigArrays();
+        Map<BytesRef, VersionValue> expected = new HashMap<>();
+        try (PagedVersionMap map = new PagedVersionMap(bigArrays)) {
+            int iterations = randomIntBetween(1, 10000);
+            for (int i = 0; i < iterations; i++) {
+                BytesRef uid = randomUid();
+                if (rarely()) {
+                    assertEquals(expected.remove(uid), map.remove(uid));
+                } else {
+                    VersionValue value = randomVersionValue();
+                    assertEquals(expected.put(uid, value), map.put(uid, value));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            for (Map.Entry<BytesRef, VersionValue> entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), map.get(entry.getKey()));
+            }
+            assertEquals(expected, Map.copyOf(map));
+            assertThat(map.ramBytesUsed(), greaterThan(0L));
+            assertThat(breakerUsed(bigArrays), greaterThan(0L));
+        }
+        assertThat(breakerUsed(bigArrays), equalTo(0L));
+    }
+
+    public void testRemovedSlotsAreReused() {
+        BigArrays bigArrays = newBigArrays();
+        try (PagedVersionMap map = new PagedVersionMap(bigArrays)) {
+            int numberOfDocs = randomIntBetween(100, 1000);
+            int nextDoc = 0;
+            long ramBytesUsed = -1;
+            for (int round = 0; round < 10; round++) {
+                // keys have the same length so that they fit in the key bytes of the removed entries
+                List<BytesRef> uids = new ArrayList<>();
+                for (int i = 0; i < numberOfDocs; i++) {
+                    BytesRef uid = new BytesRef(String.format(Locale.ROOT, "%08d", nextDoc++));
+                    uids.add(uid);
+                    assertNull(map.put(uid, randomVersionValue()));
+                }
+                assertEquals(numberOfDocs, map.size());
+                for (BytesRef uid : uids) {
+                    assertNotNull(map.remove(uid));
+                }
+                assertTrue(map.isEmpty());
+                if (ramBytesUsed < 0) {
+                    ramBytesUsed = map.ramBytesUsed();
+                } else {
+                    assertThat(map.ramBytesUsed(), equalTo(ramBytesUsed));
+                }
+            }
+        }
+        assertThat(breakerUsed(bigArrays), equalTo(0L));
+    }
+
+    public void testConcurrentReadsSeeLatestValues() throws Exception {
+        BigArrays bigArrays = newBigArrays();
+        try (PagedVersionMap map = new PagedVersionMap(bigArrays)) {
+            int numberOfDocs = randomIntBetween(10, 100);
+            List<BytesRef> uids = new ArrayList<>();
+            for (int i = 0; i < numberOfDocs; i++) {
+                uids.add(new BytesRef("doc-" + i));
+            }
+            AtomicBoolean done = new AtomicBoolean();
+            CountDownLatch startLatch = new CountDownLatch(1);
+            Thread[] readers = new Thread[randomIntBetween(1, 4)];
+            List<AssertionError> failures = new ArrayList<>();
+            for (int t = 0; t < readers.length; t++) {
+                Random random = new Random(randomLong());
+                readers[t] = new Thread(() -> {
+                    try {
+                        startLatch.await();
+                        while (done.get() == false) {
+                            BytesRef uid = uids.get(random.nextInt(uids.size()));
+                            VersionValue value = map.get(uid);
+                            // writers only ever store values whose version is the number of the document
+                            if (value != null) {
+                                assertEquals(uid, new BytesRef("doc-" + value.version));
+                            }
+                        }
+                    } catch (AssertionError e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                });
+                readers[t].start();
+            }
+            startLatch.countDown();
+            for (int i = 0; i < 10000; i++) {
+                int doc = randomIntBetween(0, numberOfDocs - 1);
+                if (randomBoolean()) {
+                    map.remove(uids.get(doc));
+                } else {
+                    map.put(uids.get(doc), new DeleteVersionValue(doc, randomNonNegativeLong(), randomNonNegativeLong(), 0));
+                }
+            }
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            assertEquals(List.of(), failures);
+        }
+        assertThat(breakerUsed(bigArrays), equalTo(0L));
+    }
+
+    public void testClosedMapIsEmpty() {
+        BigArrays bigArrays = newBigArrays();
+        PagedVersionMap map = new PagedVersionMap(bigArrays);
+        BytesRef uid = randomUid();
+        map.put(uid, randomVersionValue());
+        map.close();
+        assertNull(map.get(uid));
+        assertNull(map.remove(uid));
+        assertTrue(map.isEmpty());
+        // writes that race with the refresh that closed the map are ignored
+        assertNull(map.put(uid, randomVersionValue()));
+        assertTrue(map.isEmpty());
+        assertThat(breakerUsed(bigArrays), equalTo(0L));
+    }
+
+    public void testLiveVersionMapReleasesPagesOnRefresh() throws IOException {
+        BigArrays bigArrays = newBigArrays();
+        LiveVersionMap map = new LiveVersionMap(LiveVersionMapArchive.NOOP_ARCHIVE, bigArrays);
+        Map<BytesRef, VersionValue> expected = new HashMap<>();
+        int numberOfDocs = randomIntBetween(1, 1000);
+        for (int i = 0; i < numberOfDocs; i++) {
+            BytesRef uid = BytesRef.deepCopyOf(randomUid());
+            IndexVersionValue value = randomIndexVersionValue();
+            try (Releasable r = map.acquireLock(uid)) {
+                map.putIndexUnderLock(uid, value);
+            }
+            expected.put(uid, value);
+        }
+        assertThat(map.ramBytesUsed(), greaterThan(0L));
+        assertThat(breakerUsed(bigArrays), greaterThan(0L));
+
+        map.beforeRefresh();
+        for (Map.Entry<BytesRef, VersionValue> entry : expected.entrySet()) {
+            try (Releasable r = map.acquireLock(entry.getKey())) {
+                assertEquals(entry.getValue(), map.getUnderLock(entry.getKey()));
+            }
+        }
+        assertThat(map.getRefreshingBytes(), greaterThan(0L));
+        map.afterRefresh(randomBoolean());
+        assertThat(map.getRefreshingBytes(), equalTo(0L));
+        assertThat(breakerUsed(bigArrays), equalTo(0L));
+        for (BytesRef uid : expected.keySet()) {
+            try (Releasable r = map.acquireLock(uid)) {
+                assertNull(map.getUnderLock(uid));
+            }
+        }
+
+        BytesRef uid = BytesRef.deepCopyOf(randomUid());
+        try (Releasable r = map.acquireLock(uid)) {
+            map.putIndexUnderLock(uid, randomIndexVersionValue());
+        }
+        map.clear();
+        assertThat(breakerUsed(bigArrays), equalTo(0L));
+    }
+}
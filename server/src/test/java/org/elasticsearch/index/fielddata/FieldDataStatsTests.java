@@ -28,7 +28,11 @@ public class FieldDataStatsTests extends ESTestCase {
             randomAlphaOfLength(4),
             new FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats(randomNonNegativeLong(), randomNonNegativeLong())
         );
-        FieldDataStats.GlobalOrdinalsStats glob = new FieldDataStats.GlobalOrdinalsStats(randomNonNegativeLong(), fieldOrdinalStats);
+        FieldDataStats.GlobalOrdinalsStats glob = new FieldDataStats.GlobalOrdinalsStats(
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            fieldOrdinalStats
+        );
         FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), map, glob);
         BytesStreamOutput out = new BytesStreamOutput();
         stats.writeTo(out);
@@ -38,6 +42,14 @@ public class FieldDataStatsTests extends ESTestCase {
         assertEquals(stats.getEvictions(), read.getEvictions());
         assertEquals(stats.getMemorySize(), read.getMemorySize());
         assertEquals(stats.getFields(), read.getFields());
+        assertEquals(stats.getGlobalOrdinalsStats(), read.getGlobalOrdinalsStats());
+    }
+
+    public void testAddEagerBuildTime() {
+        FieldDataStats fieldDataStats = new FieldDataStats(0, 0, null, new FieldDataStats.GlobalOrdinalsStats(3L, 1L, null));
+        fieldDataStats.add(new FieldDataStats(0, 0, null, new FieldDataStats.GlobalOrdinalsStats(5L, 2L, null)));
+        assertEquals(8L, fieldDataStats.getGlobalOrdinalsStats().getBuildTimeMillis());
+        assertEquals(3L, fieldDataStats.getGlobalOrdinalsStats().getEagerBuildTimeMillis());
     }
 
     public void testAdd() {
@@ -0,0 +1,71 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.fieldvisitor;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class StoredFieldLoaderTests extends ESTestCase {
+
+    public void testHasClusteredDocs() {
+        assertFalse(StoredFieldLoader.hasClusteredDocs(new int[0]));
+        assertFalse(StoredFieldLoader.hasClusteredDocs(new int[] { 5 }));
+        assertTrue(StoredFieldLoader.hasClusteredDocs(new int[] { 5, 7 }));
+        assertFalse(StoredFieldLoader.hasClusteredDocs(new int[] { 5, 500 }));
+        assertTrue(StoredFieldLoader.hasClusteredDocs(new int[] { 0, 10, 20, 1000, 2000 }));
+        assertFalse(StoredFieldLoader.hasClusteredDocs(new int[] { 0, 10, 1000, 2000, 3000 }));
+    }
+
+    public void testLoadDocSets() throws IOException {
+        try (Directory dir = newDirectory()) {
+            int numDocs = randomIntBetween(1, 2000);
+            IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(newLogMergePolicy());
+            try (RandomIndexWriter writer = new RandomIndexWriter(random(), dir, config)) {
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    doc.add(new StoredField("_source", new BytesRef("{\"doc\":" + i + "}")));
+                    writer.addDocument(doc);
+                }
+            }
+            try (DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), new ShardId("index", "_na_", 0))) {
+                StoredFieldLoader loader = StoredFieldLoader.create(true, Set.of());
+                for (LeafReaderContext ctx : reader.leaves()) {
+                    int maxDoc = ctx.reader().maxDoc();
+                    // random sets of docs are sometimes clustered, sometimes scattered and sometimes contiguous
+                    TreeSet<Integer> docSet = new TreeSet<>();
+                    int numLeafDocs = randomIntBetween(1, maxDoc);
+                    int bound = randomBoolean() ? maxDoc : Math.min(maxDoc, numLeafDocs * 2);
+                    for (int i = 0; i < numLeafDocs; i++) {
+                        docSet.add(randomIntBetween(0, bound - 1));
+                    }
+                    int[] docs = docSet.stream().mapToInt(Integer::intValue).toArray();
+                    LeafStoredFieldLoader leafLoader = loader.getLoader(ctx, docs);
+                    for (int doc : docs) {
+                        leafLoader.advanceTo(doc);
+                        assertEquals("{\"doc\":" + (ctx.docBase + doc) + "}", leafLoader.source().utf8ToString());
+                    }
+                }
+            }
+        }
+    }
+}
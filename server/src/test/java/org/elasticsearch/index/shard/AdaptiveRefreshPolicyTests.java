@@ -0,0 +1,82 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class AdaptiveRefreshPolicyTests extends ESTestCase {
+
+    private static final TimeValue MIN = TimeValue.timeValueSeconds(1);
+    private static final TimeValue MAX = TimeValue.timeValueSeconds(30);
+
+    public void testUnsearchedShardRefreshesAtMaxInterval() {
+        final AdaptiveRefreshPolicy policy = new AdaptiveRefreshPolicy(0);
+        policy.sampleSearches(1000, 0);
+        policy.sampleSearches(2000, 0);
+        assertThat(policy.targetInterval(MIN, MAX, 0), equalTo(MAX));
+        assertFalse(policy.shouldRefresh(MAX.millis() - 1, MIN, MAX, 0));
+        assertTrue(policy.shouldRefresh(MAX.millis(), MIN, MAX, 0));
+    }
+
+    public void testSearchedShardRefreshesMoreOften() {
+        final AdaptiveRefreshPolicy policy = new AdaptiveRefreshPolicy(0);
+        long queries = 0;
+        for (int second = 0; second <= 20; second++) {
+            policy.sampleSearches(second * 1000L, queries);
+            queries += 100;
+        }
+        assertThat(policy.getSearchRate(), greaterThan(50.0));
+        assertThat(policy.targetInterval(MIN, MAX, 0), equalTo(MIN));
+        assertTrue(policy.shouldRefresh(MIN.millis(), MIN, MAX, 0));
+    }
+
+    public void testModerateSearchRateStaysWithinBounds() {
+        final AdaptiveRefreshPolicy policy = new AdaptiveRefreshPolicy(0);
+        for (int second = 0; second <= 50; second++) {
+            // one query every ten seconds
+            policy.sampleSearches(second * 1000L, second / 10);
+        }
+        final TimeValue interval = policy.targetInterval(MIN, MAX, 0);
+        assertThat(interval, greaterThan(MIN));
+        assertThat(interval, lessThan(MAX));
+    }
+
+    public void testMergesLengthenTheInterval() {
+        final AdaptiveRefreshPolicy policy = new AdaptiveRefreshPolicy(0);
+        for (int second = 0; second <= 50; second++) {
+            policy.sampleSearches(second * 1000L, second / 10);
+        }
+        final TimeValue withoutMerges = policy.targetInterval(MIN, MAX, 0);
+        assertThat(policy.targetInterval(MIN, MAX, randomIntBetween(1, 4)), greaterThan(withoutMerges));
+        assertThat(policy.targetInterval(MIN, MAX, 1000), equalTo(MAX));
+    }
+
+    public void testIndexingBufferPressureShortensTheInterval() {
+        final AdaptiveRefreshPolicy policy = new AdaptiveRefreshPolicy(0);
+        policy.setIndexingBufferPressure(0.5);
+        assertThat(policy.targetInterval(MIN, MAX, 0), equalTo(TimeValue.timeValueSeconds(15)));
+        policy.setIndexingBufferPressure(randomDoubleBetween(1.0, 10.0, true));
+        assertThat(policy.getIndexingBufferPressure(), equalTo(1.0));
+        assertThat(policy.targetInterval(MIN, MAX, randomIntBetween(0, 4)), equalTo(MIN));
+    }
+
+    public void testIntervalIsMeasuredFromTheLastRefresh() {
+        final AdaptiveRefreshPolicy policy = new AdaptiveRefreshPolicy(0);
+        assertTrue(policy.shouldRefresh(MAX.millis(), MIN, MAX, 0));
+        policy.onRefresh(MAX.millis());
+        assertFalse(policy.shouldRefresh(MAX.millis() + MIN.millis(), MIN, MAX, 0));
+        assertTrue(policy.shouldRefresh(2 * MAX.millis(), MIN, MAX, 0));
+    }
+}
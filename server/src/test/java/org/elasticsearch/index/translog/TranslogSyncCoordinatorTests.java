@@ -0,0 +1,239 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.io.DiskIoBufferPool;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.engine.TranslogOperationAsserter;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class TranslogSyncCoordinatorTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private final List<Translog> translogs = new ArrayList<>();
+
+    @Before
+    public void setUpThreadPool() {
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @After
+    public void tearDownThreadPool() throws IOException {
+        IOUtils.close(translogs);
+        terminate(threadPool);
+    }
+
+    private TranslogSyncCoordinator newCoordinator(TimeValue window, int maxBatchSize) {
+        final Settings settings = Settings.builder()
+            .put(TranslogSyncCoordinator.GROUP_SYNC_WINDOW_SETTING.getKey(), window)
+            .put(TranslogSyncCoordinator.GROUP_SYNC_MAX_BATCH_SIZE_SETTING.getKey(), maxBatchSize)
+            .build();
+        return new TranslogSyncCoordinator(
+            settings,
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            threadPool
+        );
+    }
+
+    private Translog newTranslog(int shard, TranslogSyncCoordinator.Group syncGroup) throws IOException {
+        return newTranslog(shard, syncGroup, () -> {});
+    }
+
+    private Translog newTranslog(int shard, TranslogSyncCoordinator.Group syncGroup, Runnable beforeSync) throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", shard);
+        final Path path = createTempDir();
+        final Settings settings = Settings.builder().put(IndexMetadata.SETTING_VERSION_CREATED, IndexVersion.current()).build();
+        final TranslogConfig config = new TranslogConfig(
+            shardId,
+            path,
+            IndexSettingsModule.newIndexSettings(shardId.getIndex(), settings),
+            BigArrays.NON_RECYCLING_INSTANCE,
+            TranslogConfig.DEFAULT_BUFFER_SIZE,
+            DiskIoBufferPool.INSTANCE,
+            TranslogConfig.NOOP_OPERATION_LISTENER,
+            true,
+            syncGroup
+        );
+        final String translogUUID = Translog.createEmptyTranslog(path, SequenceNumbers.NO_OPS_PERFORMED, shardId, 1L);
+        final Translog translog = new Translog(
+            config,
+            translogUUID,
+            new TranslogDeletionPolicy(),
+            () -> SequenceNumbers.NO_OPS_PERFORMED,
+            () -> 1L,
+            seqNo -> {},
+            TranslogOperationAsserter.DEFAULT
+        ) {
+            @Override
+            public boolean ensureSynced(Location location, long globalCheckpoint) throws IOException {
+                beforeSync.run();
+                return super.ensureSynced(location, globalCheckpoint);
+            }
+        };
+        translogs.add(translog);
+        return translog;
+    }
+
+    private static Translog.Location addOperation(Translog translog, long seqNo) throws IOException {
+        return translog.add(TranslogOperationsUtils.indexOp(Long.toString(seqNo), seqNo, 1L));
+    }
+
+    public void testDisabledByDefault() {
+        final Settings settings = Settings.EMPTY;
+        try (
+            TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(
+                settings,
+                new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                threadPool
+            )
+        ) {
+            assertFalse(coordinator.group(createTempDir()).isEnabled());
+        }
+    }
+
+    public void testSyncsAllTranslogsOfTheDataPath() throws Exception {
+        try (TranslogSyncCoordinator coordinator = newCoordinator(TimeValue.timeValueMillis(randomIntBetween(1, 50)), 1024)) {
+            final TranslogSyncCoordinator.Group group = coordinator.group(createTempDir());
+            assertTrue(group.isEnabled());
+            final int numberOfTranslogs = randomIntBetween(1, 10);
+            final int requestsPerTranslog = randomIntBetween(1, 10);
+            final List<PlainActionFuture<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < numberOfTranslogs; i++) {
+                final Translog translog = newTranslog(i, group);
+                for (int j = 0; j < requestsPerTranslog; j++) {
+                    final Translog.Location location = addOperation(translog, j);
+                    final PlainActionFuture<Boolean> future = new PlainActionFuture<>();
+                    group.sync(translog, location, SequenceNumbers.UNASSIGNED_SEQ_NO, future);
+                    futures.add(future);
+                }
+            }
+            for (PlainActionFuture<Boolean> future : futures) {
+                future.get();
+            }
+            for (Translog translog : translogs) {
+                assertFalse(translog.syncNeeded());
+                final TranslogStats stats = translog.stats();
+                assertThat(stats.getGroupSyncCount(), greaterThanOrEqualTo(1L));
+                assertThat(stats.getGroupSyncCount(), lessThanOrEqualTo((long) requestsPerTranslog));
+                assertThat(stats.getGroupSyncBatchSizeTotal(), greaterThanOrEqualTo(stats.getGroupSyncCount()));
+                assertThat(stats.getGroupSyncBatchSizeTotal(), lessThanOrEqualTo(stats.getGroupSyncCount() * numberOfTranslogs));
+            }
+        }
+    }
+
+    public void testFullBatchIsSyncedRightAway() throws Exception {
+        try (TranslogSyncCoordinator coordinator = newCoordinator(TimeValue.timeValueMillis(100), 1)) {
+            final TranslogSyncCoordinator.Group group = coordinator.group(createTempDir());
+            final Translog translog = newTranslog(0, group);
+            final PlainActionFuture<Boolean> future = new PlainActionFuture<>();
+            group.sync(translog, addOperation(translog, 0), SequenceNumbers.UNASSIGNED_SEQ_NO, future);
+            // the request filled the batch and synced it on this thread without waiting for the window
+            assertTrue(future.isDone());
+            assertTrue(future.get());
+            assertFalse(translog.syncNeeded());
+            assertThat(translog.stats().getGroupSyncCount(), equalTo(1L));
+            assertThat(translog.stats().getGroupSyncBatchSizeTotal(), equalTo(1L));
+        }
+    }
+
+    public void testSlowSyncDoesNotDelayOtherTranslogs() throws Exception {
+        try (TranslogSyncCoordinator coordinator = newCoordinator(TimeValue.timeValueMillis(100), 2)) {
+            final TranslogSyncCoordinator.Group group = coordinator.group(createTempDir());
+            final CountDownLatch slowSyncStarted = new CountDownLatch(1);
+            final CountDownLatch releaseSlowSync = new CountDownLatch(1);
+            final Translog slow = newTranslog(0, group, () -> {
+                slowSyncStarted.countDown();
+                safeAwait(releaseSlowSync);
+            });
+            final Translog fast = newTranslog(1, group);
+            try {
+                final PlainActionFuture<Boolean> slowFuture = new PlainActionFuture<>();
+                group.sync(slow, addOperation(slow, 0), SequenceNumbers.UNASSIGNED_SEQ_NO, slowFuture);
+                final PlainActionFuture<Boolean> fastFuture = new PlainActionFuture<>();
+                group.sync(fast, addOperation(fast, 0), SequenceNumbers.UNASSIGNED_SEQ_NO, fastFuture);
+                // the second request filled the batch, the fast translog is synced while the slow one is still blocked
+                assertTrue(fastFuture.get(10, TimeUnit.SECONDS));
+                assertFalse(fast.syncNeeded());
+                safeAwait(slowSyncStarted);
+                assertFalse(slowFuture.isDone());
+                releaseSlowSync.countDown();
+                assertTrue(slowFuture.get(10, TimeUnit.SECONDS));
+                assertFalse(slow.syncNeeded());
+            } finally {
+                releaseSlowSync.countDown();
+            }
+        }
+    }
+
+    public void testCloseSyncsPendingRequests() throws Exception {
+        final TranslogSyncCoordinator coordinator = newCoordinator(TimeValue.timeValueMillis(100), 1024);
+        final TranslogSyncCoordinator.Group group = coordinator.group(createTempDir());
+        final Translog translog = newTranslog(0, group);
+        final PlainActionFuture<Boolean> future = new PlainActionFuture<>();
+        group.sync(translog, addOperation(translog, 0), SequenceNumbers.UNASSIGNED_SEQ_NO, future);
+        coordinator.close();
+        assertTrue(future.isDone());
+        assertTrue(future.get());
+        assertFalse(group.isEnabled());
+
+        // requests that race with closing the coordinator are synced on the calling thread
+        final PlainActionFuture<Boolean> lateFuture = new PlainActionFuture<>();
+        group.sync(translog, addOperation(translog, 1), SequenceNumbers.UNASSIGNED_SEQ_NO, lateFuture);
+        assertTrue(lateFuture.isDone());
+        assertTrue(lateFuture.get());
+    }
+
+    public void testFailuresAreReturnedToTheirTranslog() throws Exception {
+        try (TranslogSyncCoordinator coordinator = newCoordinator(TimeValue.timeValueMillis(randomIntBetween(1, 50)), 1024)) {
+            final TranslogSyncCoordinator.Group group = coordinator.group(createTempDir());
+            final Translog open = newTranslog(0, group);
+            final Translog closed = newTranslog(1, group);
+            final Translog.Location closedLocation = addOperation(closed, 0);
+            closed.close();
+            final PlainActionFuture<Boolean> closedFuture = new PlainActionFuture<>();
+            group.sync(closed, closedLocation, SequenceNumbers.UNASSIGNED_SEQ_NO, closedFuture);
+            final PlainActionFuture<Boolean> openFuture = new PlainActionFuture<>();
+            group.sync(open, addOperation(open, 0), SequenceNumbers.UNASSIGNED_SEQ_NO, openFuture);
+
+            final ExecutionException e = expectThrows(ExecutionException.class, closedFuture::get);
+            assertThat(e.getCause(), instanceOf(AlreadyClosedException.class));
+            assertTrue(openFuture.get());
+            assertFalse(open.syncNeeded());
+        }
+    }
+}
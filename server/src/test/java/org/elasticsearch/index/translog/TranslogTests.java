@@ -135,6 +135,7 @@ import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.hasToString;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.instanceOf;
@@ -552,7 +553,12 @@ public class TranslogTests extends ESTestCase {
                         "size_in_bytes": %s,
                         "uncommitted_operations": 4,
                         "uncommitted_size_in_bytes": %s,
-                        "earliest_last_modified_age": %s
+                        "earliest_last_modified_age": %s,
+                        "group_sync": {
+                          "total": 0,
+                          "batch_size_total": 0,
+                          "total_time_in_millis": 0
+                        }
                       }
                     }""", 325L + sourceLength, 270L + sourceLength, stats.getEarliestLastModifiedAge()))));
             }
@@ -925,6 +931,91 @@ public class TranslogTests extends ESTestCase {
         expectIntactTranslog = false;
     }
 
+    public void testMemoryMappedSnapshot() throws Exception {
+        int translogOperations = randomIntBetween(1, 1000);
+        for (int op = 0; op < translogOperations; op++) {
+            switch (randomIntBetween(0, 2)) {
+                case 0 -> {
+                    final String source = randomAlphaOfLength(between(1, 5000));
+                    translog.add(TranslogOperationsUtils.indexOp("" + op, op, primaryTerm.get(), source));
+                }
+                case 1 -> translog.add(new Translog.Delete("" + op, op, primaryTerm.get()));
+                default -> translog.add(new Translog.NoOp(op, primaryTerm.get(), randomAlphaOfLength(16)));
+            }
+            if (rarely()) {
+                translog.rollGeneration();
+            }
+        }
+        if (randomBoolean()) {
+            translog.sync();
+        }
+        final long fromSeqNo = randomLongBetween(0, translogOperations - 1);
+        final long toSeqNo = randomLongBetween(fromSeqNo, translogOperations - 1);
+        try (
+            Translog.Snapshot snapshot = translog.newSnapshot(fromSeqNo, toSeqNo);
+            Translog.Snapshot mappedSnapshot = translog.newSnapshot(fromSeqNo, toSeqNo, true)
+        ) {
+            assertThat(mappedSnapshot.totalOperations(), equalTo(snapshot.totalOperations()));
+            final List<Translog.Operation> mappedOperations = TestTranslog.drainSnapshot(mappedSnapshot, false);
+            assertThat(mappedOperations, equalTo(TestTranslog.drainSnapshot(snapshot, false)));
+            assertThat(mappedOperations, hasSize(Math.toIntExact(toSeqNo - fromSeqNo + 1)));
+            assertThat(mappedSnapshot.skippedOperations(), equalTo(snapshot.skippedOperations()));
+        }
+    }
+
+    public void testMemoryMappedSnapshotDetectsCorruption() throws Exception {
+        TranslogConfig config = translog.getConfig();
+        String uuid = translog.getTranslogUUID();
+        int translogOperations = randomIntBetween(10, 1000);
+        for (int op = 0; op < translogOperations; op++) {
+            translog.add(TranslogOperationsUtils.indexOp("" + op, op, primaryTerm.get()));
+            if (rarely()) {
+                translog.rollGeneration();
+            }
+        }
+        translog.close();
+
+        TestTranslog.corruptRandomTranslogFile(logger, random(), translogDir, 0);
+
+        assertThat(expectThrows(TranslogCorruptedException.class, () -> {
+            try (
+                Translog translog = openTranslog(config, uuid);
+                Translog.Snapshot snapshot = translog.newSnapshot(0, Long.MAX_VALUE, true)
+            ) {
+                for (int i = 0; i < translogOperations; i++) {
+                    snapshot.next();
+                }
+            }
+        }).getMessage(), containsString(translogDir.toString()));
+
+        expectIntactTranslog = false;
+    }
+
+    public void testMemoryMappedSnapshotDetectsTruncation() throws Exception {
+        int translogOperations = randomIntBetween(10, 100);
+        for (int op = 0; op < translogOperations; op++) {
+            translog.add(TranslogOperationsUtils.indexOp("" + op, op, primaryTerm.get()));
+        }
+        // truncate a generation that is no longer written to
+        translog.rollGeneration();
+        translog.sync();
+
+        final Path file = translogDir.resolve(Translog.getFilename(translog.currentFileGeneration() - 1));
+        try (FileChannel f = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            f.truncate(f.size() - randomIntBetween(1, (int) f.size() / 2));
+        }
+
+        try (Translog.Snapshot snapshot = translog.newSnapshot(0, Long.MAX_VALUE, true)) {
+            TruncatedTranslogException e = expectThrows(TruncatedTranslogException.class, () -> {
+                for (int i = 0; i < translogOperations; i++) {
+                    snapshot.next();
+                }
+            });
+            assertThat(e.getCause(), instanceOf(EOFException.class));
+        }
+        expectIntactTranslog = false;
+    }
+
     public void testTruncatedTranslogs() throws Exception {
         List<Translog.Location> locations = new ArrayList<>();
 
@@ -0,0 +1,178 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.DataStream;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.MapperServiceTestCase;
+import org.elasticsearch.index.query.CoordinatorRewriteContext;
+import org.elasticsearch.index.query.CoordinatorRewriteContextProvider;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.Rewriteable;
+import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
+import org.elasticsearch.xcontent.XContentParserConfiguration;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CanMatchFieldRangeCacheTests extends MapperServiceTestCase {
+
+    private static IndexMetadata indexMetadata(boolean writeBlock, long settingsVersion) {
+        return IndexMetadata.builder("index")
+            .settings(indexSettings(IndexVersion.current(), 1, 0).put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), writeBlock))
+            .settingsVersion(settingsVersion)
+            .build();
+    }
+
+    private MapperService timestampMapperService() throws IOException {
+        return createMapperService(mapping(b -> b.startObject(DataStream.TIMESTAMP_FIELD_NAME).field("type", "date").endObject()));
+    }
+
+    private static void indexTimestamps(Directory directory, long... timestamps) throws IOException {
+        try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig())) {
+            for (long timestamp : timestamps) {
+                Document document = new Document();
+                document.add(new LongPoint(DataStream.TIMESTAMP_FIELD_NAME, timestamp));
+                writer.addDocument(document);
+            }
+        }
+    }
+
+    public void testReadShardRanges() throws IOException {
+        final MapperService mapperService = timestampMapperService();
+        try (Directory directory = newDirectory()) {
+            indexTimestamps(directory, 1_000L, 5_000L, 3_000L);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                // the ranges of indices without a write block may still change
+                assertNull(CanMatchFieldRangeCache.readShardRanges(indexMetadata(false, 1), mapperService, reader));
+
+                final CanMatchFieldRangeCache.ShardRanges ranges = CanMatchFieldRangeCache.readShardRanges(
+                    indexMetadata(true, 3),
+                    mapperService,
+                    reader
+                );
+                assertNotNull(ranges);
+                assertThat(ranges.settingsVersion(), equalTo(3L));
+                // event.ingested is not mapped
+                assertThat(ranges.fields().keySet(), equalTo(Set.of(DataStream.TIMESTAMP_FIELD_NAME)));
+                final CanMatchFieldRangeCache.FieldRange range = ranges.fields().get(DataStream.TIMESTAMP_FIELD_NAME);
+                assertThat(range.min(), equalTo(1_000L));
+                assertThat(range.max(), equalTo(5_000L));
+                assertThat(copyWriteable(ranges, writableRegistry(), CanMatchFieldRangeCache.ShardRanges::new), equalTo(ranges));
+            }
+        }
+    }
+
+    public void testReadEmptyShardRanges() throws IOException {
+        final MapperService mapperService = timestampMapperService();
+        try (Directory directory = newDirectory()) {
+            indexTimestamps(directory);
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                final CanMatchFieldRangeCache.ShardRanges ranges = CanMatchFieldRangeCache.readShardRanges(
+                    indexMetadata(true, 1),
+                    mapperService,
+                    reader
+                );
+                assertNotNull(ranges);
+                final CanMatchFieldRangeCache cache = new CanMatchFieldRangeCache(Settings.EMPTY);
+                final ShardId shardId = new ShardId("index", "_na_", 0);
+                cache.put(shardId, ranges);
+                assertThat(cache.get(shardId, indexMetadata(true, 1)).timestampRange(), equalTo(IndexLongFieldRange.EMPTY));
+            }
+        }
+    }
+
+    public void testEntriesAreDroppedOnceTheRangesMayChange() {
+        final CanMatchFieldRangeCache cache = new CanMatchFieldRangeCache(Settings.EMPTY);
+        final ShardId shardId = new ShardId("index", "_na_", 0);
+        final long settingsVersion = randomLongBetween(1, 100);
+        cache.put(shardId, timestampRanges(settingsVersion, 1_000L, 5_000L));
+
+        final DateFieldRangeInfo info = cache.get(shardId, indexMetadata(true, settingsVersion));
+        assertNotNull(info);
+        assertTrue(info.timestampRange().isComplete());
+        assertThat(info.timestampRange().getMin(), equalTo(1_000L));
+        assertThat(info.timestampRange().getMax(), equalTo(5_000L));
+        assertThat(info.eventIngestedFieldType(), nullValue());
+
+        if (randomBoolean()) {
+            // the write block was removed
+            assertNull(cache.get(shardId, indexMetadata(false, settingsVersion)));
+        } else {
+            // the write block was removed and added back
+            assertNull(cache.get(shardId, indexMetadata(true, settingsVersion + 2)));
+        }
+        assertThat(cache.count(), equalTo(0));
+        assertNull(cache.get(shardId, indexMetadata(true, settingsVersion)));
+    }
+
+    public void testDisabledCache() {
+        final CanMatchFieldRangeCache cache = new CanMatchFieldRangeCache(
+            Settings.builder().put(CanMatchFieldRangeCache.CACHE_SIZE_SETTING.getKey(), 0).build()
+        );
+        final ShardId shardId = new ShardId("index", "_na_", 0);
+        cache.put(shardId, timestampRanges(1, 1_000L, 5_000L));
+        assertNull(cache.get(shardId, indexMetadata(true, 1)));
+        assertThat(cache.count(), equalTo(0));
+    }
+
+    public void testCoordinatorSkipsShardsWithCachedRanges() throws IOException {
+        final IndexMetadata indexMetadata = indexMetadata(true, 1);
+        final ClusterState state = ClusterState.builder(ClusterName.DEFAULT).metadata(Metadata.builder().put(indexMetadata, false)).build();
+        final ShardId shardId = new ShardId(indexMetadata.getIndex(), 0);
+        final CoordinatorRewriteContextProvider provider = new CoordinatorRewriteContextProvider(
+            XContentParserConfiguration.EMPTY,
+            null,
+            System::currentTimeMillis,
+            state::projectState,
+            index -> null,
+            new CanMatchFieldRangeCache(Settings.EMPTY)
+        );
+        // the cluster state holds no range for this index
+        assertNull(provider.getCoordinatorRewriteContext(shardId));
+
+        provider.onShardFieldRanges(shardId, timestampRanges(1, 1_000L, 5_000L));
+        final CoordinatorRewriteContext context = provider.getCoordinatorRewriteContext(shardId);
+        assertNotNull(context);
+
+        final QueryBuilder disjoint = new RangeQueryBuilder(DataStream.TIMESTAMP_FIELD_NAME).from(6_000L).to(7_000L);
+        assertThat(Rewriteable.rewrite(disjoint, context), instanceOf(MatchNoneQueryBuilder.class));
+        final QueryBuilder intersecting = new RangeQueryBuilder(DataStream.TIMESTAMP_FIELD_NAME).from(4_000L).to(7_000L);
+        assertThat(Rewriteable.rewrite(intersecting, context), not(instanceOf(MatchNoneQueryBuilder.class)));
+    }
+
+    private static CanMatchFieldRangeCache.ShardRanges timestampRanges(long settingsVersion, long min, long max) {
+        final DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.DateFieldType(DataStream.TIMESTAMP_FIELD_NAME);
+        final CanMatchFieldRangeCache.FieldRange range = CanMatchFieldRangeCache.FieldRange.of(fieldType, ShardLongFieldRange.of(min, max));
+        return new CanMatchFieldRangeCache.ShardRanges(settingsVersion, Map.of(DataStream.TIMESTAMP_FIELD_NAME, range));
+    }
+}
@@ -38,8 +38,10 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class IndexingMemoryControllerTests extends IndexShardTestCase {
 
@@ -192,6 +194,56 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         closeShards(shard0, shard1, shard2);
     }
 
+    public void testBudgetedModeWritesShardsThatExceedTheirBudget() throws IOException {
+        MockController controller = new MockController(
+            Settings.builder()
+                .put("indices.memory.index_buffer_size", "10mb")
+                .put(IndexingMemoryController.INDEX_BUFFER_MODE_SETTING.getKey(), "budgeted")
+                .build()
+        );
+        IndexShard busy = newStartedShard(
+            p -> newShard(p, new ShardId("index0", "uuid0", 0), Settings.EMPTY, new InternalEngineFactory()),
+            randomBoolean()
+        );
+        IndexShard quiet = newStartedShard(
+            p -> newShard(p, new ShardId("index1", "uuid1", 0), Settings.EMPTY, new InternalEngineFactory()),
+            randomBoolean()
+        );
+        controller.simulateIndexing(busy);
+        controller.simulateIndexing(quiet);
+        // nothing was indexed yet, so the shards share the indexing buffer evenly
+        assertEquals(5 * 1024 * 1024, controller.indexingBufferBudget(busy.shardId()));
+        assertEquals(5 * 1024 * 1024, controller.indexingBufferBudget(quiet.shardId()));
+
+        controller.bytesIndexed(busy.shardId(), 19 * 1024 * 1024);
+        controller.bytesIndexed(quiet.shardId(), 1024 * 1024);
+        controller.forceCheck();
+        final long busyBudget = controller.indexingBufferBudget(busy.shardId());
+        final long quietBudget = controller.indexingBufferBudget(quiet.shardId());
+        assertThat(busyBudget, greaterThan(8L * 1024 * 1024));
+        assertThat(quietBudget, lessThan(2L * 1024 * 1024));
+        assertThat(busyBudget + quietBudget, lessThanOrEqualTo(10L * 1024 * 1024));
+
+        // the node is far below its indexing buffer, but the quiet shard exceeds its budget
+        controller.simulateIndexing(quiet);
+        controller.assertBuffer(quiet, 0);
+        controller.assertWriting(quiet, 2);
+        controller.assertBuffer(busy, 1);
+        controller.doneWriting(quiet);
+
+        // exceeding the budget is noticed by the indexing operations before the next check
+        controller.indexBufferRAMBytesUsed.put(quiet, 3L * 1024 * 1024);
+        controller.bytesIndexed(quiet.shardId(), 1024 * 1024);
+        controller.assertBuffer(quiet, 0);
+        controller.assertWriting(quiet, 3);
+
+        controller.deleteShard(busy);
+        controller.forceCheck();
+        assertEquals(-1, controller.indexingBufferBudget(busy.shardId()));
+        assertEquals(10 * 1024 * 1024, controller.indexingBufferBudget(quiet.shardId()));
+        closeShards(busy, quiet);
+    }
+
     public void testActiveInactive() throws IOException {
 
         MockController controller = new MockController(Settings.builder().put("indices.memory.index_buffer_size", "5mb").build());
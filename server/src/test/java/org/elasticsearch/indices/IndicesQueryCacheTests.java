@@ -10,9 +10,13 @@
 package org.elasticsearch.indices;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.ConstantScoreScorer;
 import org.apache.lucene.search.ConstantScoreWeight;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -26,6 +30,7 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.IOUtils;
@@ -36,6 +41,8 @@ import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
 
+import static org.hamcrest.Matchers.greaterThan;
+
 public class IndicesQueryCacheTests extends ESTestCase {
 
     private static class DummyQuery extends Query {
@@ -333,6 +340,101 @@ public class IndicesQueryCacheTests extends ESTestCase {
         cache.close(); // this triggers some assertions
     }
 
+    public void testSharedSegments() throws IOException {
+        Directory dir1 = newDirectory();
+        IndexWriter w1 = new IndexWriter(dir1, newIndexWriterConfig());
+        w1.addDocument(new Document());
+        w1.close();
+        // a copy of the same segment files, like a replica recovered from the files of its primary
+        Directory dir2 = newDirectory();
+        for (String file : dir1.listAll()) {
+            dir2.copyFrom(dir1, file, file, IOContext.DEFAULT);
+        }
+        ShardId shard1 = new ShardId("index", "_na_", 0);
+        DirectoryReader r1 = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir1), shard1);
+        IndexSearcher s1 = new IndexSearcher(r1);
+        s1.setQueryCachingPolicy(TrivialQueryCachingPolicy.ALWAYS);
+        ShardId shard2 = new ShardId("other_index", "_na_", 0);
+        DirectoryReader r2 = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir2), shard2);
+        IndexSearcher s2 = new IndexSearcher(r2);
+        s2.setQueryCachingPolicy(TrivialQueryCachingPolicy.ALWAYS);
+
+        Settings settings = Settings.builder()
+            .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+            .put(IndicesQueryCache.INDICES_CACHE_QUERY_SHARED_SEGMENTS_SIZE_SETTING.getKey(), "1mb")
+            .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        s1.setQueryCache(cache);
+        s2.setQueryCache(cache);
+
+        assertEquals(1, s1.count(new DummyQuery(0)));
+        QueryCacheStats stats1 = cache.getStats(shard1);
+        assertEquals(0L, stats1.getSharedSegmentHitCount());
+        assertEquals(1L, stats1.getSharedSegmentMissCount());
+        assertThat(stats1.getSharedSegmentMemorySizeInBytes(), greaterThan(0L));
+        // shared segments are not cached by core
+        assertEquals(0L, stats1.getCacheSize());
+
+        assertEquals(1, s2.count(new DummyQuery(0)));
+        QueryCacheStats stats2 = cache.getStats(shard2);
+        assertEquals(1L, stats2.getSharedSegmentHitCount());
+        assertEquals(0L, stats2.getSharedSegmentMissCount());
+        // the memory is accounted to the shard that computed the entry
+        assertEquals(0L, stats2.getSharedSegmentMemorySizeInBytes());
+
+        // the entry outlives the reader that computed it as long as another copy of the segment is open
+        IOUtils.close(r1, dir1);
+        assertThat(cache.getStats(shard1).getSharedSegmentMemorySizeInBytes(), greaterThan(0L));
+        assertEquals(1, s2.count(new DummyQuery(0)));
+        assertEquals(2L, cache.getStats(shard2).getSharedSegmentHitCount());
+
+        IOUtils.close(r2, dir2);
+        assertEquals(0L, cache.getStats(shard1).getSharedSegmentMemorySizeInBytes());
+        cache.onClose(shard1);
+        cache.onClose(shard2);
+        cache.close(); // this triggers some assertions
+    }
+
+    public void testSharedSegmentsAfterDeletes() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        for (int i = 0; i < 2; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+            w.addDocument(doc);
+        }
+        ShardId shard = new ShardId("index", "_na_", 0);
+        DirectoryReader r1 = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(w), shard);
+        IndexSearcher s1 = new IndexSearcher(r1);
+        s1.setQueryCachingPolicy(TrivialQueryCachingPolicy.ALWAYS);
+
+        Settings settings = Settings.builder()
+            .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+            .put(IndicesQueryCache.INDICES_CACHE_QUERY_SHARED_SEGMENTS_SIZE_SETTING.getKey(), "1mb")
+            .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        s1.setQueryCache(cache);
+        assertEquals(2, s1.count(new DummyQuery(0)));
+
+        // the new reader shares the core of the segment but has different live docs
+        w.deleteDocuments(new Term("id", "0"));
+        DirectoryReader r2 = DirectoryReader.openIfChanged(r1);
+        assertNotNull(r2);
+        IndexSearcher s2 = new IndexSearcher(r2);
+        s2.setQueryCachingPolicy(TrivialQueryCachingPolicy.ALWAYS);
+        s2.setQueryCache(cache);
+        // the cached filter is reused and the deleted document is filtered out at search time
+        assertEquals(1, s2.count(new DummyQuery(0)));
+        QueryCacheStats stats = cache.getStats(shard);
+        assertEquals(1L, stats.getSharedSegmentHitCount());
+        assertEquals(1L, stats.getSharedSegmentMissCount());
+
+        IOUtils.close(r1, r2, w, dir);
+        assertEquals(0L, cache.getStats(shard).getSharedSegmentMemorySizeInBytes());
+        cache.onClose(shard);
+        cache.close(); // this triggers some assertions
+    }
+
     private static class DummyWeight extends Weight {
 
         private final Weight weight;
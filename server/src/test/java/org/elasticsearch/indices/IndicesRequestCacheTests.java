@@ -16,6 +16,8 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
@@ -32,6 +34,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.index.cache.request.RequestCacheStats;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.MappingLookup;
@@ -52,7 +55,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
 
     public void testBasicOperationsCache() throws Exception {
         ShardRequestCache requestCacheStats = new ShardRequestCache();
-        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        IndicesRequestCache cache = new IndicesRequestCache(randomEvictionPolicySettings());
         Directory dir = newDirectory();
         IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
 
@@ -106,8 +109,35 @@ public class IndicesRequestCacheTests extends ESTestCase {
         assertEquals(0, cache.numRegisteredCloseListeners());
     }
 
+    public void testTopHitsAreCountedSeparately() throws Exception {
+        IndicesRequestCache cache = new IndicesRequestCache(randomEvictionPolicySettings());
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc(0, "foo"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        BytesReference countBytes = XContentHelper.toXContent(new TermQueryBuilder("id", "0"), XContentType.JSON, false);
+        BytesReference topHitsBytes = XContentHelper.toXContent(new TermQueryBuilder("id", "1"), XContentType.JSON, false);
+        AtomicBoolean indexShard = new AtomicBoolean(true);
+
+        for (int i = 0; i < 2; i++) {
+            cache.getOrCompute(new TestEntity(requestCacheStats, indexShard), new Loader(reader, 0), mappingKey, reader, countBytes);
+            TestEntity topHitsEntity = new TestEntity(requestCacheStats, indexShard, true);
+            cache.getOrCompute(topHitsEntity, new Loader(reader, 0), mappingKey, reader, topHitsBytes);
+        }
+        RequestCacheStats stats = requestCacheStats.stats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1, stats.getTopHitsHitCount());
+        assertEquals(1, stats.getTopHitsMissCount());
+        assertEquals(2, cache.count());
+
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
     public void testCacheDifferentReaders() throws Exception {
-        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        IndicesRequestCache cache = new IndicesRequestCache(randomEvictionPolicySettings());
         MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
         AtomicBoolean indexShard = new AtomicBoolean(true);
         ShardRequestCache requestCacheStats = new ShardRequestCache();
@@ -202,7 +232,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
     }
 
     public void testCacheDifferentMapping() throws Exception {
-        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        IndicesRequestCache cache = new IndicesRequestCache(randomEvictionPolicySettings());
         MappingLookup.CacheKey mappingKey1 = MappingLookup.EMPTY.cacheKey();
         MappingLookup.CacheKey mappingKey2 = MappingLookup.fromMappers(Mapping.EMPTY, emptyList(), emptyList()).cacheKey();
         AtomicBoolean indexShard = new AtomicBoolean(true);
@@ -284,7 +314,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
         MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
         final ByteSizeValue size;
         {
-            IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+            IndicesRequestCache cache = new IndicesRequestCache(randomEvictionPolicySettings());
             AtomicBoolean indexShard = new AtomicBoolean(true);
             ShardRequestCache requestCacheStats = new ShardRequestCache();
             Directory dir = newDirectory();
@@ -347,7 +377,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
     }
 
     public void testClearAllEntityIdentity() throws Exception {
-        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        IndicesRequestCache cache = new IndicesRequestCache(randomEvictionPolicySettings());
         AtomicBoolean indexShard = new AtomicBoolean(true);
 
         ShardRequestCache requestCacheStats = new ShardRequestCache();
@@ -397,6 +427,15 @@ public class IndicesRequestCacheTests extends ESTestCase {
 
     }
 
+    private static Settings randomEvictionPolicySettings() {
+        return Settings.builder()
+            .put(
+                IndicesRequestCache.INDICES_CACHE_QUERY_EVICTION_POLICY.getKey(),
+                randomFrom(IndicesRequestCache.EvictionPolicy.values()).name()
+            )
+            .build();
+    }
+
     public Iterable<Field> newDoc(int id, String value) {
         return Arrays.asList(
             newField("id", Integer.toString(id), StringField.TYPE_STORED),
@@ -435,7 +474,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
 
     public void testInvalidate() throws Exception {
         ShardRequestCache requestCacheStats = new ShardRequestCache();
-        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        IndicesRequestCache cache = new IndicesRequestCache(randomEvictionPolicySettings());
         Directory dir = newDirectory();
         IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
 
@@ -502,6 +541,66 @@ public class IndicesRequestCacheTests extends ESTestCase {
         assertEquals(0, cache.numRegisteredCloseListeners());
     }
 
+    public void testPerSegmentEntriesSurviveRefresh() throws Exception {
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        IndicesRequestCache cache = new IndicesRequestCache(randomEvictionPolicySettings());
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        BytesReference termBytes = XContentHelper.toXContent(new TermQueryBuilder("id", "0"), XContentType.JSON, false);
+        TestEntity entity = new TestEntity(requestCacheStats, new AtomicBoolean(true));
+
+        writer.addDocument(newDoc(0, "foo"));
+        DirectoryReader reader = DirectoryReader.open(writer);
+        assertEquals(1, reader.leaves().size());
+        LeafReaderContext firstSegment = reader.leaves().get(0);
+        BytesReference value = cache.getOrCompute(entity, () -> {
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                out.writeVInt(firstSegment.reader().numDocs());
+                return out.bytes();
+            }
+        }, mappingKey, new ESCacheHelper.Wrapper(firstSegment.reader().getReaderCacheHelper()), termBytes);
+        assertEquals(1, value.streamInput().readVInt());
+        assertEquals(1, requestCacheStats.stats().getMissCount());
+
+        // a refresh that only adds a segment keeps the entry of the existing segment
+        writer.addDocument(newDoc(1, "bar"));
+        DirectoryReader secondReader = DirectoryReader.openIfChanged(reader, writer);
+        assertNotNull(secondReader);
+        assertEquals(2, secondReader.leaves().size());
+        reader.close();
+        cache.cleanCache();
+        assertEquals(1, cache.count());
+        int misses = 0;
+        for (LeafReaderContext leaf : secondReader.leaves()) {
+            boolean[] computed = new boolean[] { false };
+            value = cache.getOrCompute(entity, () -> {
+                computed[0] = true;
+                try (BytesStreamOutput out = new BytesStreamOutput()) {
+                    out.writeVInt(leaf.reader().numDocs());
+                    return out.bytes();
+                }
+            }, mappingKey, new ESCacheHelper.Wrapper(leaf.reader().getReaderCacheHelper()), termBytes);
+            assertEquals(1, value.streamInput().readVInt());
+            assertEquals(leaf.reader() != firstSegment.reader(), computed[0]);
+            misses += computed[0] ? 1 : 0;
+        }
+        assertEquals(1, misses);
+        assertEquals(1, requestCacheStats.stats().getHitCount());
+        assertEquals(2, requestCacheStats.stats().getMissCount());
+        assertEquals(2, cache.count());
+
+        // deletes create a new segment reader, so the entry of the old one is invalidated once it is closed
+        writer.deleteDocuments(new Term("id", "0"));
+        DirectoryReader thirdReader = DirectoryReader.openIfChanged(secondReader, writer);
+        assertNotNull(thirdReader);
+        secondReader.close();
+        cache.cleanCache();
+        assertEquals(1, cache.count());
+
+        IOUtils.close(thirdReader, writer, dir, cache);
+    }
+
     public void testKeyEqualsAndHashCode() throws IOException {
         AtomicBoolean trueBoolean = new AtomicBoolean(true);
         AtomicBoolean falseBoolean = new AtomicBoolean(false);
@@ -618,10 +717,16 @@ public class IndicesRequestCacheTests extends ESTestCase {
     private static class TestEntity extends AbstractIndexShardCacheEntity {
         private final AtomicBoolean standInForIndexShard;
         private final ShardRequestCache shardRequestCache;
+        private final boolean topHits;
 
         private TestEntity(ShardRequestCache shardRequestCache, AtomicBoolean standInForIndexShard) {
+            this(shardRequestCache, standInForIndexShard, false);
+        }
+
+        private TestEntity(ShardRequestCache shardRequestCache, AtomicBoolean standInForIndexShard, boolean topHits) {
             this.standInForIndexShard = standInForIndexShard;
             this.shardRequestCache = shardRequestCache;
+            this.topHits = topHits;
         }
 
         @Override
@@ -629,6 +734,11 @@ public class IndicesRequestCacheTests extends ESTestCase {
             return shardRequestCache;
         }
 
+        @Override
+        protected boolean cachesTopHits() {
+            return topHits;
+        }
+
         @Override
         public boolean isOpen() {
             return standInForIndexShard.get();
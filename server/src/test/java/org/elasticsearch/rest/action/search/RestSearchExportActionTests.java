@@ -0,0 +1,52 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.collapse.CollapseBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.endsWith;
+
+public class RestSearchExportActionTests extends ESTestCase {
+
+    public void testAcceptsQueriesAndSourceFiltering() {
+        RestSearchExportAction.validate(
+            new SearchSourceBuilder().query(QueryBuilders.termQuery("field", "value")).fetchSource(new String[] { "field" }, null).size(10)
+        );
+    }
+
+    public void testRejectsCrossShardFeatures() {
+        final List<Consumer<SearchSourceBuilder>> rejected = List.of(
+            s -> s.from(randomIntBetween(1, 100)),
+            s -> s.sort(SortBuilders.fieldSort("field")),
+            s -> s.searchAfter(new Object[] { 1L }),
+            s -> s.pointInTimeBuilder(new PointInTimeBuilder(new BytesArray("id"))),
+            s -> s.slice(new SliceBuilder(0, 2)),
+            s -> s.collapse(new CollapseBuilder("field")),
+            s -> s.aggregation(AggregationBuilders.terms("terms").field("field"))
+        );
+        for (Consumer<SearchSourceBuilder> modifier : rejected) {
+            final SearchSourceBuilder source = new SearchSourceBuilder();
+            modifier.accept(source);
+            final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> RestSearchExportAction.validate(source));
+            assertThat(e.getMessage(), endsWith("is not supported by the export API"));
+        }
+    }
+}
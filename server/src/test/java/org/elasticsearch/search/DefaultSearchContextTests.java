@@ -37,6 +37,7 @@ import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.IndexService;
@@ -741,6 +742,34 @@ public class DefaultSearchContextTests extends MapperServiceTestCase {
         }
     }
 
+    public void testDetermineLoadAwareNumberOfSlices() {
+        int executorPoolSize = randomIntBetween(2, 100);
+        EsThreadPoolExecutor threadPoolExecutor = EsExecutors.newFixed(
+            "test",
+            executorPoolSize,
+            1000,
+            Thread::new,
+            new ThreadContext(Settings.EMPTY),
+            EsExecutors.TaskTrackingConfig.DO_NOT_TRACK
+        );
+        assertEquals(1, DefaultSearchContext.determineLoadAwareNumberOfSlices(null, 1));
+        assertEquals(executorPoolSize, DefaultSearchContext.determineLoadAwareNumberOfSlices(Runnable::run, executorPoolSize));
+        // a request fans out to the whole pool when the executor is idle
+        assertEquals(executorPoolSize, DefaultSearchContext.determineLoadAwareNumberOfSlices(threadPoolExecutor, executorPoolSize));
+        // every queued task takes a slice away until the request executes on a single thread
+        for (int i = 1; i <= executorPoolSize; i++) {
+            assertTrue(threadPoolExecutor.getQueue().offer(() -> {}));
+            assertEquals(
+                executorPoolSize - i + 1,
+                DefaultSearchContext.determineLoadAwareNumberOfSlices(threadPoolExecutor, executorPoolSize)
+            );
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(threadPoolExecutor.getQueue().offer(() -> {}));
+            assertEquals(1, DefaultSearchContext.determineLoadAwareNumberOfSlices(threadPoolExecutor, executorPoolSize));
+        }
+    }
+
     public void testIsParallelCollectionSupportedForResults() {
         SearchSourceBuilder searchSourceBuilderOrNull = randomBoolean() ? null : new SearchSourceBuilder();
         ToLongFunction<String> fieldCardinality = name -> -1;
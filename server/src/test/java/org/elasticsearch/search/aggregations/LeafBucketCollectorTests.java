@@ -0,0 +1,76 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.search.CheckedIntConsumer;
+import org.apache.lucene.search.DocIdStream;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class LeafBucketCollectorTests extends ESTestCase {
+
+    public void testDocIdStreamIsCollectedInBlocks() throws IOException {
+        int numDocs = randomIntBetween(1, LeafBucketCollector.MAX_BLOCK_SIZE * 3);
+        List<Integer> expected = new ArrayList<>();
+        int doc = 0;
+        for (int i = 0; i < numDocs; i++) {
+            doc += randomIntBetween(1, 5);
+            expected.add(doc);
+        }
+        List<Integer> collected = new ArrayList<>();
+        LeafBucketCollector collector = new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long owningBucketOrd) {
+                fail("expected the docs to be collected in blocks");
+            }
+
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrd) {
+                assertThat(owningBucketOrd, equalTo(0L));
+                assertThat(count, lessThanOrEqualTo(LeafBucketCollector.MAX_BLOCK_SIZE));
+                for (int i = 0; i < count; i++) {
+                    collected.add(docs[i]);
+                }
+            }
+        };
+        // collect twice to make sure the block is reused properly
+        for (int round = 0; round < 2; round++) {
+            collected.clear();
+            collector.collect(new DocIdStream() {
+                @Override
+                public void forEach(CheckedIntConsumer<IOException> consumer) throws IOException {
+                    for (int d : expected) {
+                        consumer.accept(d);
+                    }
+                }
+            });
+            assertThat(collected, equalTo(expected));
+        }
+    }
+
+    public void testDefaultBlockCollectionCollectsEachDoc() throws IOException {
+        List<Integer> collected = new ArrayList<>();
+        LeafBucketCollector collector = new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long owningBucketOrd) {
+                assertThat(owningBucketOrd, equalTo(7L));
+                collected.add(doc);
+            }
+        };
+        collector.collect(new int[] { 1, 4, 9, 100 }, 3, 7);
+        assertThat(collected, equalTo(List.of(1, 4, 9)));
+    }
+}
@@ -228,6 +228,36 @@ public class MultiBucketCollectorTests extends ESTestCase {
         }
     }
 
+    public void testCollectBlocks() throws IOException {
+        final int numDocs = randomIntBetween(100, 1000);
+        Map<TotalHitCountBucketCollector, Integer> expectedCounts = new HashMap<>();
+        List<BucketCollector> collectors = new ArrayList<>();
+        final int numCollectors = randomIntBetween(2, 5);
+        for (int i = 0; i < numCollectors; ++i) {
+            final int terminateAfter = random().nextInt(numDocs + 10);
+            TotalHitCountBucketCollector collector = new TotalHitCountBucketCollector();
+            expectedCounts.put(collector, Math.min(terminateAfter, numDocs));
+            collectors.add(new TerminateAfterBucketCollector(collector, terminateAfter));
+        }
+        LeafBucketCollector collector = MultiBucketCollector.wrap(false, collectors).getLeafCollector(null);
+        final int[] docs = new int[randomIntBetween(1, 100)];
+        int docId = 0;
+        try {
+            while (docId < numDocs) {
+                int count = 0;
+                while (count < docs.length && docId < numDocs) {
+                    docs[count++] = docId++;
+                }
+                collector.collect(docs, count, 0);
+            }
+        } catch (CollectionTerminatedException e) {
+            // all collectors are done
+        }
+        for (Map.Entry<TotalHitCountBucketCollector, Integer> expectedCount : expectedCounts.entrySet()) {
+            assertEquals(expectedCount.getValue().intValue(), expectedCount.getKey().getTotalHits());
+        }
+    }
+
     public void testSetScorerAfterCollectionTerminated() throws IOException {
         BucketCollector collector1 = new TotalHitCountBucketCollector();
         BucketCollector collector2 = new TotalHitCountBucketCollector();
@@ -107,6 +107,7 @@ import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -124,6 +125,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
 
 public class CompositeAggregatorTests extends AggregatorTestCase {
@@ -3098,6 +3100,56 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testIndexSortPaginationWithThreeSources() throws Exception {
+        final String[] keywords = new String[] { "a", "b", "c", "d", "e" };
+        final Map<String, Long> expectedCounts = new HashMap<>();
+        final List<Map<String, List<Object>>> dataset = new ArrayList<>();
+        int numDocs = between(20, 200);
+        for (int i = 0; i < numDocs; i++) {
+            String keyword = randomFrom(keywords);
+            long longValue = randomLongBetween(0, 3);
+            int price = between(0, 2);
+            dataset.add(createDocument("keyword", keyword, "long", longValue, "price", price));
+            expectedCounts.merge("{keyword=" + keyword + ", long=" + longValue + ", price=" + price + "}", 1L, Long::sum);
+        }
+        final List<String> expectedKeys = new ArrayList<>();
+        for (String keyword : keywords) {
+            for (long longValue = 0; longValue <= 3; longValue++) {
+                for (int price = 0; price <= 2; price++) {
+                    String key = "{keyword=" + keyword + ", long=" + longValue + ", price=" + price + "}";
+                    if (expectedCounts.containsKey(key)) {
+                        expectedKeys.add(key);
+                    }
+                }
+            }
+        }
+
+        final int size = between(1, 5);
+        final List<String> keys = new ArrayList<>();
+        final AtomicReference<Map<String, Object>> afterKey = new AtomicReference<>();
+        do {
+            executeTestCase(false, true, new MatchAllDocsQuery(), dataset, () -> {
+                CompositeAggregationBuilder builder = new CompositeAggregationBuilder(
+                    "name",
+                    Arrays.asList(
+                        new TermsValuesSourceBuilder("keyword").field("keyword"),
+                        new TermsValuesSourceBuilder("long").field("long"),
+                        new TermsValuesSourceBuilder("price").field("price")
+                    )
+                ).size(size);
+                return afterKey.get() == null ? builder : builder.aggregateAfter(afterKey.get());
+            }, (InternalComposite result) -> {
+                assertThat(result.getBuckets().size(), lessThanOrEqualTo(size));
+                for (InternalComposite.InternalBucket bucket : result.getBuckets()) {
+                    keys.add(bucket.getKeyAsString());
+                    assertEquals(expectedCounts.get(bucket.getKeyAsString()).longValue(), bucket.getDocCount());
+                }
+                afterKey.set(result.getBuckets().isEmpty() ? null : result.afterKey());
+            });
+        } while (afterKey.get() != null);
+        assertEquals(expectedKeys, keys);
+    }
+
     public void testParentFactoryValidation() throws Exception {
         try (Directory directory = newDirectory()) {
             try (RandomIndexWriter indexWriter = newRandomIndexWriterWithLogDocMergePolicy(directory)) {
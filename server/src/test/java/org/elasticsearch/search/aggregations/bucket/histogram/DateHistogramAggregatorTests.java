@@ -855,6 +855,31 @@ public class DateHistogramAggregatorTests extends DateHistogramAggregatorTestCas
         );
     }
 
+    public void testBlockCollectionMatchesPerDoc() throws IOException {
+        DateHistogramAggregationBuilder builder = new DateHistogramAggregationBuilder("d").field("f")
+            .fixedInterval(new DateHistogramInterval(randomIntBetween(1, 48) + "h"));
+        if (randomBoolean()) {
+            builder.hardBounds(new LongBounds("2020-01-03", "2020-01-08"));
+        }
+        if (randomBoolean()) {
+            builder.missing("2020-01-05");
+        }
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex = iw -> {
+            long date = DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parseMillis("2020-01-01T00:00:00");
+            int numDocs = randomIntBetween(1, 2000);
+            for (int i = 0; i < numDocs; i++) {
+                if (rarely()) {
+                    iw.addDocument(List.of());
+                    continue;
+                }
+                // mostly increasing dates so that neighbouring docs often fall in the same bucket
+                date += randomBoolean() ? randomLongBetween(0, 10 * 60 * 1000) : randomLongBetween(-24 * 60 * 60 * 1000, 0);
+                iw.addDocument(List.of(new LongPoint("f", date), new NumericDocValuesField("f", date)));
+            }
+        };
+        assertBlockCollectionMatchesPerDoc(builder, new MatchAllDocsQuery(), buildIndex, new DateFieldMapper.DateFieldType("f"));
+    }
+
     public void testOneBucketOptimized() throws IOException {
         AggregationBuilder builder = new DateHistogramAggregationBuilder("d").field("f").calendarInterval(DateHistogramInterval.DAY);
         CheckedConsumer<RandomIndexWriter, IOException> buildIndex = iw -> {
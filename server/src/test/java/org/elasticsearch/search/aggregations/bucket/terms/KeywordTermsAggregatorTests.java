@@ -11,6 +11,7 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.search.MatchAllDocsQuery;
@@ -90,6 +91,28 @@ public class KeywordTermsAggregatorTests extends AggregatorTestCase {
         );
     }
 
+    public void testBlockCollectionMatchesPerDoc() throws IOException {
+        TermsAggregationBuilder builder = new TermsAggregationBuilder("_name").field(KEYWORD_FIELD)
+            .executionHint("global_ordinals")
+            .size(between(1, 20));
+        if (randomBoolean()) {
+            builder.includeExclude(new IncludeExclude("v[0-4]", null, null, null));
+        }
+        if (randomBoolean()) {
+            builder.missing("v7");
+        }
+        assertBlockCollectionMatchesPerDoc(builder, new MatchAllDocsQuery(), iw -> {
+            int numDocs = randomIntBetween(1, 2000);
+            for (int i = 0; i < numDocs; i++) {
+                if (rarely()) {
+                    iw.addDocument(List.of());
+                } else {
+                    iw.addDocument(List.of(new SortedSetDocValuesField(KEYWORD_FIELD, new BytesRef("v" + randomIntBetween(0, 20)))));
+                }
+            }
+        }, new KeywordFieldMapper.KeywordFieldType(KEYWORD_FIELD, false, true, Collections.emptyMap()));
+    }
+
     private void testSearchCase(
         Query query,
         List<String> dataset,
@@ -38,6 +38,10 @@ public class LongKeyedBucketOrdsTests extends ESTestCase {
         collectsFromSingleBucketCase(LongKeyedBucketOrds.build(bigArrays, CardinalityUpperBound.MANY));
     }
 
+    public void testSwissCollectsFromSingleBucket() {
+        collectsFromSingleBucketCase(new LongKeyedBucketOrds.FromSingleSwiss(bigArrays));
+    }
+
     public void testCollectsFromManyBuckets() {
         try (LongKeyedBucketOrds ords = LongKeyedBucketOrds.build(bigArrays, CardinalityUpperBound.MANY)) {
             assertCollectsFromManyBuckets(ords, scaledRandomIntBetween(1, 10000), Long.MIN_VALUE, Long.MAX_VALUE);
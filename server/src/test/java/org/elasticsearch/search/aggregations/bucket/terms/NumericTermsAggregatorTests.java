@@ -17,6 +17,7 @@ import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
@@ -25,6 +26,8 @@ import org.elasticsearch.search.aggregations.support.ValueType;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -88,6 +91,27 @@ public class NumericTermsAggregatorTests extends AggregatorTestCase {
         );
     }
 
+    public void testBlockCollectionMatchesPerDoc() throws IOException {
+        TermsAggregationBuilder builder = new TermsAggregationBuilder("_name").field(LONG_FIELD).size(between(1, 20));
+        if (randomBoolean()) {
+            builder.includeExclude(new IncludeExclude(null, null, null, new TreeSet<>(Set.of(new BytesRef("3"), new BytesRef("5")))));
+        }
+        if (randomBoolean()) {
+            builder.missing(7L);
+        }
+        assertBlockCollectionMatchesPerDoc(builder, new MatchAllDocsQuery(), iw -> {
+            int numDocs = randomIntBetween(1, 2000);
+            for (int i = 0; i < numDocs; i++) {
+                if (rarely()) {
+                    iw.addDocument(List.of());
+                } else {
+                    long value = randomLongBetween(0, 20);
+                    iw.addDocument(List.of(new SortedNumericDocValuesField(LONG_FIELD, value), new LongPoint(LONG_FIELD, value)));
+                }
+            }
+        }, new NumberFieldMapper.NumberFieldType(LONG_FIELD, NumberFieldMapper.NumberType.LONG));
+    }
+
     public void testBadIncludeExclude() throws IOException {
         IncludeExclude includeExclude = new IncludeExclude("foo", null, null, null);
 
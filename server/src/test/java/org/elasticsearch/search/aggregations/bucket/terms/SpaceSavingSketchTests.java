@@ -0,0 +1,108 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class SpaceSavingSketchTests extends ESTestCase {
+    public void testExactUntilFull() {
+        int capacity = between(1, 100);
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        Map<Long, Long> expected = new HashMap<>();
+        int adds = between(0, 1000);
+        for (int i = 0; i < adds; i++) {
+            long key = randomLongBetween(0, capacity - 1);
+            long increment = between(1, 10);
+            sketch.add(key, increment);
+            expected.merge(key, increment, Long::sum);
+        }
+        assertThat(sketch.size(), equalTo(expected.size()));
+        if (sketch.isFull() == false) {
+            assertThat(sketch.minCount(), equalTo(0L));
+        }
+        for (int slot = 0; slot < sketch.size(); slot++) {
+            assertThat(sketch.count(slot), equalTo(expected.get(sketch.key(slot))));
+            assertThat(sketch.error(slot), equalTo(0L));
+        }
+    }
+
+    public void testBounds() {
+        int capacity = between(1, 100);
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        Map<Long, Long> expected = new HashMap<>();
+        int cardinality = between(1, 1000);
+        int adds = between(0, 10000);
+        long total = 0;
+        for (int i = 0; i < adds; i++) {
+            long key = randomBoolean() ? randomLongBetween(0, 2) : randomLongBetween(0, cardinality);
+            long increment = between(1, 3);
+            sketch.add(key, increment);
+            expected.merge(key, increment, Long::sum);
+            total += increment;
+        }
+        assertThat(sketch.total(), equalTo(total));
+        assertThat(sketch.size(), lessThanOrEqualTo(capacity));
+        Set<Long> tracked = new HashSet<>();
+        long sum = 0;
+        for (int slot = 0; slot < sketch.size(); slot++) {
+            long key = sketch.key(slot);
+            assertTrue("duplicate key [" + key + "]", tracked.add(key));
+            long actual = expected.getOrDefault(key, 0L);
+            assertThat(sketch.count(slot), greaterThanOrEqualTo(actual));
+            assertThat(sketch.count(slot) - sketch.error(slot), lessThanOrEqualTo(actual));
+            assertThat(sketch.count(slot), greaterThanOrEqualTo(sketch.minCount()));
+            sum += sketch.count(slot);
+        }
+        // Space-Saving never loses or invents counts, it only moves them between keys
+        assertThat(sum, equalTo(total));
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            if (tracked.contains(e.getKey()) == false) {
+                assertThat(e.getValue(), lessThanOrEqualTo(sketch.minCount()));
+            }
+        }
+    }
+
+    public void testKeepsHeavyHitters() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(16);
+        for (int i = 0; i < 100000; i++) {
+            if (i % 4 == 0) {
+                sketch.add(-1, 1);
+            } else if (i % 10 == 1) {
+                sketch.add(-2, 1);
+            } else {
+                sketch.add(i, 1);
+            }
+        }
+        Map<Long, Long> counts = new HashMap<>();
+        for (int slot = 0; slot < sketch.size(); slot++) {
+            counts.put(sketch.key(slot), sketch.count(slot) - sketch.error(slot));
+        }
+        assertThat(counts.get(-1L), greaterThanOrEqualTo(25000L - sketch.minCount()));
+        assertThat(counts.get(-2L), greaterThanOrEqualTo(10000L - sketch.minCount()));
+    }
+
+    public void testRamBytesUsedDoesNotGrow() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(between(1, 1000));
+        long ramBytesUsed = sketch.ramBytesUsed();
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(randomLong(), 1);
+        }
+        assertThat(sketch.ramBytesUsed(), equalTo(ramBytesUsed));
+    }
+}
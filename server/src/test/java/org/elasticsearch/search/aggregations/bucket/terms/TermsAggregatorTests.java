@@ -149,6 +149,8 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 
 public class TermsAggregatorTests extends AggregatorTestCase {
 
@@ -422,6 +424,100 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }, new AggTestConfig(aggregationBuilder, fieldType));
     }
 
+    public void testSketch() throws Exception {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").executionHint("sketch").field("string").size(2);
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex = iw -> {
+            List<List<? extends IndexableField>> docs = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                docs.add(doc(fieldType, "heavy"));
+            }
+            for (int i = 0; i < 100; i++) {
+                docs.add(doc(fieldType, "medium", Strings.format("m%03d", i)));
+            }
+            for (int i = 0; i < SketchStringTermsAggregator.MIN_SKETCH_SIZE * 2; i++) {
+                docs.add(doc(fieldType, Strings.format("u%05d", i)));
+            }
+            Collections.shuffle(docs, random());
+            iw.addDocuments(docs);
+        };
+        debugTestCase(
+            aggregationBuilder,
+            new MatchAllDocsQuery(),
+            buildIndex,
+            (StringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                assertEquals(SketchStringTermsAggregator.class, impl);
+                assertThat(
+                    result.getBuckets().stream().map(StringTerms.Bucket::getKey).collect(toList()),
+                    equalTo(List.of("heavy", "medium"))
+                );
+                long[] expected = new long[] { 200, 100 };
+                for (int b = 0; b < expected.length; b++) {
+                    StringTerms.Bucket bucket = result.getBuckets().get(b);
+                    assertThat(bucket.getDocCount(), lessThanOrEqualTo(expected[b]));
+                    assertThat(bucket.getDocCount() + bucket.getDocCountError(), greaterThanOrEqualTo(expected[b]));
+                }
+                assertMap(
+                    debug,
+                    matchesMap().entry(
+                        "_name",
+                        matchesMap().extraOk()
+                            .entry("sketch_size", SketchStringTermsAggregator.MIN_SKETCH_SIZE)
+                            .entry("has_filter", false)
+                    )
+                );
+            },
+            fieldType
+        );
+    }
+
+    public void testSketchCapsShardSizeAtSketchSize() throws Exception {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").executionHint("sketch")
+            .field("string")
+            .size(1)
+            .shardSize(between(SketchStringTermsAggregator.MAX_SKETCH_SIZE + 1, SketchStringTermsAggregator.MAX_SKETCH_SIZE * 4));
+        debugTestCase(aggregationBuilder, new MatchAllDocsQuery(), iw -> {
+            iw.addDocument(doc(fieldType, "a", "b"));
+            iw.addDocument(doc(fieldType, "a"));
+        }, (StringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+            assertEquals(SketchStringTermsAggregator.class, impl);
+            /*
+             * A shard that returns fewer terms than its shard size is assumed to
+             * have returned every term so it must never claim a shard size bigger
+             * than the number of counters in the sketch.
+             */
+            assertThat(result.getShardSize(), equalTo(SketchStringTermsAggregator.MAX_SKETCH_SIZE));
+            assertThat(result.getBuckets().stream().map(StringTerms.Bucket::getKey).collect(toList()), equalTo(List.of("a")));
+            assertThat(result.getBuckets().get(0).getDocCount(), equalTo(2L));
+            assertMap(
+                debug,
+                matchesMap().entry(
+                    "_name",
+                    matchesMap().extraOk().entry("sketch_size", SketchStringTermsAggregator.MAX_SKETCH_SIZE).entry("has_filter", false)
+                )
+            );
+        }, fieldType);
+    }
+
+    public void testSketchFallsBackWhenNotApplicable() throws Exception {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
+        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name").executionHint("sketch").field("string");
+        switch (between(0, 2)) {
+            case 0 -> aggregationBuilder.order(BucketOrder.key(true));
+            case 1 -> aggregationBuilder.minDocCount(0);
+            case 2 -> aggregationBuilder.subAggregation(new TermsAggregationBuilder("sub").field("string"));
+            default -> throw new IllegalStateException();
+        }
+        debugTestCase(aggregationBuilder, new MatchAllDocsQuery(), iw -> {
+            iw.addDocument(doc(fieldType, "a", "b"));
+            iw.addDocument(doc(fieldType, "b"));
+        }, (StringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+            assertThat(impl, not(equalTo(SketchStringTermsAggregator.class)));
+            assertThat(result.getBuckets().stream().map(StringTerms.Bucket::getDocCount).mapToLong(l -> l).sum(), equalTo(3L));
+        }, fieldType);
+    }
+
     public void testManyTermsOrderBySubAgg() throws Exception {
         MappedFieldType kft = new KeywordFieldMapper.KeywordFieldType("string", randomBoolean(), true, Collections.emptyMap());
         MappedFieldType lft = new NumberFieldType("long", NumberType.LONG);
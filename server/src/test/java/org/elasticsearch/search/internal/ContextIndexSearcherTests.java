@@ -261,6 +261,41 @@ public class ContextIndexSearcherTests extends ESTestCase {
         }
     }
 
+    /**
+     * Test that a search whose query matches too few documents to fill every slice is executed with fewer slices
+     */
+    public void testSlicesAreBoundedByQueryCost() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(randomIntBetween(2, 5));
+        try (Directory directory = newDirectory()) {
+            int numDocs = indexDocs(directory);
+            try (DirectoryReader directoryReader = DirectoryReader.open(directory)) {
+                ContextIndexSearcher searcher = new ContextIndexSearcher(
+                    directoryReader,
+                    IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(),
+                    IndexSearcher.getDefaultQueryCachingPolicy(),
+                    randomBoolean(),
+                    executor,
+                    // create as many slices as possible
+                    Integer.MAX_VALUE,
+                    1
+                );
+                assertEquals(0, searcher.getExecutedSliceCount());
+                Integer totalHits = searcher.search(
+                    new TermQuery(new Term("field", "missing")),
+                    new TotalHitCountCollectorManager(searcher.getSlices())
+                );
+                assertEquals(0, totalHits.intValue());
+                assertEquals(1, searcher.getExecutedSliceCount());
+                totalHits = searcher.search(new MatchAllDocsQuery(), new TotalHitCountCollectorManager(searcher.getSlices()));
+                assertEquals(numDocs, totalHits.intValue());
+                assertEquals(searcher.getSlices().length, searcher.getExecutedSliceCount());
+            }
+        } finally {
+            terminate(executor);
+        }
+    }
+
     public void testContextIndexSearcherSparseNoDeletions() throws IOException {
         doTestContextIndexSearcher(true, false);
     }
@@ -18,10 +18,12 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.CheckedIntConsumer;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.DocIdStream;
 import org.apache.lucene.search.FilterCollector;
 import org.apache.lucene.search.FilterLeafCollector;
 import org.apache.lucene.search.FilterScorable;
@@ -1402,6 +1404,60 @@ public class QueryPhaseCollectorTests extends ESTestCase {
         }
     }
 
+    public void testDocIdStreamIsForwardedWithTopDocsAndAggs() throws IOException {
+        TopScoreDocCollector topDocsCollector = new TopScoreDocCollectorManager(10, null, 1000).newCollector();
+        DocIdStreamCollector aggsCollector = new DocIdStreamCollector();
+        QueryPhaseCollector queryPhaseCollector = new QueryPhaseCollector(
+            topDocsCollector,
+            null,
+            resolveTerminateAfterChecker(0),
+            aggsCollector,
+            null
+        );
+        LeafReaderContext context = searcher.getLeafContexts().get(0);
+        int maxDoc = context.reader().maxDoc();
+        LeafCollector leafCollector = queryPhaseCollector.getLeafCollector(context);
+        leafCollector.setScorer(new MinCompetitiveScoreScorable());
+        leafCollector.collect(allDocs(maxDoc));
+        // the aggs collector gets the docs in blocks rather than one by one, and so does the top docs collector
+        assertEquals(maxDoc, aggsCollector.streamedDocs);
+        assertEquals(0, aggsCollector.collectedDocs);
+        assertEquals(maxDoc, topDocsCollector.topDocs().totalHits.value());
+    }
+
+    public void testDocIdStreamIsNotForwardedWithPostFilter() throws IOException {
+        Weight postFilterWeight = searcher.createWeight(new MatchAllDocsQuery(), ScoreMode.COMPLETE_NO_SCORES, 1.0f);
+        TopScoreDocCollector topDocsCollector = new TopScoreDocCollectorManager(10, null, 1000).newCollector();
+        DocIdStreamCollector aggsCollector = new DocIdStreamCollector();
+        QueryPhaseCollector queryPhaseCollector = new QueryPhaseCollector(
+            topDocsCollector,
+            postFilterWeight,
+            resolveTerminateAfterChecker(0),
+            aggsCollector,
+            null
+        );
+        LeafReaderContext context = searcher.getLeafContexts().get(0);
+        int maxDoc = context.reader().maxDoc();
+        LeafCollector leafCollector = queryPhaseCollector.getLeafCollector(context);
+        leafCollector.setScorer(new MinCompetitiveScoreScorable());
+        leafCollector.collect(allDocs(maxDoc));
+        // the post_filter is checked doc by doc
+        assertEquals(0, aggsCollector.streamedDocs);
+        assertEquals(maxDoc, aggsCollector.collectedDocs);
+        assertEquals(maxDoc, topDocsCollector.topDocs().totalHits.value());
+    }
+
+    private static DocIdStream allDocs(int maxDoc) {
+        return new DocIdStream() {
+            @Override
+            public void forEach(CheckedIntConsumer<IOException> consumer) throws IOException {
+                for (int doc = 0; doc < maxDoc; doc++) {
+                    consumer.accept(doc);
+                }
+            }
+        };
+    }
+
     private static ScoreMode randomScoreModeExceptTopScores() {
         return randomFrom(Arrays.stream(ScoreMode.values()).filter(scoreMode -> scoreMode != ScoreMode.TOP_SCORES).toList());
     }
@@ -1474,6 +1530,26 @@ public class QueryPhaseCollectorTests extends ESTestCase {
         }
     }
 
+    private static class DocIdStreamCollector extends SimpleCollector {
+        private int streamedDocs = 0;
+        private int collectedDocs = 0;
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+
+        @Override
+        public void collect(DocIdStream stream) throws IOException {
+            streamedDocs += stream.count();
+        }
+
+        @Override
+        public void collect(int doc) {
+            collectedDocs++;
+        }
+    }
+
     private static class MockCollector extends SimpleCollector {
         private final ScoreMode scoreMode;
         private final Class<?> expectedScorable;
@@ -92,6 +92,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.search.query.QueryPhaseCollectorManager.hasInfMaxScore;
 import static org.hamcrest.Matchers.anyOf;
@@ -205,6 +206,66 @@ public class QueryPhaseTests extends IndexShardTestCase {
         countTestCase(true);
     }
 
+    public void testSegmentResultsMatchShardResult() throws Exception {
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(dir, iwc);
+        final int numSegments = randomIntBetween(2, 5);
+        for (int i = 0; i < numSegments; ++i) {
+            final int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; ++j) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", randomFrom("bar", "baz"), Store.NO));
+                doc.add(new StringField("delete", randomBoolean() ? "yes" : "no", Store.NO));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        if (randomBoolean()) {
+            w.deleteDocuments(new Term("delete", "yes"));
+            w.commit();
+        }
+        w.close();
+        reader = DirectoryReader.open(dir);
+
+        final Query query = new TermQuery(new Term("foo", "bar"));
+        final AtomicInteger weights = new AtomicInteger();
+        ContextIndexSearcher segmentSearcher = new ContextIndexSearcher(
+            reader,
+            IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(),
+            NEVER_CACHE_POLICY,
+            true
+        ) {
+            @Override
+            public Weight createWeight(Query query, org.apache.lucene.search.ScoreMode scoreMode, float boost) throws IOException {
+                // size:0 requests do not need scores, the query is wrapped into a constant score query before creating its weight
+                if (query instanceof ConstantScoreQuery) {
+                    weights.incrementAndGet();
+                }
+                return super.createWeight(query, scoreMode, boost);
+            }
+        };
+        final TotalHits segmentHits;
+        try (TestSearchContext context = createContext(segmentSearcher, query)) {
+            context.setSize(0);
+            final List<SegmentQueryResult> segmentResults = new ArrayList<>();
+            for (LeafReaderContext leaf : reader.leaves()) {
+                segmentResults.add(QueryPhase.executeOnSegment(context, leaf));
+            }
+            // the query is rewritten and weighted once for the shard request, not once per segment
+            assertEquals(1, weights.get());
+            QueryPhase.setSegmentResults(context, segmentResults);
+            assertEquals(0, context.queryResult().topDocs().topDocs.scoreDocs.length);
+            segmentHits = context.queryResult().topDocs().topDocs.totalHits;
+        }
+        try (TestSearchContext context = createContext(newContextSearcher(reader), query)) {
+            context.setSize(0);
+            QueryPhase.addCollectorsAndSearch(context);
+            assertEquals(0, context.queryResult().topDocs().topDocs.scoreDocs.length);
+            assertEquals(context.queryResult().topDocs().topDocs.totalHits, segmentHits);
+        }
+    }
+
     private int indexDocs() throws IOException {
         return indexDocs(newIndexWriterConfig());
     }
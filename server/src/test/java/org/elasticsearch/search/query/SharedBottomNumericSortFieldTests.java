@@ -0,0 +1,120 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the "Elastic License
+ * 2.0", the "GNU Affero General Public License v3.0 only", and the "Server Side
+ * Public License v 1"; you may not use this file except in compliance with, at
+ * your election, the "Elastic License 2.0", the "GNU Affero General Public
+ * License v3.0 only", or the "Server Side Public License, v 1".
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.TopFieldCollectorManager;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class SharedBottomNumericSortFieldTests extends ESTestCase {
+
+    public void testSameTopHitsAsWithoutSkipping() throws IOException {
+        final boolean skipper = randomBoolean();
+        try (Directory dir = newDirectory(); RandomIndexWriter iw = new RandomIndexWriter(random(), dir)) {
+            final int numDocs = randomIntBetween(1, 5000);
+            for (int i = 0; i < numDocs; i++) {
+                final Document doc = new Document();
+                if (rarely() == false) {
+                    final long value = randomLongBetween(0, 1000);
+                    if (skipper) {
+                        doc.add(SortedNumericDocValuesField.indexedField("field", value));
+                    } else {
+                        doc.add(new LongPoint("field", value));
+                        doc.add(new SortedNumericDocValuesField("field", value));
+                    }
+                }
+                iw.addDocument(doc);
+                if (rarely()) {
+                    iw.commit();
+                }
+            }
+            try (DirectoryReader reader = iw.getReader()) {
+                final IndexSearcher searcher = newSearcher(reader);
+                final SortedNumericSortField sortField = new SortedNumericSortField("field", SortField.Type.LONG, randomBoolean());
+                sortField.setMissingValue(randomFrom(Long.MIN_VALUE, Long.MAX_VALUE, 500L));
+                sortField.setOptimizeSortWithPoints(skipper == false);
+                final Sort sort = new Sort(sortField);
+                final Sort wrapped = SharedBottomNumericSortField.maybeWrap(sort, reader);
+                assertThat(wrapped.getSort()[0], instanceOf(SharedBottomNumericSortField.class));
+
+                final MatchAllDocsQuery query = new MatchAllDocsQuery();
+                final int numHits = randomIntBetween(1, 50);
+                final TopFieldDocs expected = searcher.search(query, new TopFieldCollectorManager(sort, numHits, null, 1));
+                final TopFieldDocs actual = searcher.search(query, new TopFieldCollectorManager(wrapped, numHits, null, 1));
+                assertThat(actual.scoreDocs.length, equalTo(expected.scoreDocs.length));
+                for (int i = 0; i < expected.scoreDocs.length; i++) {
+                    final ScoreDoc expectedDoc = expected.scoreDocs[i];
+                    final ScoreDoc actualDoc = actual.scoreDocs[i];
+                    assertThat(actualDoc.doc, equalTo(expectedDoc.doc));
+                    assertThat(((FieldDoc) actualDoc).fields[0], equalTo(((FieldDoc) expectedDoc).fields[0]));
+                }
+                assertThat(SharedBottomNumericSortField.unwrap(actual.fields)[0], sameInstance(sortField));
+            }
+        }
+    }
+
+    public void testBottomIsSharedAcrossSlices() throws IOException {
+        try (Directory dir = newDirectory(); RandomIndexWriter iw = new RandomIndexWriter(random(), dir)) {
+            for (int i = 0; i < 100; i++) {
+                final Document doc = new Document();
+                doc.add(SortedNumericDocValuesField.indexedField("field", i));
+                iw.addDocument(doc);
+            }
+            try (DirectoryReader reader = iw.getReader()) {
+                final Sort wrapped = SharedBottomNumericSortField.maybeWrap(
+                    new Sort(new SortedNumericSortField("field", SortField.Type.LONG, true)),
+                    reader
+                );
+                // a single slice publishes the bottom of its queue until it holds the ten best values of the shard
+                new IndexSearcher(reader).search(new MatchAllDocsQuery(), new TopFieldCollectorManager(wrapped, 10, null, 1));
+                assertThat(((SharedBottomNumericSortField) wrapped.getSort()[0]).bound(), equalTo(90L));
+            }
+        }
+    }
+
+    public void testOnlyWrapsLongSortsThatAreNotTheIndexSort() throws IOException {
+        final Sort indexSort = new Sort(new SortedNumericSortField("sorted", SortField.Type.LONG));
+        final IndexWriterConfig config = new IndexWriterConfig().setIndexSort(indexSort);
+        try (Directory dir = newDirectory(); RandomIndexWriter iw = new RandomIndexWriter(random(), dir, config)) {
+            final Document doc = new Document();
+            doc.add(new SortedNumericDocValuesField("sorted", 1));
+            doc.add(new SortedNumericDocValuesField("field", 1));
+            iw.addDocument(doc);
+            try (DirectoryReader reader = iw.getReader()) {
+                assertThat(SharedBottomNumericSortField.maybeWrap(indexSort, reader), sameInstance(indexSort));
+                final Sort doubleSort = new Sort(new SortedNumericSortField("field", SortField.Type.DOUBLE));
+                assertThat(SharedBottomNumericSortField.maybeWrap(doubleSort, reader), sameInstance(doubleSort));
+                final Sort longSort = new Sort(new SortedNumericSortField("field", SortField.Type.LONG));
+                assertThat(SharedBottomNumericSortField.maybeWrap(longSort, reader), not(sameInstance(longSort)));
+            }
+        }
+    }
+}
@@ -109,6 +109,15 @@ public class TestBlock implements BlockLoader.Block {
                 return new LongsBuilder();
             }
 
+            @Override
+            public BlockLoader.Block denseLongs(long[] values, int count) {
+                BlockLoader.LongBuilder builder = longs(count);
+                for (int i = 0; i < count; i++) {
+                    builder.appendLong(values[i]);
+                }
+                return builder.build();
+            }
+
             @Override
             public BlockLoader.Builder nulls(int expectedCount) {
                 return longs(expectedCount);
@@ -32,13 +32,17 @@ import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.sandbox.document.HalfFloatPoint;
+import org.apache.lucene.search.CheckedIntConsumer;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.DocIdStream;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.SortedNumericSortField;
@@ -48,6 +52,7 @@ import org.apache.lucene.tests.analysis.MockAnalyzer;
 import org.apache.lucene.tests.index.AssertingDirectoryReader;
 import org.apache.lucene.tests.index.RandomIndexWriter;
 import org.apache.lucene.tests.util.LuceneTestCase;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
 import org.apache.lucene.util.packed.PackedInts;
@@ -1032,6 +1037,86 @@ public abstract class AggregatorTestCase extends ESTestCase {
         }
     }
 
+    /**
+     * Builds the index and runs the aggregation on the documents that match the query twice, once collecting the documents one by
+     * one and once as {@link DocIdStream}s of random sizes, which reach {@link LeafBucketCollector#collect(int[], int, long)} in
+     * blocks, and checks that both collections build the same result.
+     */
+    protected void assertBlockCollectionMatchesPerDoc(
+        AggregationBuilder aggregationBuilder,
+        Query query,
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
+        MappedFieldType... fieldTypes
+    ) throws IOException {
+        try (Directory directory = newDirectory()) {
+            RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+            buildIndex.accept(indexWriter);
+            indexWriter.close();
+
+            try (
+                DirectoryReader unwrapped = DirectoryReader.open(directory);
+                DirectoryReader indexReader = wrapDirectoryReader(unwrapped)
+            ) {
+                InternalAggregation perDoc = collectDirectly(aggregationBuilder, query, indexReader, false, fieldTypes);
+                InternalAggregation inBlocks = collectDirectly(aggregationBuilder, query, indexReader, true, fieldTypes);
+                assertEquals(perDoc, inBlocks);
+            }
+        }
+    }
+
+    private InternalAggregation collectDirectly(
+        AggregationBuilder aggregationBuilder,
+        Query query,
+        IndexReader indexReader,
+        boolean inBlocks,
+        MappedFieldType... fieldTypes
+    ) throws IOException {
+        try (AggregationContext context = createAggregationContext(indexReader, query, fieldTypes)) {
+            Aggregator aggregator = createAggregator(aggregationBuilder, context);
+            aggregator.preCollection();
+            IndexSearcher searcher = context.searcher();
+            Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+            for (LeafReaderContext leaf : indexReader.leaves()) {
+                LeafBucketCollector collector = aggregator.getLeafCollector(new AggregationExecutionContext(leaf, null, null, null));
+                Scorer scorer = weight.scorer(leaf);
+                if (scorer == null) {
+                    continue;
+                }
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                DocIdSetIterator iterator = scorer.iterator();
+                List<Integer> docs = new ArrayList<>();
+                for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        docs.add(doc);
+                    }
+                }
+                if (inBlocks == false) {
+                    for (int doc : docs) {
+                        collector.collect(doc, 0);
+                    }
+                    continue;
+                }
+                // streams larger than a block are split into several blocks by the collector
+                int from = 0;
+                while (from < docs.size()) {
+                    int to = Math.min(docs.size(), from + between(1, 2 * LeafBucketCollector.MAX_BLOCK_SIZE));
+                    List<Integer> stream = docs.subList(from, to);
+                    collector.collect(new DocIdStream() {
+                        @Override
+                        public void forEach(CheckedIntConsumer<IOException> consumer) throws IOException {
+                            for (int doc : stream) {
+                                consumer.accept(doc);
+                            }
+                        }
+                    });
+                    from = to;
+                }
+            }
+            aggregator.postCollection();
+            return aggregator.buildTopLevel();
+        }
+    }
+
     private static void verifyMetricNames(
         ValuesSourceAggregationBuilder.MetricsAggregationBuilder<?> aggregationBuilder,
         InternalAggregation agg
@@ -618,10 +618,28 @@ public class SharedBlobCacheService<KeyType> implements Releasable {
         final RangeMissingHandler writer,
         final Executor fetchExecutor,
         final ActionListener<Boolean> listener
+    ) {
+        maybeFetchRange(cacheKey, region, range, blobLength, writer, fetchExecutor, false, listener);
+    }
+
+    private void maybeFetchRange(
+        final KeyType cacheKey,
+        final int region,
+        final ByteRange range,
+        final long blobLength,
+        final RangeMissingHandler writer,
+        final Executor fetchExecutor,
+        final boolean prefetch,
+        final ActionListener<Boolean> listener
     ) {
         if (freeRegionCount() < 1 && maybeEvictLeastUsed() == false) {
             // no free page available and no old enough unused region to be evicted
-            logger.info("No free regions, skipping loading region [{}]", region);
+            if (prefetch) {
+                // prefetches are best effort and requested for many ranges at once, a full cache is expected and not worth logging
+                logger.trace("No free regions, skipping prefetching region [{}]", region);
+            } else {
+                logger.info("No free regions, skipping loading region [{}]", region);
+            }
             listener.onResponse(false);
             return;
         }
@@ -1226,6 +1244,44 @@ public class SharedBlobCacheService<KeyType> implements Releasable {
             return readMultiRegions(rangeToWrite, rangeToRead, reader, writerInstrumentationDecorator, startRegion, endRegion);
         }
 
+        /**
+         * Populates the cache with the given range of the file in the background, without reading it. This is best effort: the regions
+         * of the range that are already available or pending are skipped, as are the regions that cannot be allocated because there is
+         * no free region in the cache.
+         *
+         * @param rangeToWrite  the range of the file to fetch
+         * @param writer        a writer that handles writing of newly downloaded data to the shared cache
+         * @param fetchExecutor an executor to use for reading from the blob store
+         * @param listener      a listener that is completed once the fetches triggered by this call completed
+         */
+        public void maybeFetchRange(
+            final ByteRange rangeToWrite,
+            final RangeMissingHandler writer,
+            final Executor fetchExecutor,
+            final ActionListener<Void> listener
+        ) {
+            if (rangeToWrite.isEmpty()) {
+                listener.onResponse(null);
+                return;
+            }
+            final int startRegion = getRegion(rangeToWrite.start());
+            final int endRegion = getEndingRegion(rangeToWrite.end());
+            try (var listeners = new RefCountingListener(listener)) {
+                for (int region = startRegion; region <= endRegion; region++) {
+                    SharedBlobCacheService.this.maybeFetchRange(
+                        cacheKey,
+                        region,
+                        rangeToWrite,
+                        length,
+                        writer,
+                        fetchExecutor,
+                        true,
+                        listeners.acquire(ignored -> {})
+                    );
+                }
+            }
+        }
+
         private int readSingleRegion(
             ByteRange rangeToWrite,
             ByteRange rangeToRead,
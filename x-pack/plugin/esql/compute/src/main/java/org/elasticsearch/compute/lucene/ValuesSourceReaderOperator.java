@@ -22,6 +22,8 @@ import org.elasticsearch.compute.data.DocBlock;
 import org.elasticsearch.compute.data.DocVector;
 import org.elasticsearch.compute.data.ElementType;
 import org.elasticsearch.compute.data.IntVector;
+import org.elasticsearch.compute.data.LongBlock;
+import org.elasticsearch.compute.data.LongVector;
 import org.elasticsearch.compute.data.Page;
 import org.elasticsearch.compute.data.SingletonOrdinalsBuilder;
 import org.elasticsearch.compute.operator.AbstractPageMappingOperator;
@@ -674,6 +676,16 @@ public class ValuesSourceReaderOperator extends AbstractPageMappingOperator {
             return factory.newLongBlockBuilder(expectedCount);
         }
 
+        @Override
+        public LongBlock denseLongs(long[] values, int count) {
+            try (LongVector.FixedBuilder builder = factory.newLongVectorFixedBuilder(count)) {
+                for (int i = 0; i < count; i++) {
+                    builder.appendLong(i, values[i]);
+                }
+                return builder.build().asBlock();
+            }
+        }
+
         @Override
         public BlockLoader.Builder nulls(int expectedCount) {
             return ElementType.NULL.newBlockBuilder(expectedCount, factory);
@@ -24,9 +24,12 @@ import org.elasticsearch.xpack.searchablesnapshots.cache.common.CacheKey;
 import org.elasticsearch.xpack.searchablesnapshots.store.IndexInputStats;
 import org.elasticsearch.xpack.searchablesnapshots.store.SearchableSnapshotDirectory;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 
+import static org.elasticsearch.core.Strings.format;
+
 public final class FrozenIndexInput extends MetadataCachingIndexInput {
 
     private static final Logger logger = LogManager.getLogger(FrozenIndexInput.class);
@@ -147,38 +150,7 @@ public final class FrozenIndexInput extends MetadataCachingIndexInput {
                 final int read = SharedBytes.readCacheFile(channel, pos, relativePos, len, byteBufferReference);
                 stats.addCachedBytesRead(read);
                 return read;
-            },
-                (channel, channelPos, streamFactory, relativePos, len, progressUpdater, completionListener) -> ActionListener.completeWith(
-                    completionListener,
-                    () -> {
-                        assert streamFactory == null : streamFactory;
-                        final long startTimeNanos = stats.currentTimeNanos();
-                        try (InputStream input = openInputStreamFromBlobStore(rangeToWrite.start() + relativePos, len)) {
-                            assert ThreadPool.assertCurrentThreadPool(SearchableSnapshots.CACHE_FETCH_ASYNC_THREAD_POOL_NAME);
-                            logger.trace(
-                                "{}: writing channel {} pos {} length {} (details: {})",
-                                fileInfo.physicalName(),
-                                channelPos,
-                                relativePos,
-                                len,
-                                cacheFile
-                            );
-                            SharedBytes.copyToCacheFileAligned(
-                                channel,
-                                input,
-                                channelPos,
-                                relativePos,
-                                len,
-                                progressUpdater,
-                                writeBuffer.get().clear()
-                            );
-                            final long endTimeNanos = stats.currentTimeNanos();
-                            stats.addCachedBytesWritten(len, endTimeNanos - startTimeNanos);
-                            return null;
-                        }
-                    }
-                )
-            );
+            }, writer(rangeToWrite));
             assert bytesRead == length : bytesRead + " vs " + length;
             byteBufferReference.finish(bytesRead);
         } finally {
@@ -186,6 +158,73 @@ public final class FrozenIndexInput extends MetadataCachingIndexInput {
         }
     }
 
+    /**
+     * Fetches the given range of the file into the cache in the background so that reading it later does not have to wait for the
+     * blob store. This allows Lucene to fetch several ranges in parallel, for instance the stored fields blocks of all the hits of a
+     * segment, instead of fetching them one after the other as they are read.
+     */
+    @Override
+    public void prefetch(long offset, long length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > length()) {
+            throw new IllegalArgumentException(
+                "prefetch out of bounds: offset=" + offset + ",length=" + length + ",fileLength=" + length() + ": " + this
+            );
+        }
+        if (length == 0) {
+            return;
+        }
+        final long position = toAbsolutePosition(offset);
+        final ByteRange rangeToWrite = BlobCacheUtils.computeRange(
+            directory.isRecoveryFinalized() ? defaultRangeSize : recoveryRangeSize,
+            position,
+            length,
+            fileInfo.length()
+        );
+        logger.trace("prefetch: fetching [{}] for [{}-{}] from [{}]", rangeToWrite, position, position + length, this);
+        cacheFile.maybeFetchRange(
+            rangeToWrite,
+            writer(rangeToWrite),
+            directory.cacheFetchAsyncExecutor(),
+            ActionListener.wrap(
+                ignored -> {},
+                e -> logger.debug(() -> format("%s: failed to prefetch %s", fileInfo.physicalName(), rangeToWrite), e)
+            )
+        );
+    }
+
+    private SharedBlobCacheService.RangeMissingHandler writer(ByteRange rangeToWrite) {
+        return (channel, channelPos, streamFactory, relativePos, len, progressUpdater, completionListener) -> ActionListener.completeWith(
+            completionListener,
+            () -> {
+                assert streamFactory == null : streamFactory;
+                final long startTimeNanos = stats.currentTimeNanos();
+                try (InputStream input = openInputStreamFromBlobStore(rangeToWrite.start() + relativePos, len)) {
+                    assert ThreadPool.assertCurrentThreadPool(SearchableSnapshots.CACHE_FETCH_ASYNC_THREAD_POOL_NAME);
+                    logger.trace(
+                        "{}: writing channel {} pos {} length {} (details: {})",
+                        fileInfo.physicalName(),
+                        channelPos,
+                        relativePos,
+                        len,
+                        cacheFile
+                    );
+                    SharedBytes.copyToCacheFileAligned(
+                        channel,
+                        input,
+                        channelPos,
+                        relativePos,
+                        len,
+                        progressUpdater,
+                        writeBuffer.get().clear()
+                    );
+                    final long endTimeNanos = stats.currentTimeNanos();
+                    stats.addCachedBytesWritten(len, endTimeNanos - startTimeNanos);
+                    return null;
+                }
+            }
+        );
+    }
+
     @Override
     protected MetadataCachingIndexInput doSlice(
         String sliceName,
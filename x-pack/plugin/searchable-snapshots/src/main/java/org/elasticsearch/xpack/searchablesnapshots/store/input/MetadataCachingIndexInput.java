@@ -239,7 +239,14 @@ public abstract class MetadataCachingIndexInput extends BlobCacheBufferedIndexIn
     }
 
     protected long getAbsolutePosition() {
-        final long position = getFilePointer() + this.offset;
+        return toAbsolutePosition(getFilePointer());
+    }
+
+    /**
+     * Returns the position in the file of the given position of this input.
+     */
+    protected long toAbsolutePosition(long pos) {
+        final long position = pos + this.offset;
         assert position >= 0L : "absolute position is negative: " + position;
         assert position <= fileInfo.length() : position + " vs " + fileInfo.length();
         return position;
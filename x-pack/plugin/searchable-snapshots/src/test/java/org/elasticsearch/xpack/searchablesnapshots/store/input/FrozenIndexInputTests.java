@@ -134,6 +134,14 @@ public class FrozenIndexInputTests extends AbstractSearchableSnapshotsTestCase {
             assertEquals(fileData.length, indexInput.length());
             assertEquals(0, indexInput.getFilePointer());
 
+            // prefetching populates the cache in the background and must not change what is read
+            for (int i = between(0, 5); i > 0; i--) {
+                final long offset = randomLongBetween(0L, fileData.length);
+                indexInput.prefetch(offset, randomLongBetween(0L, fileData.length - offset));
+            }
+            final long outOfBoundsOffset = randomLongBetween(0L, fileData.length);
+            expectThrows(IllegalArgumentException.class, () -> indexInput.prefetch(outOfBoundsOffset, fileData.length + 1L));
+
             final byte[] result = randomReadAndSlice(indexInput, fileData.length);
             assertArrayEquals(fileData, result);
 